@@ -0,0 +1,136 @@
+package com.pahanaedu.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import com.pahanaedu.models.Product;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * Embedded MariaDB for the benchmarks that go through the DAOs.
+ *
+ * Loaded from pahana-db.sql (bundled into the benchmarks jar) plus the synthetic catalog,
+ * and db.url/db.username/db.password are pointed at it, so call start() before anything
+ * touches DatabaseConnection. One database per forked JVM; it is stopped on exit.
+ */
+public final class BenchmarkDatabase {
+
+    public static final String NAME = "pahana-db";
+
+    private static final String SCRIPT = "pahana-db.sql";
+    private static final int BATCH_SIZE = 1000;
+    private static final String INSERT_PRODUCT =
+        "INSERT INTO products (id, title, author, isbn, category_id, description, price, offer_price, " +
+        "stock_quantity, image_path, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static DB db;
+    private static int port;
+
+    private BenchmarkDatabase() {}
+
+    public static synchronized void start(List<Product> catalog) throws Exception {
+        if (db != null) {
+            throw new IllegalStateException("The benchmark database is already running");
+        }
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        // mysqld refuses to run as root unless told to
+        config.addArg("--user=" + System.getProperty("user.name"));
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        port = config.getPort();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                db.stop();
+            } catch (Exception e) {
+                // Exiting anyway
+            }
+        }));
+
+        try (Connection connection = DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/", "root", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE `" + NAME + "` CHARACTER SET utf8mb4");
+        }
+        runScript(readScript());
+        insertProducts(catalog);
+
+        System.setProperty("db.url", "jdbc:mysql://localhost:" + port + "/" + NAME + "?useServerPrepStmts=true");
+        System.setProperty("db.username", "root");
+        System.setProperty("db.password", "");
+    }
+
+    private static Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/" + NAME
+                + "?allowMultiQueries=true&rewriteBatchedStatements=true", "root", "");
+    }
+
+    /**
+     * Run a script of ;-separated statements; the first failing statement throws
+     */
+    private static void runScript(String sql) throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            boolean isResultSet = statement.execute(sql);
+            // Step through every statement's result so an error further down is raised too
+            while (isResultSet || statement.getUpdateCount() != -1) {
+                isResultSet = statement.getMoreResults();
+            }
+        }
+    }
+
+    private static void insertProducts(List<Product> catalog) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT)) {
+            connection.setAutoCommit(false);
+            int pending = 0;
+            for (Product product : catalog) {
+                statement.setInt(1, product.getId());
+                statement.setString(2, product.getTitle());
+                statement.setString(3, product.getAuthor());
+                statement.setString(4, product.getIsbn());
+                statement.setInt(5, product.getCategoryId());
+                statement.setString(6, product.getDescription());
+                statement.setBigDecimal(7, product.getPrice());
+                statement.setBigDecimal(8, product.getOfferPrice());
+                statement.setInt(9, product.getStockQuantity());
+                statement.setString(10, product.getImagePath());
+                statement.setString(11, product.getStatus());
+                statement.setTimestamp(12, product.getCreatedAt());
+                statement.setTimestamp(13, product.getUpdatedAt());
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    statement.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                statement.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private static String readScript() throws IOException {
+        try (InputStream in = BenchmarkDatabase.class.getClassLoader().getResourceAsStream(SCRIPT)) {
+            if (in == null) {
+                throw new IOException(SCRIPT + " not found on the classpath");
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.pahanaedu.benchmarks;
+
+import java.io.Writer;
+
+/**
+ * Discards what is written, keeping only the character count, so serialization is
+ * measured without the cost of growing a buffer
+ */
+public final class CountingWriter extends Writer {
+
+    private long count;
+
+    @Override
+    public void write(int c) {
+        count++;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+        count += length;
+    }
+
+    @Override
+    public void write(String str, int offset, int length) {
+        count += length;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+}
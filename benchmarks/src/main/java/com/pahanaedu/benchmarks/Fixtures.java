@@ -0,0 +1,179 @@
+package com.pahanaedu.benchmarks;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import com.pahanaedu.models.Order;
+import com.pahanaedu.models.OrderItem;
+import com.pahanaedu.models.Product;
+
+/**
+ * Synthetic catalog, orders and POS baskets. Seeded, so every run (and every fork) sees
+ * the same data.
+ *
+ * The text is shaped like the real catalog: mostly plain ASCII, with the odd quote, line
+ * break or Sinhala title so the escaping paths are exercised too.
+ */
+public final class Fixtures {
+
+    public static final int CATEGORY_COUNT = 6; // categories 1-6 in pahana-db.sql
+    public static final int FIRST_PRODUCT_ID = 1000; // clear of the sample products
+
+    private static final String[] WORDS = {
+        "harry", "potter", "madol", "doova", "gamperaliya", "history", "science", "mathematics",
+        "grade", "garden", "secret", "island", "river", "mountain", "stories", "kingdom",
+        "english", "physics", "chemistry", "biology", "poems", "journey", "night", "village"
+    };
+    private static final String[] AUTHORS = {
+        "Martin Wickramasinghe", "J.K. Rowling", "Local Author", "Kumaratunga Munidasa",
+        "Enid Blyton", "Ediriweera Sarachchandra", "George Orwell", "Harper Lee"
+    };
+    private static final String[] DESCRIPTIONS = {
+        "Classic novel, reprinted with a new introduction.",
+        "Past papers and model answers for the \"O/L\" exam.\nIncludes marking schemes.",
+        "Illustrated edition for young readers",
+        "සිංහල නවකතාව - new edition",
+        "Textbook covering the full syllabus: theory, worked examples & exercises."
+    };
+    private static final Timestamp CREATED_AT = Timestamp.valueOf("2026-01-15 09:30:00");
+
+    private Fixtures() {}
+
+    public static List<Product> products(int count) {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product();
+            product.setId(FIRST_PRODUCT_ID + i);
+            product.setTitle(title(random) + " " + (i + 1));
+            product.setAuthor(AUTHORS[random.nextInt(AUTHORS.length)]);
+            product.setIsbn(String.format("978-955-%04d-%03d", i / 1000, i % 1000));
+            product.setCategoryId(1 + random.nextInt(CATEGORY_COUNT));
+            product.setCategoryName("Category " + product.getCategoryId());
+            product.setDescription(DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+            product.setPrice(BigDecimal.valueOf(300 + random.nextInt(4700)).setScale(2));
+            if (random.nextInt(4) == 0) {
+                product.setOfferPrice(product.getPrice().multiply(new BigDecimal("0.85")).setScale(2, BigDecimal.ROUND_HALF_UP));
+            }
+            product.setStockQuantity(random.nextInt(200));
+            if (random.nextInt(3) > 0) {
+                product.setImagePath(String.format("uploads/products/%064x.jpg", random.nextLong() & Long.MAX_VALUE));
+            }
+            product.setStatus(random.nextInt(10) == 0 ? "inactive" : "active");
+            product.setCreatedAt(new Timestamp(CREATED_AT.getTime() + i * 60_000L));
+            product.setUpdatedAt(product.getCreatedAt());
+            products.add(product);
+        }
+        return products;
+    }
+
+    /**
+     * Orders of one to five lines each, drawn from the given products
+     */
+    public static List<Order> orders(int count, List<Product> products) {
+        Random random = new Random(7);
+        List<Order> orders = new ArrayList<>(count);
+        int itemId = 1;
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setId(i + 1);
+            order.setUserId(2);
+            order.setOrderNumber(String.format("ORD%010d", i + 1));
+            order.setStatus("pending");
+            order.setCustomerName("Customer " + (i % 500));
+            order.setCustomerEmail("customer" + (i % 500) + "@example.com");
+            order.setCustomerPhone("0771234567");
+            order.setShippingAddress("No. " + (i % 300) + ", Galle Road, Colombo 03");
+            order.setCreatedAt(new Timestamp(CREATED_AT.getTime() + i * 1_000L));
+
+            List<OrderItem> items = new ArrayList<>();
+            BigDecimal total = BigDecimal.ZERO;
+            int lines = 1 + random.nextInt(5);
+            for (int line = 0; line < lines; line++) {
+                Product product = products.get(random.nextInt(products.size()));
+                OrderItem item = new OrderItem();
+                item.setId(itemId++);
+                item.setOrderId(order.getId());
+                item.setProductId(product.getId());
+                item.setProductTitle(product.getTitle());
+                item.setProductAuthor(product.getAuthor());
+                item.setProductImage(product.getImagePath());
+                item.setProductIsbn(product.getIsbn());
+                item.setProductDescription(product.getDescription());
+                item.setQuantity(1 + random.nextInt(3));
+                item.setUnitPrice(product.getPrice());
+                item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+                items.add(item);
+                total = total.add(item.getTotalPrice());
+            }
+            order.setOrderItems(items);
+            order.setTotalAmount(total);
+            order.setDiscountAmount(BigDecimal.ZERO);
+            order.setFinalAmount(total);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    /**
+     * A POS order with the given number of lines, as StaffService.generateBillHTML gets it
+     */
+    public static Order posOrder(int lines) {
+        Order order = new Order();
+        order.setOrderNumber("ORD0000000001");
+        order.setCreatedAt(CREATED_AT);
+        List<OrderItem> items = new ArrayList<>(lines);
+        BigDecimal total = BigDecimal.ZERO;
+        for (Product product : products(lines)) {
+            OrderItem item = new OrderItem();
+            item.setProductId(product.getId());
+            item.setProductTitle(product.getTitle());
+            item.setQuantity(2);
+            item.setUnitPrice(product.getPrice());
+            item.setTotalPrice(product.getPrice().multiply(BigDecimal.valueOf(2)));
+            items.add(item);
+            total = total.add(item.getTotalPrice());
+        }
+        order.setOrderItems(items);
+        order.setCustomerName("Walk-in Customer");
+        order.setShippingAddress("Payment: Card | Notes: Gift wrap");
+        order.setTotalAmount(total);
+        order.setFinalAmount(total);
+        return order;
+    }
+
+    /**
+     * The orderItems parameter the POS page posts for a basket of the given size
+     */
+    public static String posBasketJson(int lines) {
+        StringBuilder json = new StringBuilder("[");
+        for (Product product : products(lines)) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append("{\"productId\":").append(product.getId())
+                .append(",\"productTitle\":\"").append(product.getTitle()).append('"')
+                .append(",\"quantity\":2")
+                .append(",\"unitPrice\":").append(product.getPrice())
+                .append(",\"totalPrice\":").append(product.getPrice().multiply(BigDecimal.valueOf(2)))
+                .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static String title(Random random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+        }
+        return title.toString();
+    }
+}
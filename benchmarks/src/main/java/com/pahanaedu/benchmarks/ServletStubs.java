@@ -0,0 +1,55 @@
+package com.pahanaedu.benchmarks;
+
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Just enough of a request and response to call a service handler outside a container:
+ * the request answers getParameter from a map, the response writes its body to the given
+ * writer, and everything else is a no-op returning null, zero or false.
+ */
+public final class ServletStubs {
+
+    private ServletStubs() {}
+
+    public static HttpServletRequest request(Map<String, String> parameters) {
+        return (HttpServletRequest) Proxy.newProxyInstance(ServletStubs.class.getClassLoader(),
+            new Class<?>[] { HttpServletRequest.class }, (proxy, method, args) -> {
+                if (method.getName().equals("getParameter")) {
+                    return parameters.get((String) args[0]);
+                }
+                return defaultValue(method);
+            });
+    }
+
+    public static HttpServletResponse response(Writer body) {
+        PrintWriter writer = new PrintWriter(body);
+        return (HttpServletResponse) Proxy.newProxyInstance(ServletStubs.class.getClassLoader(),
+            new Class<?>[] { HttpServletResponse.class }, (proxy, method, args) -> {
+                if (method.getName().equals("getWriter")) {
+                    return writer;
+                }
+                return defaultValue(method);
+            });
+    }
+
+    private static Object defaultValue(Method method) {
+        Class<?> type = method.getReturnType();
+        if (type == boolean.class) {
+            return false;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,112 @@
+package com.pahanaedu.benchmarks.legacy;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.pahanaedu.models.Order;
+import com.pahanaedu.models.OrderItem;
+import com.pahanaedu.models.Product;
+
+/**
+ * CustomerService's StringBuilder serializers and escapeJsonString as they were before
+ * JsonWriter, kept only as the baseline for CustomerSerializationBenchmark and
+ * JsonEscapeBenchmark. serializeOrders no longer loads the items itself; the fixtures
+ * come with them.
+ */
+public final class LegacyJsonSerialization {
+
+    private LegacyJsonSerialization() {}
+
+    public static String serializeProducts(List<Product> products) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < products.size(); i++) {
+            if (i > 0) json.append(",");
+            json.append(serializeSingleProduct(products.get(i)));
+        }
+        json.append("]");
+        return json.toString();
+    }
+
+    private static String serializeSingleProduct(Product product) {
+        StringBuilder json = new StringBuilder();
+        json.append("{");
+        json.append("\"id\": ").append(product.getId()).append(",");
+        json.append("\"title\": \"").append(escapeJsonString(product.getTitle())).append("\",");
+        json.append("\"author\": \"").append(escapeJsonString(product.getAuthor() != null ? product.getAuthor() : "")).append("\",");
+        json.append("\"isbn\": \"").append(escapeJsonString(product.getIsbn() != null ? product.getIsbn() : "")).append("\",");
+        json.append("\"categoryId\": ").append(product.getCategoryId()).append(",");
+        json.append("\"categoryName\": \"").append(escapeJsonString(product.getCategoryName() != null ? product.getCategoryName() : "")).append("\",");
+        json.append("\"description\": \"").append(escapeJsonString(product.getDescription() != null ? product.getDescription() : "")).append("\",");
+        json.append("\"price\": ").append(product.getPrice()).append(",");
+        json.append("\"offerPrice\": ").append(product.getOfferPrice() != null ? product.getOfferPrice() : "null").append(",");
+        json.append("\"stockQuantity\": ").append(product.getStockQuantity()).append(",");
+        json.append("\"imagePath\": \"").append(escapeJsonString(product.getImagePath() != null ? product.getImagePath() : "")).append("\",");
+        json.append("\"status\": \"").append(escapeJsonString(product.getStatus())).append("\",");
+        json.append("\"isOnOffer\": ").append(product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0).append(",");
+        json.append("\"displayPrice\": ").append(product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 ? product.getOfferPrice() : product.getPrice()).append(",");
+        json.append("\"savings\": ").append(product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 ? product.getPrice().subtract(product.getOfferPrice()) : "0").append(",");
+        json.append("\"createdAt\": \"").append(product.getCreatedAt()).append("\"");
+        json.append("}");
+        return json.toString();
+    }
+
+    public static String serializeOrders(List<Order> orders) {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < orders.size(); i++) {
+            if (i > 0) json.append(",");
+            Order order = orders.get(i);
+            List<OrderItem> orderItems = order.getOrderItems();
+
+            json.append("{");
+            json.append("\"id\": ").append(order.getId()).append(",");
+            json.append("\"orderNumber\": \"").append(escapeJsonString(order.getOrderNumber())).append("\",");
+            json.append("\"totalAmount\": ").append(order.getTotalAmount()).append(",");
+            json.append("\"discountAmount\": ").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "0").append(",");
+            json.append("\"finalAmount\": ").append(order.getFinalAmount()).append(",");
+            json.append("\"status\": \"").append(escapeJsonString(order.getStatus())).append("\",");
+            json.append("\"customerName\": \"").append(escapeJsonString(order.getCustomerName())).append("\",");
+            json.append("\"customerEmail\": \"").append(escapeJsonString(order.getCustomerEmail() != null ? order.getCustomerEmail() : "")).append("\",");
+            json.append("\"customerPhone\": \"").append(escapeJsonString(order.getCustomerPhone() != null ? order.getCustomerPhone() : "")).append("\",");
+            json.append("\"shippingAddress\": \"").append(escapeJsonString(order.getShippingAddress() != null ? order.getShippingAddress() : "")).append("\",");
+            json.append("\"promoCode\": \"").append(escapeJsonString(order.getPromoCode() != null ? order.getPromoCode() : "")).append("\",");
+            json.append("\"createdAt\": \"").append(order.getCreatedAt()).append("\",");
+
+            // Add order items array
+            json.append("\"orderItems\": [");
+            if (orderItems != null && !orderItems.isEmpty()) {
+                for (int j = 0; j < orderItems.size(); j++) {
+                    if (j > 0) json.append(",");
+                    OrderItem item = orderItems.get(j);
+
+                    json.append("{");
+                    json.append("\"id\": ").append(item.getId()).append(",");
+                    json.append("\"productId\": ").append(item.getProductId()).append(",");
+                    json.append("\"productTitle\": \"").append(escapeJsonString(item.getProductTitle() != null ? item.getProductTitle() : "")).append("\",");
+                    json.append("\"productAuthor\": \"").append(escapeJsonString(item.getProductAuthor() != null ? item.getProductAuthor() : "")).append("\",");
+                    json.append("\"productImage\": \"").append(escapeJsonString(item.getProductImage() != null ? item.getProductImage() : "")).append("\",");
+                    json.append("\"productIsbn\": \"").append(escapeJsonString(item.getProductIsbn() != null ? item.getProductIsbn() : "")).append("\",");
+                    json.append("\"quantity\": ").append(item.getQuantity()).append(",");
+                    json.append("\"unitPrice\": ").append(item.getUnitPrice()).append(",");
+                    json.append("\"totalPrice\": ").append(item.getTotalPrice());
+                    json.append("}");
+                }
+            }
+            json.append("]");
+
+            json.append("}");
+        }
+        json.append("]");
+        return json.toString();
+    }
+
+    public static String escapeJsonString(String str) {
+        if (str == null) return "";
+        return str.replace("\\", "\\\\")
+                 .replace("\"", "\\\"")
+                 .replace("\n", "\\n")
+                 .replace("\r", "\\r")
+                 .replace("\t", "\\t")
+                 .replace("\b", "\\b")
+                 .replace("\f", "\\f");
+    }
+}
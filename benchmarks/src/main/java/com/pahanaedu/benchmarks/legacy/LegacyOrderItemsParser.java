@@ -0,0 +1,70 @@
+package com.pahanaedu.benchmarks.legacy;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pahanaedu.models.OrderItem;
+
+/**
+ * StaffService.parseOrderItemsFromJson as it was before the JsonReader rewrite, kept
+ * only as the baseline for StaffPosBenchmark. Splits on "},{", "," and ":"; titles
+ * containing those break it, which the benchmark fixtures avoid.
+ */
+public final class LegacyOrderItemsParser {
+
+    private LegacyOrderItemsParser() {}
+
+    public static List<OrderItem> parseOrderItemsFromJson(String orderItemsJson) {
+        // Simple JSON parsing for order items
+        List<OrderItem> items = new ArrayList<>();
+
+        try {
+            // Remove brackets and split by },{ pattern
+            orderItemsJson = orderItemsJson.trim();
+            if (orderItemsJson.startsWith("[")) orderItemsJson = orderItemsJson.substring(1);
+            if (orderItemsJson.endsWith("]")) orderItemsJson = orderItemsJson.substring(0, orderItemsJson.length() - 1);
+
+            String[] itemStrings = orderItemsJson.split("\\},\\{");
+
+            for (String itemString : itemStrings) {
+                itemString = itemString.replace("{", "").replace("}", "");
+                String[] pairs = itemString.split(",");
+
+                OrderItem item = new OrderItem();
+                for (String pair : pairs) {
+                    String[] keyValue = pair.split(":");
+                    if (keyValue.length == 2) {
+                        String key = keyValue[0].trim().replace("\"", "");
+                        String value = keyValue[1].trim().replace("\"", "");
+
+                        switch (key) {
+                            case "productId":
+                                item.setProductId(Integer.parseInt(value));
+                                break;
+                            case "productTitle":
+                                item.setProductTitle(value);
+                                break;
+                            case "quantity":
+                                item.setQuantity(Integer.parseInt(value));
+                                break;
+                            case "unitPrice":
+                                item.setUnitPrice(new BigDecimal(value));
+                                break;
+                        }
+                    }
+                }
+
+                if (item.getProductId() > 0 && item.getQuantity() > 0) {
+                    item.setTotalPrice(item.getUnitPrice().multiply(new BigDecimal(item.getQuantity())));
+                    items.add(item);
+                }
+            }
+
+        } catch (Exception e) {
+            // The original logged and returned what it had so far
+        }
+
+        return items;
+    }
+}
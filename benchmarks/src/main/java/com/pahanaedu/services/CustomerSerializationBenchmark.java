@@ -0,0 +1,93 @@
+package com.pahanaedu.services;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pahanaedu.benchmarks.CountingWriter;
+import com.pahanaedu.benchmarks.Fixtures;
+import com.pahanaedu.benchmarks.legacy.LegacyJsonSerialization;
+import com.pahanaedu.models.Order;
+import com.pahanaedu.models.Product;
+import com.pahanaedu.utils.JsonWriter;
+
+/**
+ * Storefront product and order listings written through JsonWriter, as the customer
+ * endpoints stream them to the response. Orders come one per ten products, with their
+ * items already loaded, so only serialization is measured.
+ *
+ * The *Legacy variants are the StringBuilder serializers JsonWriter replaced: the whole
+ * response is built as a String and then printed. The current product output also carries
+ * the three derived image paths. Run with -prof gc to compare allocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerSerializationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private CustomerService service;
+    private List<Product> products;
+    private List<Order> orders;
+    private final CountingWriter out = new CountingWriter();
+
+    @Setup
+    public void setUp() {
+        service = CustomerService.getInstance();
+        products = Fixtures.products(size);
+        orders = Fixtures.orders(size / 10, products);
+    }
+
+    @Benchmark
+    public long serializeProducts() throws IOException {
+        out.reset();
+        JsonWriter json = new JsonWriter(out);
+        service.writeProducts(json, products);
+        json.flush();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long serializeOrders() throws IOException {
+        out.reset();
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray();
+        for (Order order : orders) {
+            service.writeOrder(json, order, false);
+        }
+        json.endArray();
+        json.flush();
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long serializeProductsLegacy() throws IOException {
+        out.reset();
+        out.write(LegacyJsonSerialization.serializeProducts(products));
+        return out.getCount();
+    }
+
+    @Benchmark
+    public long serializeOrdersLegacy() throws IOException {
+        out.reset();
+        out.write(LegacyJsonSerialization.serializeOrders(orders));
+        return out.getCount();
+    }
+}
@@ -0,0 +1,111 @@
+package com.pahanaedu.services;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pahanaedu.benchmarks.BenchmarkDatabase;
+import com.pahanaedu.benchmarks.CountingWriter;
+import com.pahanaedu.benchmarks.Fixtures;
+import com.pahanaedu.benchmarks.ServletStubs;
+
+/**
+ * The storefront listing endpoints end to end, from request parameters to the streamed
+ * response, against an embedded database holding the synthetic catalog:
+ *
+ *   filter      - category, price range and sort pushed down to MySQL, one 24-product page
+ *   filterNext  - the same query seeking from a cursor, as "load more" does
+ *   list        - the whole active catalog from the catalog cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductFilterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int size;
+
+    private CustomerService service;
+    private HttpServletRequest filter;
+    private HttpServletRequest filterNext;
+    private HttpServletRequest list;
+    private final CountingWriter out = new CountingWriter();
+
+    @Setup
+    public void setUp() throws Exception {
+        BenchmarkDatabase.start(Fixtures.products(size));
+        service = CustomerService.getInstance();
+
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("action", "filter");
+        parameters.put("categoryId", "3");
+        parameters.put("minPrice", "500");
+        parameters.put("maxPrice", "3000");
+        parameters.put("sortBy", "price_asc");
+        parameters.put("limit", "24");
+        filter = ServletStubs.request(parameters);
+
+        Map<String, String> next = new HashMap<>(parameters);
+        next.put("cursor", nextCursor(parameters));
+        filterNext = ServletStubs.request(next);
+
+        Map<String, String> all = new HashMap<>();
+        all.put("action", "list");
+        list = ServletStubs.request(all);
+    }
+
+    /**
+     * The cursor the first page hands out, taken from its response
+     */
+    private String nextCursor(Map<String, String> parameters) throws IOException {
+        StringWriter body = new StringWriter();
+        service.handleProductOperations(ServletStubs.request(parameters), ServletStubs.response(body));
+        String json = body.toString();
+        int start = json.indexOf("\"nextCursor\":\"");
+        if (start < 0) {
+            throw new IllegalStateException("No next page in " + json);
+        }
+        start += "\"nextCursor\":\"".length();
+        return json.substring(start, json.indexOf('"', start));
+    }
+
+    @Benchmark
+    public long filter() throws IOException {
+        return handle(filter);
+    }
+
+    @Benchmark
+    public long filterNext() throws IOException {
+        return handle(filterNext);
+    }
+
+    @Benchmark
+    public long list() throws IOException {
+        return handle(list);
+    }
+
+    private long handle(HttpServletRequest request) throws IOException {
+        out.reset();
+        service.handleProductOperations(request, ServletStubs.response(out));
+        return out.getCount();
+    }
+}
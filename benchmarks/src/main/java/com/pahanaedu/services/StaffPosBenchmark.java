@@ -0,0 +1,65 @@
+package com.pahanaedu.services;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pahanaedu.benchmarks.Fixtures;
+import com.pahanaedu.benchmarks.legacy.LegacyOrderItemsParser;
+import com.pahanaedu.models.Order;
+import com.pahanaedu.models.OrderItem;
+import com.pahanaedu.utils.JsonParseException;
+
+/**
+ * The POS order path outside the database: reading the basket the page posts, and the
+ * printable bill for the finished order. parseOrderItemsLegacy is the split-based parser
+ * JsonReader replaced, on the same baskets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StaffPosBenchmark {
+
+    @Param({"5", "50"})
+    private int lines;
+
+    private StaffService service;
+    private String basket;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        service = StaffService.getInstance();
+        basket = Fixtures.posBasketJson(lines);
+        order = Fixtures.posOrder(lines);
+    }
+
+    @Benchmark
+    public List<OrderItem> parseOrderItemsFromJson() throws JsonParseException {
+        return StaffService.parseOrderItemsFromJson(basket);
+    }
+
+    @Benchmark
+    public List<OrderItem> parseOrderItemsLegacy() {
+        return LegacyOrderItemsParser.parseOrderItemsFromJson(basket);
+    }
+
+    @Benchmark
+    public String generateBillHTML() {
+        return service.generateBillHTML(order);
+    }
+}
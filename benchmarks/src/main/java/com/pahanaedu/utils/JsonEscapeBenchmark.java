@@ -0,0 +1,80 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.pahanaedu.benchmarks.CountingWriter;
+import com.pahanaedu.benchmarks.legacy.LegacyJsonSerialization;
+
+/**
+ * String escaping, both for hand-built JSON (escape) and streamed (value):
+ *
+ *   plain    - a typical title, nothing to escape
+ *   quoted   - a description with quotes and a line break
+ *   unicode  - Sinhala text, passed through unescaped
+ *
+ * escapeLegacy is the chain of String.replace calls (escapeJsonString) JsonWriter replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonEscapeBenchmark {
+
+    @Param({"plain", "quoted", "unicode"})
+    private String text;
+
+    private String value;
+    private final CountingWriter out = new CountingWriter();
+    private JsonWriter json;
+
+    @Setup
+    public void setUp() {
+        switch (text) {
+            case "plain":
+                value = "Mathematics Grade 10 - Past Papers and Model Answers";
+                break;
+            case "quoted":
+                value = "Past papers for the \"O/L\" exam.\nIncludes marking schemes \\ answers.";
+                break;
+            default:
+                value = "මඩොල් දූව - මාර්ටින් වික්‍රමසිංහ";
+        }
+        json = new JsonWriter(out);
+        try {
+            json.beginArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public String escape() {
+        return JsonWriter.escape(value);
+    }
+
+    @Benchmark
+    public String escapeLegacy() {
+        return LegacyJsonSerialization.escapeJsonString(value);
+    }
+
+    @Benchmark
+    public long writeValue() throws IOException {
+        json.value(value);
+        return out.getCount();
+    }
+}
@@ -0,0 +1,56 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One login's password check, at the cost the application would use on this machine:
+ * auth.bcrypt.cost if set, otherwise what calibrate() picks. Goes through the auth pool
+ * like a login does. Override with -jvmArgs -Dauth.bcrypt.cost=N to compare costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "customer-password-1";
+
+    private PasswordHasher hasher;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        hasher = PasswordHasher.getInstance();
+        hasher.calibrate();
+        hash = hasher.hash(PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        hasher.shutdown();
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return hasher.verify(PASSWORD, hash);
+    }
+
+    @Benchmark
+    public boolean verifyWrongPassword() {
+        return hasher.verify("wrong-password", hash);
+    }
+}
@@ -0,0 +1,153 @@
+package com.pahanaedu.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One virtual user's browser: form posts and page loads over HttpURLConnection, with its
+ * own cookies (the session and remember-me cookies) so users never share a session.
+ *
+ * Connections are kept alive by the JDK's pool; size it with http.maxConnections.
+ */
+final class Client {
+
+    private static final int TIMEOUT_MS = 30_000;
+    private static final Pattern FAILURE = Pattern.compile("\"success\"\\s*:\\s*false");
+
+    /**
+     * Status and body of one exchange
+     */
+    static final class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        /**
+         * HTTP errors, and the JSON error envelope the services send
+         */
+        boolean isError() {
+            return status >= 400 || FAILURE.matcher(body).find();
+        }
+    }
+
+    private final String baseUrl;
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+
+    Client(String baseUrl) {
+        this.baseUrl = baseUrl;
+    }
+
+    Response get(String path) throws IOException {
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("GET");
+        return exchange(connection);
+    }
+
+    /**
+     * POST an application/x-www-form-urlencoded form given as name, value pairs
+     */
+    Response post(String path, String... form) throws IOException {
+        byte[] body = encode(form);
+        HttpURLConnection connection = open(path);
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(body.length);
+        connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=UTF-8");
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return exchange(connection);
+    }
+
+    void clearCookies() {
+        cookies.clear();
+    }
+
+    private HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        // Redirects are timed as their own requests, if a scenario follows them at all
+        connection.setInstanceFollowRedirects(false);
+        connection.setUseCaches(false);
+        if (!cookies.isEmpty()) {
+            StringBuilder header = new StringBuilder();
+            for (Map.Entry<String, String> cookie : cookies.entrySet()) {
+                if (header.length() > 0) {
+                    header.append("; ");
+                }
+                header.append(cookie.getKey()).append('=').append(cookie.getValue());
+            }
+            connection.setRequestProperty("Cookie", header.toString());
+        }
+        return connection;
+    }
+
+    private Response exchange(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        storeCookies(connection.getHeaderFields().get("Set-Cookie"));
+        // Read the body to the end, error or not, so the connection goes back to the pool
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        String body = in != null ? read(in) : "";
+        return new Response(status, body);
+    }
+
+    private void storeCookies(List<String> headers) {
+        if (headers == null) {
+            return;
+        }
+        for (String header : headers) {
+            String pair = header.split(";", 2)[0];
+            int equals = pair.indexOf('=');
+            if (equals <= 0) {
+                continue;
+            }
+            String name = pair.substring(0, equals).trim();
+            String value = pair.substring(equals + 1).trim();
+            // Deleting a cookie sets it empty with Max-Age=0
+            if (value.isEmpty() || header.toLowerCase().contains("max-age=0")) {
+                cookies.remove(name);
+            } else {
+                cookies.put(name, value);
+            }
+        }
+    }
+
+    private static byte[] encode(String[] form) throws UnsupportedEncodingException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i + 1 < form.length; i += 2) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(URLEncoder.encode(form[i], "UTF-8")).append('=').append(URLEncoder.encode(form[i + 1], "UTF-8"));
+        }
+        return body.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream stream = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = stream.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.pahanaedu.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * Embedded MariaDB for the load test, loaded from the webapp's pahana-db.sql and topped up
+ * with synthetic products and customer accounts.
+ *
+ * The script runs as one multi-statement batch and every statement's result is checked,
+ * so the first statement that fails stops the run instead of leaving a half-built schema.
+ * start() points db.url/db.username/db.password at the database; call it before the
+ * webapp boots.
+ */
+final class EmbeddedDatabase {
+
+    static final String NAME = "pahana-db";
+    static final String PASSWORD = "LoadTest#2026";
+
+    private static final int BATCH_SIZE = 1000;
+    // Title words; the scenarios search for them too
+    static final String[] WORDS = {
+        "harry", "potter", "madol", "doova", "gamperaliya", "history", "science", "mathematics",
+        "grade", "garden", "secret", "island", "river", "mountain", "stories", "kingdom",
+        "english", "physics", "chemistry", "biology", "poems", "journey", "night", "village"
+    };
+
+    private DB db;
+    private int port;
+    private final List<Integer> customerIds = new ArrayList<>();
+    private final List<Integer> productIds = new ArrayList<>();
+
+    void start(Path script, int products, int customers) throws Exception {
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        // mysqld refuses to run as root unless told to
+        config.addArg("--user=" + System.getProperty("user.name"));
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        port = config.getPort();
+
+        try (Connection connection = DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/", "root", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE `" + NAME + "` CHARACTER SET utf8mb4");
+        }
+        runScript(script);
+        insertProducts(products);
+        insertCustomers(customers);
+        loadIds();
+
+        System.setProperty("db.url", "jdbc:mysql://localhost:" + port + "/" + NAME + "?useServerPrepStmts=true");
+        System.setProperty("db.username", "root");
+        System.setProperty("db.password", "");
+    }
+
+    void stop() {
+        if (db != null) {
+            try {
+                db.stop();
+            } catch (Exception e) {
+                System.err.println("Could not stop the embedded database: " + e.getMessage());
+            }
+        }
+    }
+
+    List<Integer> getCustomerIds() {
+        return customerIds;
+    }
+
+    List<Integer> getProductIds() {
+        return productIds;
+    }
+
+    static String customerEmail(int index) {
+        return "load-customer-" + index + "@example.com";
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/" + NAME
+                + "?allowMultiQueries=true&rewriteBatchedStatements=true", "root", "");
+    }
+
+    /**
+     * Run a script of ;-separated statements; the first failing statement throws, and the
+     * server's message gives its line in the script
+     */
+    private void runScript(Path script) throws SQLException, IOException {
+        String sql = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            boolean isResultSet = statement.execute(sql);
+            // Step through every statement's result so an error further down is raised too
+            while (isResultSet || statement.getUpdateCount() != -1) {
+                isResultSet = statement.getMoreResults();
+            }
+        } catch (SQLException e) {
+            throw new SQLException(script.getFileName() + " failed: " + e.getMessage(), e.getSQLState(), e.getErrorCode(), e);
+        }
+    }
+
+    private void insertProducts(int count) throws SQLException {
+        Random random = new Random(42);
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO products (title, author, isbn, category_id, description, price, offer_price, "
+                 + "stock_quantity, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'active')")) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= count; i++) {
+                String title = word(random) + " " + word(random) + " " + i;
+                BigDecimal price = BigDecimal.valueOf(300 + random.nextInt(4700)).setScale(2);
+                statement.setString(1, title);
+                statement.setString(2, "Load Test Author " + (i % 50));
+                statement.setString(3, String.format("978-955-%04d-%03d", i / 1000, i % 1000));
+                statement.setInt(4, 1 + random.nextInt(6));
+                statement.setString(5, "Synthetic product for load testing");
+                statement.setBigDecimal(6, price);
+                statement.setBigDecimal(7, random.nextInt(4) == 0 ? price.multiply(new BigDecimal("0.85")).setScale(2, BigDecimal.ROUND_HALF_UP) : null);
+                // Enough stock that checkout and POS orders never run a product dry
+                statement.setInt(8, 1_000_000);
+                statement.addBatch();
+                if (i % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private void insertCustomers(int count) throws SQLException {
+        // One hash for every account; logins check it at whatever cost it was made with
+        String hash = BCrypt.hashpw(PASSWORD, BCrypt.gensalt(10));
+        try (Connection connection = connect();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO users (first_name, last_name, email, password, phone, role, status) "
+                 + "VALUES ('Load', ?, ?, ?, '0771234567', 'CUSTOMER', 'active')")) {
+            connection.setAutoCommit(false);
+            for (int i = 0; i < count; i++) {
+                statement.setString(1, "Customer " + i);
+                statement.setString(2, customerEmail(i));
+                statement.setString(3, hash);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private void loadIds() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT id FROM users WHERE email LIKE 'load-customer-%' ORDER BY id")) {
+                while (rs.next()) {
+                    customerIds.add(rs.getInt(1));
+                }
+            }
+            // Only the synthetic products; the sample ones would sell out
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT id FROM products WHERE author LIKE 'Load Test Author%' ORDER BY id")) {
+                while (rs.next()) {
+                    productIds.add(rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    private static String word(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -0,0 +1,119 @@
+package com.pahanaedu.loadtest;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.WebResourceRoot;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.catalina.webresources.DirResourceSet;
+import org.apache.catalina.webresources.JarResourceSet;
+import org.apache.catalina.webresources.StandardRoot;
+import org.apache.tomcat.util.scan.StandardJarScanFilter;
+import org.apache.tomcat.util.scan.StandardJarScanner;
+
+import com.pahanaedu.listeners.ApplicationLifecycleListener;
+
+/**
+ * Embedded Tomcat 9 (with Jasper for the JSP pages) serving the webapp at the root context.
+ *
+ * The webapp directory is copied to a scratch directory first: the application writes to
+ * its uploads folder (image store, sweeper quarantine), which must not be the source tree.
+ * The application classes jar on the classpath is mounted as WEB-INF/classes: Tomcat only
+ * registers @WebServlet/@WebFilter/@WebListener classes found in the webapp itself.
+ */
+final class EmbeddedServer {
+
+    private final Path baseDir;
+    private Tomcat tomcat;
+    private int port;
+
+    EmbeddedServer() throws IOException {
+        this.baseDir = Files.createTempDirectory("pahana-loadtest");
+    }
+
+    void start(Path webappSource, int requestedPort) throws Exception {
+        Path docBase = baseDir.resolve("webapp");
+        copyTree(webappSource, docBase);
+
+        tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.resolve("tomcat").toString());
+        tomcat.setPort(requestedPort);
+        tomcat.getConnector();
+
+        Context context = tomcat.addWebapp("", docBase.toAbsolutePath().toString());
+        WebResourceRoot resources = new StandardRoot(context);
+        Path classes = applicationClasses();
+        if (Files.isDirectory(classes)) {
+            resources.addPreResources(new DirResourceSet(resources, "/WEB-INF/classes", classes.toString(), "/"));
+        } else {
+            resources.addPreResources(new JarResourceSet(resources, "/WEB-INF/classes", classes.toString(), "/"));
+        }
+        context.setResources(resources);
+
+        // Annotations are in WEB-INF/classes and the JSTL tags in its jar; skip the rest
+        StandardJarScanFilter filter = new StandardJarScanFilter();
+        filter.setDefaultPluggabilityScan(false);
+        filter.setDefaultTldScan(false);
+        filter.setTldScan("jstl-*.jar");
+        StandardJarScanner scanner = new StandardJarScanner();
+        scanner.setJarScanFilter(filter);
+        context.setJarScanner(scanner);
+
+        tomcat.start();
+        if (context.getState() != LifecycleState.STARTED) {
+            throw new IllegalStateException("The webapp failed to start (" + context.getState() + "); see the log above");
+        }
+        port = tomcat.getConnector().getLocalPort();
+    }
+
+    void stop() {
+        if (tomcat != null) {
+            try {
+                tomcat.stop();
+                tomcat.destroy();
+            } catch (Exception e) {
+                System.err.println("Could not stop Tomcat: " + e.getMessage());
+            }
+        }
+        try (Stream<Path> files = Files.walk(baseDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Could not remove " + baseDir + ": " + e.getMessage());
+        }
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    /**
+     * The jar (or, run from an IDE, the directory) the application classes are loaded from
+     */
+    private static Path applicationClasses() throws URISyntaxException {
+        return Paths.get(ApplicationLifecycleListener.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+
+    private static void copyTree(Path source, Path target) throws IOException {
+        if (!Files.isDirectory(source.resolve("WEB-INF"))) {
+            throw new IOException(source.toAbsolutePath() + " is not a webapp directory (no WEB-INF); use -webapp");
+        }
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+}
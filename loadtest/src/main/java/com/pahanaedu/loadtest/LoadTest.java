@@ -0,0 +1,158 @@
+package com.pahanaedu.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: boots the webapp in an embedded Tomcat against an embedded MariaDB
+ * seeded from pahana-db.sql, runs a mix of virtual users for a warmup and then a measured
+ * period, and prints throughput and latency percentiles per action.
+ *
+ * Any failure to set up (a bad script statement, a webapp that does not start) ends the
+ * run with a non-zero exit status before load is applied. Usage is in Options.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(Options.USAGE);
+            System.exit(2);
+            return;
+        }
+        if (options.help) {
+            System.out.println(Options.USAGE);
+            return;
+        }
+        System.exit(run(options));
+    }
+
+    private static int run(Options options) {
+        // One kept-alive connection per virtual user (the JDK default is 5 per host)
+        System.setProperty("http.maxConnections", String.valueOf(options.users));
+
+        EmbeddedDatabase database = new EmbeddedDatabase();
+        EmbeddedServer server = null;
+        try {
+            Path script = options.webapp.resolve("includes").resolve("sql").resolve("pahana-db.sql");
+            System.out.println("Starting MariaDB with " + script + ", " + options.products + " products and "
+                    + options.customers + " customers");
+            database.start(script, options.products, options.customers);
+
+            System.out.println("Starting Tomcat with " + options.webapp);
+            server = new EmbeddedServer();
+            server.start(options.webapp, options.port);
+            String baseUrl = "http://localhost:" + server.getPort();
+            checkReady(baseUrl);
+
+            Map<Scenario, Integer> users = allocate(options);
+            System.out.println("Running " + users + " users on " + baseUrl + ": " + options.warmupSeconds
+                    + "s warmup, " + options.durationSeconds + "s measured");
+            drive(options, users, database, baseUrl);
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Load test failed: " + e.getMessage());
+            e.printStackTrace();
+            return 1;
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            database.stop();
+        }
+    }
+
+    private static void checkReady(String baseUrl) throws Exception {
+        Client.Response home = new Client(baseUrl).get("/");
+        if (home.status != 200) {
+            throw new IllegalStateException("The home page answered " + home.status + ": " + home.body);
+        }
+    }
+
+    /**
+     * Split the users across the scenarios in proportion to -mix (largest remainder)
+     */
+    static Map<Scenario, Integer> allocate(Options options) {
+        int weights = options.mix.values().stream().mapToInt(Integer::intValue).sum();
+        Map<Scenario, Integer> users = new EnumMap<>(Scenario.class);
+        Map<Scenario, Double> remainders = new EnumMap<>(Scenario.class);
+        int assigned = 0;
+        for (Map.Entry<Scenario, Integer> weight : options.mix.entrySet()) {
+            double share = (double) options.users * weight.getValue() / weights;
+            users.put(weight.getKey(), (int) share);
+            remainders.put(weight.getKey(), share - (int) share);
+            assigned += (int) share;
+        }
+        while (assigned < options.users) {
+            Scenario next = remainders.entrySet().stream()
+                    .max(Map.Entry.comparingByValue()).get().getKey();
+            users.merge(next, 1, Integer::sum);
+            remainders.put(next, -1.0);
+            assigned++;
+        }
+        users.values().removeIf(count -> count == 0);
+        return users;
+    }
+
+    private static void drive(Options options, Map<Scenario, Integer> users, EmbeddedDatabase database,
+                              String baseUrl) throws Exception {
+        Set<Integer> productIdSet = new HashSet<>(database.getProductIds());
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+
+        List<Recorder> recorders = new ArrayList<>();
+        List<VirtualUser> virtualUsers = new ArrayList<>();
+        int index = 0;
+        for (Map.Entry<Scenario, Integer> group : users.entrySet()) {
+            for (int i = 0; i < group.getValue(); i++) {
+                Recorder recorder = new Recorder(measureFrom);
+                recorders.add(recorder);
+                virtualUsers.add(new VirtualUser(index++, group.getKey(), new Client(baseUrl), recorder, options,
+                        database.getCustomerIds(), database.getProductIds(), productIdSet, end));
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(virtualUsers.size());
+        List<Future<?>> running = new ArrayList<>();
+        for (VirtualUser user : virtualUsers) {
+            running.add(pool.submit(() -> loop(user)));
+        }
+        for (Future<?> future : running) {
+            future.get();
+        }
+        pool.shutdown();
+
+        double measured = (System.nanoTime() - measureFrom) / 1e9;
+        System.out.println();
+        Recorder.report(recorders, measured, System.out);
+    }
+
+    private static void loop(VirtualUser user) {
+        while (user.isRunning()) {
+            try {
+                user.scenario.run(user);
+            } catch (IOException e) {
+                // Already counted as an error by call(); start the next run afresh
+                user.loggedIn = false;
+            }
+            user.pause(user.options.thinkMs);
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.pahanaedu.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Command line settings: -name value pairs, every one optional
+ */
+final class Options {
+
+    static final String USAGE =
+        "Usage: java -jar loadtest.jar [options]\n" +
+        "  -users N          virtual users, split across the scenarios by -mix (default 20)\n" +
+        "  -duration S       measured seconds (default 60)\n" +
+        "  -warmup S         seconds run first and left out of the report (default 15)\n" +
+        "  -mix LIST         scenario weights (default browse=60,checkout=20,pos=10,dashboard=10)\n" +
+        "  -think MS         pause between a user's scenario runs (default 0)\n" +
+        "  -poll MS          dashboard polling interval (default 1000)\n" +
+        "  -products N       synthetic products added to the sample catalog (default 1000)\n" +
+        "  -customers N      customer accounts created for the checkout and POS users (default 200)\n" +
+        "  -port N           HTTP port, 0 for any free one (default 0)\n" +
+        "  -webapp DIR       the webapp source directory (default src/main/webapp)\n" +
+        "  -help             show this message";
+
+    int users = 20;
+    int durationSeconds = 60;
+    int warmupSeconds = 15;
+    final Map<Scenario, Integer> mix = new EnumMap<>(Scenario.class);
+    long thinkMs = 0;
+    long pollMs = 1000;
+    int products = 1000;
+    int customers = 200;
+    int port = 0;
+    Path webapp = Paths.get("src", "main", "webapp");
+    boolean help;
+
+    Options() {
+        mix.put(Scenario.BROWSE, 60);
+        mix.put(Scenario.CHECKOUT, 20);
+        mix.put(Scenario.POS, 10);
+        mix.put(Scenario.DASHBOARD, 10);
+    }
+
+    /**
+     * @throws IllegalArgumentException for an unknown option or a bad value
+     */
+    static Options parse(String[] args) {
+        Options options = new Options();
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("-help") || name.equals("-h")) {
+                options.help = true;
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "-users": options.users = positive(name, value); break;
+                case "-duration": options.durationSeconds = positive(name, value); break;
+                case "-warmup": options.warmupSeconds = notNegative(name, value); break;
+                case "-mix": options.parseMix(value); break;
+                case "-think": options.thinkMs = notNegative(name, value); break;
+                case "-poll": options.pollMs = notNegative(name, value); break;
+                case "-products": options.products = positive(name, value); break;
+                case "-customers": options.customers = positive(name, value); break;
+                case "-port": options.port = notNegative(name, value); break;
+                case "-webapp": options.webapp = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        return options;
+    }
+
+    private void parseMix(String value) {
+        mix.clear();
+        for (String part : value.split(",")) {
+            String[] weight = part.split("=");
+            if (weight.length != 2) {
+                throw new IllegalArgumentException("Expected scenario=weight in -mix, got " + part);
+            }
+            mix.put(Scenario.fromName(weight[0].trim()), notNegative("-mix", weight[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("-mix gives every scenario a weight of 0");
+        }
+    }
+
+    private static int positive(String name, String value) {
+        int number = notNegative(name, value);
+        if (number == 0) {
+            throw new IllegalArgumentException(name + " must be greater than 0");
+        }
+        return number;
+    }
+
+    private static int notNegative(String name, String value) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number >= 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+    }
+}
@@ -0,0 +1,115 @@
+package com.pahanaedu.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies per scenario action. Each virtual user has its own recorder, so recording
+ * takes no locks; report() merges them once the run is over.
+ *
+ * Every latency is kept (a long per request), so the percentiles are exact rather than
+ * bucketed. Requests started before the end of the warmup are not recorded.
+ */
+final class Recorder {
+
+    /**
+     * One action's latencies in nanoseconds, in arrival order
+     */
+    private static final class Samples {
+        long[] nanos = new long[256];
+        int count;
+        int errors;
+
+        void add(long latency, boolean error) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = latency;
+            if (error) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (count + other.count > nanos.length) {
+                nanos = Arrays.copyOf(nanos, Math.max(count + other.count, nanos.length * 2));
+            }
+            System.arraycopy(other.nanos, 0, nanos, count, other.count);
+            count += other.count;
+            errors += other.errors;
+        }
+    }
+
+    private final long measureFromNanos;
+    // "scenario action", so the report groups each scenario's actions together
+    private final Map<String, Samples> samples = new TreeMap<>();
+
+    Recorder(long measureFromNanos) {
+        this.measureFromNanos = measureFromNanos;
+    }
+
+    void record(Scenario scenario, String action, long startNanos, long latencyNanos, boolean error) {
+        if (startNanos - measureFromNanos < 0) {
+            return;
+        }
+        samples.computeIfAbsent(scenario.label() + " " + action, key -> new Samples()).add(latencyNanos, error);
+    }
+
+    /**
+     * Print count, errors, throughput and latency percentiles (ms) per action and in total
+     */
+    static void report(List<Recorder> recorders, double measuredSeconds, PrintStream out) {
+        Map<String, Samples> merged = new TreeMap<>();
+        Samples total = new Samples();
+        for (Recorder recorder : recorders) {
+            for (Map.Entry<String, Samples> entry : recorder.samples.entrySet()) {
+                merged.computeIfAbsent(entry.getKey(), key -> new Samples()).addAll(entry.getValue());
+                total.addAll(entry.getValue());
+            }
+        }
+
+        String format = "%-28s %8s %7s %9s %9s %9s %9s %9s %9s%n";
+        out.printf(format, "action", "count", "errors", "req/s", "mean", "p50", "p95", "p99", "max");
+        for (Map.Entry<String, Samples> entry : merged.entrySet()) {
+            printRow(out, format, entry.getKey(), entry.getValue(), measuredSeconds);
+        }
+        printRow(out, format, "total", total, measuredSeconds);
+    }
+
+    private static void printRow(PrintStream out, String format, String name, Samples samples, double seconds) {
+        if (samples.count == 0) {
+            out.printf(format, name, "0", "0", "-", "-", "-", "-", "-", "-");
+            return;
+        }
+        long[] sorted = Arrays.copyOf(samples.nanos, samples.count);
+        Arrays.sort(sorted);
+        long sum = 0;
+        for (long latency : sorted) {
+            sum += latency;
+        }
+        out.printf(format, name,
+                samples.count,
+                samples.errors,
+                String.format("%.1f", samples.count / seconds),
+                millis(sum / sorted.length),
+                millis(percentile(sorted, 50)),
+                millis(percentile(sorted, 95)),
+                millis(percentile(sorted, 99)),
+                millis(sorted[sorted.length - 1]));
+    }
+
+    /**
+     * Nearest-rank percentile of sorted latencies
+     */
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1];
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,219 @@
+package com.pahanaedu.loadtest;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.pahanaedu.utils.JsonParseException;
+import com.pahanaedu.utils.JsonReader;
+
+/**
+ * What a virtual user does, one run at a time, with the same requests the pages send:
+ *
+ *   browse     - guest on the storefront: home page, categories, search, filter and the
+ *                next filter page, product details
+ *   checkout   - customer: add one to three products to the cart, view it, place the order
+ *   pos        - cashier: product search, a one to five line POS order, its bill
+ *   dashboard  - admin with the dashboards open, polling the admin and staff stats
+ *
+ * Logged-in scenarios sign in on their first run (timed as "login") and stay signed in.
+ */
+enum Scenario {
+
+    BROWSE {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            user.call("home", client -> client.get("/"));
+            user.call("categories", client -> client.post("/customer/dashboard", "action", "categories"));
+            String keyword = user.randomWord();
+            user.call("search", client -> client.post("/customer/products", "action", "search", "keyword", keyword));
+
+            String categoryId = String.valueOf(1 + user.random.nextInt(6));
+            String sortBy = SORTS[user.random.nextInt(SORTS.length)];
+            Client.Response page = user.call("filter", client -> client.post("/customer/products",
+                    "action", "filter", "categoryId", categoryId, "sortBy", sortBy, "limit", "24"));
+            Matcher cursor = NEXT_CURSOR.matcher(page.body);
+            if (cursor.find()) {
+                String next = cursor.group(1);
+                user.call("filter-next", client -> client.post("/customer/products",
+                        "action", "filter", "categoryId", categoryId, "sortBy", sortBy, "limit", "24", "cursor", next));
+            }
+
+            String productId = String.valueOf(user.randomProductId());
+            user.call("product-details", client -> client.post("/customer/product-details", "id", productId));
+        }
+    },
+
+    CHECKOUT {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            if (!user.loggedIn) {
+                String email = EmbeddedDatabase.customerEmail(user.index % user.customerIds.size());
+                login(user, email, EmbeddedDatabase.PASSWORD);
+                if (!user.loggedIn) {
+                    return;
+                }
+            }
+            int lines = 1 + user.random.nextInt(3);
+            for (int i = 0; i < lines; i++) {
+                String productId = String.valueOf(user.randomProductId());
+                String quantity = String.valueOf(1 + user.random.nextInt(2));
+                user.call("cart-add", client -> client.post("/customer/cart",
+                        "action", "add", "productId", productId, "quantity", quantity));
+            }
+            user.call("cart-get", client -> client.post("/customer/cart", "action", "get"));
+            Client.Response order = user.call("checkout", client -> client.post("/customer/checkout",
+                    "action", "place-order",
+                    "customerName", "Load Customer " + user.index,
+                    "customerEmail", EmbeddedDatabase.customerEmail(user.index % user.customerIds.size()),
+                    "customerPhone", "0771234567",
+                    "shippingAddress", "12 Galle Road, Colombo 03"));
+            if (order.status == 401) {
+                // Session gone; sign in again next run
+                user.loggedIn = false;
+            }
+        }
+    },
+
+    POS {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            if (!user.loggedIn) {
+                login(user, ADMIN_EMAIL, ADMIN_PASSWORD);
+                if (!user.loggedIn) {
+                    return;
+                }
+            }
+            String keyword = user.randomWord();
+            Client.Response search = user.call("pos-search", client -> client.post("/staff/products",
+                    "action", "search-pos", "keyword", keyword));
+            if (search.isError()) {
+                return;
+            }
+            String basket = basket(user, search.body);
+            if (basket == null) {
+                return;
+            }
+            String customerId = String.valueOf(user.customerIds.get(user.random.nextInt(user.customerIds.size())));
+            Client.Response order = user.call("pos-order", client -> client.post("/staff/orders",
+                    "action", "create-pos", "customerId", customerId, "orderItems", basket,
+                    "discount", "0", "paymentMethod", "cash"));
+            Matcher id = ORDER_ID.matcher(order.body);
+            if (order.isError() || !id.find()) {
+                return;
+            }
+            String orderId = id.group(1);
+            user.call("pos-bill", client -> client.post("/staff/orders", "action", "print-bill", "orderId", orderId));
+        }
+    },
+
+    DASHBOARD {
+        @Override
+        void run(VirtualUser user) throws IOException {
+            if (!user.loggedIn) {
+                login(user, ADMIN_EMAIL, ADMIN_PASSWORD);
+                if (!user.loggedIn) {
+                    return;
+                }
+            }
+            user.call("admin-dashboard", client -> client.post("/admin/dashboard"));
+            user.call("staff-dashboard", client -> client.post("/staff/dashboard"));
+            user.pause(user.options.pollMs);
+        }
+    };
+
+    // The default admin account, which needs no row in the users table
+    private static final String ADMIN_EMAIL = "admin@pahana.lk";
+    private static final String ADMIN_PASSWORD = "admin123";
+    private static final String[] SORTS = {"newest", "price_asc", "price_desc", "name_asc"};
+    private static final Pattern NEXT_CURSOR = Pattern.compile("\"nextCursor\"\\s*:\\s*\"([^\"]+)\"");
+    private static final Pattern ORDER_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    /**
+     * One run of the scenario; IOException ends the run early
+     */
+    abstract void run(VirtualUser user) throws IOException;
+
+    String label() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @throws IllegalArgumentException if no scenario has that name
+     */
+    static Scenario fromName(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.label().equalsIgnoreCase(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario " + name + "; expected browse, checkout, pos or dashboard");
+    }
+
+    private static void login(VirtualUser user, String email, String password) throws IOException {
+        user.client.clearCookies();
+        Client.Response response = user.call("login", client -> client.post("/auth/login",
+                "email", email, "password", password));
+        user.loggedIn = !response.isError();
+    }
+
+    /**
+     * The POS basket JSON for one to five of the products a search returned, or null if it
+     * found none
+     */
+    private static String basket(VirtualUser user, String searchResults) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        List<BigDecimal> prices = new ArrayList<>();
+        try {
+            JsonReader json = new JsonReader(searchResults);
+            json.beginArray();
+            while (json.hasNext()) {
+                int id = 0;
+                BigDecimal price = null;
+                json.beginObject();
+                while (json.hasNext()) {
+                    switch (json.nextName()) {
+                        case "id":
+                            id = json.nextInt();
+                            break;
+                        case "price":
+                            price = json.nextDecimal();
+                            break;
+                        default:
+                            json.skipValue();
+                    }
+                }
+                json.endObject();
+                // Only the synthetic products, which have stock to spare
+                if (user.productIdSet.contains(id) && price != null) {
+                    ids.add(id);
+                    prices.add(price);
+                }
+            }
+            json.endArray();
+        } catch (JsonParseException e) {
+            throw new IOException("Unreadable POS search results: " + e.getMessage(), e);
+        }
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        int lines = 1 + user.random.nextInt(5);
+        StringBuilder basket = new StringBuilder("[");
+        for (int i = 0; i < lines; i++) {
+            int pick = user.random.nextInt(ids.size());
+            if (i > 0) {
+                basket.append(',');
+            }
+            basket.append("{\"productId\":").append(ids.get(pick))
+                  .append(",\"quantity\":").append(1 + user.random.nextInt(3))
+                  .append(",\"unitPrice\":").append(prices.get(pick).toPlainString())
+                  .append('}');
+        }
+        return basket.append(']').toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.pahanaedu.loadtest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * One simulated user: a browser (Client), a scenario it repeats, and the state a scenario
+ * keeps between runs (whether it is logged in). Every request goes through call() so it is
+ * timed and counted under its action name.
+ */
+final class VirtualUser {
+
+    /**
+     * A request to time
+     */
+    interface Request {
+        Client.Response send(Client client) throws IOException;
+    }
+
+    final int index;
+    final Scenario scenario;
+    final Client client;
+    final Random random;
+    final Recorder recorder;
+    final Options options;
+    final List<Integer> customerIds;
+    final List<Integer> productIds;
+    final Set<Integer> productIdSet;
+    final long endNanos;
+    boolean loggedIn;
+
+    VirtualUser(int index, Scenario scenario, Client client, Recorder recorder, Options options,
+                List<Integer> customerIds, List<Integer> productIds, Set<Integer> productIdSet, long endNanos) {
+        this.index = index;
+        this.scenario = scenario;
+        this.client = client;
+        this.random = new Random(index);
+        this.recorder = recorder;
+        this.options = options;
+        this.customerIds = customerIds;
+        this.productIds = productIds;
+        this.productIdSet = productIdSet;
+        this.endNanos = endNanos;
+    }
+
+    /**
+     * Send a request and record its latency; a transport failure is recorded as an error
+     * and rethrown, ending the scenario run
+     */
+    Client.Response call(String action, Request request) throws IOException {
+        long start = System.nanoTime();
+        Client.Response response;
+        try {
+            response = request.send(client);
+        } catch (IOException e) {
+            recorder.record(scenario, action, start, System.nanoTime() - start, true);
+            throw e;
+        }
+        recorder.record(scenario, action, start, System.nanoTime() - start, response.isError());
+        return response;
+    }
+
+    boolean isRunning() {
+        return System.nanoTime() < endNanos;
+    }
+
+    /**
+     * Sleep up to millis, but not past the end of the run
+     */
+    void pause(long millis) {
+        long remaining = (endNanos - System.nanoTime()) / 1_000_000;
+        long sleep = Math.min(millis, remaining);
+        if (sleep <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    int randomProductId() {
+        return productIds.get(random.nextInt(productIds.size()));
+    }
+
+    String randomWord() {
+        return EmbeddedDatabase.WORDS[random.nextInt(EmbeddedDatabase.WORDS.length)];
+    }
+}
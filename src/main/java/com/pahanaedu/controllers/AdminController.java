@@ -1,12 +1,7 @@
 package com.pahanaedu.controllers;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.List;
-import java.util.UUID;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.MultipartConfig;
@@ -14,15 +9,15 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import javax.servlet.http.Part;
 
-import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.fileupload.disk.DiskFileItemFactory;
-import org.apache.commons.fileupload.servlet.ServletFileUpload;
-
+import com.pahanaedu.models.SessionPrincipal;
+import com.pahanaedu.models.User;
 import com.pahanaedu.services.AdminService;
+import com.pahanaedu.services.SessionService;
 import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 /**
  * Enhanced Admin Controller for Admin Panel Management
@@ -45,45 +40,18 @@ import com.pahanaedu.utils.FileUploadHandler;
 )
 public class AdminController extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    private static final Log LOG = Log.get(AdminController.class);
     
     private AdminService adminService;
     
-    // File upload settings
-    private static final String UPLOAD_DIRECTORY = "uploads/products";
-    private static final int MEMORY_THRESHOLD = 1024 * 1024 * 3; // 3MB
-    private static final int MAX_FILE_SIZE = 1024 * 1024 * 5; // 5MB
-    private static final int MAX_REQUEST_SIZE = 1024 * 1024 * 10; // 10MB
-    private static final String[] ALLOWED_EXTENSIONS = {".jpg", ".jpeg", ".png", ".gif", ".webp"};
-    
- // AdminController.java එකේ init() method එක මේකෙන් replace කරන්න
-
     @Override
     public void init() throws ServletException {
         try {
             adminService = AdminService.getInstance();
-            System.out.println("AdminController: Service initialized successfully with file upload support");
-            
-            // Initialize file upload directory
-            String uploadPath = getServletContext().getRealPath("") + File.separator + UPLOAD_DIRECTORY;
-            File uploadDir = new File(uploadPath);
-            if (!uploadDir.exists()) {
-                boolean created = uploadDir.mkdirs();
-                if (created) {
-                    System.out.println("AdminController: Upload directory created at " + uploadPath);
-                } else {
-                    System.err.println("AdminController: Failed to create upload directory at " + uploadPath);
-                }
-            } else {
-                System.out.println("AdminController: Upload directory exists at " + uploadPath);
-            }
-            
-            // Sync project files to deployment directory on startup
-            String webAppPath = getServletContext().getRealPath("");
-            FileUploadHandler.syncProjectFilesToDeployment(webAppPath);
-            System.out.println("AdminController: Project files synced to deployment directory");
+            LOG.info("Service initialized successfully with file upload support");
             
         } catch (Exception e) {
-            System.err.println("AdminController: Failed to initialize service - " + e.getMessage());
+            LOG.error("Failed to initialize service - {}", e.getMessage());
             throw new ServletException("Failed to initialize admin service", e);
         }
     }
@@ -100,7 +68,7 @@ public class AdminController extends HttpServlet {
         String requestURI = request.getRequestURI();
         String action = getActionFromURI(requestURI);
         
-        System.out.println("AdminController: Processing GET request - " + action);
+        LOG.debug("Processing GET request - {}", action);
         
         try {
             switch (action) {
@@ -132,8 +100,7 @@ public class AdminController extends HttpServlet {
                     break;
             }
         } catch (Exception e) {
-            System.err.println("AdminController: Error handling GET request - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error handling GET request", e);
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server error");
         }
     }
@@ -157,7 +124,7 @@ public class AdminController extends HttpServlet {
             return;
         }
         
-        System.out.println("AdminController: Processing POST request - " + action);
+        LOG.debug("Processing POST request - {}", action);
         
         // Set response headers for AJAX requests
         response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
@@ -200,8 +167,7 @@ public class AdminController extends HttpServlet {
                 }
             }
         } catch (Exception e) {
-            System.err.println("AdminController: Error processing POST request - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error processing POST request", e);
             sendJsonError(response, "Server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
@@ -220,23 +186,9 @@ public class AdminController extends HttpServlet {
     private void handleProductWithFileUpload(HttpServletRequest request, HttpServletResponse response) 
             throws ServletException, IOException {
         try {
-            String imagePath = null;
-            
-            // Parse multipart form data and handle image upload
-            for (Part part : request.getParts()) {
-                String partName = part.getName();
-                
-                if ("productImage".equals(partName) && part.getSize() > 0) {
-                    // Use FileUploadHandler instead of custom upload logic
-                    String webAppPath = getServletContext().getRealPath("");
-                    imagePath = FileUploadHandler.uploadProductImage(part, webAppPath);
-                    
-                    if (imagePath != null) {
-                        System.out.println("AdminController: Image uploaded via FileUploadHandler - " + imagePath);
-                        break;
-                    }
-                }
-            }
+            // The container has already parsed the multipart body; the image is streamed
+            // once from its part into the image store
+            String imagePath = FileUploadHandler.uploadProductImage(request.getPart("productImage"));
             
             // Set imagePath as request attribute for the service to use
             if (imagePath != null) {
@@ -247,37 +199,11 @@ public class AdminController extends HttpServlet {
             adminService.handleProductManagement(request, response);
             
         } catch (Exception e) {
-            System.err.println("AdminController: Error handling product file upload - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error handling product file upload", e);
             sendJsonError(response, "File upload error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
     
-    /**
-     * Delete uploaded image file using FileUploadHandler
-     */
-    public boolean deleteImageFile(String imagePath) {
-        if (imagePath == null || imagePath.isEmpty()) {
-            return true;
-        }
-        
-        try {
-            String webAppPath = getServletContext().getRealPath("");
-            boolean deleted = FileUploadHandler.deleteProductImage(imagePath, webAppPath);
-            
-            if (deleted) {
-                System.out.println("AdminController: Image file deleted via FileUploadHandler - " + imagePath);
-            } else {
-                System.err.println("AdminController: Failed to delete image file via FileUploadHandler - " + imagePath);
-            }
-            
-            return deleted;
-        } catch (Exception e) {
-            System.err.println("AdminController: Error deleting image file - " + e.getMessage());
-            return false;
-        }
-    }
-    
     /**
      * Get value from multipart Part
      */
@@ -298,20 +224,20 @@ public class AdminController extends HttpServlet {
      * Check if user is authenticated as admin or staff (authorized users)
      */
     private boolean isAuthorizedUser(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
+        SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
         
-        if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            System.out.println("AdminController: No valid session found");
+        if (principal == null) {
+            LOG.debug("No valid session found");
             return false;
         }
         
-        String userRole = (String) session.getAttribute("userRole");
-        boolean isAuthorized = "ADMIN".equals(userRole) || "STAFF".equals(userRole);
+        String userRole = principal.getRole();
+        boolean isAuthorized = principal.isAdmin() || principal.isStaff();
         
         if (!isAuthorized) {
-            System.out.println("AdminController: User role is not ADMIN or STAFF: " + userRole);
+            LOG.debug("User role is not ADMIN or STAFF: {}", userRole);
         } else {
-            System.out.println("AdminController: User authentication successful - Role: " + userRole);
+            LOG.debug("User authentication successful - Role: {}", userRole);
         }
         
         return isAuthorized;
@@ -321,39 +247,22 @@ public class AdminController extends HttpServlet {
      * Check if user is authenticated as admin only
      */
     private boolean isAdminUser(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        
-        if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            return false;
-        }
-        
-        String userRole = (String) session.getAttribute("userRole");
-        return "ADMIN".equals(userRole);
+        return SessionService.getInstance().hasRole(request, User.ROLE_ADMIN);
     }
     
     /**
      * Check if user is authenticated as staff only
      */
     private boolean isStaffUser(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        
-        if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            return false;
-        }
-        
-        String userRole = (String) session.getAttribute("userRole");
-        return "STAFF".equals(userRole);
+        return SessionService.getInstance().hasRole(request, User.ROLE_STAFF);
     }
     
     /**
      * Get user role from session
      */
     private String getUserRole(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            return (String) session.getAttribute("userRole");
-        }
-        return null;
+        SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
+        return principal != null ? principal.getRole() : null;
     }
     
     /**
@@ -430,43 +339,29 @@ public class AdminController extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
         
         String jsonError = "{\"success\": false, \"error\": true, \"message\": \"" + 
-                          escapeJsonString(message) + "\"}";
+                          JsonWriter.escape(message) + "\"}";
         
         response.getWriter().write(jsonError);
         response.getWriter().flush();
     }
     
-    /**
-     * Escape JSON string to prevent injection
-     */
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t")
-                 .replace("\b", "\\b")
-                 .replace("\f", "\\f");
-    }
-    
     /**
      * Get upload directory path
      */
     public String getUploadDirectory() {
-        return UPLOAD_DIRECTORY;
+        return FileUploadHandler.getUploadDirectory();
     }
     
     /**
      * Get max file size
      */
     public int getMaxFileSize() {
-        return MAX_FILE_SIZE;
+        return (int) FileUploadHandler.getMaxFileSize();
     }
     
     @Override
     public void destroy() {
-        System.out.println("AdminController: Controller being destroyed");
+        LOG.info("Controller being destroyed");
         adminService = null;
         super.destroy();
     }
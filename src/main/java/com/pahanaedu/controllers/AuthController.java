@@ -8,11 +8,14 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
+import com.pahanaedu.models.SessionPrincipal;
 import com.pahanaedu.services.LoginService;
+import com.pahanaedu.services.SessionService;
 import com.pahanaedu.services.SignupService;
 import com.pahanaedu.services.PasswordResetService;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 /**
  * Authentication Controller using Singleton Pattern
@@ -34,6 +37,7 @@ import com.pahanaedu.services.PasswordResetService;
 })
 public class AuthController extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    private static final Log LOG = Log.get(AuthController.class);
     
     private LoginService loginService;
     private SignupService signupService;
@@ -47,9 +51,9 @@ public class AuthController extends HttpServlet {
             signupService = SignupService.getInstance();
             passwordResetService = PasswordResetService.getInstance();
             
-            System.out.println("AuthController: All services initialized successfully");
+            LOG.info("All services initialized successfully");
         } catch (Exception e) {
-            System.err.println("AuthController: Failed to initialize services - " + e.getMessage());
+            LOG.error("Failed to initialize services - {}", e.getMessage());
             throw new ServletException("Failed to initialize authentication services", e);
         }
     }
@@ -61,7 +65,7 @@ public class AuthController extends HttpServlet {
         String requestURI = request.getRequestURI();
         String action = getActionFromURI(requestURI);
         
-        System.out.println("AuthController: Processing POST request - " + action);
+        LOG.debug("Processing POST request - {}", action);
         
         try {
             switch (action) {
@@ -91,8 +95,7 @@ public class AuthController extends HttpServlet {
             }
             
         } catch (Exception e) {
-            System.err.println("AuthController: Error processing request - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error processing request", e);
             sendErrorResponse(response, "Authentication service error. Please try again.");
         }
     }
@@ -104,7 +107,7 @@ public class AuthController extends HttpServlet {
         String requestURI = request.getRequestURI();
         String action = getActionFromURI(requestURI);
         
-        System.out.println("AuthController: Processing GET request - " + action);
+        LOG.debug("Processing GET request - {}", action);
         
         try {
             switch (action) {
@@ -134,8 +137,7 @@ public class AuthController extends HttpServlet {
             }
             
         } catch (Exception e) {
-            System.err.println("AuthController: Error handling GET request - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error handling GET request", e);
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server error");
         }
     }
@@ -146,12 +148,11 @@ public class AuthController extends HttpServlet {
     private void handleLoginPageRequest(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         
-        HttpSession session = request.getSession(false);
+        SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
         
         // Check if user is already logged in
-        if (session != null && Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            String userRole = (String) session.getAttribute("userRole");
-            String redirectUrl = loginService.determineRedirectUrl(userRole);
+        if (principal != null) {
+            String redirectUrl = loginService.determineRedirectUrl(principal.getRole());
             response.sendRedirect(request.getContextPath() + "/" + redirectUrl);
             return;
         }
@@ -166,12 +167,11 @@ public class AuthController extends HttpServlet {
     private void handleSignupPageRequest(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         
-        HttpSession session = request.getSession(false);
+        SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
         
         // Check if user is already logged in
-        if (session != null && Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            String userRole = (String) session.getAttribute("userRole");
-            String redirectUrl = signupService.determineRedirectUrl(userRole);
+        if (principal != null) {
+            String redirectUrl = signupService.determineRedirectUrl(principal.getRole());
             response.sendRedirect(request.getContextPath() + "/" + redirectUrl);
             return;
         }
@@ -194,10 +194,8 @@ public class AuthController extends HttpServlet {
     private void handlePasswordChangePageRequest(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         
-        HttpSession session = request.getSession(false);
-        
         // Check if user is logged in for password change
-        if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
+        if (SessionService.getInstance().getPrincipal(request) == null) {
             response.sendRedirect(request.getContextPath() + "/auth/login");
             return;
         }
@@ -211,18 +209,16 @@ public class AuthController extends HttpServlet {
     private void handleLogout(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         
-        HttpSession session = request.getSession(false);
+        SessionService sessionService = SessionService.getInstance();
+        SessionPrincipal principal = sessionService.getPrincipal(request);
         
-        if (session != null) {
-            String userEmail = (String) session.getAttribute("userEmail");
-            String userRole = (String) session.getAttribute("userRole");
-            
-            System.out.println("AuthController: User logging out - " + userEmail + " (Role: " + userRole + ")");
-            
-            // Invalidate session
-            session.invalidate();
-            
-            System.out.println("AuthController: Session invalidated successfully");
+        if (principal != null) {
+            LOG.info("User logging out - {} (Role: {})", principal.getEmail(), principal.getRole());
+        }
+        
+        // End the signed-in session and any guest session
+        if (sessionService.logout(request, response)) {
+            LOG.debug("Session ended successfully");
         }
         
         // Clear cache headers
@@ -276,7 +272,7 @@ public class AuthController extends HttpServlet {
         
         String jsonResponse = String.format(
             "{\"success\": false, \"message\": \"%s\"}",
-            escapeJsonString(message)
+            JsonWriter.escape(message)
         );
         
         out.print(jsonResponse);
@@ -284,21 +280,9 @@ public class AuthController extends HttpServlet {
         out.close();
     }
     
-    /**
-     * Escape JSON string
-     */
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t");
-    }
-    
     @Override
     public void destroy() {
-        System.out.println("AuthController: Controller being destroyed");
+        LOG.info("Controller being destroyed");
         
         // Clean up references
         loginService = null;
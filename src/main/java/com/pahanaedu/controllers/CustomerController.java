@@ -6,9 +6,12 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
+import com.pahanaedu.models.SessionPrincipal;
 import com.pahanaedu.services.CustomerService;
+import com.pahanaedu.services.SessionService;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 /**
  * Customer Controller for Customer Portal Management
@@ -28,6 +31,7 @@ import com.pahanaedu.services.CustomerService;
 })
 public class CustomerController extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    private static final Log LOG = Log.get(CustomerController.class);
     
     private CustomerService customerService;
     
@@ -35,9 +39,9 @@ public class CustomerController extends HttpServlet {
     public void init() throws ServletException {
         try {
             customerService = CustomerService.getInstance();
-            System.out.println("CustomerController: Service initialized successfully");
+            LOG.info("Service initialized successfully");
         } catch (Exception e) {
-            System.err.println("CustomerController: Failed to initialize service - " + e.getMessage());
+            LOG.error("Failed to initialize service - {}", e.getMessage());
             throw new ServletException("Failed to initialize customer service", e);
         }
     }
@@ -49,7 +53,7 @@ public class CustomerController extends HttpServlet {
         String requestURI = request.getRequestURI();
         String action = getActionFromURI(requestURI);
         
-        System.out.println("CustomerController: Processing GET request - " + action);
+        LOG.debug("Processing GET request - {}", action);
         
         try {
             switch (action) {
@@ -94,8 +98,7 @@ public class CustomerController extends HttpServlet {
                     break;
             }
         } catch (Exception e) {
-            System.err.println("CustomerController: Error handling GET request - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error handling GET request", e);
             response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Server error");
         }
     }
@@ -107,7 +110,7 @@ public class CustomerController extends HttpServlet {
         String requestURI = request.getRequestURI();
         String action = getActionFromURI(requestURI);
         
-        System.out.println("CustomerController: Processing POST request - " + action);
+        LOG.debug("Processing POST request - {}", action);
         
         // Set response headers for AJAX requests
         response.setHeader("Cache-Control", "no-cache, no-store, must-revalidate");
@@ -160,8 +163,7 @@ public class CustomerController extends HttpServlet {
                     break;
             }
         } catch (Exception e) {
-            System.err.println("CustomerController: Error processing POST request - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error processing POST request", e);
             sendJsonError(response, "Server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
@@ -175,11 +177,8 @@ public class CustomerController extends HttpServlet {
     private void handleLogout(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            HttpSession session = request.getSession(false);
-            if (session != null) {
-                // Invalidate the session
-                session.invalidate();
-                System.out.println("CustomerController: Session invalidated successfully");
+            if (SessionService.getInstance().logout(request, response)) {
+                LOG.debug("Session ended successfully");
 
                 // Send JSON response for AJAX requests
                 response.setContentType("application/json");
@@ -192,7 +191,7 @@ public class CustomerController extends HttpServlet {
                 sendJsonError(response, "No active session found", HttpServletResponse.SC_BAD_REQUEST);
             }
         } catch (Exception e) {
-            System.err.println("CustomerController: Error during logout - " + e.getMessage());
+            LOG.error("Error during logout - {}", e.getMessage());
             sendJsonError(response, "Server error during logout", HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
@@ -200,20 +199,20 @@ public class CustomerController extends HttpServlet {
      * Check if customer is authenticated
      */
     private boolean isCustomerAuthenticated(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
+        SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
         
-        if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            System.out.println("CustomerController: No valid session found");
+        if (principal == null) {
+            LOG.debug("No valid session found");
             return false;
         }
         
-        String userRole = (String) session.getAttribute("userRole");
-        boolean isCustomer = "CUSTOMER".equals(userRole);
+        String userRole = principal.getRole();
+        boolean isCustomer = principal.isCustomer();
         
         if (!isCustomer) {
-            System.out.println("CustomerController: User role is not CUSTOMER: " + userRole);
+            LOG.debug("User role is not CUSTOMER: {}", userRole);
         } else {
-            System.out.println("CustomerController: Customer authentication successful - Role: " + userRole);
+            LOG.debug("Customer authentication successful - Role: {}", userRole);
         }
         
         return isCustomer;
@@ -223,11 +222,7 @@ public class CustomerController extends HttpServlet {
      * Get customer ID from session
      */
     private Integer getCustomerId(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            return (Integer) session.getAttribute("userId");
-        }
-        return null;
+        return SessionService.getInstance().getUserId(request);
     }
     
     /**
@@ -317,29 +312,15 @@ public class CustomerController extends HttpServlet {
         response.setCharacterEncoding("UTF-8");
         
         String jsonError = "{\"success\": false, \"error\": true, \"message\": \"" + 
-                          escapeJsonString(message) + "\"}";
+                          JsonWriter.escape(message) + "\"}";
         
         response.getWriter().write(jsonError);
         response.getWriter().flush();
     }
     
-    /**
-     * Escape JSON string to prevent injection
-     */
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t")
-                 .replace("\b", "\\b")
-                 .replace("\f", "\\f");
-    }
-    
     @Override
     public void destroy() {
-        System.out.println("CustomerController: Controller being destroyed");
+        LOG.info("Controller being destroyed");
         customerService = null;
         super.destroy();
     }
@@ -0,0 +1,90 @@
+package com.pahanaedu.controllers;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.pahanaedu.utils.FileSender;
+import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.ImageDerivatives;
+import com.pahanaedu.utils.Log;
+
+/**
+ * Serves resized product images: /images/{thumb|grid|detail}/{image file name}
+ *
+ * Missing sizes are made on first request. If an image can't be resized (e.g. a format
+ * ImageIO can't decode) the browser is redirected to the original instead.
+ */
+@WebServlet("/images/*")
+public class DerivedImageController extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Log LOG = Log.get(DerivedImageController.class);
+
+    // Content-hashed names never change content; anything else may be replaced in place
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=86400";
+
+    private ImageDerivatives derivatives;
+
+    @Override
+    public void init() throws ServletException {
+        derivatives = ImageDerivatives.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        serve(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        serve(request, response, false);
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, boolean includeBody)
+            throws IOException {
+
+        String pathInfo = request.getPathInfo();
+        int slash = pathInfo != null ? pathInfo.indexOf('/', 1) : -1;
+        if (slash < 0) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ImageDerivatives.Size size = ImageDerivatives.Size.fromName(pathInfo.substring(1, slash));
+        String fileName = pathInfo.substring(slash + 1);
+        if (size == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String accept = request.getHeader("Accept");
+        boolean webp = derivatives.isWebpSupported() && accept != null && accept.contains("image/webp");
+
+        Path file;
+        try {
+            file = derivatives.get(fileName, size, webp);
+        } catch (IOException e) {
+            LOG.error("Cannot resize {} - {}", fileName, e.getMessage());
+            response.sendRedirect(request.getContextPath() + "/" + FileUploadHandler.getUploadDirectory() + fileName);
+            return;
+        }
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        if (derivatives.isWebpSupported()) {
+            response.setHeader("Vary", "Accept");
+        }
+        // ETag from size and mtime, so WebP and JPEG/PNG copies of one image differ
+        FileSender.send(request, response, file, ImageDerivatives.contentType(file),
+                FileUploadHandler.isContentHashedName(fileName) ? IMMUTABLE : REVALIDATE, null, includeBody);
+    }
+}
@@ -0,0 +1,353 @@
+package com.pahanaedu.controllers;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.pahanaedu.dao.CartStore;
+import com.pahanaedu.dao.ProductCatalogCache;
+import com.pahanaedu.models.User;
+import com.pahanaedu.services.SessionService;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.ConnectionPool;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.ImageDerivatives;
+import com.pahanaedu.utils.ImageSweeper;
+import com.pahanaedu.utils.LatencyHistogram;
+import com.pahanaedu.utils.Log;
+import com.pahanaedu.utils.PasswordHasher;
+import com.pahanaedu.utils.RequestMetrics;
+
+/**
+ * Application metrics in the Prometheus text format: per-endpoint request latencies and
+ * errors (from RequestMetricsFilter), JVM memory/threads/GC, the connection pool, caches
+ * and background workers.
+ *
+ * Scrapers authenticate with "Authorization: Bearer &lt;metrics.token&gt;"; a signed-in admin
+ * can also open the page in a browser. With metrics.token empty only admins get in.
+ */
+@WebServlet("/metrics")
+public class MetricsController extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+    private static final Log LOG = Log.get(MetricsController.class);
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Histogram bucket bounds in seconds, as Prometheus "le" labels
+    private static final String[] BUCKET_LABELS = bucketLabels();
+
+    private byte[] token;
+    private SessionService sessionService;
+
+    @Override
+    public void init() throws ServletException {
+        String configured = AppConfig.getRawString("metrics.token", "");
+        token = configured.isEmpty() ? null : configured.getBytes(StandardCharsets.UTF_8);
+        sessionService = SessionService.getInstance();
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        if (!hasValidToken(request) && !sessionService.hasRole(request, User.ROLE_ADMIN)) {
+            if (sessionService.getPrincipal(request) != null) {
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            } else {
+                response.setHeader("WWW-Authenticate", "Bearer realm=\"metrics\"");
+                response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            }
+            return;
+        }
+
+        StringBuilder out = new StringBuilder(16 * 1024);
+        try {
+            writeRequestMetrics(out);
+            writeJvmMetrics(out);
+            writePoolMetrics(out);
+            writeCacheMetrics(out);
+            writeWorkerMetrics(out);
+        } catch (RuntimeException e) {
+            LOG.error("Error collecting metrics", e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+
+        response.setContentType(CONTENT_TYPE);
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter writer = response.getWriter();
+        writer.write(out.toString());
+        writer.flush();
+    }
+
+    private boolean hasValidToken(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (token == null || header == null || !header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            return false;
+        }
+        byte[] presented = header.substring(7).trim().getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(token, presented);
+    }
+
+    // ==============================================================================================
+    // REQUESTS
+    // ==============================================================================================
+
+    private void writeRequestMetrics(StringBuilder out) {
+        RequestMetrics metrics = RequestMetrics.getInstance();
+        List<RequestMetrics.EndpointStats> endpoints = metrics.getAll();
+
+        header(out, "http_request_duration_seconds", "histogram", "Request latency by controller, path and action");
+        for (RequestMetrics.EndpointStats endpoint : endpoints) {
+            histogram(out, "http_request_duration_seconds", labels(endpoint), endpoint.getLatency());
+        }
+
+        header(out, "http_request_duration_quantile_seconds", "gauge", "Estimated request latency quantiles");
+        for (RequestMetrics.EndpointStats endpoint : endpoints) {
+            String labels = labels(endpoint);
+            LatencyHistogram latency = endpoint.getLatency();
+            quantile(out, labels, "0.5", latency.getPercentileMillis(50));
+            quantile(out, labels, "0.95", latency.getPercentileMillis(95));
+            quantile(out, labels, "0.99", latency.getPercentileMillis(99));
+        }
+
+        header(out, "http_request_duration_max_seconds", "gauge", "Slowest request since start");
+        for (RequestMetrics.EndpointStats endpoint : endpoints) {
+            sample(out, "http_request_duration_max_seconds", labels(endpoint),
+                    seconds(endpoint.getLatency().getMaxMicros()));
+        }
+
+        header(out, "http_request_errors_total", "counter", "Requests answered with 4xx (client) or 5xx (server)");
+        for (RequestMetrics.EndpointStats endpoint : endpoints) {
+            String labels = labels(endpoint);
+            sample(out, "http_request_errors_total", labels + ",class=\"client\"", endpoint.getClientErrorCount());
+            sample(out, "http_request_errors_total", labels + ",class=\"server\"", endpoint.getServerErrorCount());
+        }
+
+        gauge(out, "http_requests_in_flight", "Requests being handled", metrics.getInFlight());
+    }
+
+    private static String labels(RequestMetrics.EndpointStats endpoint) {
+        StringBuilder labels = new StringBuilder(64);
+        label(labels, "controller", endpoint.getController());
+        labels.append(',');
+        label(labels, "path", endpoint.getPath());
+        labels.append(',');
+        label(labels, "action", endpoint.getAction());
+        labels.append(',');
+        label(labels, "method", endpoint.getMethod());
+        return labels.toString();
+    }
+
+    private static void quantile(StringBuilder out, String labels, String quantile, double millis) {
+        out.append("http_request_duration_quantile_seconds{").append(labels)
+           .append(",quantile=\"").append(quantile).append("\"} ").append(millis / 1000.0).append('\n');
+    }
+
+    // ==============================================================================================
+    // JVM
+    // ==============================================================================================
+
+    private void writeJvmMetrics(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        MemoryUsage nonHeap = ManagementFactory.getMemoryMXBean().getNonHeapMemoryUsage();
+
+        header(out, "jvm_memory_used_bytes", "gauge", "Memory in use");
+        sample(out, "jvm_memory_used_bytes", "area=\"heap\"", heap.getUsed());
+        sample(out, "jvm_memory_used_bytes", "area=\"nonheap\"", nonHeap.getUsed());
+        header(out, "jvm_memory_committed_bytes", "gauge", "Memory reserved by the JVM");
+        sample(out, "jvm_memory_committed_bytes", "area=\"heap\"", heap.getCommitted());
+        sample(out, "jvm_memory_committed_bytes", "area=\"nonheap\"", nonHeap.getCommitted());
+        gauge(out, "jvm_memory_max_bytes", "Maximum heap size", heap.getMax());
+
+        gauge(out, "jvm_threads_live", "Live threads", ManagementFactory.getThreadMXBean().getThreadCount());
+        gauge(out, "jvm_threads_daemon", "Live daemon threads", ManagementFactory.getThreadMXBean().getDaemonThreadCount());
+
+        header(out, "jvm_gc_collections_total", "counter", "Garbage collections");
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        for (GarbageCollectorMXBean collector : collectors) {
+            sample(out, "jvm_gc_collections_total", gcLabel(collector), Math.max(0, collector.getCollectionCount()));
+        }
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in garbage collection");
+        for (GarbageCollectorMXBean collector : collectors) {
+            sample(out, "jvm_gc_collection_seconds_total", gcLabel(collector),
+                    Math.max(0, collector.getCollectionTime()) / 1000.0);
+        }
+
+        gauge(out, "process_uptime_seconds", "Time since the JVM started",
+                ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0);
+        gauge(out, "system_cpu_count", "Available processors", Runtime.getRuntime().availableProcessors());
+        double load = ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+        if (load >= 0) {
+            gauge(out, "system_load_average_1m", "System load average over the last minute", load);
+        }
+    }
+
+    private static String gcLabel(GarbageCollectorMXBean collector) {
+        StringBuilder label = new StringBuilder();
+        label(label, "gc", collector.getName());
+        return label.toString();
+    }
+
+    // ==============================================================================================
+    // CONNECTION POOL
+    // ==============================================================================================
+
+    private void writePoolMetrics(StringBuilder out) {
+        ConnectionPool pool = DatabaseConnection.getPool();
+
+        header(out, "db_pool_connections", "gauge", "Pooled connections by state");
+        sample(out, "db_pool_connections", "state=\"active\"", pool.getActiveCount());
+        sample(out, "db_pool_connections", "state=\"idle\"", pool.getIdleCount());
+        gauge(out, "db_pool_connections_max", "Pool size limit", pool.getMaxSize());
+        gauge(out, "db_pool_waiting_threads", "Threads waiting for a connection", pool.getWaitingCount());
+
+        counter(out, "db_pool_borrows_total", "Connections handed out", pool.getBorrowCount());
+        counter(out, "db_pool_created_total", "Connections opened", pool.getCreatedCount());
+        counter(out, "db_pool_closed_total", "Connections closed", pool.getClosedCount());
+        counter(out, "db_pool_timeouts_total", "Borrows that timed out", pool.getTimeoutCount());
+        counter(out, "db_pool_validation_failures_total", "Connections discarded by validation",
+                pool.getValidationFailureCount());
+        counter(out, "db_pool_leaks_total", "Connections held past the leak threshold", pool.getLeakCount());
+
+        header(out, "db_pool_borrow_seconds", "histogram", "Time to get a connection from the pool");
+        histogram(out, "db_pool_borrow_seconds", "", pool.getBorrowLatency());
+    }
+
+    // ==============================================================================================
+    // CACHES AND WORKERS
+    // ==============================================================================================
+
+    private void writeCacheMetrics(StringBuilder out) {
+        ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+        counter(out, "catalog_cache_hits_total", "Product catalog cache hits", catalog.getHitCount());
+        counter(out, "catalog_cache_misses_total", "Product catalog cache misses", catalog.getMissCount());
+        counter(out, "catalog_cache_reloads_total", "Product catalog reloads", catalog.getReloadCount());
+        gauge(out, "catalog_cache_products", "Products in the catalog cache", catalog.getSize());
+        gauge(out, "catalog_cache_age_seconds", "Time since the catalog was loaded", catalog.getAgeMillis() / 1000.0);
+
+        gauge(out, "cart_store_cached_carts", "Carts held in memory", CartStore.getInstance().getCachedCount());
+
+        ImageDerivatives derivatives = ImageDerivatives.getInstance();
+        gauge(out, "image_derived_files", "Resized image copies on disk", derivatives.getCachedCount());
+        gauge(out, "image_derived_bytes", "Disk space used by resized copies", derivatives.getCachedBytes());
+    }
+
+    private void writeWorkerMetrics(StringBuilder out) {
+        PasswordHasher hasher = PasswordHasher.getInstance();
+        gauge(out, "password_hash_active", "Password hashes being computed", hasher.getActiveCount());
+        gauge(out, "password_hash_queued", "Password hashes waiting for a thread", hasher.getQueuedCount());
+        counter(out, "password_hash_rejected_total", "Hashes refused because the queue was full",
+                hasher.getRejectedCount());
+        counter(out, "password_rehash_total", "Stored hashes upgraded to the current cost", hasher.getRehashCount());
+        gauge(out, "password_hash_cost", "BCrypt cost for new hashes", hasher.getCost());
+
+        ImageSweeper sweeper = ImageSweeper.getInstance();
+        if (sweeper != null) {
+            counter(out, "image_sweeper_removed_total", "Unreferenced images removed", sweeper.getTotalRemoved());
+            counter(out, "image_sweeper_reclaimed_bytes_total", "Disk space reclaimed from unreferenced images",
+                    sweeper.getTotalReclaimedBytes());
+        }
+
+        counter(out, "log_messages_dropped_total", "Log messages discarded because the buffer was full",
+                Log.getDroppedCount());
+    }
+
+    // ==============================================================================================
+    // TEXT FORMAT
+    // ==============================================================================================
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        sample(out, name, "", value);
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        header(out, name, "gauge", help);
+        sample(out, name, "", value);
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        sample(out, name, "", value);
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        sampleName(out, name, labels).append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        sampleName(out, name, labels).append(value).append('\n');
+    }
+
+    private static StringBuilder sampleName(StringBuilder out, String name, String labels) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        return out.append(' ');
+    }
+
+    /**
+     * Cumulative buckets, _sum and _count for one LatencyHistogram
+     */
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long[] counts = histogram.getBucketCounts();
+        String separator = labels.isEmpty() ? "" : ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i < BUCKET_LABELS.length ? BUCKET_LABELS[i] : "+Inf";
+            out.append(name).append("_bucket{").append(labels).append(separator)
+               .append("le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+        }
+        sample(out, name + "_sum", labels, seconds(histogram.getSumMicros()));
+        // Buckets and count are read separately; use the bucket total so they agree
+        sample(out, name + "_count", labels, cumulative);
+    }
+
+    private static void label(StringBuilder out, String name, String value) {
+        out.append(name).append("=\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == '"') {
+                out.append('\\').append(c);
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+
+    private static String[] bucketLabels() {
+        long[] bounds = LatencyHistogram.getBucketBoundsMicros();
+        String[] labels = new String[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            labels[i] = BigDecimal.valueOf(bounds[i], 6).stripTrailingZeros().toPlainString();
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,107 @@
+package com.pahanaedu.controllers;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.pahanaedu.utils.FileSender;
+import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.ImageStorage;
+import com.pahanaedu.utils.LocalImageStorage;
+
+/**
+ * Serves uploaded product images: /uploads/products/{image file name}
+ *
+ * Images are read straight from the image store, wherever upload.storeDir puts it, so
+ * nothing has to be copied into the deployed webapp. Content-hashed names get their hash
+ * as ETag and a year-long immutable Cache-Control, so a returning browser doesn't even
+ * revalidate; other names are revalidated daily and usually answered with a 304.
+ */
+@WebServlet("/uploads/products/*")
+public class ProductImageController extends HttpServlet {
+    private static final long serialVersionUID = 1L;
+
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String REVALIDATE = "public, max-age=86400";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        serve(request, response, true);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        serve(request, response, false);
+    }
+
+    private void serve(HttpServletRequest request, HttpServletResponse response, boolean includeBody)
+            throws IOException {
+
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || pathInfo.length() < 2 || pathInfo.indexOf('/', 1) >= 0) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String fileName = pathInfo.substring(1);
+        String imagePath = FileUploadHandler.getUploadDirectory() + fileName;
+
+        String contentType = getServletContext().getMimeType(fileName);
+        if (contentType == null) {
+            contentType = DEFAULT_CONTENT_TYPE;
+        }
+        boolean hashed = FileUploadHandler.isContentHashedName(fileName);
+        String cacheControl = hashed ? IMMUTABLE : REVALIDATE;
+        String etag = hashed ? "\"" + fileName.substring(0, fileName.indexOf('.')) + "\"" : null;
+
+        response.setHeader("X-Content-Type-Options", "nosniff");
+
+        ImageStorage storage = FileUploadHandler.getStorage();
+        if (storage instanceof LocalImageStorage) {
+            Path file = ((LocalImageStorage) storage).resolve(imagePath);
+            if (file == null || !Files.isRegularFile(file)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            FileSender.send(request, response, file, contentType, cacheControl, etag, includeBody);
+            return;
+        }
+
+        // Other backends only offer a stream: no ranges, and only hashed names can be validated
+        if (etag != null) {
+            response.setHeader("ETag", etag);
+            String ifNoneMatch = request.getHeader("If-None-Match");
+            if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+                response.setHeader("Cache-Control", cacheControl);
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        try (InputStream in = storage.open(imagePath)) {
+            response.setContentType(contentType);
+            response.setHeader("Cache-Control", cacheControl);
+            if (!includeBody) {
+                return;
+            }
+            OutputStream out = response.getOutputStream();
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (FileNotFoundException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+}
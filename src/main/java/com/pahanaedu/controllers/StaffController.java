@@ -7,10 +7,12 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
+import com.pahanaedu.models.User;
+import com.pahanaedu.services.SessionService;
 import com.pahanaedu.services.StaffService;
-import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 @WebServlet({
     "/staff/dashboard",
@@ -27,17 +29,13 @@ import com.pahanaedu.utils.FileUploadHandler;
 )
 public class StaffController extends HttpServlet {
     private static final long serialVersionUID = 1L;
+    private static final Log LOG = Log.get(StaffController.class);
     private StaffService staffService;
     
     @Override
     public void init() throws ServletException {
         staffService = StaffService.getInstance();
-        System.out.println("StaffController: POS System initialized successfully");
-        
-        // Sync project files to deployment directory on startup
-        String webAppPath = getServletContext().getRealPath("");
-        FileUploadHandler.syncProjectFilesToDeployment(webAppPath);
-        System.out.println("StaffController: Project files synced to deployment directory");
+        LOG.info("POS System initialized successfully");
     }
     
     @Override
@@ -126,19 +124,13 @@ public class StaffController extends HttpServlet {
                     sendJsonError(response, "Invalid endpoint", HttpServletResponse.SC_NOT_FOUND);
             }
         } catch (Exception e) {
-            System.err.println("StaffController: Error - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error handling request", e);
             sendJsonError(response, "Server error: " + e.getMessage(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
     }
     
     private boolean isStaffAuthenticated(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn"))) {
-            return false;
-        }
-        String userRole = (String) session.getAttribute("userRole");
-        return "STAFF".equals(userRole) || "ADMIN".equals(userRole);
+        return SessionService.getInstance().hasRole(request, User.ROLE_STAFF, User.ROLE_ADMIN);
     }
     
     private boolean isMultipartRequest(HttpServletRequest request) {
@@ -156,13 +148,9 @@ public class StaffController extends HttpServlet {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         String jsonError = "{\"success\": false, \"error\": true, \"message\": \"" + 
-                          escapeJsonString(message) + "\"}";
+                          JsonWriter.escape(message) + "\"}";
         response.getWriter().write(jsonError);
         response.getWriter().flush();
     }
     
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\").replace("\"", "\\\"");
-    }
 }
\ No newline at end of file
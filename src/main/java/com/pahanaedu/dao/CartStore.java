@@ -0,0 +1,376 @@
+package com.pahanaedu.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.pahanaedu.models.Cart;
+import com.pahanaedu.models.CartItem;
+import com.pahanaedu.models.Product;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
+
+/**
+ * Customer carts, kept in memory and written behind to the carts table.
+ *
+ * A customer's cart is loaded from the database the first time it is used on this node
+ * (typically right after login) and then served from memory. Changes only bump the cart's
+ * version; a background task writes every cart whose version moved since its last write,
+ * so a burst of cart clicks costs one write. Carts that have been idle (and written) for
+ * cart.idleEvictMs are dropped from memory and reloaded on next use.
+ *
+ * Carts are not kept in the HTTP session, so sessions stay small and carts survive restarts.
+ * A cart is cached by the node that served it; with sticky sessions that is the only node
+ * a customer talks to, and the idle eviction bounds how long another node's copy can linger.
+ * Each stored cart has a version in cart_versions; a write only goes through if the stored
+ * version is still the one this node loaded or last wrote, so a stale copy on another node
+ * can never replace a newer cart. The losing copy is dropped and reloaded on next use.
+ *
+ * An evicted entry is marked dead under its lock before it leaves the map, and getCart
+ * touches the cart under the same lock, so a cart is never handed out just as it is evicted.
+ */
+public class CartStore {
+    private static final Log LOG = Log.get(CartStore.class);
+
+    private static CartStore instance = null;
+
+    private static final String SELECT_CART =
+        "SELECT product_id, quantity, unit_price FROM carts WHERE customer_id = ? ORDER BY position, product_id";
+    private static final String SELECT_CART_VERSION =
+        "SELECT version FROM cart_versions WHERE customer_id = ?";
+    // Claim the next version; 0 rows means another node wrote the cart since we read it
+    private static final String INSERT_CART_VERSION =
+        "INSERT IGNORE INTO cart_versions (customer_id, version) VALUES (?, 1)";
+    private static final String UPDATE_CART_VERSION =
+        "UPDATE cart_versions SET version = version + 1 WHERE customer_id = ? AND version = ?";
+    private static final String DELETE_CART =
+        "DELETE FROM carts WHERE customer_id = ?";
+    private static final String INSERT_CART_LINE =
+        "INSERT INTO carts (customer_id, product_id, position, quantity, unit_price) VALUES (?, ?, ?, ?, ?)";
+
+    private final long flushIntervalMs;
+    private final long idleEvictMs;
+
+    private final Map<Integer, Entry> carts = new ConcurrentHashMap<>();
+    private ScheduledExecutorService flusher;
+
+    private CartStore() {
+        this.flushIntervalMs = AppConfig.getLong("cart.flushIntervalMs", 5_000L);
+        this.idleEvictMs = AppConfig.getLong("cart.idleEvictMs", 1_800_000L);
+    }
+
+    public static synchronized CartStore getInstance() {
+        if (instance == null) {
+            instance = new CartStore();
+        }
+        return instance;
+    }
+
+    /**
+     * The customer's cart, loaded from the database on first use.
+     * The returned cart is live: changes made to it are persisted by the store.
+     */
+    public Cart getCart(int customerId) throws SQLException {
+        while (true) {
+            Entry entry = carts.get(customerId);
+            if (entry == null) {
+                Entry fresh = loadCart(customerId);
+                entry = carts.putIfAbsent(customerId, fresh);
+                if (entry == null) {
+                    return fresh.cart;
+                }
+            }
+            synchronized (entry) {
+                if (!entry.dead) {
+                    entry.cart.touch();
+                    return entry.cart;
+                }
+            }
+            // Evicted or dropped while we were looking it up: load it again
+            carts.remove(customerId, entry);
+        }
+    }
+
+    /**
+     * Called after a request changed the customer's cart. With write-behind on this is free;
+     * with cart.flushIntervalMs 0 the cart is written straight away.
+     */
+    public void onChanged(int customerId) {
+        if (flushIntervalMs <= 0) {
+            flush(customerId);
+        }
+    }
+
+    /**
+     * Write a customer's cart now instead of waiting for the next flush (e.g. after checkout)
+     */
+    public void flush(int customerId) {
+        Entry entry = carts.get(customerId);
+        if (entry != null) {
+            write(customerId, entry);
+        }
+    }
+
+    /**
+     * Write every changed cart and drop idle ones from memory
+     */
+    public void flushAll() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Integer, Entry> e : carts.entrySet()) {
+            int customerId = e.getKey();
+            Entry entry = e.getValue();
+            if (!write(customerId, entry)) {
+                continue;
+            }
+            if (idleEvictMs > 0 && now - entry.cart.getLastAccessed() > idleEvictMs) {
+                synchronized (entry) {
+                    // Checked again under the lock: getCart may have just handed the cart out
+                    if (entry.persistedVersion == entry.cart.getVersion()
+                            && System.currentTimeMillis() - entry.cart.getLastAccessed() > idleEvictMs) {
+                        drop(customerId, entry);
+                    }
+                }
+            }
+        }
+    }
+
+    public int getCachedCount() {
+        return carts.size();
+    }
+
+    // ==============================================================================================
+    // LIFECYCLE
+    // ==============================================================================================
+
+    /**
+     * Start the write-behind task (no-op when cart.flushIntervalMs is 0)
+     */
+    public synchronized void start() {
+        if (flusher != null || flushIntervalMs <= 0) {
+            return;
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-store-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(() -> {
+            try {
+                flushAll();
+            } catch (RuntimeException e) {
+                LOG.error("Flush failed - {}", e.getMessage());
+            }
+        }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the write-behind task and write whatever is still pending
+     */
+    public synchronized void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            flusher = null;
+        }
+        flushAll();
+    }
+
+    // ==============================================================================================
+    // PERSISTENCE
+    // ==============================================================================================
+
+    /**
+     * Replace the customer's stored cart with the in-memory one if it changed since the last write.
+     * Serialized per cart on this node, and guarded by the stored version across nodes, so an
+     * older copy can never overwrite a newer one.
+     *
+     * @return true if the stored cart is up to date afterwards
+     */
+    private boolean write(int customerId, Entry entry) {
+        synchronized (entry) {
+            if (entry.dead) {
+                return true;
+            }
+            List<CartItem> items;
+            long version;
+            synchronized (entry.cart) {
+                version = entry.cart.getVersion();
+                if (version == entry.persistedVersion) {
+                    return true;
+                }
+                items = entry.cart.snapshot();
+            }
+
+            Connection connection = null;
+            try {
+                connection = DatabaseConnection.getConnection();
+                connection.setAutoCommit(false);
+
+                if (!claimNextVersion(connection, customerId, entry.storedVersion)) {
+                    connection.rollback();
+                    LOG.warn("Cart for customer {} was changed on another node; dropping this node's copy", customerId);
+                    drop(customerId, entry);
+                    return true;
+                }
+
+                try (PreparedStatement delete = connection.prepareStatement(DELETE_CART)) {
+                    delete.setInt(1, customerId);
+                    delete.executeUpdate();
+                }
+
+                if (!items.isEmpty()) {
+                    try (PreparedStatement insert = connection.prepareStatement(INSERT_CART_LINE)) {
+                        int position = 0;
+                        for (CartItem item : items) {
+                            insert.setInt(1, customerId);
+                            insert.setInt(2, item.getProductId());
+                            insert.setInt(3, position++);
+                            insert.setInt(4, item.getQuantity());
+                            insert.setBigDecimal(5, item.getUnitPrice());
+                            insert.addBatch();
+                        }
+                        insert.executeBatch();
+                    }
+                }
+
+                connection.commit();
+                entry.persistedVersion = version;
+                entry.storedVersion++;
+                return true;
+
+            } catch (SQLException e) {
+                rollbackQuietly(connection);
+                // Left dirty; the next flush tries again
+                LOG.error("Error saving cart for customer {} - {}", customerId, e.getMessage());
+                return false;
+            } finally {
+                closeQuietly(connection);
+            }
+        }
+    }
+
+    /**
+     * Bump the stored version if it is still the expected one (0 = no cart stored yet)
+     */
+    private static boolean claimNextVersion(Connection connection, int customerId, long expected) throws SQLException {
+        if (expected == 0) {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_CART_VERSION)) {
+                insert.setInt(1, customerId);
+                return insert.executeUpdate() == 1;
+            }
+        }
+        try (PreparedStatement update = connection.prepareStatement(UPDATE_CART_VERSION)) {
+            update.setInt(1, customerId);
+            update.setLong(2, expected);
+            return update.executeUpdate() == 1;
+        }
+    }
+
+    /**
+     * Take an entry out of service; callers that still find it in the map reload the cart.
+     * Called with the entry locked.
+     */
+    private void drop(int customerId, Entry entry) {
+        entry.dead = true;
+        carts.remove(customerId, entry);
+    }
+
+    private Entry loadCart(int customerId) throws SQLException {
+        List<CartItem> stored = new ArrayList<>();
+        long storedVersion = 0L;
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            // Version first: if a write lands in between, ours is the older version and our
+            // next write is refused rather than overwriting the newer lines
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_CART_VERSION)) {
+                statement.setInt(1, customerId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (rs.next()) {
+                        storedVersion = rs.getLong(1);
+                    }
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_CART)) {
+                statement.setInt(1, customerId);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        CartItem item = new CartItem();
+                        item.setProductId(rs.getInt("product_id"));
+                        item.setUnitPrice(rs.getBigDecimal("unit_price"));
+                        item.setQuantity(rs.getInt("quantity"));
+                        stored.add(item);
+                    }
+                }
+            }
+        }
+
+        // Display fields come from the catalog (after the connection is back in the pool)
+        List<Integer> productIds = new ArrayList<>(stored.size());
+        for (CartItem item : stored) {
+            productIds.add(item.getProductId());
+        }
+        Map<Integer, Product> products = ProductDAO.getInstance().getProductsByIds(productIds);
+
+        List<CartItem> items = new ArrayList<>(stored.size());
+        for (CartItem item : stored) {
+            Product product = products.get(item.getProductId());
+            if (product != null) {
+                item.setProductTitle(product.getTitle());
+                item.setProductImage(product.getImagePath());
+                items.add(item);
+            }
+        }
+        return new Entry(new Cart(items), storedVersion);
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                LOG.error("Error rolling back transaction: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+                connection.close();
+            } catch (SQLException e) {
+                LOG.error("Error closing connection: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A cached cart, the cart version last written from it, and the cart_versions version it
+     * was loaded at or last written as. Fields other than cart are guarded by the entry.
+     */
+    private static final class Entry {
+        final Cart cart;
+        long persistedVersion;
+        long storedVersion;
+        boolean dead;
+
+        Entry(Cart cart, long storedVersion) {
+            this.cart = cart;
+            this.persistedVersion = cart.getVersion();
+            this.storedVersion = storedVersion;
+        }
+    }
+}
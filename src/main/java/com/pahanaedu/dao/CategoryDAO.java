@@ -5,8 +5,11 @@ import java.util.ArrayList;
 import java.util.List;
 import com.pahanaedu.models.Category;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
 
 public class CategoryDAO {
+    private static final Log LOG = Log.get(CategoryDAO.class);
+
     private static CategoryDAO instance = null;
     
     private static final String INSERT_CATEGORY = 
@@ -39,9 +42,13 @@ public class CategoryDAO {
             statement.setString(2, category.getDescription());
             statement.setString(3, category.getStatus());
             
-            return statement.executeUpdate() > 0;
+            boolean created = statement.executeUpdate() > 0;
+            if (created) {
+                DashboardStats.getInstance().invalidateEntityCounts();
+            }
+            return created;
         } catch (SQLException e) {
-            System.err.println("Error creating category: " + e.getMessage());
+            LOG.error("Error creating category: {}", e.getMessage());
             return false;
         }
     }
@@ -56,7 +63,7 @@ public class CategoryDAO {
                 categories.add(extractCategoryFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting all categories: " + e.getMessage());
+            LOG.error("Error getting all categories: {}", e.getMessage());
         }
         return categories;
     }
@@ -71,7 +78,7 @@ public class CategoryDAO {
                 categories.add(extractCategoryFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting active categories: " + e.getMessage());
+            LOG.error("Error getting active categories: {}", e.getMessage());
         }
         return categories;
     }
@@ -87,7 +94,7 @@ public class CategoryDAO {
                 return extractCategoryFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting category by ID: " + e.getMessage());
+            LOG.error("Error getting category by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -101,9 +108,14 @@ public class CategoryDAO {
             statement.setString(3, category.getStatus());
             statement.setInt(4, category.getId());
             
-            return statement.executeUpdate() > 0;
+            boolean updated = statement.executeUpdate() > 0;
+            if (updated) {
+                // Products carry the category name, so the cached catalog is now out of date
+                ProductCatalogCache.getInstance().invalidate();
+            }
+            return updated;
         } catch (SQLException e) {
-            System.err.println("Error updating category: " + e.getMessage());
+            LOG.error("Error updating category: {}", e.getMessage());
             return false;
         }
     }
@@ -113,9 +125,15 @@ public class CategoryDAO {
              PreparedStatement statement = connection.prepareStatement(DELETE_CATEGORY)) {
             
             statement.setInt(1, id);
-            return statement.executeUpdate() > 0;
+            
+            boolean deleted = statement.executeUpdate() > 0;
+            if (deleted) {
+                ProductCatalogCache.getInstance().invalidate();
+                DashboardStats.getInstance().invalidateEntityCounts();
+            }
+            return deleted;
         } catch (SQLException e) {
-            System.err.println("Error deleting category: " + e.getMessage());
+            LOG.error("Error deleting category: {}", e.getMessage());
             return false;
         }
     }
@@ -0,0 +1,601 @@
+package com.pahanaedu.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.pahanaedu.models.Order;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
+
+/**
+ * Counters behind the admin and staff dashboards.
+ *
+ * Order counters (per status, today's orders and revenue, this month's revenue) are kept
+ * up to date incrementally by OrderDAO as orders are created, change status or are deleted.
+ * User, product, category and promo code counts are cheap COUNT(*) queries on small tables;
+ * their DAOs just mark them dirty and they are re-counted on the next read.
+ *
+ * Everything is rebuilt from SQL aggregates on first use, at midnight, and periodically
+ * (stats.reconcileIntervalMs) to pick up writes made by other nodes or directly in MySQL.
+ * The aggregates are read in one consistent-snapshot transaction. Order writes reported
+ * while a rebuild runs are recorded with their order id; the snapshot's own view of those
+ * orders shows which of them it already contains, and only the rest are applied to the
+ * rebuilt figures. Only one rebuild runs at a time.
+ */
+public class DashboardStats {
+    private static final Log LOG = Log.get(DashboardStats.class);
+
+    private static DashboardStats instance = null;
+
+    private static final String COUNT_USERS_BY_ROLE =
+        "SELECT role, COUNT(*) FROM users GROUP BY role";
+    private static final String COUNT_PRODUCTS =
+        "SELECT COUNT(*), COALESCE(SUM(status = 'active'), 0) FROM products";
+    private static final String COUNT_CATEGORIES =
+        "SELECT COUNT(*) FROM categories";
+    private static final String COUNT_PROMO_CODES =
+        "SELECT COUNT(*) FROM promo_codes";
+    private static final String COUNT_ORDERS_BY_STATUS =
+        "SELECT status, COUNT(*) FROM orders GROUP BY status";
+    private static final String SUM_ORDERS_BETWEEN =
+        "SELECT COUNT(*), COALESCE(SUM(final_amount), 0) FROM orders WHERE created_at >= ? AND created_at < ?";
+    private static final String START_SNAPSHOT =
+        "START TRANSACTION WITH CONSISTENT SNAPSHOT";
+    private static final String MAX_ORDER_ID =
+        "SELECT COALESCE(MAX(id), 0) FROM orders";
+    private static final String SELECT_ORDER_STATUS_BY_IDS =
+        "SELECT id, status FROM orders WHERE id IN ";
+    private static final String SUM_REVENUE_BETWEEN =
+        "SELECT COALESCE(SUM(final_amount), 0) FROM orders " +
+        "WHERE status IN ('" + Order.STATUS_SHIPPED + "', '" + Order.STATUS_DELIVERED + "') " +
+        "AND created_at >= ? AND created_at < ?";
+
+    private final long reconcileIntervalMs;
+    private ScheduledExecutorService reconciler;
+
+    // Held while the order counters are rebuilt, so there is only ever one rebuild at a time
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private volatile boolean entityCountsDirty = true;
+
+    // Guarded by this
+    private OrderCounters orders;
+    // Order writes reported while a rebuild runs, in report order; null outside a rebuild
+    private List<OrderWrite> pendingWrites;
+    private Map<String, Long> usersByRole = new HashMap<>();
+    private long totalProducts;
+    private long activeProducts;
+    private long totalCategories;
+    private long totalPromoCodes;
+    private long reconciledAt;
+
+    private DashboardStats() {
+        this.reconcileIntervalMs = AppConfig.getLong("stats.reconcileIntervalMs", 60_000L);
+    }
+
+    public static synchronized DashboardStats getInstance() {
+        if (instance == null) {
+            instance = new DashboardStats();
+        }
+        return instance;
+    }
+
+    // ==============================================================================================
+    // READS
+    // ==============================================================================================
+
+    /**
+     * Current figures; only hits the database on first use, after midnight, or for dirty entity counts
+     */
+    public Snapshot getSnapshot() {
+        if (!isLoaded()) {
+            // Cold: everyone waits for the first load
+            reconcileLock.lock();
+            try {
+                if (!isLoaded()) {
+                    rebuild();
+                }
+            } finally {
+                reconcileLock.unlock();
+            }
+        } else if (isNewDay()) {
+            // After midnight one caller rebuilds; the rest serve the current figures meanwhile
+            if (reconcileLock.tryLock()) {
+                try {
+                    if (isNewDay()) {
+                        rebuild();
+                    }
+                } finally {
+                    reconcileLock.unlock();
+                }
+            }
+        } else if (entityCountsDirty) {
+            reloadEntityCounts();
+        }
+
+        synchronized (this) {
+            return new Snapshot(this);
+        }
+    }
+
+    // ==============================================================================================
+    // INCREMENTAL UPDATES (called by DAOs after a successful commit)
+    // ==============================================================================================
+
+    synchronized void onOrderCreated(int orderId, String status, BigDecimal amount, Timestamp createdAt) {
+        report(new OrderWrite(orderId, null, status, amount, createdAt));
+    }
+
+    synchronized void onOrderStatusChanged(int orderId, String from, String to, BigDecimal amount, Timestamp createdAt) {
+        if (from != null && from.equals(to)) {
+            return;
+        }
+        report(new OrderWrite(orderId, from, to, amount, createdAt));
+    }
+
+    synchronized void onOrderDeleted(int orderId, String status, BigDecimal amount, Timestamp createdAt) {
+        report(new OrderWrite(orderId, status, null, amount, createdAt));
+    }
+
+    private void report(OrderWrite write) {
+        if (pendingWrites != null) {
+            pendingWrites.add(write);
+        }
+        if (orders != null) {
+            write.applyTo(orders);
+        }
+    }
+
+    /**
+     * A user, product, category or promo code was created, deleted or changed role/status
+     */
+    void invalidateEntityCounts() {
+        entityCountsDirty = true;
+    }
+
+    // ==============================================================================================
+    // RECONCILIATION
+    // ==============================================================================================
+
+    /**
+     * Recompute everything from SQL aggregates. Waits if a rebuild is already running.
+     */
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            rebuild();
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    /**
+     * Called with reconcileLock held
+     */
+    private void rebuild() {
+        LocalDate today = LocalDate.now();
+        YearMonth thisMonth = YearMonth.from(today);
+
+        // Open the window before the snapshot, so any write the snapshot misses is reported
+        // either into it or, once the rebuild is done, onto the new counters
+        synchronized (this) {
+            pendingWrites = new ArrayList<>();
+        }
+
+        OrderCounters fresh = new OrderCounters(today, thisMonth);
+        int checked;
+        Map<Integer, String> snapshotStatus = new HashMap<>();
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            int isolation = connection.getTransactionIsolation();
+            connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(START_SNAPSHOT);
+                }
+                int maxOrderId = readOrderAggregates(connection, fresh, today, thisMonth);
+
+                List<OrderWrite> reported;
+                synchronized (this) {
+                    reported = new ArrayList<>(pendingWrites);
+                }
+                checked = reported.size();
+                readSnapshotStatus(connection, reported, maxOrderId, snapshotStatus);
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(true);
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            LOG.error("Error reconciling order stats - {}", e.getMessage());
+            synchronized (this) {
+                pendingWrites = null;
+            }
+            return;
+        }
+
+        synchronized (this) {
+            applyUnseen(fresh, pendingWrites, checked, snapshotStatus);
+            pendingWrites = null;
+            this.orders = fresh;
+            this.reconciledAt = System.currentTimeMillis();
+        }
+
+        reloadEntityCounts();
+    }
+
+    /**
+     * Order counts and sums into fresh, all read from the connection's snapshot; returns
+     * the highest order id in it
+     */
+    private static int readOrderAggregates(Connection connection, OrderCounters fresh, LocalDate today,
+                                           YearMonth thisMonth) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(COUNT_ORDERS_BY_STATUS)) {
+            ResultSet rs = statement.executeQuery();
+            while (rs.next()) {
+                fresh.byStatus.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(SUM_ORDERS_BETWEEN)) {
+            statement.setTimestamp(1, startOf(today));
+            statement.setTimestamp(2, startOf(today.plusDays(1)));
+            ResultSet rs = statement.executeQuery();
+            rs.next();
+            fresh.todayOrders = rs.getLong(1);
+            fresh.todayRevenue = nonNull(rs.getBigDecimal(2));
+        }
+        try (PreparedStatement statement = connection.prepareStatement(SUM_REVENUE_BETWEEN)) {
+            statement.setTimestamp(1, startOf(thisMonth.atDay(1)));
+            statement.setTimestamp(2, startOf(thisMonth.plusMonths(1).atDay(1)));
+            ResultSet rs = statement.executeQuery();
+            rs.next();
+            fresh.monthlyRevenue = nonNull(rs.getBigDecimal(1));
+        }
+        return (int) count(connection, MAX_ORDER_ID);
+    }
+
+    /**
+     * The snapshot's status for each reported order it contains. Orders above maxOrderId
+     * were inserted after the snapshot, so only the others are looked up.
+     */
+    private static void readSnapshotStatus(Connection connection, List<OrderWrite> reported, int maxOrderId,
+                                           Map<Integer, String> snapshotStatus) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        for (OrderWrite write : reported) {
+            if (write.orderId > 0 && write.orderId <= maxOrderId) {
+                ids.add(write.orderId);
+            }
+        }
+        ids = InClause.distinctIds(ids);
+        for (int from = 0; from < ids.size(); from += InClause.CHUNK_SIZE) {
+            List<Integer> chunk = ids.subList(from, Math.min(from + InClause.CHUNK_SIZE, ids.size()));
+            try (PreparedStatement statement = connection.prepareStatement(
+                    SELECT_ORDER_STATUS_BY_IDS + InClause.placeholders(chunk.size()))) {
+                InClause.bind(statement, chunk);
+                ResultSet rs = statement.executeQuery();
+                while (rs.next()) {
+                    snapshotStatus.put(rs.getInt(1), rs.getString(2));
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply the reported writes the snapshot does not contain.
+     *
+     * Per order, the snapshot contains the writes up to the last one that leaves the order as
+     * the snapshot has it (present with that status, or absent); the writes after it are
+     * applied. Writes reported after the snapshot was checked (from index checked on) were
+     * reported after the aggregates were read and are taken to have committed after the
+     * snapshot too, the same assumption made for writes reported once the rebuild is done.
+     */
+    private static void applyUnseen(OrderCounters fresh, List<OrderWrite> writes, int checked,
+                                    Map<Integer, String> snapshotStatus) {
+        Map<Integer, List<Integer>> byOrder = new LinkedHashMap<>();
+        for (int i = 0; i < writes.size(); i++) {
+            byOrder.computeIfAbsent(writes.get(i).orderId, id -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<Integer, List<Integer>> order : byOrder.entrySet()) {
+            List<Integer> indexes = order.getValue();
+            int seen = 0;
+            if (order.getKey() > 0) {
+                String status = snapshotStatus.get(order.getKey());
+                for (int i = 0; i < indexes.size() && indexes.get(i) < checked; i++) {
+                    if (Objects.equals(writes.get(indexes.get(i)).after, status)) {
+                        seen = i + 1;
+                    }
+                }
+            }
+            for (int i = seen; i < indexes.size(); i++) {
+                writes.get(indexes.get(i)).applyTo(fresh);
+            }
+        }
+    }
+
+    private synchronized boolean isLoaded() {
+        return orders != null;
+    }
+
+    private synchronized boolean isNewDay() {
+        return orders != null && !LocalDate.now().equals(orders.day);
+    }
+
+    private void reloadEntityCounts() {
+        // Clear first: an invalidation that arrives while we are counting must trigger another pass
+        entityCountsDirty = false;
+
+        Map<String, Long> roleCounts = new HashMap<>();
+        long products;
+        long active;
+        long categories;
+        long promoCodes;
+
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_USERS_BY_ROLE)) {
+                ResultSet rs = statement.executeQuery();
+                while (rs.next()) {
+                    roleCounts.put(rs.getString(1), rs.getLong(2));
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(COUNT_PRODUCTS)) {
+                ResultSet rs = statement.executeQuery();
+                rs.next();
+                products = rs.getLong(1);
+                active = rs.getLong(2);
+            }
+            categories = count(connection, COUNT_CATEGORIES);
+            promoCodes = count(connection, COUNT_PROMO_CODES);
+        } catch (SQLException e) {
+            LOG.error("Error counting users and catalog - {}", e.getMessage());
+            entityCountsDirty = true;
+            return;
+        }
+
+        synchronized (this) {
+            this.usersByRole = roleCounts;
+            this.totalProducts = products;
+            this.activeProducts = active;
+            this.totalCategories = categories;
+            this.totalPromoCodes = promoCodes;
+        }
+    }
+
+    /**
+     * Start the periodic reconciliation pass (no-op when stats.reconcileIntervalMs is 0)
+     */
+    public synchronized void startReconciler() {
+        if (reconciler != null || reconcileIntervalMs <= 0) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dashboard-stats-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try {
+                reconcile();
+            } catch (RuntimeException e) {
+                LOG.error("Reconcile failed - {}", e.getMessage());
+            }
+        }, reconcileIntervalMs, reconcileIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    // ==============================================================================================
+    // HELPERS
+    // ==============================================================================================
+
+    private static boolean isRevenueStatus(String status) {
+        return Order.STATUS_SHIPPED.equals(status) || Order.STATUS_DELIVERED.equals(status);
+    }
+
+    private static BigDecimal nonNull(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static Timestamp startOf(LocalDate date) {
+        return Timestamp.valueOf(date.atStartOfDay());
+    }
+
+    private static long count(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            ResultSet rs = statement.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+
+    /**
+     * Order figures for one day and month
+     */
+    private static final class OrderCounters {
+        final LocalDate day;
+        final YearMonth month;
+        final Map<String, Long> byStatus = new HashMap<>();
+        long todayOrders;
+        BigDecimal todayRevenue = BigDecimal.ZERO;
+        BigDecimal monthlyRevenue = BigDecimal.ZERO;
+
+        OrderCounters(LocalDate day, YearMonth month) {
+            this.day = day;
+            this.month = month;
+        }
+
+        void created(String status, BigDecimal amount, Timestamp createdAt) {
+            adjustStatus(status, 1);
+            if (isToday(createdAt)) {
+                todayOrders++;
+                todayRevenue = todayRevenue.add(nonNull(amount));
+            }
+            if (isRevenueStatus(status) && isThisMonth(createdAt)) {
+                monthlyRevenue = monthlyRevenue.add(nonNull(amount));
+            }
+        }
+
+        void statusChanged(String from, String to, BigDecimal amount, Timestamp createdAt) {
+            adjustStatus(from, -1);
+            adjustStatus(to, 1);
+            if (isThisMonth(createdAt) && isRevenueStatus(from) != isRevenueStatus(to)) {
+                monthlyRevenue = isRevenueStatus(to)
+                        ? monthlyRevenue.add(nonNull(amount))
+                        : monthlyRevenue.subtract(nonNull(amount));
+            }
+        }
+
+        void deleted(String status, BigDecimal amount, Timestamp createdAt) {
+            adjustStatus(status, -1);
+            if (isToday(createdAt)) {
+                todayOrders--;
+                todayRevenue = todayRevenue.subtract(nonNull(amount));
+            }
+            if (isRevenueStatus(status) && isThisMonth(createdAt)) {
+                monthlyRevenue = monthlyRevenue.subtract(nonNull(amount));
+            }
+        }
+
+        private void adjustStatus(String status, long delta) {
+            if (status == null) {
+                return;
+            }
+            Long current = byStatus.get(status);
+            byStatus.put(status, (current != null ? current : 0L) + delta);
+        }
+
+        private boolean isToday(Timestamp createdAt) {
+            return createdAt != null && createdAt.toLocalDateTime().toLocalDate().equals(day);
+        }
+
+        private boolean isThisMonth(Timestamp createdAt) {
+            return createdAt != null && YearMonth.from(createdAt.toLocalDateTime()).equals(month);
+        }
+    }
+
+    /**
+     * One reported order write: a creation (no status before), a deletion (no status after)
+     * or a status change
+     */
+    private static final class OrderWrite {
+        final int orderId;
+        final String before;
+        final String after;
+        final BigDecimal amount;
+        final Timestamp createdAt;
+
+        OrderWrite(int orderId, String before, String after, BigDecimal amount, Timestamp createdAt) {
+            this.orderId = orderId;
+            this.before = before;
+            this.after = after;
+            this.amount = amount;
+            this.createdAt = createdAt;
+        }
+
+        void applyTo(OrderCounters counters) {
+            if (before == null) {
+                counters.created(after, amount, createdAt);
+            } else if (after == null) {
+                counters.deleted(before, amount, createdAt);
+            } else {
+                counters.statusChanged(before, after, amount, createdAt);
+            }
+        }
+    }
+
+    /**
+     * Point-in-time copy of the counters
+     */
+    public static final class Snapshot {
+        private final Map<String, Long> ordersByStatus;
+        private final long todayOrders;
+        private final BigDecimal todayRevenue;
+        private final BigDecimal monthlyRevenue;
+        private final Map<String, Long> usersByRole;
+        private final long totalProducts;
+        private final long activeProducts;
+        private final long totalCategories;
+        private final long totalPromoCodes;
+        private final long reconciledAt;
+
+        private Snapshot(DashboardStats stats) {
+            OrderCounters orders = stats.orders;
+            Map<String, Long> byStatus = new HashMap<>();
+            if (orders != null) {
+                for (Map.Entry<String, Long> entry : orders.byStatus.entrySet()) {
+                    byStatus.put(entry.getKey(), Math.max(0L, entry.getValue()));
+                }
+            }
+            this.ordersByStatus = Collections.unmodifiableMap(byStatus);
+            this.todayOrders = orders != null ? Math.max(0L, orders.todayOrders) : 0L;
+            this.todayRevenue = orders != null ? orders.todayRevenue : BigDecimal.ZERO;
+            this.monthlyRevenue = orders != null ? orders.monthlyRevenue : BigDecimal.ZERO;
+            this.usersByRole = Collections.unmodifiableMap(new HashMap<>(stats.usersByRole));
+            this.totalProducts = stats.totalProducts;
+            this.activeProducts = stats.activeProducts;
+            this.totalCategories = stats.totalCategories;
+            this.totalPromoCodes = stats.totalPromoCodes;
+            this.reconciledAt = stats.reconciledAt;
+        }
+
+        public long getTotalOrders() {
+            long total = 0;
+            for (Long count : ordersByStatus.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getOrderCount(String status) {
+            Long count = ordersByStatus.get(status);
+            return count != null ? count : 0L;
+        }
+
+        public Map<String, Long> getOrdersByStatus() { return ordersByStatus; }
+        public long getTodayOrders() { return todayOrders; }
+        public BigDecimal getTodayRevenue() { return todayRevenue; }
+        public BigDecimal getMonthlyRevenue() { return monthlyRevenue; }
+
+        public long getTotalUsers() {
+            long total = 0;
+            for (Long count : usersByRole.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getUserCount(String role) {
+            Long count = usersByRole.get(role);
+            return count != null ? count : 0L;
+        }
+
+        public long getTotalProducts() { return totalProducts; }
+        public long getActiveProducts() { return activeProducts; }
+        public long getTotalCategories() { return totalCategories; }
+        public long getTotalPromoCodes() { return totalPromoCodes; }
+
+        /** When the order counters were last rebuilt from the database (epoch ms) */
+        public long getReconciledAt() { return reconciledAt; }
+    }
+}
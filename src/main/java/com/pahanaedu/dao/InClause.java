@@ -0,0 +1,74 @@
+package com.pahanaedu.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Helpers for "WHERE id IN (...)" lookups shared by the DAOs.
+ *
+ * Ids are queried in chunks of at most CHUNK_SIZE, and each IN list is padded up to a power
+ * of two (repeating the last id) so the statement cache sees a handful of distinct SQL strings
+ * rather than one per list size.
+ */
+final class InClause {
+
+    // Upper bound on ids per IN list, so a huge lookup becomes a few queries rather than one enormous one
+    static final int CHUNK_SIZE = 500;
+
+    private InClause() {}
+
+    /**
+     * Non-null ids without duplicates, in their original order
+     */
+    static List<Integer> distinctIds(Collection<Integer> ids) {
+        if (ids == null) {
+            return Collections.emptyList();
+        }
+        LinkedHashSet<Integer> distinct = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (id != null) {
+                distinct.add(id);
+            }
+        }
+        return new ArrayList<>(distinct);
+    }
+
+    /**
+     * Number of placeholders used for a chunk of n ids
+     */
+    static int paddedSize(int n) {
+        int size = 8;
+        while (size < n) {
+            size <<= 1;
+        }
+        return Math.min(size, Math.max(n, CHUNK_SIZE));
+    }
+
+    /**
+     * "(?,?,...,?)" sized for a chunk of n ids
+     */
+    static String placeholders(int n) {
+        int slots = paddedSize(n);
+        StringBuilder sb = new StringBuilder(2 * slots + 1).append('(');
+        for (int i = 0; i < slots; i++) {
+            if (i > 0) sb.append(',');
+            sb.append('?');
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Bind a chunk of ids to the placeholders from placeholders(), starting at parameter 1
+     */
+    static void bind(PreparedStatement statement, List<Integer> ids) throws SQLException {
+        int slots = paddedSize(ids.size());
+        for (int i = 0; i < slots; i++) {
+            statement.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.pahanaedu.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when an order line asks for more units than are in stock.
+ * The whole order transaction is rolled back, so nothing was reserved.
+ */
+public class InsufficientStockException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int productId;
+    private final String productTitle;
+    private final int requested;
+    private final int available;
+
+    public InsufficientStockException(int productId, String productTitle, int requested, int available) {
+        super("Insufficient stock for product " + productId + ": requested " + requested
+                + ", available " + available, "45000");
+        this.productId = productId;
+        this.productTitle = productTitle;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+
+    /** Product title, or null if the product no longer exists */
+    public String getProductTitle() {
+        return productTitle;
+    }
+
+    public int getRequested() {
+        return requested;
+    }
+
+    /** Units in stock when the reservation failed (0 if the product no longer exists) */
+    public int getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,127 @@
+package com.pahanaedu.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.pahanaedu.models.OrderItem;
+
+/**
+ * Stock reservation for orders.
+ *
+ * Reservations run on the caller's connection, inside the same transaction as the order
+ * insert, so either the order and all its stock movements commit together or nothing does.
+ * Each line is a conditional decrement (stock_quantity >= qty): InnoDB's row lock makes
+ * the check-and-decrement atomic, so concurrent checkouts can never oversell. Lines are
+ * merged per product and applied in ascending product id order, so two orders touching the
+ * same products always lock them in the same order and cannot deadlock each other.
+ */
+public class InventoryDAO {
+    private static InventoryDAO instance = null;
+
+    private static final String RESERVE_STOCK = 
+        "UPDATE products SET stock_quantity = stock_quantity - ? WHERE id = ? AND stock_quantity >= ?";
+    private static final String RELEASE_STOCK = 
+        "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+    private static final String SELECT_STOCK = 
+        "SELECT title, stock_quantity FROM products WHERE id = ?";
+
+    private final ProductCatalogCache catalogCache = ProductCatalogCache.getInstance();
+
+    private InventoryDAO() {}
+
+    public static synchronized InventoryDAO getInstance() {
+        if (instance == null) {
+            instance = new InventoryDAO();
+        }
+        return instance;
+    }
+
+    /**
+     * Take stock for every line of an order. Must be called with auto-commit off; on any
+     * exception the caller has to roll back, as earlier lines may already be decremented.
+     *
+     * @return total quantity per product id, in the order it was applied
+     * @throws InsufficientStockException if any product has fewer units than requested
+     */
+    public Map<Integer, Integer> reserve(Connection connection, List<OrderItem> items) throws SQLException {
+        Map<Integer, Integer> quantities = mergeByProduct(items);
+
+        try (PreparedStatement statement = connection.prepareStatement(RESERVE_STOCK)) {
+            for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                int productId = line.getKey();
+                int quantity = line.getValue();
+
+                statement.setInt(1, quantity);
+                statement.setInt(2, productId);
+                statement.setInt(3, quantity);
+
+                if (statement.executeUpdate() == 0) {
+                    throw insufficientStock(connection, productId, quantity);
+                }
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * Put stock back for every line of an order (cancellation). Same locking order as reserve().
+     */
+    public Map<Integer, Integer> release(Connection connection, List<OrderItem> items) throws SQLException {
+        Map<Integer, Integer> quantities = mergeByProduct(items);
+
+        try (PreparedStatement statement = connection.prepareStatement(RELEASE_STOCK)) {
+            for (Map.Entry<Integer, Integer> line : quantities.entrySet()) {
+                statement.setInt(1, line.getValue());
+                statement.setInt(2, line.getKey());
+                statement.executeUpdate();
+            }
+        }
+        return quantities;
+    }
+
+    /**
+     * Bring the catalog cache up to date after a stock transaction has committed: one query
+     * and one snapshot update for all the products. Call this only once the order
+     * connection has been released back to the pool.
+     */
+    public void refreshCachedStock(Collection<Integer> productIds) {
+        catalogCache.refresh(productIds);
+    }
+
+    /**
+     * Sum quantities per product; the TreeMap gives the ascending id order used for locking
+     */
+    private static Map<Integer, Integer> mergeByProduct(List<OrderItem> items) throws SQLException {
+        Map<Integer, Integer> quantities = new TreeMap<>();
+        if (items == null) {
+            return quantities;
+        }
+        for (OrderItem item : items) {
+            if (item.getQuantity() <= 0) {
+                throw new SQLException("Invalid quantity " + item.getQuantity() + " for product " + item.getProductId());
+            }
+            Integer current = quantities.get(item.getProductId());
+            quantities.put(item.getProductId(), current != null ? current + item.getQuantity() : item.getQuantity());
+        }
+        return quantities;
+    }
+
+    private InsufficientStockException insufficientStock(Connection connection, int productId, int requested)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_STOCK)) {
+            statement.setInt(1, productId);
+            ResultSet rs = statement.executeQuery();
+            if (rs.next()) {
+                return new InsufficientStockException(productId, rs.getString("title"), requested,
+                        Math.max(0, rs.getInt("stock_quantity")));
+            }
+        }
+        return new InsufficientStockException(productId, null, requested, 0);
+    }
+}
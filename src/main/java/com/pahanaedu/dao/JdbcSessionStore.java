@@ -0,0 +1,151 @@
+package com.pahanaedu.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.pahanaedu.models.SessionPrincipal;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
+
+/**
+ * Sessions in the user_sessions table, shared by every node.
+ *
+ * A lookup is one primary-key read. Sliding expiry would normally mean a write on every
+ * request; instead expires_at is only pushed forward once it has fallen more than
+ * session.jdbc.touchIntervalMs behind, so a busy session costs at most one write a minute.
+ * Rows store a hash of the cookie token, so reading the table doesn't let anyone sign in.
+ */
+public class JdbcSessionStore implements SessionStore {
+    private static final Log LOG = Log.get(JdbcSessionStore.class);
+
+    private static final String INSERT_SESSION =
+        "INSERT INTO user_sessions (id, user_id, role, display_name, email, version, max_inactive_seconds, expires_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_SESSION =
+        "SELECT user_id, role, display_name, email, version, max_inactive_seconds, expires_at FROM user_sessions WHERE id = ?";
+    private static final String TOUCH_SESSION =
+        "UPDATE user_sessions SET expires_at = ? WHERE id = ?";
+    private static final String UPDATE_SESSION =
+        "UPDATE user_sessions SET display_name = ?, email = ?, version = ? WHERE id = ? AND version = ? AND expires_at > ?";
+    private static final String DELETE_SESSION =
+        "DELETE FROM user_sessions WHERE id = ?";
+    private static final String DELETE_EXPIRED_SESSIONS =
+        "DELETE FROM user_sessions WHERE expires_at <= ?";
+
+    private final long touchIntervalMs;
+
+    public JdbcSessionStore() {
+        this.touchIntervalMs = AppConfig.getLong("session.jdbc.touchIntervalMs", 60_000L);
+    }
+
+    @Override
+    public boolean create(String sessionId, SessionPrincipal principal, int maxInactiveSeconds) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_SESSION)) {
+
+            statement.setString(1, sessionId);
+            statement.setInt(2, principal.getUserId());
+            statement.setString(3, principal.getRole());
+            statement.setString(4, principal.getDisplayName());
+            statement.setString(5, principal.getEmail());
+            statement.setInt(6, principal.getVersion());
+            statement.setInt(7, maxInactiveSeconds);
+            statement.setTimestamp(8, new Timestamp(System.currentTimeMillis() + maxInactiveSeconds * 1000L));
+            return statement.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOG.error("Error creating session - {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public SessionPrincipal get(String sessionId) {
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            SessionPrincipal principal;
+            long maxInactiveMs;
+            long expiresAt;
+
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_SESSION)) {
+                statement.setString(1, sessionId);
+                ResultSet rs = statement.executeQuery();
+                if (!rs.next()) {
+                    return null;
+                }
+                principal = new SessionPrincipal(rs.getInt("user_id"), rs.getString("role"),
+                        rs.getString("display_name"), rs.getString("email"), rs.getInt("version"));
+                maxInactiveMs = rs.getInt("max_inactive_seconds") * 1000L;
+                expiresAt = rs.getTimestamp("expires_at").getTime();
+            }
+
+            long now = System.currentTimeMillis();
+            if (expiresAt <= now) {
+                return null;
+            }
+
+            // Extend the idle timeout, at most once per touch interval
+            if (now + maxInactiveMs - expiresAt > touchIntervalMs) {
+                try (PreparedStatement statement = connection.prepareStatement(TOUCH_SESSION)) {
+                    statement.setTimestamp(1, new Timestamp(now + maxInactiveMs));
+                    statement.setString(2, sessionId);
+                    statement.executeUpdate();
+                }
+            }
+            return principal;
+
+        } catch (SQLException e) {
+            LOG.error("Error reading session - {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public boolean update(String sessionId, SessionPrincipal principal) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SESSION)) {
+
+            statement.setString(1, principal.getDisplayName());
+            statement.setString(2, principal.getEmail());
+            statement.setInt(3, principal.getVersion());
+            statement.setString(4, sessionId);
+            statement.setInt(5, principal.getVersion() - 1);
+            statement.setTimestamp(6, new Timestamp(System.currentTimeMillis()));
+            return statement.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOG.error("Error updating session - {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_SESSION)) {
+
+            statement.setString(1, sessionId);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error deleting session - {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int purgeExpired() {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_EXPIRED_SESSIONS)) {
+
+            statement.setTimestamp(1, new Timestamp(System.currentTimeMillis()));
+            return statement.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error purging sessions - {}", e.getMessage());
+            return 0;
+        }
+    }
+}
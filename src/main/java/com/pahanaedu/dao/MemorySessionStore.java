@@ -0,0 +1,93 @@
+package com.pahanaedu.dao;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.pahanaedu.models.SessionPrincipal;
+
+/**
+ * Sessions held in this node's memory. Each entry is a principal plus two timestamps,
+ * a few hundred bytes of heap, and lives only as long as the session's idle timeout;
+ * remembered logins are kept in remember_me_tokens, not here.
+ * Only suitable for a single node, or several behind sticky sessions.
+ */
+public class MemorySessionStore implements SessionStore {
+
+    private final Map<String, Entry> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean create(String sessionId, SessionPrincipal principal, int maxInactiveSeconds) {
+        sessions.put(sessionId, new Entry(principal, maxInactiveSeconds * 1000L));
+        return true;
+    }
+
+    @Override
+    public SessionPrincipal get(String sessionId) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (entry.isExpired(now)) {
+            sessions.remove(sessionId, entry);
+            return null;
+        }
+        entry.lastAccessed = now;
+        return entry.principal;
+    }
+
+    @Override
+    public boolean update(String sessionId, SessionPrincipal principal) {
+        Entry entry = sessions.get(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        synchronized (entry) {
+            if (entry.principal.getVersion() != principal.getVersion() - 1) {
+                return false;
+            }
+            entry.principal = principal;
+            return true;
+        }
+    }
+
+    @Override
+    public void delete(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        Iterator<Entry> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    private static final class Entry {
+        volatile SessionPrincipal principal;
+        volatile long lastAccessed;
+        final long maxInactiveMs;
+
+        Entry(SessionPrincipal principal, long maxInactiveMs) {
+            this.principal = principal;
+            this.maxInactiveMs = maxInactiveMs;
+            this.lastAccessed = System.currentTimeMillis();
+        }
+
+        boolean isExpired(long now) {
+            return now - lastAccessed > maxInactiveMs;
+        }
+    }
+}
@@ -1,13 +1,20 @@
 package com.pahanaedu.dao;
 
+import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import com.pahanaedu.models.Order;
 import com.pahanaedu.models.OrderItem;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
 
 public class OrderDAO {
+    private static final Log LOG = Log.get(OrderDAO.class);
+
     private static OrderDAO instance = null;
     
     private static final String SELECT_ALL_ORDERS = 
@@ -38,10 +45,59 @@ public class OrderDAO {
     private static final String UPDATE_ORDER_STATUS = 
         "UPDATE orders SET status = ? WHERE id = ?";
     
+    private static final String CANCEL_PENDING_ORDER = 
+        "UPDATE orders SET status = 'cancelled' WHERE id = ? AND status = 'pending'";
+    
+    private static final String SELECT_ORDER_ITEM_QUANTITIES = 
+        "SELECT product_id, quantity FROM order_items WHERE order_id = ?";
+    
+    private static final String SELECT_ORDER_STATE_FOR_UPDATE = 
+        "SELECT status, final_amount, created_at FROM orders WHERE id = ? FOR UPDATE";
+    
+    // Newest number matching a LIKE pattern; walks the order_number index from the top
+    private static final String SELECT_LATEST_ORDER_NUMBER = 
+        "SELECT order_number FROM orders WHERE order_number LIKE ? ORDER BY order_number DESC LIMIT 1";
+    
     private static final String SELECT_ORDER_ITEMS = 
-        "SELECT oi.*, pr.title, pr.author FROM order_items oi " +
+        "SELECT oi.*, pr.title, pr.author, pr.isbn, pr.image_path, pr.description FROM order_items oi " +
         "LEFT JOIN products pr ON oi.product_id = pr.id " +
-        "WHERE oi.order_id = ?";
+        "WHERE oi.order_id = ? ORDER BY oi.id";
+    
+    // IN (...) placeholders are appended per chunk; see InClause
+    private static final String SELECT_ORDER_ITEMS_FOR_ORDERS = 
+        "SELECT oi.*, pr.title, pr.author, pr.isbn, pr.image_path, pr.description FROM order_items oi " +
+        "LEFT JOIN products pr ON oi.product_id = pr.id " +
+        "WHERE oi.order_id IN ";
+    
+    private static final String COUNT_ITEMS_FOR_ORDERS = 
+        "SELECT order_id, COUNT(*) AS item_count FROM order_items WHERE order_id IN ";
+    
+    private static final String SELECT_ORDERS_BY_USER = 
+        "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
+        "LEFT JOIN users u ON o.user_id = u.id " +
+        "LEFT JOIN promo_codes p ON o.promo_code_id = p.id " +
+        "WHERE o.user_id = ? ORDER BY o.created_at DESC";
+    
+    private static final String SELECT_ORDERS_BY_STATUS = 
+        "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
+        "LEFT JOIN users u ON o.user_id = u.id " +
+        "LEFT JOIN promo_codes p ON o.promo_code_id = p.id " +
+        "WHERE o.status = ? ORDER BY o.created_at DESC";
+    
+    private static final String SELECT_TODAYS_ORDERS = 
+        "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
+        "LEFT JOIN users u ON o.user_id = u.id " +
+        "LEFT JOIN promo_codes p ON o.promo_code_id = p.id " +
+        "WHERE DATE(o.created_at) = CURDATE() ORDER BY o.created_at DESC";
+    
+    private static final String COUNT_ORDERS_BY_STATUS = 
+        "SELECT COUNT(*) FROM orders WHERE status = ?";
+    
+    private static final String DELETE_ORDER_ITEMS = 
+        "DELETE FROM order_items WHERE order_id = ?";
+    
+    private static final String DELETE_ORDER = 
+        "DELETE FROM orders WHERE id = ?";
     
     private static final String SEARCH_ORDERS = 
         "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
@@ -50,6 +106,9 @@ public class OrderDAO {
         "WHERE o.order_number LIKE ? OR o.customer_name LIKE ? OR o.customer_email LIKE ? " +
         "ORDER BY o.created_at DESC";
     
+    private final InventoryDAO inventoryDAO = InventoryDAO.getInstance();
+    private final DashboardStats dashboardStats = DashboardStats.getInstance();
+    
     private OrderDAO() {}
     
     public static synchronized OrderDAO getInstance() {
@@ -60,82 +119,181 @@ public class OrderDAO {
     }
     
     /**
-     * Create a new order with items (for POS system)
+     * Create a new order with its items and take the stock for every line, all in one
+     * transaction. Nothing is written if any product is short.
+     *
+     * @throws InsufficientStockException if a line asks for more units than are in stock
      */
-    public boolean createOrderWithItems(Order order) {
+    public boolean createOrderWithItems(Order order) throws InsufficientStockException {
         Connection connection = null;
+        Map<Integer, Integer> reserved = null;
         try {
             connection = DatabaseConnection.getConnection();
             connection.setAutoCommit(false);
             
+            // Stock first: product rows are locked in id order before anything else is touched
+            reserved = inventoryDAO.reserve(connection, order.getOrderItems());
+            
             // Insert order
-            PreparedStatement orderStmt = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS);
-            orderStmt.setInt(1, order.getUserId());
-            orderStmt.setString(2, order.getOrderNumber());
-            orderStmt.setBigDecimal(3, order.getTotalAmount());
-            orderStmt.setBigDecimal(4, order.getDiscountAmount());
-            orderStmt.setBigDecimal(5, order.getFinalAmount());
-            orderStmt.setObject(6, order.getPromoCodeId());
-            orderStmt.setString(7, order.getStatus());
-            orderStmt.setString(8, order.getCustomerName());
-            orderStmt.setString(9, order.getCustomerEmail());
-            orderStmt.setString(10, order.getCustomerPhone());
-            orderStmt.setString(11, order.getShippingAddress());
-            
-            int rowsAffected = orderStmt.executeUpdate();
-            
-            if (rowsAffected > 0) {
-                ResultSet generatedKeys = orderStmt.getGeneratedKeys();
-                if (generatedKeys.next()) {
-                    int orderId = generatedKeys.getInt(1);
-                    order.setId(orderId);
-                    
-                    // Insert order items
-                    if (order.getOrderItems() != null && !order.getOrderItems().isEmpty()) {
-                        PreparedStatement itemStmt = connection.prepareStatement(INSERT_ORDER_ITEM);
-                        
-                        for (OrderItem item : order.getOrderItems()) {
-                            itemStmt.setInt(1, orderId);
-                            itemStmt.setInt(2, item.getProductId());
-                            itemStmt.setInt(3, item.getQuantity());
-                            itemStmt.setBigDecimal(4, item.getUnitPrice());
-                            itemStmt.setBigDecimal(5, item.getTotalPrice());
-                            itemStmt.addBatch();
+            try (PreparedStatement orderStmt = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
+                orderStmt.setInt(1, order.getUserId());
+                orderStmt.setString(2, order.getOrderNumber());
+                orderStmt.setBigDecimal(3, order.getTotalAmount());
+                orderStmt.setBigDecimal(4, order.getDiscountAmount());
+                orderStmt.setBigDecimal(5, order.getFinalAmount());
+                orderStmt.setObject(6, order.getPromoCodeId());
+                orderStmt.setString(7, order.getStatus());
+                orderStmt.setString(8, order.getCustomerName());
+                orderStmt.setString(9, order.getCustomerEmail());
+                orderStmt.setString(10, order.getCustomerPhone());
+                orderStmt.setString(11, order.getShippingAddress());
+                
+                int rowsAffected = orderStmt.executeUpdate();
+                
+                if (rowsAffected > 0) {
+                    try (ResultSet generatedKeys = orderStmt.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            order.setId(generatedKeys.getInt(1));
                         }
-                        
-                        itemStmt.executeBatch();
-                        itemStmt.close();
                     }
-                    
-                    connection.commit();
-                    orderStmt.close();
-                    return true;
                 }
             }
             
-            connection.rollback();
-            orderStmt.close();
-            return false;
+            if (order.getId() <= 0) {
+                connection.rollback();
+                return false;
+            }
+            
+            // Insert order items
+            if (order.getOrderItems() != null && !order.getOrderItems().isEmpty()) {
+                try (PreparedStatement itemStmt = connection.prepareStatement(INSERT_ORDER_ITEM)) {
+                    for (OrderItem item : order.getOrderItems()) {
+                        itemStmt.setInt(1, order.getId());
+                        itemStmt.setInt(2, item.getProductId());
+                        itemStmt.setInt(3, item.getQuantity());
+                        itemStmt.setBigDecimal(4, item.getUnitPrice());
+                        itemStmt.setBigDecimal(5, item.getTotalPrice());
+                        itemStmt.addBatch();
+                    }
+                    itemStmt.executeBatch();
+                }
+            }
+            
+            connection.commit();
             
+        } catch (InsufficientStockException e) {
+            rollbackQuietly(connection);
+            throw e;
         } catch (SQLException e) {
-            System.err.println("Error creating order with items: " + e.getMessage());
-            e.printStackTrace();
-            if (connection != null) {
-                try {
+            LOG.error("Error creating order with items", e);
+            rollbackQuietly(connection);
+            return false;
+        } finally {
+            closeQuietly(connection);
+        }
+        
+        inventoryDAO.refreshCachedStock(reserved.keySet());
+        dashboardStats.onOrderCreated(order.getId(), order.getStatus(), order.getFinalAmount(), new Timestamp(System.currentTimeMillis()));
+        return true;
+    }
+    
+    /**
+     * Cancel a pending order and put its stock back, in one transaction. The status check
+     * is part of the UPDATE, so an order can only ever be cancelled (and restocked) once.
+     */
+    public boolean cancelOrder(int orderId) {
+        Connection connection = null;
+        Map<Integer, Integer> released = null;
+        OrderState state = null;
+        try {
+            connection = DatabaseConnection.getConnection();
+            connection.setAutoCommit(false);
+            
+            state = lockOrderState(connection, orderId);
+            if (state == null || !Order.STATUS_PENDING.equals(state.status)) {
+                connection.rollback();
+                return false;
+            }
+            
+            try (PreparedStatement statement = connection.prepareStatement(CANCEL_PENDING_ORDER)) {
+                statement.setInt(1, orderId);
+                if (statement.executeUpdate() == 0) {
                     connection.rollback();
-                } catch (SQLException ex) {
-                    System.err.println("Error rolling back transaction: " + ex.getMessage());
+                    return false;
                 }
             }
+            
+            List<OrderItem> items = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement(SELECT_ORDER_ITEM_QUANTITIES)) {
+                statement.setInt(1, orderId);
+                ResultSet rs = statement.executeQuery();
+                while (rs.next()) {
+                    OrderItem item = new OrderItem();
+                    item.setProductId(rs.getInt("product_id"));
+                    item.setQuantity(rs.getInt("quantity"));
+                    items.add(item);
+                }
+            }
+            released = inventoryDAO.release(connection, items);
+            
+            connection.commit();
+            
+        } catch (SQLException e) {
+            LOG.error("Error cancelling order: {}", e.getMessage());
+            rollbackQuietly(connection);
             return false;
         } finally {
-            if (connection != null) {
-                try {
-                    connection.setAutoCommit(true);
-                    connection.close();
-                } catch (SQLException e) {
-                    System.err.println("Error closing connection: " + e.getMessage());
-                }
+            closeQuietly(connection);
+        }
+        
+        inventoryDAO.refreshCachedStock(released.keySet());
+        dashboardStats.onOrderStatusChanged(orderId, state.status, Order.STATUS_CANCELLED, state.finalAmount, state.createdAt);
+        return true;
+    }
+    
+    /**
+     * Status, amount and creation time of an order, row-locked until the transaction ends
+     */
+    private OrderState lockOrderState(Connection connection, int orderId) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_ORDER_STATE_FOR_UPDATE)) {
+            statement.setInt(1, orderId);
+            ResultSet rs = statement.executeQuery();
+            if (rs.next()) {
+                return new OrderState(rs.getString("status"), rs.getBigDecimal("final_amount"), rs.getTimestamp("created_at"));
+            }
+        }
+        return null;
+    }
+    
+    private static final class OrderState {
+        final String status;
+        final BigDecimal finalAmount;
+        final Timestamp createdAt;
+        
+        OrderState(String status, BigDecimal finalAmount, Timestamp createdAt) {
+            this.status = status;
+            this.finalAmount = finalAmount;
+            this.createdAt = createdAt;
+        }
+    }
+    
+    private static void rollbackQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            } catch (SQLException ex) {
+                LOG.error("Error rolling back transaction: {}", ex.getMessage());
+            }
+        }
+    }
+    
+    private static void closeQuietly(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+                connection.close();
+            } catch (SQLException e) {
+                LOG.error("Error closing connection: {}", e.getMessage());
             }
         }
     }
@@ -145,7 +303,7 @@ public class OrderDAO {
      */
     public boolean createOrder(Order order) {
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(INSERT_ORDER)) {
+             PreparedStatement statement = connection.prepareStatement(INSERT_ORDER, Statement.RETURN_GENERATED_KEYS)) {
             
             statement.setInt(1, order.getUserId());
             statement.setString(2, order.getOrderNumber());
@@ -159,11 +317,21 @@ public class OrderDAO {
             statement.setString(10, order.getCustomerPhone());
             statement.setString(11, order.getShippingAddress());
             
-            return statement.executeUpdate() > 0;
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    order.setId(generatedKeys.getInt(1));
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("Error creating order: " + e.getMessage());
+            LOG.error("Error creating order: {}", e.getMessage());
             return false;
         }
+        
+        dashboardStats.onOrderCreated(order.getId(), order.getStatus(), order.getFinalAmount(), new Timestamp(System.currentTimeMillis()));
+        return true;
     }
     
     public List<Order> getAllOrders() {
@@ -176,12 +344,13 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting all orders: " + e.getMessage());
+            LOG.error("Error getting all orders: {}", e.getMessage());
         }
         return orders;
     }
     
     public Order getOrderById(int id) {
+        Order order = null;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_ORDER_BY_ID)) {
             
@@ -189,20 +358,24 @@ public class OrderDAO {
             ResultSet rs = statement.executeQuery();
             
             if (rs.next()) {
-                Order order = extractOrderFromResultSet(rs);
-                order.setOrderItems(getOrderItems(id));
-                return order;
+                order = extractOrderFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting order by ID: " + e.getMessage());
+            LOG.error("Error getting order by ID: {}", e.getMessage());
         }
-        return null;
+        
+        // Items are read on a fresh borrow so we never hold two pooled connections at once
+        if (order != null) {
+            order.setOrderItems(getOrderItems(order.getId()));
+        }
+        return order;
     }
     
     /**
      * Get order by order number (for POS system)
      */
     public Order getOrderByNumber(String orderNumber) {
+        Order order = null;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_ORDER_BY_NUMBER)) {
             
@@ -210,14 +383,29 @@ public class OrderDAO {
             ResultSet rs = statement.executeQuery();
             
             if (rs.next()) {
-                Order order = extractOrderFromResultSet(rs);
-                order.setOrderItems(getOrderItems(order.getId()));
-                return order;
+                order = extractOrderFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting order by number: " + e.getMessage());
+            LOG.error("Error getting order by number: {}", e.getMessage());
+        }
+        
+        if (order != null) {
+            order.setOrderItems(getOrderItems(order.getId()));
+        }
+        return order;
+    }
+    
+    /**
+     * Highest order number matching a LIKE pattern (see OrderNumberGenerator.getNumberPattern()),
+     * or null if there is none
+     */
+    public String getLatestOrderNumber(String pattern) throws SQLException {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_LATEST_ORDER_NUMBER)) {
+            statement.setString(1, pattern);
+            ResultSet rs = statement.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
         }
-        return null;
     }
     
     public List<OrderItem> getOrderItems(int orderId) {
@@ -229,24 +417,99 @@ public class OrderDAO {
             ResultSet rs = statement.executeQuery();
             
             while (rs.next()) {
-                OrderItem item = new OrderItem();
-                item.setId(rs.getInt("id"));
-                item.setOrderId(rs.getInt("order_id"));
-                item.setProductId(rs.getInt("product_id"));
-                item.setQuantity(rs.getInt("quantity"));
-                item.setUnitPrice(rs.getBigDecimal("unit_price"));
-                item.setTotalPrice(rs.getBigDecimal("total_price"));
-                item.setProductTitle(rs.getString("title"));
-                item.setProductAuthor(rs.getString("author"));
-                item.setCreatedAt(rs.getTimestamp("created_at"));
-                items.add(item);
+                items.add(extractOrderItemFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting order items: " + e.getMessage());
+            LOG.error("Error getting order items: {}", e.getMessage());
         }
         return items;
     }
     
+    /**
+     * Items (with product display fields) for a whole page of orders, keyed by order id.
+     * Costs one query per InClause.CHUNK_SIZE orders instead of one per order plus one per item.
+     * Every requested id is present in the result; orders without items map to an empty list.
+     */
+    public Map<Integer, List<OrderItem>> getOrderItemsForOrders(Collection<Integer> orderIds) {
+        Map<Integer, List<OrderItem>> itemsByOrder = new HashMap<>();
+        List<Integer> ids = InClause.distinctIds(orderIds);
+        for (Integer id : ids) {
+            itemsByOrder.put(id, new ArrayList<OrderItem>());
+        }
+        if (ids.isEmpty()) {
+            return itemsByOrder;
+        }
+        
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += InClause.CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + InClause.CHUNK_SIZE, ids.size()));
+                String sql = SELECT_ORDER_ITEMS_FOR_ORDERS + InClause.placeholders(chunk.size()) + " ORDER BY oi.order_id, oi.id";
+                
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    InClause.bind(statement, chunk);
+                    ResultSet rs = statement.executeQuery();
+                    while (rs.next()) {
+                        OrderItem item = extractOrderItemFromResultSet(rs);
+                        itemsByOrder.get(item.getOrderId()).add(item);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOG.error("Error getting order items for orders: {}", e.getMessage());
+        }
+        return itemsByOrder;
+    }
+    
+    /**
+     * Attach items to every order in the list using getOrderItemsForOrders()
+     */
+    public void loadOrderItems(List<Order> orders) {
+        if (orders == null || orders.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            ids.add(order.getId());
+        }
+        Map<Integer, List<OrderItem>> itemsByOrder = getOrderItemsForOrders(ids);
+        for (Order order : orders) {
+            List<OrderItem> items = itemsByOrder.get(order.getId());
+            order.setOrderItems(items != null ? items : new ArrayList<OrderItem>());
+        }
+    }
+    
+    /**
+     * Number of item lines per order for listings that only show a count
+     */
+    public Map<Integer, Integer> getItemCountsForOrders(Collection<Integer> orderIds) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        List<Integer> ids = InClause.distinctIds(orderIds);
+        for (Integer id : ids) {
+            counts.put(id, 0);
+        }
+        if (ids.isEmpty()) {
+            return counts;
+        }
+        
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += InClause.CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + InClause.CHUNK_SIZE, ids.size()));
+                String sql = COUNT_ITEMS_FOR_ORDERS + InClause.placeholders(chunk.size()) + " GROUP BY order_id";
+                
+                try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                    InClause.bind(statement, chunk);
+                    ResultSet rs = statement.executeQuery();
+                    while (rs.next()) {
+                        counts.put(rs.getInt("order_id"), rs.getInt("item_count"));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOG.error("Error counting order items: {}", e.getMessage());
+        }
+        return counts;
+    }
+    
     public List<Order> searchOrders(String keyword) {
         List<Order> orders = new ArrayList<>();
         try (Connection connection = DatabaseConnection.getConnection();
@@ -262,23 +525,43 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error searching orders: " + e.getMessage());
+            LOG.error("Error searching orders: {}", e.getMessage());
         }
         return orders;
     }
     
     public boolean updateOrderStatus(int orderId, String status) {
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(UPDATE_ORDER_STATUS)) {
+        Connection connection = null;
+        OrderState state = null;
+        try {
+            connection = DatabaseConnection.getConnection();
+            connection.setAutoCommit(false);
             
-            statement.setString(1, status);
-            statement.setInt(2, orderId);
+            // Read the old status under the row lock so the dashboard counters move exactly once
+            state = lockOrderState(connection, orderId);
+            if (state == null) {
+                connection.rollback();
+                return false;
+            }
+            
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_ORDER_STATUS)) {
+                statement.setString(1, status);
+                statement.setInt(2, orderId);
+                statement.executeUpdate();
+            }
+            
+            connection.commit();
             
-            return statement.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating order status: " + e.getMessage());
+            LOG.error("Error updating order status: {}", e.getMessage());
+            rollbackQuietly(connection);
             return false;
+        } finally {
+            closeQuietly(connection);
         }
+        
+        dashboardStats.onOrderStatusChanged(orderId, state.status, status, state.finalAmount, state.createdAt);
+        return true;
     }
     
     /**
@@ -286,13 +569,8 @@ public class OrderDAO {
      */
     public List<Order> getOrdersByUserId(int userId) {
         List<Order> orders = new ArrayList<>();
-        String sql = "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
-                    "LEFT JOIN users u ON o.user_id = u.id " +
-                    "LEFT JOIN promo_codes p ON o.promo_code_id = p.id " +
-                    "WHERE o.user_id = ? ORDER BY o.created_at DESC";
-        
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+             PreparedStatement statement = connection.prepareStatement(SELECT_ORDERS_BY_USER)) {
             
             statement.setInt(1, userId);
             ResultSet rs = statement.executeQuery();
@@ -301,7 +579,7 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting orders by user ID: " + e.getMessage());
+            LOG.error("Error getting orders by user ID: {}", e.getMessage());
         }
         return orders;
     }
@@ -311,13 +589,8 @@ public class OrderDAO {
      */
     public List<Order> getOrdersByStatus(String status) {
         List<Order> orders = new ArrayList<>();
-        String sql = "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
-                    "LEFT JOIN users u ON o.user_id = u.id " +
-                    "LEFT JOIN promo_codes p ON o.promo_code_id = p.id " +
-                    "WHERE o.status = ? ORDER BY o.created_at DESC";
-        
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+             PreparedStatement statement = connection.prepareStatement(SELECT_ORDERS_BY_STATUS)) {
             
             statement.setString(1, status);
             ResultSet rs = statement.executeQuery();
@@ -326,7 +599,7 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting orders by status: " + e.getMessage());
+            LOG.error("Error getting orders by status: {}", e.getMessage());
         }
         return orders;
     }
@@ -336,20 +609,15 @@ public class OrderDAO {
      */
     public List<Order> getTodaysOrders() {
         List<Order> orders = new ArrayList<>();
-        String sql = "SELECT o.*, u.first_name, u.last_name, p.code as promo_code FROM orders o " +
-                    "LEFT JOIN users u ON o.user_id = u.id " +
-                    "LEFT JOIN promo_codes p ON o.promo_code_id = p.id " +
-                    "WHERE DATE(o.created_at) = CURDATE() ORDER BY o.created_at DESC";
-        
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+             PreparedStatement statement = connection.prepareStatement(SELECT_TODAYS_ORDERS)) {
             
             ResultSet rs = statement.executeQuery();
             while (rs.next()) {
                 orders.add(extractOrderFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting today's orders: " + e.getMessage());
+            LOG.error("Error getting today's orders: {}", e.getMessage());
         }
         return orders;
     }
@@ -358,10 +626,8 @@ public class OrderDAO {
      * Get order count by status
      */
     public int getOrderCountByStatus(String status) {
-        String sql = "SELECT COUNT(*) FROM orders WHERE status = ?";
-        
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+             PreparedStatement statement = connection.prepareStatement(COUNT_ORDERS_BY_STATUS)) {
             
             statement.setString(1, status);
             ResultSet rs = statement.executeQuery();
@@ -370,7 +636,7 @@ public class OrderDAO {
                 return rs.getInt(1);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting order count by status: " + e.getMessage());
+            LOG.error("Error getting order count by status: {}", e.getMessage());
         }
         return 0;
     }
@@ -380,34 +646,40 @@ public class OrderDAO {
      */
     public boolean deleteOrder(int orderId) {
         Connection connection = null;
+        OrderState state = null;
         try {
             connection = DatabaseConnection.getConnection();
             connection.setAutoCommit(false);
             
+            state = lockOrderState(connection, orderId);
+            
             // Delete order items first
-            String deleteItemsSQL = "DELETE FROM order_items WHERE order_id = ?";
-            PreparedStatement itemStmt = connection.prepareStatement(deleteItemsSQL);
-            itemStmt.setInt(1, orderId);
-            itemStmt.executeUpdate();
-            itemStmt.close();
+            try (PreparedStatement itemStmt = connection.prepareStatement(DELETE_ORDER_ITEMS)) {
+                itemStmt.setInt(1, orderId);
+                itemStmt.executeUpdate();
+            }
             
             // Delete order
-            String deleteOrderSQL = "DELETE FROM orders WHERE id = ?";
-            PreparedStatement orderStmt = connection.prepareStatement(deleteOrderSQL);
-            orderStmt.setInt(1, orderId);
-            int rowsAffected = orderStmt.executeUpdate();
-            orderStmt.close();
+            int rowsAffected;
+            try (PreparedStatement orderStmt = connection.prepareStatement(DELETE_ORDER)) {
+                orderStmt.setInt(1, orderId);
+                rowsAffected = orderStmt.executeUpdate();
+            }
             
             connection.commit();
+            
+            if (rowsAffected > 0 && state != null) {
+                dashboardStats.onOrderDeleted(orderId, state.status, state.finalAmount, state.createdAt);
+            }
             return rowsAffected > 0;
             
         } catch (SQLException e) {
-            System.err.println("Error deleting order: " + e.getMessage());
+            LOG.error("Error deleting order: {}", e.getMessage());
             if (connection != null) {
                 try {
                     connection.rollback();
                 } catch (SQLException ex) {
-                    System.err.println("Error rolling back transaction: " + ex.getMessage());
+                    LOG.error("Error rolling back transaction: {}", ex.getMessage());
                 }
             }
             return false;
@@ -417,7 +689,7 @@ public class OrderDAO {
                     connection.setAutoCommit(true);
                     connection.close();
                 } catch (SQLException e) {
-                    System.err.println("Error closing connection: " + e.getMessage());
+                    LOG.error("Error closing connection: {}", e.getMessage());
                 }
             }
         }
@@ -450,4 +722,21 @@ public class OrderDAO {
         
         return order;
     }
-}
\ No newline at end of file
+    
+    private OrderItem extractOrderItemFromResultSet(ResultSet rs) throws SQLException {
+        OrderItem item = new OrderItem();
+        item.setId(rs.getInt("id"));
+        item.setOrderId(rs.getInt("order_id"));
+        item.setProductId(rs.getInt("product_id"));
+        item.setQuantity(rs.getInt("quantity"));
+        item.setUnitPrice(rs.getBigDecimal("unit_price"));
+        item.setTotalPrice(rs.getBigDecimal("total_price"));
+        item.setProductTitle(rs.getString("title"));
+        item.setProductAuthor(rs.getString("author"));
+        item.setProductIsbn(rs.getString("isbn"));
+        item.setProductImage(rs.getString("image_path"));
+        item.setProductDescription(rs.getString("description"));
+        item.setCreatedAt(rs.getTimestamp("created_at"));
+        return item;
+    }
+}
@@ -0,0 +1,571 @@
+package com.pahanaedu.dao;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.pahanaedu.models.Product;
+import com.pahanaedu.utils.AppConfig;
+
+/**
+ * Read-through cache of the whole product catalog, sitting in front of ProductDAO.
+ *
+ * The catalog is held as an immutable snapshot that is swapped atomically, so readers
+ * never lock. ProductDAO writes patch the snapshot (copy-on-write) for the affected row;
+ * writes made by other nodes are picked up when the snapshot exceeds its max staleness.
+ * Products handed out are always copies, so callers may modify them freely.
+ */
+public class ProductCatalogCache {
+    private static ProductCatalogCache instance = null;
+
+    private final boolean enabled;
+    private final long maxStalenessMs;
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>();
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
+    // Bumped on every local write, so a reload that raced a write can be detected
+    private final AtomicLong writeVersion = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    /** Loads rows from the database on behalf of the cache */
+    interface Loader {
+        /** All products, or null if the database could not be read */
+        List<Product> loadAll();
+
+        Product loadById(int id);
+
+        /** Products for the given ids that exist, in any order (one round trip per chunk of ids) */
+        List<Product> loadByIds(List<Integer> ids);
+    }
+
+    /** Notified of every change to the cached catalog (used to keep the search index in sync) */
+    interface Listener {
+        void onReload(List<Product> products);
+
+        void onUpsert(Product product);
+
+        void onRemove(int productId);
+    }
+
+    private Loader loader;
+    private volatile Listener listener;
+
+    private ProductCatalogCache() {
+        this.enabled = AppConfig.getBoolean("catalog.cache.enabled", true);
+        this.maxStalenessMs = AppConfig.getLong("catalog.cache.maxStalenessMs", 60_000L);
+    }
+
+    public static synchronized ProductCatalogCache getInstance() {
+        if (instance == null) {
+            instance = new ProductCatalogCache();
+        }
+        return instance;
+    }
+
+    void setLoader(Loader loader) {
+        this.loader = loader;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // ==============================================================================================
+    // READS
+    // ==============================================================================================
+
+    /**
+     * All products, newest first (same order as SELECT_ALL_PRODUCTS)
+     */
+    public List<Product> getAll() {
+        return copyOf(snapshot().all);
+    }
+
+    /**
+     * Active products ordered by title (same order as SELECT_ACTIVE_PRODUCTS)
+     */
+    public List<Product> getActive() {
+        return copyOf(snapshot().activeByTitle);
+    }
+
+    /**
+     * Single product; falls back to the database for rows this node hasn't seen yet
+     */
+    public Product get(int id) {
+        Product cached = snapshot().get(id);
+        if (cached != null) {
+            return new Product(cached);
+        }
+
+        misses.incrementAndGet();
+        Product loaded = loader.loadById(id);
+        if (loaded != null) {
+            apply(loaded);
+            return new Product(loaded);
+        }
+        return null;
+    }
+
+    /**
+     * Products for the given ids that exist in the catalog, in the order requested
+     */
+    public List<Product> getAll(List<Integer> ids) {
+        Snapshot snapshot = snapshot();
+        List<Product> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Product cached = id != null ? snapshot.get(id) : null;
+            if (cached != null) {
+                result.add(new Product(cached));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Products keyed by id, in the order requested; ids that don't exist are left out.
+     * Rows this node hasn't seen yet are fetched together, so the cost is one snapshot
+     * read plus at most one database lookup however many ids are asked for.
+     */
+    public Map<Integer, Product> getByIds(Collection<Integer> ids) {
+        Snapshot snapshot = snapshot();
+        List<Integer> distinct = InClause.distinctIds(ids);
+        Map<Integer, Product> result = new LinkedHashMap<>(distinct.size() * 2);
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : distinct) {
+            Product cached = snapshot.get(id);
+            if (cached != null) {
+                result.put(id, new Product(cached));
+            } else {
+                result.put(id, null);
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            misses.incrementAndGet();
+            List<Product> loaded = loader.loadByIds(missing);
+            apply(loaded);
+            for (Product product : loaded) {
+                result.put(product.getId(), new Product(product));
+            }
+            result.values().removeIf(product -> product == null);
+        }
+        return result;
+    }
+
+    // ==============================================================================================
+    // INVALIDATION (called by ProductDAO after successful writes)
+    // ==============================================================================================
+
+    /**
+     * Re-read one product after it was created, updated or its stock changed
+     */
+    void refresh(int id) {
+        writeVersion.incrementAndGet();
+        Product loaded = loader.loadById(id);
+        if (loaded != null) {
+            apply(loaded);
+        } else {
+            remove(id);
+        }
+    }
+
+    /**
+     * Re-read several products together: one loadByIds round trip and one snapshot swap,
+     * whatever the number of ids. Ids that no longer exist are dropped.
+     */
+    void refresh(Collection<Integer> ids) {
+        List<Integer> distinct = InClause.distinctIds(ids);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        writeVersion.incrementAndGet();
+        List<Product> loaded = loader.loadByIds(distinct);
+        apply(loaded);
+        if (loaded.size() < distinct.size()) {
+            Set<Integer> found = new HashSet<>();
+            for (Product product : loaded) {
+                found.add(product.getId());
+            }
+            for (Integer id : distinct) {
+                if (!found.contains(id)) {
+                    remove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop a deleted product
+     */
+    void remove(int id) {
+        writeVersion.incrementAndGet();
+        Listener l = listener;
+        if (l != null) {
+            l.onRemove(id);
+        }
+        Snapshot snapshot;
+        do {
+            snapshot = current.get();
+            if (snapshot == null || snapshot.get(id) == null) {
+                return;
+            }
+        } while (!current.compareAndSet(snapshot, snapshot.without(id)));
+    }
+
+    /**
+     * Throw the snapshot away; the next read reloads it (e.g. after a category rename)
+     */
+    public void invalidate() {
+        writeVersion.incrementAndGet();
+        current.set(null);
+    }
+
+    private void apply(Product product) {
+        Listener l = listener;
+        if (l != null) {
+            l.onUpsert(product);
+        }
+        Snapshot snapshot;
+        do {
+            snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+        } while (!current.compareAndSet(snapshot, snapshot.with(product)));
+    }
+
+    /**
+     * Upsert several rows with a single snapshot swap
+     */
+    void apply(Collection<Product> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Listener l = listener;
+        if (l != null) {
+            for (Product product : products) {
+                l.onUpsert(product);
+            }
+        }
+        Snapshot snapshot;
+        do {
+            snapshot = current.get();
+            if (snapshot == null) {
+                return;
+            }
+        } while (!current.compareAndSet(snapshot, snapshot.with(products)));
+    }
+
+    // ==============================================================================================
+    // SNAPSHOT MANAGEMENT
+    // ==============================================================================================
+
+    private Snapshot snapshot() {
+        Snapshot snapshot = current.get();
+
+        if (snapshot != null && !snapshot.isStale(maxStalenessMs)) {
+            hits.incrementAndGet();
+            return snapshot;
+        }
+
+        misses.incrementAndGet();
+
+        if (snapshot != null) {
+            // Someone is already reloading: serve the slightly stale copy rather than queueing up
+            if (!reloading.compareAndSet(false, true)) {
+                return snapshot;
+            }
+            try {
+                return reload();
+            } finally {
+                reloading.set(false);
+            }
+        }
+
+        // Cold cache: everyone waits for the first load
+        synchronized (this) {
+            snapshot = current.get();
+            if (snapshot != null) {
+                return snapshot;
+            }
+            return reload();
+        }
+    }
+
+    private Snapshot reload() {
+        long versionBefore = writeVersion.get();
+        List<Product> products = loader.loadAll();
+
+        if (products == null) {
+            // Database unavailable: keep serving what we have rather than caching an empty catalog
+            Snapshot previous = current.get();
+            return previous != null ? previous : new Snapshot(new ArrayList<Product>(), 0L);
+        }
+
+        Snapshot fresh = new Snapshot(products, System.currentTimeMillis());
+
+        // A local write landed while we were reading; serve this snapshot but reload again next time
+        if (writeVersion.get() != versionBefore) {
+            fresh = new Snapshot(products, 0L);
+        }
+
+        current.set(fresh);
+        reloads.incrementAndGet();
+
+        Listener l = listener;
+        if (l != null) {
+            l.onReload(fresh.all);
+        }
+        return fresh;
+    }
+
+    private static List<Product> copyOf(List<Product> source) {
+        List<Product> copy = new ArrayList<>(source.size());
+        for (Product product : source) {
+            copy.add(new Product(product));
+        }
+        return copy;
+    }
+
+    // ==============================================================================================
+    // METRICS
+    // ==============================================================================================
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getReloadCount() {
+        return reloads.get();
+    }
+
+    public int getSize() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? snapshot.all.size() : 0;
+    }
+
+    public long getAgeMillis() {
+        Snapshot snapshot = current.get();
+        return snapshot != null ? System.currentTimeMillis() - snapshot.loadedAt : -1;
+    }
+
+    /**
+     * Immutable view of the catalog. Never modified after construction.
+     *
+     * The orderings are kept as sorted arrays, and the id index as a sorted int[] with a
+     * parallel Product[], so a single-row write is a binary search and a few array copies
+     * rather than a re-sort and re-hash of the whole catalog. Arrays a write doesn't touch
+     * are shared with the previous snapshot.
+     */
+    private static final class Snapshot {
+        private static final Comparator<Product> NEWEST_FIRST = (a, b) -> {
+            long ta = a.getCreatedAt() != null ? a.getCreatedAt().getTime() : 0L;
+            long tb = b.getCreatedAt() != null ? b.getCreatedAt().getTime() : 0L;
+            return ta != tb ? Long.compare(tb, ta) : Integer.compare(b.getId(), a.getId());
+        };
+
+        private static final Comparator<Product> BY_TITLE = (a, b) -> {
+            String ta = a.getTitle() != null ? a.getTitle() : "";
+            String tb = b.getTitle() != null ? b.getTitle() : "";
+            int cmp = ta.compareToIgnoreCase(tb);
+            return cmp != 0 ? cmp : Integer.compare(a.getId(), b.getId());
+        };
+
+        // Above this many rows a batch is cheaper to apply by rebuilding than row by row
+        private static final int MAX_INCREMENTAL_BATCH = 16;
+
+        private static final Product[] NONE = new Product[0];
+
+        private final Product[] newest;
+        private final Product[] active;
+        private final int[] ids;
+        private final Product[] byId;
+
+        final List<Product> all;
+        final List<Product> activeByTitle;
+        final long loadedAt;
+
+        Snapshot(List<Product> products, long loadedAt) {
+            Map<Integer, Product> distinct = new HashMap<>(products.size() * 2);
+            for (Product product : products) {
+                distinct.put(product.getId(), product);
+            }
+            Product[] sorted = distinct.values().toArray(NONE);
+            Arrays.sort(sorted, NEWEST_FIRST);
+
+            List<Product> activeRows = new ArrayList<>();
+            for (Product product : sorted) {
+                if (product.isActive()) {
+                    activeRows.add(product);
+                }
+            }
+            Product[] activeSorted = activeRows.toArray(NONE);
+            Arrays.sort(activeSorted, BY_TITLE);
+
+            Product[] idSorted = sorted.clone();
+            Arrays.sort(idSorted, (a, b) -> Integer.compare(a.getId(), b.getId()));
+            int[] idKeys = new int[idSorted.length];
+            for (int i = 0; i < idSorted.length; i++) {
+                idKeys[i] = idSorted[i].getId();
+            }
+
+            this.newest = sorted;
+            this.active = activeSorted;
+            this.ids = idKeys;
+            this.byId = idSorted;
+            this.all = Collections.unmodifiableList(Arrays.asList(sorted));
+            this.activeByTitle = Collections.unmodifiableList(Arrays.asList(activeSorted));
+            this.loadedAt = loadedAt;
+        }
+
+        private Snapshot(Product[] newest, Product[] active, int[] ids, Product[] byId, long loadedAt) {
+            this.newest = newest;
+            this.active = active;
+            this.ids = ids;
+            this.byId = byId;
+            this.all = Collections.unmodifiableList(Arrays.asList(newest));
+            this.activeByTitle = Collections.unmodifiableList(Arrays.asList(active));
+            this.loadedAt = loadedAt;
+        }
+
+        boolean isStale(long maxStalenessMs) {
+            return maxStalenessMs > 0 && System.currentTimeMillis() - loadedAt > maxStalenessMs;
+        }
+
+        Product get(int id) {
+            int at = Arrays.binarySearch(ids, id);
+            return at >= 0 ? byId[at] : null;
+        }
+
+        /**
+         * Insert or replace one product
+         */
+        Snapshot with(Product product) {
+            Product added = new Product(product);
+            int at = Arrays.binarySearch(ids, added.getId());
+            Product existing = at >= 0 ? byId[at] : null;
+
+            int[] newIds = ids;
+            Product[] newById;
+            if (at >= 0) {
+                newById = byId.clone();
+                newById[at] = added;
+            } else {
+                newIds = insert(ids, -at - 1, added.getId());
+                newById = insert(byId, -at - 1, added);
+            }
+
+            return new Snapshot(
+                    replace(newest, existing, added, NEWEST_FIRST),
+                    replace(active, existing != null && existing.isActive() ? existing : null,
+                            added.isActive() ? added : null, BY_TITLE),
+                    newIds, newById, loadedAt);
+        }
+
+        /**
+         * Insert or replace several products at once
+         */
+        Snapshot with(Collection<Product> products) {
+            if (products.size() > MAX_INCREMENTAL_BATCH) {
+                Map<Integer, Product> merged = new LinkedHashMap<>((newest.length + products.size()) * 2);
+                for (Product existing : newest) {
+                    merged.put(existing.getId(), existing);
+                }
+                for (Product product : products) {
+                    merged.put(product.getId(), new Product(product));
+                }
+                return new Snapshot(new ArrayList<>(merged.values()), loadedAt);
+            }
+            Snapshot snapshot = this;
+            for (Product product : products) {
+                snapshot = snapshot.with(product);
+            }
+            return snapshot;
+        }
+
+        Snapshot without(int id) {
+            int at = Arrays.binarySearch(ids, id);
+            if (at < 0) {
+                return this;
+            }
+            Product existing = byId[at];
+            return new Snapshot(
+                    replace(newest, existing, null, NEWEST_FIRST),
+                    existing.isActive() ? replace(active, existing, null, BY_TITLE) : active,
+                    remove(ids, at), remove(byId, at), loadedAt);
+        }
+
+        /**
+         * Copy of a sorted array with one element taken out and/or one put in its sorted
+         * place. The removed element must be the instance held in the array.
+         */
+        private static Product[] replace(Product[] sorted, Product removed, Product added, Comparator<Product> order) {
+            int from = removed != null ? Arrays.binarySearch(sorted, removed, order) : -1;
+            if (from >= 0 && added != null && order.compare(removed, added) == 0) {
+                // Same sort position (the usual case for an update): swap in place
+                Product[] result = sorted.clone();
+                result[from] = added;
+                return result;
+            }
+            Product[] result = from >= 0 ? remove(sorted, from) : sorted;
+            if (added != null) {
+                int to = Arrays.binarySearch(result, added, order);
+                result = insert(result, to >= 0 ? to : -to - 1, added);
+            }
+            return result;
+        }
+
+        private static Product[] insert(Product[] array, int at, Product element) {
+            Product[] result = new Product[array.length + 1];
+            System.arraycopy(array, 0, result, 0, at);
+            result[at] = element;
+            System.arraycopy(array, at, result, at + 1, array.length - at);
+            return result;
+        }
+
+        private static int[] insert(int[] array, int at, int element) {
+            int[] result = new int[array.length + 1];
+            System.arraycopy(array, 0, result, 0, at);
+            result[at] = element;
+            System.arraycopy(array, at, result, at + 1, array.length - at);
+            return result;
+        }
+
+        private static Product[] remove(Product[] array, int at) {
+            Product[] result = new Product[array.length - 1];
+            System.arraycopy(array, 0, result, 0, at);
+            System.arraycopy(array, at + 1, result, at, array.length - at - 1);
+            return result;
+        }
+
+        private static int[] remove(int[] array, int at) {
+            int[] result = new int[array.length - 1];
+            System.arraycopy(array, 0, result, 0, at);
+            System.arraycopy(array, at + 1, result, at, array.length - at - 1);
+            return result;
+        }
+    }
+}
@@ -3,11 +3,20 @@ package com.pahanaedu.dao;
 import java.sql.*;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 import com.pahanaedu.models.Product;
+import com.pahanaedu.utils.AppConfig;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
 
 public class ProductDAO {
+    private static final Log LOG = Log.get(ProductDAO.class);
+
     private static ProductDAO instance = null;
     
     private static final String INSERT_PRODUCT = 
@@ -22,10 +31,49 @@ public class ProductDAO {
         "DELETE FROM products WHERE id = ?";
     private static final String SEARCH_PRODUCTS = 
         "SELECT p.*, c.name as category_name FROM products p LEFT JOIN categories c ON p.category_id = c.id WHERE p.title LIKE ? OR p.author LIKE ? ORDER BY p.title ASC";
+    private static final String UPDATE_STOCK = 
+        "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
+    private static final String COUNT_PRODUCTS_WITH_IMAGE = 
+        "SELECT COUNT(*) FROM products WHERE image_path = ?";
+    private static final String SELECT_IMAGE_PATHS = 
+        "SELECT DISTINCT image_path FROM products WHERE image_path IS NOT NULL";
+    private static final String SELECT_PRODUCTS_BASE = 
+        "SELECT p.*, c.name as category_name FROM products p LEFT JOIN categories c ON p.category_id = c.id";
+    // IN (...) placeholders are appended per chunk; see InClause
+    private static final String SELECT_PRODUCTS_BY_IDS = 
+        "SELECT p.*, c.name as category_name FROM products p LEFT JOIN categories c ON p.category_id = c.id WHERE p.id IN ";
     private static final String SELECT_ACTIVE_PRODUCTS = 
         "SELECT p.*, c.name as category_name FROM products p LEFT JOIN categories c ON p.category_id = c.id WHERE p.status = 'active' ORDER BY p.title ASC";
     
-    private ProductDAO() {}
+    private final ProductCatalogCache catalogCache = ProductCatalogCache.getInstance();
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.getInstance();
+    private final DashboardStats dashboardStats = DashboardStats.getInstance();
+    private static final int SEARCH_RESULT_LIMIT = AppConfig.getInt("search.maxResults", 50);
+    
+    private ProductDAO() {
+        catalogCache.setLoader(new ProductCatalogCache.Loader() {
+            @Override
+            public List<Product> loadAll() {
+                try {
+                    return queryAllProducts();
+                } catch (SQLException e) {
+                    LOG.error("Error loading product catalog: {}", e.getMessage());
+                    return null;
+                }
+            }
+            
+            @Override
+            public Product loadById(int id) {
+                return loadProductById(id);
+            }
+            
+            @Override
+            public List<Product> loadByIds(List<Integer> ids) {
+                return loadProductsByIds(ids);
+            }
+        });
+        catalogCache.setListener(searchIndex);
+    }
     
     public static synchronized ProductDAO getInstance() {
         if (instance == null) {
@@ -36,7 +84,7 @@ public class ProductDAO {
     
     public boolean createProduct(Product product) {
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT)) {
+             PreparedStatement statement = connection.prepareStatement(INSERT_PRODUCT, Statement.RETURN_GENERATED_KEYS)) {
             
             statement.setString(1, product.getTitle());
             statement.setString(2, product.getAuthor());
@@ -49,29 +97,168 @@ public class ProductDAO {
             statement.setString(9, product.getImagePath());
             statement.setString(10, product.getStatus());
             
-            return statement.executeUpdate() > 0;
+            if (statement.executeUpdate() == 0) {
+                return false;
+            }
+            
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                if (keys.next()) {
+                    product.setId(keys.getInt(1));
+                }
+            }
         } catch (SQLException e) {
-            System.err.println("Error creating product: " + e.getMessage());
+            LOG.error("Error creating product: {}", e.getMessage());
             return false;
         }
+        
+        // Refresh the cache after the connection is back in the pool
+        if (product.getId() > 0) {
+            catalogCache.refresh(product.getId());
+            dashboardStats.invalidateEntityCounts();
+        } else {
+            catalogCache.invalidate();
+        }
+        return true;
     }
     
     public List<Product> getAllProducts() {
+        return catalogCache.isEnabled() ? catalogCache.getAll() : loadAllProducts();
+    }
+    
+    public List<Product> getActiveProducts() {
+        return catalogCache.isEnabled() ? catalogCache.getActive() : loadActiveProducts();
+    }
+    
+    public Product getProductById(int id) {
+        return catalogCache.isEnabled() ? catalogCache.get(id) : loadProductById(id);
+    }
+    
+    /**
+     * Several products at once, keyed by id in the order requested (missing ids are left out).
+     * Served from the catalog cache; anything not cached costs a single IN query, never one per id.
+     */
+    public Map<Integer, Product> getProductsByIds(Collection<Integer> ids) {
+        if (catalogCache.isEnabled()) {
+            return catalogCache.getByIds(ids);
+        }
+        
+        List<Integer> distinct = InClause.distinctIds(ids);
+        Map<Integer, Product> byId = new HashMap<>(distinct.size() * 2);
+        for (Product product : loadProductsByIds(distinct)) {
+            byId.put(product.getId(), product);
+        }
+        Map<Integer, Product> result = new LinkedHashMap<>(distinct.size() * 2);
+        for (Integer id : distinct) {
+            Product product = byId.get(id);
+            if (product != null) {
+                result.put(id, product);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Filtered, sorted and keyset-paginated product listing.
+     * Filters and ordering run in MySQL against the (status, column, id) indexes,
+     * so the cost of a page does not grow with the size of the catalog.
+     * @throws IllegalArgumentException if the query's cursor is invalid
+     */
+    public ProductPage findProducts(ProductQuery query) {
+        StringBuilder sql = new StringBuilder(SELECT_PRODUCTS_BASE).append(" WHERE 1 = 1");
+        List<Object> params = new ArrayList<>();
+        
+        if (query.isActiveOnly()) {
+            sql.append(" AND p.status = 'active'");
+        }
+        if (query.getCategoryId() != null) {
+            sql.append(" AND p.category_id = ?");
+            params.add(query.getCategoryId());
+        }
+        if (query.getMinPrice() != null) {
+            sql.append(" AND p.effective_price >= ?");
+            params.add(query.getMinPrice());
+        }
+        if (query.getMaxPrice() != null) {
+            sql.append(" AND p.effective_price <= ?");
+            params.add(query.getMaxPrice());
+        }
+        
+        ProductQuery.Sort sort = query.getSort();
+        String column = sort.getColumn();
+        String cmp = sort.isAscending() ? ">" : "<";
+        String direction = sort.isAscending() ? "ASC" : "DESC";
+        
+        // Seek past the last row of the previous page: (column, id) strictly after the cursor
+        ProductQuery.Position position = query.decodeCursor();
+        if (position != null) {
+            sql.append(" AND (").append(column).append(' ').append(cmp).append(" ? OR (")
+               .append(column).append(" = ? AND p.id ").append(cmp).append(" ?))");
+            params.add(position.value);
+            params.add(position.value);
+            params.add(position.id);
+        }
+        
+        sql.append(" ORDER BY ").append(column).append(' ').append(direction)
+           .append(", p.id ").append(direction).append(" LIMIT ?");
+        // One extra row tells us whether there is a next page
+        params.add(query.getLimit() + 1);
+        
         List<Product> products = new ArrayList<>();
         try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(SELECT_ALL_PRODUCTS)) {
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
+            }
+            
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    products.add(extractProductFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            LOG.error("Error finding products: {}", e.getMessage());
+            return new ProductPage(new ArrayList<>(), null);
+        }
+        
+        String nextCursor = null;
+        if (products.size() > query.getLimit()) {
+            products.remove(products.size() - 1);
+            nextCursor = query.cursorAfter(products.get(products.size() - 1));
+        }
+        return new ProductPage(products, nextCursor);
+    }
+    
+    /**
+     * Catalog cache statistics (hits, misses, size, age)
+     */
+    public ProductCatalogCache getCatalogCache() {
+        return catalogCache;
+    }
+    
+    private List<Product> loadAllProducts() {
+        try {
+            return queryAllProducts();
+        } catch (SQLException e) {
+            LOG.error("Error getting all products: {}", e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+    
+    private List<Product> queryAllProducts() throws SQLException {
+        List<Product> products = new ArrayList<>();
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ALL_PRODUCTS);
+             ResultSet rs = statement.executeQuery()) {
             
-            ResultSet rs = statement.executeQuery();
             while (rs.next()) {
                 products.add(extractProductFromResultSet(rs));
             }
-        } catch (SQLException e) {
-            System.err.println("Error getting all products: " + e.getMessage());
         }
         return products;
     }
     
-    public List<Product> getActiveProducts() {
+    private List<Product> loadActiveProducts() {
         List<Product> products = new ArrayList<>();
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_ACTIVE_PRODUCTS)) {
@@ -81,12 +268,12 @@ public class ProductDAO {
                 products.add(extractProductFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting active products: " + e.getMessage());
+            LOG.error("Error getting active products: {}", e.getMessage());
         }
         return products;
     }
     
-    public Product getProductById(int id) {
+    private Product loadProductById(int id) {
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_PRODUCT_BY_ID)) {
             
@@ -97,12 +284,73 @@ public class ProductDAO {
                 return extractProductFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting product by ID: " + e.getMessage());
+            LOG.error("Error getting product by ID: {}", e.getMessage());
         }
         return null;
     }
     
+    private List<Product> loadProductsByIds(List<Integer> ids) {
+        List<Product> products = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return products;
+        }
+        
+        try (Connection connection = DatabaseConnection.getConnection()) {
+            for (int from = 0; from < ids.size(); from += InClause.CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(from, Math.min(from + InClause.CHUNK_SIZE, ids.size()));
+                
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_PRODUCTS_BY_IDS + InClause.placeholders(chunk.size()))) {
+                    InClause.bind(statement, chunk);
+                    ResultSet rs = statement.executeQuery();
+                    while (rs.next()) {
+                        products.add(extractProductFromResultSet(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOG.error("Error getting products by IDs: {}", e.getMessage());
+        }
+        return products;
+    }
+    
+    /**
+     * Ranked keyword search over title, author, ISBN and category (prefix and typo tolerant).
+     * Served from the in-memory search index; falls back to a LIKE scan when the catalog cache is off.
+     */
     public List<Product> searchProducts(String keyword) {
+        if (!catalogCache.isEnabled()) {
+            return searchProductsInDatabase(keyword);
+        }
+        if (!searchIndex.isBuilt()) {
+            // Loading the catalog builds the index through the cache listener
+            catalogCache.getAll();
+            if (!searchIndex.isBuilt()) {
+                rebuildSearchIndex();
+            }
+        }
+        return catalogCache.getAll(searchIndex.search(keyword, SEARCH_RESULT_LIMIT));
+    }
+    
+    /**
+     * Rebuild the search index from the database (cold start, or after bulk changes made outside the app)
+     * @return number of products indexed
+     */
+    public int rebuildSearchIndex() {
+        try {
+            List<Product> products = queryAllProducts();
+            searchIndex.rebuild(products);
+            return products.size();
+        } catch (SQLException e) {
+            LOG.error("Error rebuilding search index: {}", e.getMessage());
+            return -1;
+        }
+    }
+    
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+    
+    private List<Product> searchProductsInDatabase(String keyword) {
         List<Product> products = new ArrayList<>();
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(SEARCH_PRODUCTS)) {
@@ -116,12 +364,13 @@ public class ProductDAO {
                 products.add(extractProductFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error searching products: " + e.getMessage());
+            LOG.error("Error searching products: {}", e.getMessage());
         }
         return products;
     }
     
     public boolean updateProduct(Product product) {
+        boolean updated;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(UPDATE_PRODUCT)) {
             
@@ -137,21 +386,102 @@ public class ProductDAO {
             statement.setString(10, product.getStatus());
             statement.setInt(11, product.getId());
             
-            return statement.executeUpdate() > 0;
+            updated = statement.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating product: " + e.getMessage());
+            LOG.error("Error updating product: {}", e.getMessage());
             return false;
         }
+        
+        if (updated) {
+            catalogCache.refresh(product.getId());
+            dashboardStats.invalidateEntityCounts();
+        }
+        return updated;
+    }
+    
+    /**
+     * Adjust stock by a delta (negative when selling, positive when restocking/cancelling)
+     */
+    public boolean updateStock(int productId, int quantityChange) {
+        boolean updated;
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_STOCK)) {
+            
+            statement.setInt(1, quantityChange);
+            statement.setInt(2, productId);
+            
+            updated = statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            LOG.error("Error updating product stock: {}", e.getMessage());
+            return false;
+        }
+        
+        if (updated) {
+            catalogCache.refresh(productId);
+        }
+        return updated;
     }
     
     public boolean deleteProduct(int id) {
+        boolean deleted;
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(DELETE_PRODUCT)) {
             
             statement.setInt(1, id);
-            return statement.executeUpdate() > 0;
+            
+            deleted = statement.executeUpdate() > 0;
+        } catch (SQLException e) {
+            LOG.error("Error deleting product: {}", e.getMessage());
+            return false;
+        }
+        
+        if (deleted) {
+            catalogCache.remove(id);
+            dashboardStats.invalidateEntityCounts();
+        }
+        return deleted;
+    }
+    
+    /**
+     * True if any product still uses the image (images are shared between products
+     * with identical pictures). Errs on the side of "in use" if the check fails.
+     */
+    public boolean isImageInUse(String imagePath) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(COUNT_PRODUCTS_WITH_IMAGE)) {
+            
+            statement.setString(1, imagePath);
+            ResultSet rs = statement.executeQuery();
+            return rs.next() && rs.getInt(1) > 0;
+            
+        } catch (SQLException e) {
+            LOG.error("Error checking product image usage: {}", e.getMessage());
+            return true;
+        }
+    }
+    
+    /**
+     * Pass every image path in use to the consumer, streaming rows rather than loading
+     * them all
+     * @return false if the query failed part way (the consumer may have seen some paths)
+     */
+    public boolean forEachImagePath(Consumer<String> consumer) {
+        // Not the cached prepareStatement(sql) form: the fetch size must not stick to a shared statement
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_IMAGE_PATHS,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            // MySQL Connector/J streams row by row with this fetch size
+            statement.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    consumer.accept(rs.getString(1));
+                }
+            }
+            return true;
+            
         } catch (SQLException e) {
-            System.err.println("Error deleting product: " + e.getMessage());
+            LOG.error("Error reading product image paths: {}", e.getMessage());
             return false;
         }
     }
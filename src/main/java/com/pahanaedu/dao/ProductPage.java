@@ -0,0 +1,25 @@
+package com.pahanaedu.dao;
+
+import java.util.List;
+
+import com.pahanaedu.models.Product;
+
+/**
+ * One page of ProductDAO.findProducts() results
+ */
+public class ProductPage {
+    private final List<Product> products;
+    private final String nextCursor;
+
+    public ProductPage(List<Product> products, String nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Product> getProducts() { return products; }
+
+    /** Cursor for the following page, or null on the last page */
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,169 @@
+package com.pahanaedu.dao;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+import com.pahanaedu.models.Product;
+import com.pahanaedu.utils.AppConfig;
+
+/**
+ * Filter, sort and page criteria for ProductDAO.findProducts().
+ *
+ * Pagination is keyset based: the cursor carries the sort value and id of the last
+ * row on the previous page, so fetching page 500 costs the same as fetching page 1.
+ */
+public class ProductQuery {
+
+    public static final int DEFAULT_PAGE_SIZE = AppConfig.getInt("catalog.page.defaultSize", 24);
+    public static final int MAX_PAGE_SIZE = AppConfig.getInt("catalog.page.maxSize", 100);
+
+    /**
+     * Supported sort orders. Each one is backed by a (status, column, id) index.
+     */
+    public enum Sort {
+        NEWEST("newest", "p.created_at", false),
+        PRICE_ASC("price_asc", "p.effective_price", true),
+        PRICE_DESC("price_desc", "p.effective_price", false),
+        NAME_ASC("name_asc", "p.title", true),
+        NAME_DESC("name_desc", "p.title", false);
+
+        private final String code;
+        private final String column;
+        private final boolean ascending;
+
+        Sort(String code, String column, boolean ascending) {
+            this.code = code;
+            this.column = column;
+            this.ascending = ascending;
+        }
+
+        public String getCode() { return code; }
+        String getColumn() { return column; }
+        boolean isAscending() { return ascending; }
+
+        /**
+         * Parse the sortBy request parameter; unknown or empty values fall back to newest first
+         */
+        public static Sort fromCode(String code) {
+            if (code != null) {
+                for (Sort sort : values()) {
+                    if (sort.code.equalsIgnoreCase(code.trim())) {
+                        return sort;
+                    }
+                }
+            }
+            return NEWEST;
+        }
+    }
+
+    private Integer categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private boolean activeOnly = true;
+    private Sort sort = Sort.NEWEST;
+    private int limit = DEFAULT_PAGE_SIZE;
+    private String cursor;
+
+    // Getters and Setters
+    public Integer getCategoryId() { return categoryId; }
+    public void setCategoryId(Integer categoryId) { this.categoryId = categoryId; }
+
+    public BigDecimal getMinPrice() { return minPrice; }
+    public void setMinPrice(BigDecimal minPrice) { this.minPrice = minPrice; }
+
+    public BigDecimal getMaxPrice() { return maxPrice; }
+    public void setMaxPrice(BigDecimal maxPrice) { this.maxPrice = maxPrice; }
+
+    public boolean isActiveOnly() { return activeOnly; }
+    public void setActiveOnly(boolean activeOnly) { this.activeOnly = activeOnly; }
+
+    public Sort getSort() { return sort; }
+    public void setSort(Sort sort) { this.sort = sort != null ? sort : Sort.NEWEST; }
+
+    public int getLimit() { return limit; }
+
+    /**
+     * Page size, clamped to 1..MAX_PAGE_SIZE
+     */
+    public void setLimit(int limit) {
+        this.limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) {
+        this.cursor = cursor != null && !cursor.trim().isEmpty() ? cursor.trim() : null;
+    }
+
+    // ==============================================================================================
+    // CURSOR ENCODING
+    // ==============================================================================================
+
+    /**
+     * Build the cursor that continues after the given product in this query's sort order
+     */
+    String cursorAfter(Product last) {
+        String value;
+        switch (sort) {
+            case PRICE_ASC:
+            case PRICE_DESC:
+                value = last.getEffectivePrice() != null ? last.getEffectivePrice().toPlainString() : "0";
+                break;
+            case NAME_ASC:
+            case NAME_DESC:
+                value = last.getTitle() != null ? last.getTitle() : "";
+                break;
+            default:
+                value = String.valueOf(last.getCreatedAt() != null ? last.getCreatedAt().getTime() : 0L);
+                break;
+        }
+        String raw = sort.getCode() + "|" + last.getId() + "|" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decoded cursor position: the sort value (already typed for JDBC) and the row id
+     */
+    static final class Position {
+        final Object value;
+        final int id;
+
+        Position(Object value, int id) {
+            this.value = value;
+            this.id = id;
+        }
+    }
+
+    /**
+     * Decode the cursor, or null when this is the first page
+     * @throws IllegalArgumentException if the cursor is malformed or belongs to another sort order
+     */
+    Position decodeCursor() {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            if (parts.length != 3 || !sort.getCode().equals(parts[0])) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort order");
+            }
+            int id = Integer.parseInt(parts[1]);
+
+            switch (sort) {
+                case PRICE_ASC:
+                case PRICE_DESC:
+                    return new Position(new BigDecimal(parts[2]), id);
+                case NAME_ASC:
+                case NAME_DESC:
+                    return new Position(parts[2], id);
+                default:
+                    return new Position(new Timestamp(Long.parseLong(parts[2])), id);
+            }
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and bad Base64 both land here
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
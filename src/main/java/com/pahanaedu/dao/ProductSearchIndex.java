@@ -0,0 +1,554 @@
+package com.pahanaedu.dao;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import com.pahanaedu.models.Product;
+
+import com.pahanaedu.utils.Log;
+
+/**
+ * In-process inverted index over product title, author, ISBN and category name.
+ *
+ * Replaces the leading-wildcard LIKE scan for storefront and POS search. Terms live in a
+ * sorted set so prefix lookups ("harr" -> "harry") are a range scan, and misspellings
+ * are matched with a bounded edit distance. Results are ranked by field weight and
+ * match quality; products must match every query word when possible.
+ *
+ * Kept in sync with the catalog cache: row-level upserts on writes, a diff on reload,
+ * and a full rebuild from the database on demand.
+ */
+public class ProductSearchIndex implements ProductCatalogCache.Listener {
+    private static final Log LOG = Log.get(ProductSearchIndex.class);
+
+    private static ProductSearchIndex instance = null;
+
+    // Field weights: an ISBN hit is almost certainly what the user wants, category is a weak signal
+    private static final float WEIGHT_ISBN = 4.0f;
+    private static final float WEIGHT_TITLE = 3.0f;
+    private static final float WEIGHT_AUTHOR = 2.0f;
+    private static final float WEIGHT_CATEGORY = 1.0f;
+
+    // Match quality multipliers
+    private static final float EXACT = 1.0f;
+    private static final float PREFIX = 0.7f;
+    private static final float FUZZY = 0.4f;
+
+    private static final int MAX_PREFIX_TERMS = 64;
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private volatile Index index = new Index();
+    private volatile boolean built = false;
+
+    private ProductSearchIndex() {}
+
+    public static synchronized ProductSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new ProductSearchIndex();
+        }
+        return instance;
+    }
+
+    public boolean isBuilt() {
+        return built;
+    }
+
+    public int getDocumentCount() {
+        return index.docs.size();
+    }
+
+    public int getTermCount() {
+        return index.terms.size();
+    }
+
+    // ==============================================================================================
+    // MAINTENANCE
+    // ==============================================================================================
+
+    /**
+     * Replace the whole index (cold start or an explicit rebuild)
+     */
+    public synchronized void rebuild(List<Product> products) {
+        Index fresh = new Index();
+        for (Product product : products) {
+            fresh.add(product);
+        }
+        index = fresh;
+        built = true;
+        LOG.info("Built index with {} products, {} terms", fresh.docs.size(), fresh.terms.size());
+    }
+
+    @Override
+    public synchronized void onUpsert(Product product) {
+        index.replace(product);
+    }
+
+    @Override
+    public synchronized void onRemove(int productId) {
+        index.remove(productId);
+    }
+
+    /**
+     * Catalog reloaded: apply only the rows that changed since we last saw them
+     */
+    @Override
+    public synchronized void onReload(List<Product> products) {
+        if (!built) {
+            rebuild(products);
+            return;
+        }
+
+        Index current = index;
+        Set<Integer> seen = new HashSet<>(products.size() * 2);
+        for (Product product : products) {
+            seen.add(product.getId());
+            Doc existing = current.docs.get(product.getId());
+            if (existing == null || existing.signature != signature(product)) {
+                current.replace(product);
+            }
+        }
+        for (Integer id : new ArrayList<>(current.docs.keySet())) {
+            if (!seen.contains(id)) {
+                current.remove(id);
+            }
+        }
+    }
+
+    // ==============================================================================================
+    // SEARCH
+    // ==============================================================================================
+
+    /**
+     * Ids of the best matching products, highest score first
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> queryTerms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+
+        Index current = index;
+
+        // Drive the search from the most selective word, then check the others per candidate,
+        // so a common word like "book" doesn't make us score the whole catalog
+        String pivot = queryTerms.get(0);
+        int pivotSize = Integer.MAX_VALUE;
+        for (String term : queryTerms) {
+            int size = estimateMatches(current, term);
+            if (size < pivotSize) {
+                pivot = term;
+                pivotSize = size;
+            }
+        }
+
+        Map<Integer, Float> scores = new HashMap<>();
+        for (Map.Entry<Integer, Float> match : matchTerm(current, pivot, limit).entrySet()) {
+            Doc doc = current.docs.get(match.getKey());
+            if (doc == null) {
+                continue;
+            }
+            float total = match.getValue();
+            for (String term : queryTerms) {
+                if (term.equals(pivot)) {
+                    continue;
+                }
+                float score = scoreInDoc(doc, term);
+                if (score == 0f) {
+                    total = 0f;
+                    break;
+                }
+                total += score;
+            }
+            if (total > 0f) {
+                scores.put(match.getKey(), total);
+            }
+        }
+
+        // Nothing matches every word: rank products by how much of the query they cover
+        if (scores.isEmpty() && queryTerms.size() > 1) {
+            List<Map<Integer, Float>> perTerm = new ArrayList<>(queryTerms.size());
+            for (String term : queryTerms) {
+                perTerm.add(matchTerm(current, term, limit));
+            }
+            scores = combine(perTerm);
+        }
+
+        return topK(scores, limit);
+    }
+
+    /**
+     * Rough number of products a word matches by exact or prefix lookup
+     */
+    private static int estimateMatches(Index current, String term) {
+        int total = 0;
+        Map<Integer, Float> exact = current.postings.get(term);
+        if (exact != null) {
+            total += exact.size();
+        }
+        int prefixTerms = 0;
+        for (String candidate : current.terms.subSet(term, false, term + Character.MAX_VALUE, false)) {
+            if (++prefixTerms > MAX_PREFIX_TERMS) {
+                break;
+            }
+            Map<Integer, Float> postings = current.postings.get(candidate);
+            if (postings != null) {
+                total += postings.size();
+            }
+        }
+        // Unknown words may still match through typo tolerance; don't pick them as the pivot first
+        return total == 0 ? Integer.MAX_VALUE - 1 : total;
+    }
+
+    private Map<Integer, Float> matchTerm(Index current, String term, int limit) {
+        Map<Integer, Float> matches = new HashMap<>();
+
+        addPostings(current, term, EXACT, matches);
+
+        int prefixTerms = 0;
+        for (String candidate : current.terms.subSet(term, false, term + Character.MAX_VALUE, false)) {
+            if (++prefixTerms > MAX_PREFIX_TERMS) {
+                break;
+            }
+            addPostings(current, candidate, prefixQuality(term, candidate), matches);
+        }
+
+        // Typo tolerance only when the word on its own doesn't find enough
+        if (matches.size() < limit && isFuzzyCandidate(term)) {
+            int maxEdits = maxEdits(term);
+            int[] previous = new int[term.length() + maxEdits + 1];
+            int[] row = new int[previous.length];
+            // Typos rarely hit the first letter; that and the length limit keep the candidate set small
+            String first = term.substring(0, 1);
+            for (int length = term.length() - maxEdits; length <= term.length() + maxEdits; length++) {
+                NavigableSet<String> sameLength = current.termsByLength.get(length);
+                if (sameLength == null) {
+                    continue;
+                }
+                for (String candidate : sameLength.subSet(first, true, first + Character.MAX_VALUE, false)) {
+                    if (candidate.startsWith(term)) {
+                        continue;
+                    }
+                    int distance = boundedEditDistance(term, candidate, maxEdits, previous, row);
+                    if (distance > 0 && distance <= maxEdits) {
+                        addPostings(current, candidate, FUZZY / distance, matches);
+                    }
+                }
+            }
+        }
+
+        return matches;
+    }
+
+    /**
+     * Best score this product earns for one query word, 0 if it doesn't match
+     */
+    private static float scoreInDoc(Doc doc, String term) {
+        Float exact = doc.weights.get(term);
+        if (exact != null) {
+            return exact * EXACT;
+        }
+
+        float best = 0f;
+        boolean fuzzy = isFuzzyCandidate(term);
+        int maxEdits = maxEdits(term);
+        int[] previous = null;
+        int[] row = null;
+        for (Map.Entry<String, Float> entry : doc.weights.entrySet()) {
+            String candidate = entry.getKey();
+            float quality = 0f;
+            if (candidate.startsWith(term)) {
+                quality = prefixQuality(term, candidate);
+            } else if (fuzzy && candidate.charAt(0) == term.charAt(0)
+                    && Math.abs(candidate.length() - term.length()) <= maxEdits) {
+                if (previous == null) {
+                    previous = new int[term.length() + maxEdits + 1];
+                    row = new int[previous.length];
+                }
+                int distance = boundedEditDistance(term, candidate, maxEdits, previous, row);
+                if (distance <= maxEdits) {
+                    quality = FUZZY / distance;
+                }
+            }
+            best = Math.max(best, entry.getValue() * quality);
+        }
+        return best;
+    }
+
+    private static float prefixQuality(String term, String candidate) {
+        // Shorter completions are closer to what was typed
+        float closeness = (float) term.length() / candidate.length();
+        return PREFIX * (0.5f + 0.5f * closeness);
+    }
+
+    private static boolean isFuzzyCandidate(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return false;
+        }
+        // Numbers and ISBNs should match exactly or by prefix, never "nearly"
+        for (int i = 0; i < term.length(); i++) {
+            if (!Character.isDigit(term.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int maxEdits(String term) {
+        return term.length() >= 8 ? 2 : 1;
+    }
+
+    private static void addPostings(Index current, String term, float quality, Map<Integer, Float> matches) {
+        Map<Integer, Float> postings = current.postings.get(term);
+        if (postings == null) {
+            return;
+        }
+        for (Map.Entry<Integer, Float> posting : postings.entrySet()) {
+            float score = posting.getValue() * quality;
+            Float previous = matches.get(posting.getKey());
+            if (previous == null || previous < score) {
+                matches.put(posting.getKey(), score);
+            }
+        }
+    }
+
+    private static Map<Integer, Float> combine(List<Map<Integer, Float>> perTerm) {
+        Map<Integer, Float> scores = new HashMap<>();
+        Map<Integer, Integer> matchedTerms = new HashMap<>();
+
+        for (Map<Integer, Float> matches : perTerm) {
+            for (Map.Entry<Integer, Float> match : matches.entrySet()) {
+                scores.merge(match.getKey(), match.getValue(), Float::sum);
+                matchedTerms.merge(match.getKey(), 1, Integer::sum);
+            }
+        }
+
+        // Partial matches: reward covering more of the query
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            entry.setValue(entry.getValue() * matchedTerms.get(entry.getKey()) / perTerm.size());
+        }
+        return scores;
+    }
+
+    private static List<Integer> topK(Map<Integer, Float> scores, int limit) {
+        PriorityQueue<Map.Entry<Integer, Float>> heap = new PriorityQueue<>(limit + 1,
+                (a, b) -> {
+                    int cmp = Float.compare(a.getValue(), b.getValue());
+                    return cmp != 0 ? cmp : Integer.compare(b.getKey(), a.getKey());
+                });
+
+        for (Map.Entry<Integer, Float> entry : scores.entrySet()) {
+            heap.offer(entry);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ids.add(heap.poll().getKey());
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    // ==============================================================================================
+    // TEXT HELPERS
+    // ==============================================================================================
+
+    /**
+     * Lower-case words made of letters, digits and combining marks (so Sinhala words stay whole)
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder current = new StringBuilder();
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            int type = Character.getType(c);
+            if (Character.isLetterOrDigit(c) || type == Character.NON_SPACING_MARK
+                    || type == Character.COMBINING_SPACING_MARK) {
+                current.append(c);
+            } else if (current.length() > 0) {
+                tokens.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        if (current.length() > 0) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * ISBNs are searched with or without hyphens, so index the bare digits too
+     */
+    private static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isDigit(c) || c == 'x' || c == 'X') {
+                digits.append(Character.toLowerCase(c));
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+
+    /**
+     * Levenshtein distance, giving up (returning max + 1) as soon as it must exceed max
+     */
+    static int boundedEditDistance(String a, String b, int max) {
+        return boundedEditDistance(a, b, max, new int[b.length() + 1], new int[b.length() + 1]);
+    }
+
+    /**
+     * As above, with the two row buffers supplied by the caller (at least b.length() + 1 long),
+     * so matching one word against many candidates allocates nothing per candidate
+     */
+    private static int boundedEditDistance(String a, String b, int max, int[] previous, int[] current) {
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static int signature(Product product) {
+        return Objects.hash(product.getTitle(), product.getAuthor(), product.getIsbn(), product.getCategoryName());
+    }
+
+    // ==============================================================================================
+    // INDEX STRUCTURES
+    // ==============================================================================================
+
+    private static final class Doc {
+        final int signature;
+        // term -> field weight, used to score candidates and to unindex the product later
+        final Map<String, Float> weights;
+
+        Doc(int signature, Map<String, Float> weights) {
+            this.signature = signature;
+            this.weights = weights;
+        }
+    }
+
+    private static final class Index {
+        // term -> (product id -> field weight)
+        final ConcurrentHashMap<String, ConcurrentHashMap<Integer, Float>> postings = new ConcurrentHashMap<>();
+        final ConcurrentSkipListSet<String> terms = new ConcurrentSkipListSet<>();
+        // The same terms by length, so typo matching only looks at words of a reachable length
+        final ConcurrentHashMap<Integer, ConcurrentSkipListSet<String>> termsByLength = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<Integer, Doc> docs = new ConcurrentHashMap<>();
+
+        void add(Product product) {
+            replace(product);
+        }
+
+        /**
+         * Index a product, replacing its previous version in one pass: new postings go in
+         * before stale ones come out, so a concurrent search never finds the product missing
+         */
+        void replace(Product product) {
+            Map<String, Float> weights = weightsOf(product);
+            for (Map.Entry<String, Float> entry : weights.entrySet()) {
+                postings.computeIfAbsent(entry.getKey(), k -> new ConcurrentHashMap<>())
+                        .put(product.getId(), entry.getValue());
+                addTerm(entry.getKey());
+            }
+            Doc previous = docs.put(product.getId(), new Doc(signature(product), weights));
+            if (previous != null) {
+                for (String term : previous.weights.keySet()) {
+                    if (!weights.containsKey(term)) {
+                        removePosting(term, product.getId());
+                    }
+                }
+            }
+        }
+
+        void remove(int productId) {
+            Doc doc = docs.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            for (String term : doc.weights.keySet()) {
+                removePosting(term, productId);
+            }
+        }
+
+        private void addTerm(String term) {
+            if (terms.add(term)) {
+                termsByLength.computeIfAbsent(term.length(), k -> new ConcurrentSkipListSet<>()).add(term);
+            }
+        }
+
+        private void removePosting(String term, int productId) {
+            Map<Integer, Float> list = postings.get(term);
+            if (list != null) {
+                list.remove(productId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                    terms.remove(term);
+                    Set<String> sameLength = termsByLength.get(term.length());
+                    if (sameLength != null) {
+                        sameLength.remove(term);
+                    }
+                }
+            }
+        }
+
+        private static Map<String, Float> weightsOf(Product product) {
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, tokenize(product.getTitle()), WEIGHT_TITLE);
+            addField(weights, tokenize(product.getAuthor()), WEIGHT_AUTHOR);
+            addField(weights, tokenize(product.getCategoryName()), WEIGHT_CATEGORY);
+            List<String> isbnTokens = tokenize(product.getIsbn());
+            String isbn = normalizeIsbn(product.getIsbn());
+            if (isbn != null) {
+                isbnTokens.add(isbn);
+            }
+            addField(weights, isbnTokens, WEIGHT_ISBN);
+            return weights;
+        }
+
+        private static void addField(Map<String, Float> weights, List<String> tokens, float weight) {
+            for (String token : tokens) {
+                Float existing = weights.get(token);
+                // A word in two fields (e.g. title and author) counts a bit more than in one
+                weights.put(token, existing == null ? weight : Math.max(existing, weight) + 0.25f);
+            }
+        }
+    }
+}
@@ -5,8 +5,11 @@ import java.util.ArrayList;
 import java.util.List;
 import com.pahanaedu.models.PromoCode;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
 
 public class PromoCodeDAO {
+    private static final Log LOG = Log.get(PromoCodeDAO.class);
+
     private static PromoCodeDAO instance = null;
     
     private static final String INSERT_PROMO = 
@@ -45,9 +48,13 @@ public class PromoCodeDAO {
             statement.setDate(6, promoCode.getEndDate());
             statement.setString(7, promoCode.getStatus());
             
-            return statement.executeUpdate() > 0;
+            boolean created = statement.executeUpdate() > 0;
+            if (created) {
+                DashboardStats.getInstance().invalidateEntityCounts();
+            }
+            return created;
         } catch (SQLException e) {
-            System.err.println("Error creating promo code: " + e.getMessage());
+            LOG.error("Error creating promo code: {}", e.getMessage());
             return false;
         }
     }
@@ -62,7 +69,7 @@ public class PromoCodeDAO {
                 promoCodes.add(extractPromoCodeFromResultSet(rs));
             }
         } catch (SQLException e) {
-            System.err.println("Error getting all promo codes: " + e.getMessage());
+            LOG.error("Error getting all promo codes: {}", e.getMessage());
         }
         return promoCodes;
     }
@@ -78,7 +85,7 @@ public class PromoCodeDAO {
                 return extractPromoCodeFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting promo code by ID: " + e.getMessage());
+            LOG.error("Error getting promo code by ID: {}", e.getMessage());
         }
         return null;
     }
@@ -94,7 +101,7 @@ public class PromoCodeDAO {
                 return extractPromoCodeFromResultSet(rs);
             }
         } catch (SQLException e) {
-            System.err.println("Error getting promo code by code: " + e.getMessage());
+            LOG.error("Error getting promo code by code: {}", e.getMessage());
         }
         return null;
     }
@@ -114,7 +121,7 @@ public class PromoCodeDAO {
             
             return statement.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating promo code: " + e.getMessage());
+            LOG.error("Error updating promo code: {}", e.getMessage());
             return false;
         }
     }
@@ -124,9 +131,14 @@ public class PromoCodeDAO {
              PreparedStatement statement = connection.prepareStatement(DELETE_PROMO)) {
             
             statement.setInt(1, id);
-            return statement.executeUpdate() > 0;
+            
+            boolean deleted = statement.executeUpdate() > 0;
+            if (deleted) {
+                DashboardStats.getInstance().invalidateEntityCounts();
+            }
+            return deleted;
         } catch (SQLException e) {
-            System.err.println("Error deleting promo code: " + e.getMessage());
+            LOG.error("Error deleting promo code: {}", e.getMessage());
             return false;
         }
     }
@@ -138,7 +150,7 @@ public class PromoCodeDAO {
             statement.setInt(1, id);
             return statement.executeUpdate() > 0;
         } catch (SQLException e) {
-            System.err.println("Error updating used count: " + e.getMessage());
+            LOG.error("Error updating used count: {}", e.getMessage());
             return false;
         }
     }
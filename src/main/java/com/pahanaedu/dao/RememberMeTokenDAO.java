@@ -0,0 +1,200 @@
+package com.pahanaedu.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import com.pahanaedu.models.RememberMeToken;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
+
+/**
+ * Data Access Object for "remember me" tokens using Singleton Pattern
+ * Only validator hashes are stored, so the table can't be used to sign in.
+ */
+public class RememberMeTokenDAO {
+    private static final Log LOG = Log.get(RememberMeTokenDAO.class);
+
+    // Singleton instance
+    private static RememberMeTokenDAO instance = null;
+
+    private static final String INSERT_TOKEN =
+        "INSERT INTO remember_me_tokens (selector, validator_hash, user_id, expires_at, rotated_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SELECT_TOKEN =
+        "SELECT selector, validator_hash, previous_validator_hash, user_id, expires_at, rotated_at " +
+        "FROM remember_me_tokens WHERE selector = ?";
+
+    // Only rotates from the validator that was checked, so two requests can't both rotate
+    private static final String ROTATE_TOKEN =
+        "UPDATE remember_me_tokens SET validator_hash = ?, previous_validator_hash = validator_hash, " +
+        "expires_at = ?, rotated_at = ? WHERE selector = ? AND validator_hash = ?";
+
+    private static final String DELETE_TOKEN =
+        "DELETE FROM remember_me_tokens WHERE selector = ?";
+
+    private static final String DELETE_TOKENS_FOR_USER =
+        "DELETE FROM remember_me_tokens WHERE user_id = ?";
+
+    private static final String DELETE_TOKENS_FOR_EMAIL =
+        "DELETE FROM remember_me_tokens WHERE user_id = (SELECT id FROM users WHERE email = ?)";
+
+    private static final String DELETE_EXPIRED_TOKENS =
+        "DELETE FROM remember_me_tokens WHERE expires_at <= ? LIMIT ?";
+
+    private final int purgeBatchSize;
+
+    // Private constructor
+    private RememberMeTokenDAO() {
+        this.purgeBatchSize = Math.max(1, AppConfig.getInt("remember.purgeBatchSize", 500));
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized RememberMeTokenDAO getInstance() {
+        if (instance == null) {
+            instance = new RememberMeTokenDAO();
+        }
+        return instance;
+    }
+
+    /**
+     * Store a new token
+     */
+    public boolean createToken(String selector, String validatorHash, int userId, Timestamp expiresAt) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT_TOKEN)) {
+
+            statement.setString(1, selector);
+            statement.setString(2, validatorHash);
+            statement.setInt(3, userId);
+            statement.setTimestamp(4, expiresAt);
+            statement.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            return statement.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOG.error("Error creating token - {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Token by selector, or null
+     */
+    public RememberMeToken getToken(String selector) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_TOKEN)) {
+
+            statement.setString(1, selector);
+            ResultSet resultSet = statement.executeQuery();
+
+            if (resultSet.next()) {
+                return new RememberMeToken(
+                    resultSet.getString("selector"),
+                    resultSet.getString("validator_hash"),
+                    resultSet.getString("previous_validator_hash"),
+                    resultSet.getInt("user_id"),
+                    resultSet.getTimestamp("expires_at"),
+                    resultSet.getTimestamp("rotated_at"));
+            }
+
+        } catch (SQLException e) {
+            LOG.error("Error reading token - {}", e.getMessage());
+        }
+
+        return null;
+    }
+
+    /**
+     * Replace the validator and extend expiry
+     * @return false if the token was rotated or removed since expectedValidatorHash was read
+     */
+    public boolean rotateToken(String selector, String expectedValidatorHash, String newValidatorHash, Timestamp expiresAt) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(ROTATE_TOKEN)) {
+
+            statement.setString(1, newValidatorHash);
+            statement.setTimestamp(2, expiresAt);
+            statement.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
+            statement.setString(4, selector);
+            statement.setString(5, expectedValidatorHash);
+            return statement.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            LOG.error("Error rotating token - {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public void deleteToken(String selector) {
+        executeDelete(DELETE_TOKEN, selector);
+    }
+
+    /**
+     * Forget every remembered login of a user (e.g. a token looks stolen)
+     */
+    public void deleteTokensForUser(int userId) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_TOKENS_FOR_USER)) {
+
+            statement.setInt(1, userId);
+            int removed = statement.executeUpdate();
+            LOG.info("Removed {} tokens for user {}", removed, userId);
+
+        } catch (SQLException e) {
+            LOG.error("Error deleting tokens for user - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Forget every remembered login of a user (e.g. after a password change)
+     */
+    public void deleteTokensForEmail(String email) {
+        executeDelete(DELETE_TOKENS_FOR_EMAIL, email);
+    }
+
+    /**
+     * Remove expired tokens, purgeBatchSize rows per statement so a large backlog
+     * never holds locks on the whole table
+     *
+     * @return number of tokens removed
+     */
+    public int purgeExpired() {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int total = 0;
+
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_EXPIRED_TOKENS)) {
+
+            statement.setTimestamp(1, now);
+            statement.setInt(2, purgeBatchSize);
+
+            int removed;
+            do {
+                removed = statement.executeUpdate();
+                total += removed;
+            } while (removed == purgeBatchSize);
+
+        } catch (SQLException e) {
+            LOG.error("Error purging tokens - {}", e.getMessage());
+        }
+
+        return total;
+    }
+
+    private void executeDelete(String sql, String value) {
+        try (Connection connection = DatabaseConnection.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+
+            statement.setString(1, value);
+            statement.executeUpdate();
+
+        } catch (SQLException e) {
+            LOG.error("Error deleting tokens - {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.pahanaedu.dao;
+
+import com.pahanaedu.models.SessionPrincipal;
+
+/**
+ * Where signed-in sessions live. Sessions are keyed by an opaque id (SessionService
+ * passes a hash of the cookie token, never the token itself) and expire after
+ * maxInactiveSeconds without use.
+ *
+ * MemorySessionStore keeps sessions on this node only; JdbcSessionStore shares them
+ * through the database so any node can serve any request without sticky sessions.
+ */
+public interface SessionStore {
+
+    /**
+     * @return false if the session could not be saved
+     */
+    boolean create(String sessionId, SessionPrincipal principal, int maxInactiveSeconds);
+
+    /**
+     * The session's principal, extending its idle timeout; null if unknown or expired
+     */
+    SessionPrincipal get(String sessionId);
+
+    /**
+     * Replace the principal of a live session, provided the stored principal still has
+     * the version the replacement was derived from (principal.getVersion() - 1)
+     *
+     * @return false if the session is gone or was updated elsewhere in the meantime
+     */
+    boolean update(String sessionId, SessionPrincipal principal);
+
+    void delete(String sessionId);
+
+    /**
+     * Remove expired sessions
+     *
+     * @return number of sessions removed
+     */
+    int purgeExpired();
+}
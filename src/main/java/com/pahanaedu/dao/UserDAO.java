@@ -7,10 +7,11 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.mindrot.jbcrypt.BCrypt;
-
 import com.pahanaedu.models.User;
+import com.pahanaedu.utils.AuthenticationBusyException;
 import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.Log;
+import com.pahanaedu.utils.PasswordHasher;
 
 /**
  * Data Access Object for User operations using Singleton Pattern
@@ -18,6 +19,7 @@ import com.pahanaedu.utils.DatabaseConnection;
  * Supports ADMIN, CUSTOMER, and STAFF roles
  */
 public class UserDAO {
+    private static final Log LOG = Log.get(UserDAO.class);
     
     // Singleton instance
     private static UserDAO instance = null;
@@ -47,6 +49,10 @@ public class UserDAO {
     private static final String UPDATE_PASSWORD = 
         "UPDATE users SET password = ? WHERE email = ?";
     
+    // Only replaces the hash that was verified, so a concurrent password change wins
+    private static final String REHASH_PASSWORD = 
+        "UPDATE users SET password = ? WHERE id = ? AND password = ?";
+    
     private static final String DELETE_USER = 
         "DELETE FROM users WHERE id = ?";
     
@@ -56,6 +62,8 @@ public class UserDAO {
     private static final String CHECK_EMAIL_EXISTS = 
         "SELECT COUNT(*) FROM users WHERE email = ?";
     
+    private final PasswordHasher passwordHasher = PasswordHasher.getInstance();
+    
     // Private constructor
     private UserDAO() {}
     
@@ -74,8 +82,12 @@ public class UserDAO {
      * Create new user
      * @param user User object with user details
      * @return true if user created successfully, false otherwise
+     * @throws AuthenticationBusyException if the password hashing pool is saturated (nothing is written)
      */
     public boolean createUser(User user) {
+        // Hash password (before taking a connection; hashing is deliberately slow)
+        String hashedPassword = hashPassword(user.getPassword());
+        
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(INSERT_USER)) {
             
@@ -84,9 +96,6 @@ public class UserDAO {
                 user.setStatus(User.STATUS_ACTIVE);
             }
             
-            // Hash password
-            String hashedPassword = hashPassword(user.getPassword());
-            
             // Set parameters
             statement.setString(1, user.getFirstName());
             statement.setString(2, user.getLastName());
@@ -99,13 +108,13 @@ public class UserDAO {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: User created successfully - " + user.getEmail() + " with role: " + user.getRole());
+                LOG.info("User created successfully - {} with role: {}", user.getEmail(), user.getRole());
+                DashboardStats.getInstance().invalidateEntityCounts();
                 return true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error creating user - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error creating user", e);
         }
         
         return false;
@@ -115,13 +124,14 @@ public class UserDAO {
      * Create admin user
      * @param user User object with user details
      * @return true if user created successfully, false otherwise
+     * @throws AuthenticationBusyException if the password hashing pool is saturated (nothing is written)
      */
     public boolean createAdminUser(User user) {
+        String hashedPassword = hashPassword(user.getPassword());
+        
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(INSERT_USER)) {
             
-            String hashedPassword = hashPassword(user.getPassword());
-            
             statement.setString(1, user.getFirstName());
             statement.setString(2, user.getLastName());
             statement.setString(3, user.getEmail());
@@ -133,13 +143,13 @@ public class UserDAO {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: Admin user created - " + user.getEmail());
+                LOG.info("Admin user created - {}", user.getEmail());
+                DashboardStats.getInstance().invalidateEntityCounts();
                 return true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error creating admin user - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error creating admin user", e);
         }
         
         return false;
@@ -149,13 +159,14 @@ public class UserDAO {
      * Create staff user
      * @param user User object with user details
      * @return true if user created successfully, false otherwise
+     * @throws AuthenticationBusyException if the password hashing pool is saturated (nothing is written)
      */
     public boolean createStaffUser(User user) {
+        String hashedPassword = hashPassword(user.getPassword());
+        
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(INSERT_USER)) {
             
-            String hashedPassword = hashPassword(user.getPassword());
-            
             statement.setString(1, user.getFirstName());
             statement.setString(2, user.getLastName());
             statement.setString(3, user.getEmail());
@@ -167,13 +178,13 @@ public class UserDAO {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: Staff user created - " + user.getEmail());
+                LOG.info("Staff user created - {}", user.getEmail());
+                DashboardStats.getInstance().invalidateEntityCounts();
                 return true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error creating staff user - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error creating staff user", e);
         }
         
         return false;
@@ -183,13 +194,14 @@ public class UserDAO {
      * Create user with specified role (Admin, Customer, or Staff)
      * @param user User object with user details
      * @return true if user created successfully, false otherwise
+     * @throws AuthenticationBusyException if the password hashing pool is saturated (nothing is written)
      */
     public boolean createUserWithRole(User user) {
+        String hashedPassword = hashPassword(user.getPassword());
+        
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(INSERT_USER)) {
             
-            String hashedPassword = hashPassword(user.getPassword());
-            
             statement.setString(1, user.getFirstName());
             statement.setString(2, user.getLastName());
             statement.setString(3, user.getEmail());
@@ -201,13 +213,13 @@ public class UserDAO {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: User created with role " + user.getRole() + " - " + user.getEmail());
+                LOG.info("User created with role {} - {}", user.getRole(), user.getEmail());
+                DashboardStats.getInstance().invalidateEntityCounts();
                 return true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error creating user with role - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error creating user with role", e);
         }
         
         return false;
@@ -220,32 +232,52 @@ public class UserDAO {
      * @return User object if valid, null otherwise
      */
     public User validateLogin(String email, String password) {
-        try (Connection connection = DatabaseConnection.getConnection();
-             PreparedStatement statement = connection.prepareStatement(SELECT_USER_BY_EMAIL)) {
-            
-            statement.setString(1, email);
-            ResultSet resultSet = statement.executeQuery();
+        User user = getUserByEmail(email);
+        
+        // The password check runs on the authentication pool, after the connection is released.
+        // Unknown emails are checked against a dummy hash so they take as long as a wrong password.
+        String storedPassword = user != null ? user.getPassword() : null;
+        if (!passwordHasher.verify(password, storedPassword)) {
+            if (user == null) {
+                LOG.debug("User not found - {}", email);
+            } else {
+                LOG.debug("Password verification failed - {}", email);
+            }
+            return null;
+        }
+        
+        if (passwordHasher.needsRehash(storedPassword)) {
+            rehashPassword(user, password);
+        }
+        
+        LOG.debug("Login successful - {} (Role: {})", email, user.getRole());
+        return user;
+    }
+    
+    /**
+     * Upgrade a stored hash to the current work factor while we have the plain password.
+     * Best effort: a failure here never fails the login.
+     */
+    private void rehashPassword(User user, String password) {
+        try {
+            String newHash = passwordHasher.hash(password);
             
-            if (resultSet.next()) {
-                String storedPassword = resultSet.getString("password");
+            try (Connection connection = DatabaseConnection.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(REHASH_PASSWORD)) {
                 
-                if (verifyPassword(password, storedPassword)) {
-                    User user = extractUserFromResultSet(resultSet);
-                    System.out.println("UserDAO: Login successful - " + email + " (Role: " + user.getRole() + ")");
-                    return user;
-                } else {
-                    System.out.println("UserDAO: Password verification failed - " + email);
+                statement.setString(1, newHash);
+                statement.setInt(2, user.getId());
+                statement.setString(3, user.getPassword());
+                
+                if (statement.executeUpdate() > 0) {
+                    user.setPassword(newHash);
+                    passwordHasher.recordRehash();
+                    LOG.info("Password rehashed at cost {} - {}", passwordHasher.getCost(), user.getEmail());
                 }
-            } else {
-                System.out.println("UserDAO: User not found - " + email);
             }
-            
-        } catch (SQLException e) {
-            System.err.println("UserDAO: Error validating login - " + e.getMessage());
-            e.printStackTrace();
+        } catch (SQLException | AuthenticationBusyException e) {
+            LOG.error("Error rehashing password - {}", e.getMessage());
         }
-        
-        return null;
     }
     
     /**
@@ -263,8 +295,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error getting user by ID - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting user by ID", e);
         }
         
         return null;
@@ -285,8 +316,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error getting user by email - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting user by email", e);
         }
         
         return null;
@@ -308,8 +338,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error getting all users - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting all users", e);
         }
         
         return users;
@@ -332,8 +361,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error getting users by role - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting users by role", e);
         }
         
         return users;
@@ -356,8 +384,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error getting active users by role - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting active users by role", e);
         }
         
         return users;
@@ -408,52 +435,59 @@ public class UserDAO {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: User updated successfully - " + user.getEmail());
+                LOG.info("User updated successfully - {}", user.getEmail());
+                DashboardStats.getInstance().invalidateEntityCounts();
                 return true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error updating user - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error updating user", e);
         }
         
         return false;
     }
     
     /**
-     * Update user password
+     * Update user password (and sign out every "remember me" browser of the user)
+     * @throws AuthenticationBusyException if the password hashing pool is saturated (nothing is written)
      */
     public boolean updatePassword(String email, String newPassword) {
+        String hashedPassword = hashPassword(newPassword);
+        boolean updated = false;
+        
         try (Connection connection = DatabaseConnection.getConnection();
              PreparedStatement statement = connection.prepareStatement(UPDATE_PASSWORD)) {
             
-            String hashedPassword = hashPassword(newPassword);
             statement.setString(1, hashedPassword);
             statement.setString(2, email);
             
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: Password updated successfully - " + email);
-                return true;
+                LOG.info("Password updated successfully - {}", email);
+                updated = true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error updating password - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error updating password", e);
         }
         
-        return false;
+        if (updated) {
+            RememberMeTokenDAO.getInstance().deleteTokensForEmail(email);
+        }
+        
+        return updated;
     }
     
     /**
      * Simple password reset - generates temporary password
+     * @throws AuthenticationBusyException if the password hashing pool is saturated (nothing is written)
      */
     public String resetPassword(String email) {
         String tempPassword = generateTempPassword();
         
         if (updatePassword(email, tempPassword)) {
-            System.out.println("UserDAO: Password reset successful for - " + email);
+            LOG.info("Password reset successful for - {}", email);
             return tempPassword;
         }
         
@@ -471,13 +505,13 @@ public class UserDAO {
             int rowsAffected = statement.executeUpdate();
             
             if (rowsAffected > 0) {
-                System.out.println("UserDAO: User deleted successfully - ID: " + id);
+                LOG.info("User deleted successfully - ID: {}", id);
+                DashboardStats.getInstance().invalidateEntityCounts();
                 return true;
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error deleting user - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error deleting user", e);
         }
         
         return false;
@@ -498,8 +532,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error checking email existence - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error checking email existence", e);
         }
         
         return false;
@@ -520,8 +553,7 @@ public class UserDAO {
             }
             
         } catch (SQLException e) {
-            System.err.println("UserDAO: Error getting user count by role - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting user count by role", e);
         }
         
         return 0;
@@ -567,22 +599,10 @@ public class UserDAO {
     }
     
     /**
-     * Hash password using BCrypt
+     * Hash password using BCrypt (on the authentication pool, at the calibrated cost)
      */
     private String hashPassword(String plainTextPassword) {
-        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(12));
-    }
-    
-    /**
-     * Verify password against stored hash
-     */
-    private boolean verifyPassword(String plainTextPassword, String hashedPassword) {
-        try {
-            return BCrypt.checkpw(plainTextPassword, hashedPassword);
-        } catch (Exception e) {
-            System.err.println("UserDAO: Error verifying password - " + e.getMessage());
-            return false;
-        }
+        return passwordHasher.hash(plainTextPassword);
     }
     
     /**
@@ -0,0 +1,74 @@
+package com.pahanaedu.filters;
+
+import java.io.IOException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.RequestMetrics;
+
+/**
+ * Times every controller request and records it in RequestMetrics under
+ * controller ("admin"), path ("products"), action parameter and method.
+ *
+ * The action parameter is read after the controller has run: by then the controller has
+ * parsed the body (including multipart uploads) itself, so the filter never does.
+ */
+@WebFilter(urlPatterns = { "/admin/*", "/customer/*", "/staff/*", "/auth/*" },
+           dispatcherTypes = DispatcherType.REQUEST)
+public class RequestMetricsFilter implements Filter {
+
+    private final boolean enabled = AppConfig.getBoolean("metrics.enabled", true);
+    private final RequestMetrics metrics = RequestMetrics.getInstance();
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (!enabled || !(request instanceof HttpServletRequest) || !(response instanceof HttpServletResponse)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        metrics.requestStarted();
+        long started = System.nanoTime();
+        int status = HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+        try {
+            chain.doFilter(request, response);
+            status = ((HttpServletResponse) response).getStatus();
+        } finally {
+            long elapsed = System.nanoTime() - started;
+            String servletPath = httpRequest.getServletPath();
+            int slash = servletPath.indexOf('/', 1);
+            String controller = slash > 0 ? servletPath.substring(1, slash) : servletPath.substring(1);
+            String path = slash > 0 ? servletPath.substring(slash + 1) : "";
+            metrics.requestFinished(controller, path, action(httpRequest), httpRequest.getMethod(), elapsed, status);
+        }
+    }
+
+    private static String action(HttpServletRequest request) {
+        try {
+            return request.getParameter("action");
+        } catch (RuntimeException e) {
+            // Body could not be parsed; the controller has already answered
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
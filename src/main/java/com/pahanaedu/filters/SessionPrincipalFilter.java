@@ -0,0 +1,49 @@
+package com.pahanaedu.filters;
+
+import java.io.IOException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.pahanaedu.services.SessionService;
+
+/**
+ * Lets SessionService set cookies for the request (needed when a remembered login is
+ * restored), and resolves the signed-in user before a JSP renders, so pages can use
+ * ${principal} (null when nobody is signed in) instead of reading the session.
+ * Other requests only look the user up if they ask for it.
+ */
+@WebFilter(urlPatterns = "/*", dispatcherTypes = { DispatcherType.REQUEST, DispatcherType.FORWARD })
+public class SessionPrincipalFilter implements Filter {
+
+    @Override
+    public void init(FilterConfig filterConfig) throws ServletException {
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (request instanceof HttpServletRequest && response instanceof HttpServletResponse) {
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            SessionService sessionService = SessionService.getInstance();
+
+            sessionService.bindResponse(httpRequest, (HttpServletResponse) response);
+            if (httpRequest.getServletPath().endsWith(".jsp")) {
+                sessionService.getPrincipal(httpRequest);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    @Override
+    public void destroy() {
+    }
+}
@@ -0,0 +1,108 @@
+package com.pahanaedu.listeners;
+
+import java.sql.SQLException;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+import com.pahanaedu.dao.CartStore;
+import com.pahanaedu.dao.DashboardStats;
+import com.pahanaedu.dao.OrderDAO;
+import com.pahanaedu.dao.ProductDAO;
+import com.pahanaedu.services.SessionService;
+import com.pahanaedu.utils.DatabaseConnection;
+import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.ImageDerivatives;
+import com.pahanaedu.utils.ImageSweeper;
+import com.pahanaedu.utils.Log;
+import com.pahanaedu.utils.OrderNumberGenerator;
+import com.pahanaedu.utils.PasswordHasher;
+import com.pahanaedu.utils.StatementMetrics;
+import com.pahanaedu.utils.UploadSync;
+
+/**
+ * Starts and stops application-wide resources with the web application
+ */
+@WebListener
+public class ApplicationLifecycleListener implements ServletContextListener {
+    private static final Log LOG = Log.get(ApplicationLifecycleListener.class);
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        // Warm the connection pool so the first request doesn't pay for it
+        DatabaseConnection.getPool();
+
+        // Never reissue a number from before a restart, even if the clock is now behind
+        seedOrderNumbers();
+
+        // Product image store (defaults to the webapp's uploads/products directory)
+        FileUploadHandler.configure(sce.getServletContext().getRealPath(""));
+        ImageDerivatives.configure(FileUploadHandler.getStorage(), FileUploadHandler.getUploadDirectory());
+
+        // Bring in images added to the project's upload directory, off the startup thread
+        UploadSync uploadSync = UploadSync.getInstance();
+        if (uploadSync != null) {
+            uploadSync.start();
+        }
+
+        // Periodically remove images no product uses any more
+        ImageSweeper imageSweeper = ImageSweeper.getInstance();
+        if (imageSweeper != null) {
+            imageSweeper.start();
+        }
+
+        // Load the catalog cache (which also builds the search index) off the startup thread
+        Thread warmup = new Thread(() -> ProductDAO.getInstance().getAllProducts(), "catalog-warmup");
+        warmup.setDaemon(true);
+        warmup.start();
+
+        // Keep dashboard counters in line with writes made by other nodes
+        DashboardStats.getInstance().startReconciler();
+
+        // Write cart changes behind to the carts table
+        CartStore.getInstance().start();
+
+        // Drop expired sign-ins from the session store
+        SessionService.getInstance().startPurger();
+
+        // Time BCrypt on this hardware; logins use the default cost until this finishes
+        Thread calibration = new Thread(() -> PasswordHasher.getInstance().calibrate(), "bcrypt-calibration");
+        calibration.setDaemon(true);
+        calibration.start();
+
+        LOG.info("Application started");
+    }
+
+    private static void seedOrderNumbers() {
+        OrderNumberGenerator generator = OrderNumberGenerator.getInstance();
+        try {
+            generator.advancePast(OrderDAO.getInstance().getLatestOrderNumber(generator.getNumberPattern()));
+        } catch (SQLException e) {
+            LOG.error("Could not read the latest order number for node {} - order numbers may repeat "
+                    + "if the clock was set back: {}", generator.getNodeId(), e.getMessage());
+        }
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        // Before the pool goes: pending cart changes still need a connection
+        CartStore.getInstance().shutdown();
+        DashboardStats.getInstance().shutdown();
+        SessionService.getInstance().shutdown();
+        PasswordHasher.getInstance().shutdown();
+        UploadSync uploadSync = UploadSync.getInstance();
+        if (uploadSync != null) {
+            uploadSync.shutdown();
+        }
+        ImageSweeper imageSweeper = ImageSweeper.getInstance();
+        if (imageSweeper != null) {
+            imageSweeper.shutdown();
+        }
+        ImageDerivatives.getInstance().shutdown();
+        LOG.info("{}", StatementMetrics.getInstance().summary(10));
+        DatabaseConnection.shutdown();
+        LOG.info("Application stopped");
+        Log.shutdown();
+    }
+}
@@ -0,0 +1,205 @@
+package com.pahanaedu.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A shopping cart: one line per product, in the order products were first added.
+ *
+ * All methods are synchronized on the cart, so parallel AJAX calls from the cart page
+ * cannot interleave a read-check-write. Lines are stored as private copies and handed
+ * out as copies; change them through the cart, never through a returned item.
+ * The version is bumped on every change so CartStore knows which carts need writing.
+ */
+public class Cart implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final Map<Integer, CartItem> lines = new LinkedHashMap<>();
+    private long version = 0L;
+    private transient volatile long lastAccessed = System.currentTimeMillis();
+
+    public Cart() {}
+
+    public Cart(List<CartItem> items) {
+        for (CartItem item : items) {
+            lines.put(item.getProductId(), new CartItem(item));
+        }
+    }
+
+    // ==============================================================================================
+    // READS
+    // ==============================================================================================
+
+    public synchronized List<CartItem> getItems() {
+        touch();
+        return snapshot();
+    }
+
+    public synchronized CartItem getItem(int productId) {
+        touch();
+        CartItem line = lines.get(productId);
+        return line != null ? new CartItem(line) : null;
+    }
+
+    public synchronized boolean isEmpty() {
+        touch();
+        return lines.isEmpty();
+    }
+
+    public synchronized int getTotalItems() {
+        int total = 0;
+        for (CartItem line : lines.values()) {
+            total += line.getQuantity();
+        }
+        return total;
+    }
+
+    public synchronized BigDecimal getTotalAmount() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (CartItem line : lines.values()) {
+            total = total.add(line.getTotalPrice());
+        }
+        return total;
+    }
+
+    // ==============================================================================================
+    // CHANGES
+    // ==============================================================================================
+
+    /**
+     * Add an item, merging with an existing line for the same product.
+     *
+     * @return the line's new quantity, or -1 (cart unchanged) if it would exceed maxQuantity
+     */
+    public synchronized int add(CartItem item, int maxQuantity) {
+        touch();
+        CartItem line = lines.get(item.getProductId());
+        int newQuantity = (line != null ? line.getQuantity() : 0) + item.getQuantity();
+        if (newQuantity > maxQuantity) {
+            return -1;
+        }
+        if (line != null) {
+            line.setQuantity(newQuantity);
+        } else {
+            lines.put(item.getProductId(), new CartItem(item));
+        }
+        version++;
+        return newQuantity;
+    }
+
+    /**
+     * Set a line's quantity; 0 removes the line.
+     *
+     * @return false if the product is not in the cart
+     */
+    public synchronized boolean setQuantity(int productId, int quantity) {
+        touch();
+        CartItem line = lines.get(productId);
+        if (line == null) {
+            return false;
+        }
+        if (quantity <= 0) {
+            lines.remove(productId);
+        } else if (line.getQuantity() != quantity) {
+            line.setQuantity(quantity);
+        } else {
+            return true;
+        }
+        version++;
+        return true;
+    }
+
+    /**
+     * Bring a line in line with the catalog (current price, quantity capped at stock).
+     * Does nothing if the line has been removed in the meantime.
+     */
+    public synchronized void update(int productId, BigDecimal unitPrice, int quantity) {
+        CartItem line = lines.get(productId);
+        if (line == null) {
+            return;
+        }
+        boolean changed = false;
+        if (unitPrice != null && line.getUnitPrice().compareTo(unitPrice) != 0) {
+            line.setUnitPrice(unitPrice);
+            changed = true;
+        }
+        if (line.getQuantity() != quantity) {
+            line.setQuantity(quantity);
+            changed = true;
+        }
+        if (changed) {
+            version++;
+        }
+    }
+
+    public synchronized boolean remove(int productId) {
+        touch();
+        if (lines.remove(productId) == null) {
+            return false;
+        }
+        version++;
+        return true;
+    }
+
+    public synchronized void clear() {
+        touch();
+        if (!lines.isEmpty()) {
+            lines.clear();
+            version++;
+        }
+    }
+
+    /**
+     * Fold another cart (e.g. a guest cart picked up at login) into this one
+     */
+    public synchronized void merge(Cart other) {
+        List<CartItem> items = other.snapshot();
+        if (items.isEmpty()) {
+            return;
+        }
+        for (CartItem item : items) {
+            CartItem line = lines.get(item.getProductId());
+            if (line != null) {
+                line.setQuantity(line.getQuantity() + item.getQuantity());
+            } else {
+                lines.put(item.getProductId(), new CartItem(item));
+            }
+        }
+        version++;
+    }
+
+    // ==============================================================================================
+    // BOOKKEEPING (used by CartStore)
+    // ==============================================================================================
+
+    /**
+     * Copy of the lines that does not count as a use of the cart (for persisting it)
+     */
+    public synchronized List<CartItem> snapshot() {
+        List<CartItem> items = new ArrayList<>(lines.size());
+        for (CartItem line : lines.values()) {
+            items.add(new CartItem(line));
+        }
+        return items;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public long getLastAccessed() {
+        return lastAccessed;
+    }
+
+    /**
+     * Count as a use of the cart (CartStore does this when handing it out, so a cart that
+     * is about to be changed is never evicted as idle)
+     */
+    public void touch() {
+        lastAccessed = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,59 @@
+package com.pahanaedu.models;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+public class CartItem implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int productId;
+    private String productTitle;
+    private String productImage;
+    private int quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal totalPrice;
+
+    public CartItem() {
+        this.unitPrice = BigDecimal.ZERO;
+        this.totalPrice = BigDecimal.ZERO;
+    }
+
+    // Copy constructor
+    public CartItem(CartItem other) {
+        this.productId = other.productId;
+        this.productTitle = other.productTitle;
+        this.productImage = other.productImage;
+        this.quantity = other.quantity;
+        this.unitPrice = other.unitPrice;
+        this.totalPrice = other.totalPrice;
+    }
+
+    // Getters and setters
+    public int getProductId() { return productId; }
+    public void setProductId(int productId) { this.productId = productId; }
+
+    public String getProductTitle() { return productTitle; }
+    public void setProductTitle(String productTitle) { this.productTitle = productTitle; }
+
+    public String getProductImage() { return productImage; }
+    public void setProductImage(String productImage) { this.productImage = productImage; }
+
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+        updateTotalPrice();
+    }
+
+    public BigDecimal getUnitPrice() { return unitPrice; }
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+        updateTotalPrice();
+    }
+
+    public BigDecimal getTotalPrice() { return totalPrice; }
+    public void setTotalPrice(BigDecimal totalPrice) { this.totalPrice = totalPrice; }
+
+    public void updateTotalPrice() {
+        this.totalPrice = this.unitPrice.multiply(new BigDecimal(this.quantity));
+    }
+}
@@ -15,6 +15,9 @@ public class OrderItem {
     // For display purposes
     private String productTitle;
     private String productAuthor;
+    private String productImage;
+    private String productIsbn;
+    private String productDescription;
     
     // Constructors
     public OrderItem() {}
@@ -54,4 +57,13 @@ public class OrderItem {
     
     public String getProductAuthor() { return productAuthor; }
     public void setProductAuthor(String productAuthor) { this.productAuthor = productAuthor; }
+    
+    public String getProductImage() { return productImage; }
+    public void setProductImage(String productImage) { this.productImage = productImage; }
+    
+    public String getProductIsbn() { return productIsbn; }
+    public void setProductIsbn(String productIsbn) { this.productIsbn = productIsbn; }
+    
+    public String getProductDescription() { return productDescription; }
+    public void setProductDescription(String productDescription) { this.productDescription = productDescription; }
 }
\ No newline at end of file
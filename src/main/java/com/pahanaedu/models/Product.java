@@ -38,6 +38,24 @@ public class Product {
         this.status = STATUS_ACTIVE;
     }
     
+    // Copy constructor (used by the catalog cache so callers never share instances)
+    public Product(Product other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.author = other.author;
+        this.isbn = other.isbn;
+        this.categoryId = other.categoryId;
+        this.categoryName = other.categoryName;
+        this.description = other.description;
+        this.price = other.price;
+        this.offerPrice = other.offerPrice;
+        this.stockQuantity = other.stockQuantity;
+        this.imagePath = other.imagePath;
+        this.status = other.status;
+        this.createdAt = other.createdAt != null ? (Timestamp) other.createdAt.clone() : null;
+        this.updatedAt = other.updatedAt != null ? (Timestamp) other.updatedAt.clone() : null;
+    }
+    
     // Getters and Setters
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
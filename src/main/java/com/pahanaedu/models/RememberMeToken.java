@@ -0,0 +1,44 @@
+package com.pahanaedu.models;
+
+import java.sql.Timestamp;
+
+/**
+ * A stored "remember me" login: the public selector from the cookie, the SHA-256 of the
+ * secret validator, and the validator it replaced on its last rotation (accepted briefly,
+ * so requests already in flight with the old cookie are not mistaken for a stolen one).
+ */
+public class RememberMeToken {
+
+    private final String selector;
+    private final String validatorHash;
+    private final String previousValidatorHash;
+    private final int userId;
+    private final Timestamp expiresAt;
+    private final Timestamp rotatedAt;
+
+    public RememberMeToken(String selector, String validatorHash, String previousValidatorHash,
+                           int userId, Timestamp expiresAt, Timestamp rotatedAt) {
+        this.selector = selector;
+        this.validatorHash = validatorHash;
+        this.previousValidatorHash = previousValidatorHash;
+        this.userId = userId;
+        this.expiresAt = expiresAt;
+        this.rotatedAt = rotatedAt;
+    }
+
+    public String getSelector() { return selector; }
+
+    public String getValidatorHash() { return validatorHash; }
+
+    public String getPreviousValidatorHash() { return previousValidatorHash; }
+
+    public int getUserId() { return userId; }
+
+    public Timestamp getExpiresAt() { return expiresAt; }
+
+    public Timestamp getRotatedAt() { return rotatedAt; }
+
+    public boolean isExpired(long now) {
+        return expiresAt == null || expiresAt.getTime() <= now;
+    }
+}
@@ -0,0 +1,64 @@
+package com.pahanaedu.models;
+
+import java.io.Serializable;
+
+/**
+ * The signed-in user as seen by a session: just enough to authorize requests and
+ * greet the user, instead of the full User object and a dozen derived attributes.
+ *
+ * Immutable, so one instance can be shared between requests and session stores.
+ * The version starts at 1 and is bumped by every with...() copy, which lets the JDBC
+ * store reject an update based on a principal another node has already replaced.
+ */
+public final class SessionPrincipal implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int userId;
+    private final String role;
+    private final String displayName;
+    private final String email;
+    private final int version;
+
+    public SessionPrincipal(int userId, String role, String displayName, String email, int version) {
+        this.userId = userId;
+        this.role = role;
+        this.displayName = displayName;
+        this.email = email;
+        this.version = version;
+    }
+
+    public static SessionPrincipal from(User user) {
+        return new SessionPrincipal(user.getId(), user.getRole(), user.getFullName(), user.getEmail(), 1);
+    }
+
+    public int getUserId() { return userId; }
+
+    public String getRole() { return role; }
+
+    public String getDisplayName() { return displayName; }
+
+    public String getEmail() { return email; }
+
+    public int getVersion() { return version; }
+
+    public boolean isAdmin() {
+        return User.ROLE_ADMIN.equals(role);
+    }
+
+    public boolean isStaff() {
+        return User.ROLE_STAFF.equals(role);
+    }
+
+    public boolean isCustomer() {
+        return User.ROLE_CUSTOMER.equals(role);
+    }
+
+    public SessionPrincipal withDisplayName(String newDisplayName) {
+        return new SessionPrincipal(userId, role, newDisplayName, email, version + 1);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal{userId=" + userId + ", role='" + role + "', version=" + version + "}";
+    }
+}
@@ -5,8 +5,9 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.sql.Date;
-import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -14,9 +15,15 @@ import javax.servlet.http.Part;
 
 import com.pahanaedu.dao.*;
 import com.pahanaedu.models.*;
+import com.pahanaedu.utils.AuthenticationBusyException;
 import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.ImageDerivatives;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 public class AdminService {
+    private static final Log LOG = Log.get(AdminService.class);
+
     private static AdminService instance = null;
     
     private UserDAO userDAO; 
@@ -44,60 +51,21 @@ public class AdminService {
     public void handleDashboardStats(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            List<User> allUsers = userDAO.getAllUsers();
-            List<Product> allProducts = productDAO.getAllProducts();
-            List<Order> allOrders = orderDAO.getAllOrders();
-            List<Category> allCategories = categoryDAO.getAllCategories();
-            List<PromoCode> allPromoCodes = promoCodeDAO.getAllPromoCodes();
+            // Maintained incrementally and reconciled with SQL aggregates; no table scans here
+            DashboardStats.Snapshot snapshot = DashboardStats.getInstance().getSnapshot();
             
-            // Calculate statistics
-            int totalUsers = allUsers.size();
-            long totalCustomers = allUsers.stream()
-                .filter(user -> User.ROLE_CUSTOMER.equals(user.getRole()))
-                .count();
-            long totalStaff = allUsers.stream()
-                .filter(user -> "STAFF".equals(user.getRole()))
-                .count();
-            long totalAdmins = allUsers.stream()
-                .filter(user -> User.ROLE_ADMIN.equals(user.getRole()))
-                .count();
-            int totalProducts = allProducts.size();
-            long activeProducts = allProducts.stream()
-                .filter(product -> product.isActive())
-                .count();
-            int totalOrders = allOrders.size();
-            long pendingOrders = allOrders.stream()
-                .filter(order -> Order.STATUS_PENDING.equals(order.getStatus()))
-                .count();
-            int totalCategories = allCategories.size();
-            int totalPromoCodes = allPromoCodes.size();
-            
-            // Calculate today's orders
-            LocalDate today = LocalDate.now();
-            long todayOrders = allOrders.stream()
-                .filter(order -> {
-                    if (order.getCreatedAt() != null) {
-                        LocalDate orderDate = order.getCreatedAt().toLocalDateTime().toLocalDate();
-                        return orderDate.equals(today);
-                    }
-                    return false;
-                })
-                .count();
-            
-            // Calculate monthly revenue
-            LocalDate startOfMonth = today.withDayOfMonth(1);
-            BigDecimal monthlyRevenue = allOrders.stream()
-                .filter(order -> {
-                    if (order.getCreatedAt() != null && 
-                        (Order.STATUS_DELIVERED.equals(order.getStatus()) || 
-                         Order.STATUS_SHIPPED.equals(order.getStatus()))) {
-                        LocalDate orderDate = order.getCreatedAt().toLocalDateTime().toLocalDate();
-                        return !orderDate.isBefore(startOfMonth);
-                    }
-                    return false;
-                })
-                .map(order -> order.getFinalAmount())
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            long totalUsers = snapshot.getTotalUsers();
+            long totalCustomers = snapshot.getUserCount(User.ROLE_CUSTOMER);
+            long totalStaff = snapshot.getUserCount(User.ROLE_STAFF);
+            long totalAdmins = snapshot.getUserCount(User.ROLE_ADMIN);
+            long totalProducts = snapshot.getTotalProducts();
+            long activeProducts = snapshot.getActiveProducts();
+            long totalOrders = snapshot.getTotalOrders();
+            long pendingOrders = snapshot.getOrderCount(Order.STATUS_PENDING);
+            long totalCategories = snapshot.getTotalCategories();
+            long totalPromoCodes = snapshot.getTotalPromoCodes();
+            long todayOrders = snapshot.getTodayOrders();
+            BigDecimal monthlyRevenue = snapshot.getMonthlyRevenue();
             
             // Create stats JSON - Updated to include staff count
             StringBuilder stats = new StringBuilder();
@@ -119,8 +87,7 @@ public class AdminService {
             sendJsonResponse(response, stats.toString());
             
         } catch (Exception e) {
-            System.err.println("Error getting dashboard stats: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error getting dashboard stats", e);
             sendErrorResponse(response, "Error loading dashboard statistics");
         }
     }
@@ -151,8 +118,7 @@ public class AdminService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("Error in user management: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in user management", e);
             sendErrorResponse(response, "User management error");
         }
     }
@@ -160,30 +126,24 @@ public class AdminService {
     private void handleListUsers(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         List<User> users = userDAO.getAllUsers();
-        sendJsonResponse(response, serializeUsers(users));
+        sendJsonResponse(response, json -> writeUsers(json, users));
     }
     
-    private String serializeUsers(List<User> users) {
-        StringBuilder json = new StringBuilder();
-        json.append("[");
-        
-        for (int i = 0; i < users.size(); i++) {
-            if (i > 0) json.append(",");
-            User user = users.get(i);
-            json.append("{");
-            json.append("\"id\": ").append(user.getId()).append(",");
-            json.append("\"firstName\": \"").append(escapeJsonString(user.getFirstName())).append("\",");
-            json.append("\"lastName\": \"").append(escapeJsonString(user.getLastName())).append("\",");
-            json.append("\"email\": \"").append(escapeJsonString(user.getEmail())).append("\",");
-            json.append("\"phone\": \"").append(escapeJsonString(user.getPhone())).append("\",");
-            json.append("\"role\": \"").append(escapeJsonString(user.getRole())).append("\",");
-            json.append("\"status\": \"").append(escapeJsonString(user.getStatus())).append("\",");
-            json.append("\"createdAt\": \"").append(user.getCreatedAt()).append("\"");
-            json.append("}");
+    private void writeUsers(JsonWriter json, List<User> users) throws IOException {
+        json.beginArray();
+        for (User user : users) {
+            json.beginObject()
+                .field("id", user.getId())
+                .field("firstName", user.getFirstName())
+                .field("lastName", user.getLastName())
+                .field("email", user.getEmail())
+                .field("phone", user.getPhone())
+                .field("role", user.getRole())
+                .field("status", user.getStatus())
+                .field("createdAt", user.getCreatedAt())
+                .endObject();
         }
-        
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
     // Category Management
@@ -209,8 +169,7 @@ public class AdminService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("Error in category management: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in category management", e);
             sendErrorResponse(response, "Category management error");
         }
     }
@@ -237,9 +196,9 @@ public class AdminService {
             
             json.append("{");
             json.append("\"id\": ").append(category.getId()).append(",");
-            json.append("\"name\": \"").append(escapeJsonString(category.getName())).append("\",");
-            json.append("\"description\": \"").append(escapeJsonString(category.getDescription())).append("\",");
-            json.append("\"status\": \"").append(escapeJsonString(category.getStatus())).append("\",");
+            json.append("\"name\": \"").append(JsonWriter.escape(category.getName())).append("\",");
+            json.append("\"description\": \"").append(JsonWriter.escape(category.getDescription())).append("\",");
+            json.append("\"status\": \"").append(JsonWriter.escape(category.getStatus())).append("\",");
             json.append("\"productCount\": ").append(productCount).append(",");
             json.append("\"createdAt\": \"").append(category.getCreatedAt()).append("\"");
             json.append("}");
@@ -271,48 +230,57 @@ public class AdminService {
                 case "delete":
                     handleDeleteProduct(request, response);
                     break;
+                case "rebuild-search-index":
+                    handleRebuildSearchIndex(request, response);
+                    break;
                 default:
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("Error in product management: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in product management", e);
             sendErrorResponse(response, "Product management error");
         }
     }
     
+    private void handleRebuildSearchIndex(HttpServletRequest request, HttpServletResponse response) 
+            throws IOException {
+        int indexed = productDAO.rebuildSearchIndex();
+        if (indexed >= 0) {
+            sendBooleanResponse(response, true, "Search index rebuilt with " + indexed + " products");
+        } else {
+            sendBooleanResponse(response, false, "Failed to rebuild search index");
+        }
+    }
+    
     private void handleListProducts(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         List<Product> products = productDAO.getAllProducts();
-        sendJsonResponse(response, serializeProducts(products));
+        sendJsonResponse(response, json -> writeProducts(json, products));
     }
     
-    private String serializeProducts(List<Product> products) {
-        StringBuilder json = new StringBuilder();
-        json.append("[");
-        
-        for (int i = 0; i < products.size(); i++) {
-            if (i > 0) json.append(",");
-            Product product = products.get(i);
-            json.append("{");
-            json.append("\"id\": ").append(product.getId()).append(",");
-            json.append("\"title\": \"").append(escapeJsonString(product.getTitle())).append("\",");
-            json.append("\"author\": \"").append(escapeJsonString(product.getAuthor())).append("\",");
-            json.append("\"isbn\": \"").append(escapeJsonString(product.getIsbn())).append("\",");
-            json.append("\"categoryId\": ").append(product.getCategoryId()).append(",");
-            json.append("\"categoryName\": \"").append(escapeJsonString(product.getCategoryName())).append("\",");
-            json.append("\"description\": \"").append(escapeJsonString(product.getDescription())).append("\",");
-            json.append("\"price\": ").append(product.getPrice()).append(",");
-            json.append("\"offerPrice\": ").append(product.getOfferPrice() != null ? product.getOfferPrice() : "null").append(",");
-            json.append("\"stockQuantity\": ").append(product.getStockQuantity()).append(",");
-            json.append("\"imagePath\": \"").append(escapeJsonString(product.getImagePath())).append("\",");
-            json.append("\"status\": \"").append(escapeJsonString(product.getStatus())).append("\",");
-            json.append("\"createdAt\": \"").append(product.getCreatedAt()).append("\"");
-            json.append("}");
+    private void writeProducts(JsonWriter json, List<Product> products) throws IOException {
+        json.beginArray();
+        for (Product product : products) {
+            json.beginObject()
+                .field("id", product.getId())
+                .field("title", product.getTitle())
+                .field("author", product.getAuthor())
+                .field("isbn", product.getIsbn())
+                .field("categoryId", product.getCategoryId())
+                .field("categoryName", product.getCategoryName())
+                .field("description", product.getDescription())
+                .field("price", product.getPrice())
+                .field("offerPrice", product.getOfferPrice())
+                .field("stockQuantity", product.getStockQuantity())
+                .field("imagePath", product.getImagePath())
+                .field("thumbPath", ImageDerivatives.pathFor(product.getImagePath(), ImageDerivatives.Size.THUMB))
+                .field("gridPath", ImageDerivatives.pathFor(product.getImagePath(), ImageDerivatives.Size.GRID))
+                .field("detailPath", ImageDerivatives.pathFor(product.getImagePath(), ImageDerivatives.Size.DETAIL))
+                .field("status", product.getStatus())
+                .field("createdAt", product.getCreatedAt())
+                .endObject();
         }
-        
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
     // නව Product Create - Image Upload Support සමඟ
@@ -340,7 +308,7 @@ public class AdminService {
             String uploadedImagePath = (String) request.getAttribute("uploadedImagePath");
             if (uploadedImagePath != null && !uploadedImagePath.trim().isEmpty()) {
                 imagePath = uploadedImagePath;
-                System.out.println("AdminService: Using uploaded image path - " + imagePath);
+                LOG.debug("Using uploaded image path - {}", imagePath);
             }
             
             // Create product object
@@ -353,19 +321,18 @@ public class AdminService {
             boolean success = productDAO.createProduct(product);
             
             if (success) {
-                System.out.println("AdminService: Product created successfully with image: " + imagePath);
+                LOG.info("Product created successfully with image: {}", imagePath);
                 sendBooleanResponse(response, true, "Product created successfully");
             } else {
-                System.err.println("AdminService: Failed to create product in database");
+                LOG.error("Failed to create product in database");
                 sendBooleanResponse(response, false, "Failed to create product");
             }
             
         } catch (NumberFormatException e) {
-            System.err.println("AdminService: Invalid number format in product data - " + e.getMessage());
+            LOG.error("Invalid number format in product data - {}", e.getMessage());
             sendErrorResponse(response, "Invalid number format in product data");
         } catch (Exception e) {
-            System.err.println("AdminService: Error creating product - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error creating product", e);
             sendErrorResponse(response, "Error creating product: " + e.getMessage());
         }
     }
@@ -382,7 +349,6 @@ public class AdminService {
                 return;
             }
             
-            // Store old image path for potential deletion
             String oldImagePath = existingProduct.getImagePath();
             
             // Extract form data
@@ -405,20 +371,7 @@ public class AdminService {
             if (uploadedImagePath != null && !uploadedImagePath.trim().isEmpty()) {
                 // New image uploaded via FileUploadHandler
                 imagePath = uploadedImagePath;
-                System.out.println("AdminService: Using new uploaded image via FileUploadHandler - " + imagePath);
-                
-                // Delete old image if it exists and is different from new one
-                if (oldImagePath != null && !oldImagePath.equals(imagePath)) {
-                    try {
-                        String webAppPath = request.getServletContext().getRealPath("");
-                        boolean deleted = FileUploadHandler.deleteProductImage(oldImagePath, webAppPath);
-                        if (deleted) {
-                            System.out.println("AdminService: Deleted old image via FileUploadHandler - " + oldImagePath);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("AdminService: Warning - Could not delete old image: " + e.getMessage());
-                    }
-                }
+                LOG.debug("Using new uploaded image via FileUploadHandler - {}", imagePath);
             } else {
                 // No new image uploaded, check if existing path is provided
                 String existingImagePath = getParameterValue(request, "imagePath");
@@ -443,19 +396,20 @@ public class AdminService {
             boolean success = productDAO.updateProduct(existingProduct);
             
             if (success) {
-                System.out.println("AdminService: Product updated successfully with image: " + imagePath);
+                LOG.info("Product updated successfully with image: {}", imagePath);
+                
+                // A replaced image is left to ImageSweeper, which removes it once no product refers to it
                 sendBooleanResponse(response, true, "Product updated successfully");
             } else {
-                System.err.println("AdminService: Failed to update product in database");
+                LOG.error("Failed to update product in database");
                 sendBooleanResponse(response, false, "Failed to update product");
             }
             
         } catch (NumberFormatException e) {
-            System.err.println("AdminService: Invalid number format in product data - " + e.getMessage());
+            LOG.error("Invalid number format in product data - {}", e.getMessage());
             sendErrorResponse(response, "Invalid number format in product data");
         } catch (Exception e) {
-            System.err.println("AdminService: Error updating product - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error updating product", e);
             sendErrorResponse(response, "Error updating product: " + e.getMessage());
         }
     }
@@ -472,28 +426,12 @@ public class AdminService {
                 return;
             }
             
-            // Store image path for deletion
-            String imagePath = product.getImagePath();
-            
-            // Delete from database first
             boolean success = productDAO.deleteProduct(id);
             
             if (success) {
-                // Delete associated image file using FileUploadHandler if exists
-                if (imagePath != null && !imagePath.trim().isEmpty()) {
-                    try {
-                        String webAppPath = request.getServletContext().getRealPath("");
-                        boolean imageDeleted = FileUploadHandler.deleteProductImage(imagePath, webAppPath);
-                        
-                        if (imageDeleted) {
-                            System.out.println("AdminService: Product and image deleted successfully via FileUploadHandler - " + imagePath);
-                        } else {
-                            System.out.println("AdminService: Product deleted but image deletion failed via FileUploadHandler - " + imagePath);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("AdminService: Warning - Product deleted but could not delete image: " + e.getMessage());
-                    }
-                }
+                // The image is left to ImageSweeper: another product, or an upload of the same
+                // picture in flight, may still refer to it
+                LOG.info("Product deleted - {}", id);
                 
                 sendBooleanResponse(response, true, "Product deleted successfully");
             } else {
@@ -501,11 +439,10 @@ public class AdminService {
             }
             
         } catch (NumberFormatException e) {
-            System.err.println("AdminService: Invalid product ID - " + e.getMessage());
+            LOG.error("Invalid product ID - {}", e.getMessage());
             sendErrorResponse(response, "Invalid product ID");
         } catch (Exception e) {
-            System.err.println("AdminService: Error deleting product - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error deleting product", e);
             sendErrorResponse(response, "Error deleting product: " + e.getMessage());
         }
     }
@@ -542,7 +479,7 @@ public class AdminService {
             throws IOException {
         String keyword = request.getParameter("keyword");
         List<Product> products = productDAO.searchProducts(keyword);
-        sendJsonResponse(response, serializeProducts(products));
+        sendJsonResponse(response, json -> writeProducts(json, products));
     }
     
     // Promo Code Management
@@ -568,8 +505,7 @@ public class AdminService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("Error in promo code management: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in promo code management", e);
             sendErrorResponse(response, "Promo code management error");
         }
     }
@@ -589,14 +525,14 @@ public class AdminService {
             PromoCode promo = promoCodes.get(i);
             json.append("{");
             json.append("\"id\": ").append(promo.getId()).append(",");
-            json.append("\"code\": \"").append(escapeJsonString(promo.getCode())).append("\",");
-            json.append("\"description\": \"").append(escapeJsonString(promo.getDescription())).append("\",");
-            json.append("\"discountType\": \"").append(escapeJsonString(promo.getDiscountType())).append("\",");
+            json.append("\"code\": \"").append(JsonWriter.escape(promo.getCode())).append("\",");
+            json.append("\"description\": \"").append(JsonWriter.escape(promo.getDescription())).append("\",");
+            json.append("\"discountType\": \"").append(JsonWriter.escape(promo.getDiscountType())).append("\",");
             json.append("\"discountValue\": ").append(promo.getDiscountValue()).append(",");
             json.append("\"usedCount\": ").append(promo.getUsedCount()).append(",");
             json.append("\"startDate\": \"").append(promo.getStartDate()).append("\",");
             json.append("\"endDate\": \"").append(promo.getEndDate()).append("\",");
-            json.append("\"status\": \"").append(escapeJsonString(promo.getStatus())).append("\",");
+            json.append("\"status\": \"").append(JsonWriter.escape(promo.getStatus())).append("\",");
             json.append("\"createdAt\": \"").append(promo.getCreatedAt()).append("\"");
             json.append("}");
         }
@@ -631,8 +567,7 @@ public class AdminService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("Error in order management: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error in order management", e);
             sendErrorResponse(response, "Order management error");
         }
     }
@@ -640,41 +575,39 @@ public class AdminService {
     private void handleListOrders(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         List<Order> orders = orderDAO.getAllOrders();
-        sendJsonResponse(response, serializeOrders(orders));
+        sendJsonResponse(response, json -> writeOrders(json, orders));
     }
     
-    private String serializeOrders(List<Order> orders) {
-        StringBuilder json = new StringBuilder();
-        json.append("[");
+    private void writeOrders(JsonWriter json, List<Order> orders) throws IOException {
+        // Item counts for the whole list in one grouped query
+        List<Integer> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getId());
+        }
+        Map<Integer, Integer> itemCounts = orderDAO.getItemCountsForOrders(orderIds);
         
-        for (int i = 0; i < orders.size(); i++) {
-            if (i > 0) json.append(",");
-            Order order = orders.get(i);
-            
-            // Count items in order
-            List<OrderItem> items = orderDAO.getOrderItems(order.getId());
-            int itemCount = items.size();
+        json.beginArray();
+        for (Order order : orders) {
+            Integer itemCount = itemCounts.get(order.getId());
             
-            json.append("{");
-            json.append("\"id\": ").append(order.getId()).append(",");
-            json.append("\"orderNumber\": \"").append(escapeJsonString(order.getOrderNumber())).append("\",");
-            json.append("\"customerName\": \"").append(escapeJsonString(order.getCustomerName())).append("\",");
-            json.append("\"customerEmail\": \"").append(escapeJsonString(order.getCustomerEmail())).append("\",");
-            json.append("\"customerPhone\": \"").append(escapeJsonString(order.getCustomerPhone())).append("\",");
-            json.append("\"userName\": \"").append(escapeJsonString(order.getUserName())).append("\",");
-            json.append("\"totalAmount\": ").append(order.getTotalAmount()).append(",");
-            json.append("\"discountAmount\": ").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "null").append(",");
-            json.append("\"finalAmount\": ").append(order.getFinalAmount()).append(",");
-            json.append("\"status\": \"").append(escapeJsonString(order.getStatus())).append("\",");
-            json.append("\"itemCount\": ").append(itemCount).append(",");
-            json.append("\"promoCode\": \"").append(escapeJsonString(order.getPromoCode())).append("\",");
-            json.append("\"shippingAddress\": \"").append(escapeJsonString(order.getShippingAddress())).append("\",");
-            json.append("\"createdAt\": \"").append(order.getCreatedAt()).append("\"");
-            json.append("}");
+            json.beginObject()
+                .field("id", order.getId())
+                .field("orderNumber", order.getOrderNumber())
+                .field("customerName", order.getCustomerName())
+                .field("customerEmail", order.getCustomerEmail())
+                .field("customerPhone", order.getCustomerPhone())
+                .field("userName", order.getUserName())
+                .field("totalAmount", order.getTotalAmount())
+                .field("discountAmount", order.getDiscountAmount())
+                .field("finalAmount", order.getFinalAmount())
+                .field("status", order.getStatus())
+                .field("itemCount", itemCount != null ? itemCount : 0)
+                .field("promoCode", order.getPromoCode())
+                .field("shippingAddress", order.getShippingAddress())
+                .field("createdAt", order.getCreatedAt())
+                .endObject();
         }
-        
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
     private void handleViewOrder(HttpServletRequest request, HttpServletResponse response) 
@@ -697,17 +630,17 @@ public class AdminService {
         StringBuilder json = new StringBuilder();
         json.append("{");
         json.append("\"id\": ").append(order.getId()).append(",");
-        json.append("\"orderNumber\": \"").append(escapeJsonString(order.getOrderNumber())).append("\",");
-        json.append("\"customerName\": \"").append(escapeJsonString(order.getCustomerName())).append("\",");
-        json.append("\"customerEmail\": \"").append(escapeJsonString(order.getCustomerEmail())).append("\",");
-        json.append("\"customerPhone\": \"").append(escapeJsonString(order.getCustomerPhone())).append("\",");
-        json.append("\"userName\": \"").append(escapeJsonString(order.getUserName())).append("\",");
+        json.append("\"orderNumber\": \"").append(JsonWriter.escape(order.getOrderNumber())).append("\",");
+        json.append("\"customerName\": \"").append(JsonWriter.escape(order.getCustomerName())).append("\",");
+        json.append("\"customerEmail\": \"").append(JsonWriter.escape(order.getCustomerEmail())).append("\",");
+        json.append("\"customerPhone\": \"").append(JsonWriter.escape(order.getCustomerPhone())).append("\",");
+        json.append("\"userName\": \"").append(JsonWriter.escape(order.getUserName())).append("\",");
         json.append("\"totalAmount\": ").append(order.getTotalAmount()).append(",");
         json.append("\"discountAmount\": ").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "null").append(",");
         json.append("\"finalAmount\": ").append(order.getFinalAmount()).append(",");
-        json.append("\"status\": \"").append(escapeJsonString(order.getStatus())).append("\",");
-        json.append("\"promoCode\": \"").append(escapeJsonString(order.getPromoCode())).append("\",");
-        json.append("\"shippingAddress\": \"").append(escapeJsonString(order.getShippingAddress())).append("\",");
+        json.append("\"status\": \"").append(JsonWriter.escape(order.getStatus())).append("\",");
+        json.append("\"promoCode\": \"").append(JsonWriter.escape(order.getPromoCode())).append("\",");
+        json.append("\"shippingAddress\": \"").append(JsonWriter.escape(order.getShippingAddress())).append("\",");
         json.append("\"createdAt\": \"").append(order.getCreatedAt()).append("\",");
         
         // Serialize order items
@@ -720,8 +653,8 @@ public class AdminService {
                 json.append("{");
                 json.append("\"id\": ").append(item.getId()).append(",");
                 json.append("\"productId\": ").append(item.getProductId()).append(",");
-                json.append("\"productTitle\": \"").append(escapeJsonString(item.getProductTitle())).append("\",");
-                json.append("\"productAuthor\": \"").append(escapeJsonString(item.getProductAuthor())).append("\",");
+                json.append("\"productTitle\": \"").append(JsonWriter.escape(item.getProductTitle())).append("\",");
+                json.append("\"productAuthor\": \"").append(JsonWriter.escape(item.getProductAuthor())).append("\",");
                 json.append("\"quantity\": ").append(item.getQuantity()).append(",");
                 json.append("\"unitPrice\": ").append(item.getUnitPrice()).append(",");
                 json.append("\"totalPrice\": ").append(item.getTotalPrice());
@@ -767,7 +700,14 @@ public class AdminService {
         User user = new User(firstName, lastName, email, password, phone, role);
         user.setStatus("active");
         
-        boolean success = userDAO.createUser(user);
+        boolean success;
+        try {
+            success = userDAO.createUser(user);
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response);
+            return;
+        }
         sendBooleanResponse(response, success, 
             success ? "User created successfully" : "Failed to create user");
     }
@@ -959,7 +899,7 @@ public class AdminService {
             throws IOException {
         String keyword = request.getParameter("keyword");
         List<Order> orders = orderDAO.searchOrders(keyword);
-        sendJsonResponse(response, serializeOrders(orders));
+        sendJsonResponse(response, json -> writeOrders(json, orders));
     }
     
     private void handleUpdateOrderStatus(HttpServletRequest request, HttpServletResponse response) 
@@ -1139,6 +1079,19 @@ public class AdminService {
         out.flush();
     }
     
+    /**
+     * Stream the JSON straight to the response instead of building it in memory first
+     */
+    private void sendJsonResponse(HttpServletResponse response, JsonWriter.Body body) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        
+        JsonWriter json = new JsonWriter(response.getWriter());
+        body.write(json);
+        json.flush();
+    }
+    
     private void sendBooleanResponse(HttpServletResponse response, boolean success, String message) 
             throws IOException {
         response.setContentType("application/json");
@@ -1147,7 +1100,7 @@ public class AdminService {
         StringBuilder json = new StringBuilder();
         json.append("{");
         json.append("\"success\": ").append(success).append(",");
-        json.append("\"message\": \"").append(escapeJsonString(message)).append("\"");
+        json.append("\"message\": \"").append(JsonWriter.escape(message)).append("\"");
         json.append("}");
         
         PrintWriter out = response.getWriter();
@@ -1156,7 +1109,19 @@ public class AdminService {
     }
     
     private void sendErrorResponse(HttpServletResponse response, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        sendErrorResponse(response, message, HttpServletResponse.SC_BAD_REQUEST);
+    }
+    
+    /**
+     * The password hashing pool is saturated: ask the client to come back shortly
+     */
+    private void sendBusyResponse(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", "5");
+        sendErrorResponse(response, "The server is busy right now. Please try again in a few seconds.", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+    
+    private void sendErrorResponse(HttpServletResponse response, String message, int status) throws IOException {
+        response.setStatus(status);
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
@@ -1164,7 +1129,7 @@ public class AdminService {
         json.append("{");
         json.append("\"success\": false,");
         json.append("\"error\": true,");
-        json.append("\"message\": \"").append(escapeJsonString(message)).append("\"");
+        json.append("\"message\": \"").append(JsonWriter.escape(message)).append("\"");
         json.append("}");
         
         PrintWriter out = response.getWriter();
@@ -1172,17 +1137,6 @@ public class AdminService {
         out.flush();
     }
     
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t")
-                 .replace("\b", "\\b")
-                 .replace("\f", "\\f");
-    }
-    
     private String escapeHtml(String str) {
         if (str == null) return "";
         return str.replace("&", "&amp;")
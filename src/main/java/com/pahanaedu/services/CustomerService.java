@@ -5,10 +5,10 @@ import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.sql.Date;
+import java.sql.SQLException;
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -16,6 +16,11 @@ import javax.servlet.http.HttpSession;
 
 import com.pahanaedu.dao.*;
 import com.pahanaedu.models.*;
+import com.pahanaedu.utils.AuthenticationBusyException;
+import com.pahanaedu.utils.Log;
+import com.pahanaedu.utils.OrderNumberGenerator;
+import com.pahanaedu.utils.ImageDerivatives;
+import com.pahanaedu.utils.JsonWriter;
 
 /**
  * Customer Service for Customer Portal Operations
@@ -23,6 +28,8 @@ import com.pahanaedu.models.*;
  * Enhanced with promo code support and comprehensive order management
  */
 public class CustomerService {
+    private static final Log LOG = Log.get(CustomerService.class);
+
     private static CustomerService instance = null;
     
     private ProductDAO productDAO;
@@ -30,6 +37,7 @@ public class CustomerService {
     private OrderDAO orderDAO;
     private UserDAO userDAO;
     private PromoCodeDAO promoCodeDAO;
+    private CartStore cartStore;
     
     private CustomerService() {
         productDAO = ProductDAO.getInstance();
@@ -37,6 +45,7 @@ public class CustomerService {
         orderDAO = OrderDAO.getInstance();
         userDAO = UserDAO.getInstance();
         promoCodeDAO = PromoCodeDAO.getInstance();
+        cartStore = CartStore.getInstance();
     }
     
     public static synchronized CustomerService getInstance() {
@@ -69,7 +78,7 @@ public class CustomerService {
                     sendErrorResponse(response, "Invalid dashboard action");
             }
         } catch (Exception e) {
-            System.err.println("CustomerService: Dashboard data error - " + e.getMessage());
+            LOG.error("Dashboard data error - {}", e.getMessage());
             sendErrorResponse(response, "Error loading dashboard data");
         }
     }
@@ -110,7 +119,7 @@ public class CustomerService {
             sendJsonResponse(response, stats.toString());
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting customer stats - " + e.getMessage());
+            LOG.error("Error getting customer stats - {}", e.getMessage());
             sendErrorResponse(response, "Error loading customer statistics");
         }
     }
@@ -127,10 +136,10 @@ public class CustomerService {
                 .limit(10)
                 .collect(java.util.stream.Collectors.toList());
             
-            sendJsonResponse(response, serializeProducts(recentProducts));
+            sendJsonResponse(response, json -> writeProducts(json, recentProducts));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting recent products - " + e.getMessage());
+            LOG.error("Error getting recent products - {}", e.getMessage());
             sendErrorResponse(response, "Error loading recent products");
         }
     }
@@ -149,10 +158,10 @@ public class CustomerService {
                 .limit(8)
                 .collect(java.util.stream.Collectors.toList());
             
-            sendJsonResponse(response, serializeProducts(featuredProducts));
+            sendJsonResponse(response, json -> writeProducts(json, featuredProducts));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting featured products - " + e.getMessage());
+            LOG.error("Error getting featured products - {}", e.getMessage());
             sendErrorResponse(response, "Error loading featured products");
         }
     }
@@ -161,10 +170,10 @@ public class CustomerService {
             throws IOException {
         try {
             List<Category> categories = categoryDAO.getActiveCategories();
-            sendJsonResponse(response, serializeCategories(categories));
+            sendJsonResponse(response, json -> writeCategories(json, categories));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting categories - " + e.getMessage());
+            LOG.error("Error getting categories - {}", e.getMessage());
             sendErrorResponse(response, "Error loading categories");
         }
     }
@@ -192,13 +201,19 @@ public class CustomerService {
                     sendErrorResponse(response, "Invalid product action");
             }
         } catch (Exception e) {
-            System.err.println("CustomerService: Product operations error - " + e.getMessage());
+            LOG.error("Product operations error - {}", e.getMessage());
             sendErrorResponse(response, "Error processing product operation");
         }
     }
     
     private void handleProductsList(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
+        // Paged clients (limit/cursor) get the same keyset pagination as the filter action
+        if (request.getParameter("limit") != null || request.getParameter("cursor") != null) {
+            handleProductsFilter(request, response);
+            return;
+        }
+        
         try {
             List<Product> allProducts = productDAO.getAllProducts();
             
@@ -207,10 +222,10 @@ public class CustomerService {
                 .filter(p -> "active".equals(p.getStatus()))
                 .collect(java.util.stream.Collectors.toList());
             
-            sendJsonResponse(response, serializeProducts(activeProducts));
+            sendJsonResponse(response, json -> writeProducts(json, activeProducts));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting products list - " + e.getMessage());
+            LOG.error("Error getting products list - {}", e.getMessage());
             sendErrorResponse(response, "Error loading products");
         }
     }
@@ -231,10 +246,10 @@ public class CustomerService {
                 .filter(p -> "active".equals(p.getStatus()))
                 .collect(java.util.stream.Collectors.toList());
             
-            sendJsonResponse(response, serializeProducts(activeResults));
+            sendJsonResponse(response, json -> writeProducts(json, activeResults));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error searching products - " + e.getMessage());
+            LOG.error("Error searching products - {}", e.getMessage());
             sendErrorResponse(response, "Error searching products");
         }
     }
@@ -246,76 +261,34 @@ public class CustomerService {
             String minPrice = request.getParameter("minPrice");
             String maxPrice = request.getParameter("maxPrice");
             String sortBy = request.getParameter("sortBy"); // price_asc, price_desc, name_asc, name_desc, newest
+            String limit = request.getParameter("limit");
             
-            List<Product> allProducts = productDAO.getAllProducts();
-            
-            // Filter active products with stock
-            java.util.stream.Stream<Product> stream = allProducts.stream()
-                .filter(p -> "active".equals(p.getStatus()));
+            ProductQuery query = new ProductQuery();
+            query.setSort(ProductQuery.Sort.fromCode(sortBy));
+            query.setCursor(request.getParameter("cursor"));
             
-            // Apply category filter
             if (categoryId != null && !categoryId.trim().isEmpty()) {
-                int catId = Integer.parseInt(categoryId);
-                stream = stream.filter(p -> p.getCategoryId() == catId);
+                query.setCategoryId(Integer.parseInt(categoryId.trim()));
             }
-            
-            // Apply price range filter
             if (minPrice != null && !minPrice.trim().isEmpty()) {
-                BigDecimal min = new BigDecimal(minPrice);
-                stream = stream.filter(p -> {
-                    BigDecimal price = p.getOfferPrice() != null && p.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                        ? p.getOfferPrice() : p.getPrice();
-                    return price.compareTo(min) >= 0;
-                });
+                query.setMinPrice(new BigDecimal(minPrice.trim()));
             }
-            
             if (maxPrice != null && !maxPrice.trim().isEmpty()) {
-                BigDecimal max = new BigDecimal(maxPrice);
-                stream = stream.filter(p -> {
-                    BigDecimal price = p.getOfferPrice() != null && p.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                        ? p.getOfferPrice() : p.getPrice();
-                    return price.compareTo(max) <= 0;
-                });
-            }
-            
-            // Apply sorting
-            if (sortBy != null) {
-                switch (sortBy) {
-                    case "price_asc":
-                        stream = stream.sorted((p1, p2) -> {
-                            BigDecimal price1 = p1.getOfferPrice() != null && p1.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                                ? p1.getOfferPrice() : p1.getPrice();
-                            BigDecimal price2 = p2.getOfferPrice() != null && p2.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                                ? p2.getOfferPrice() : p2.getPrice();
-                            return price1.compareTo(price2);
-                        });
-                        break;
-                    case "price_desc":
-                        stream = stream.sorted((p1, p2) -> {
-                            BigDecimal price1 = p1.getOfferPrice() != null && p1.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                                ? p1.getOfferPrice() : p1.getPrice();
-                            BigDecimal price2 = p2.getOfferPrice() != null && p2.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                                ? p2.getOfferPrice() : p2.getPrice();
-                            return price2.compareTo(price1);
-                        });
-                        break;
-                    case "name_asc":
-                        stream = stream.sorted((p1, p2) -> p1.getTitle().compareToIgnoreCase(p2.getTitle()));
-                        break;
-                    case "name_desc":
-                        stream = stream.sorted((p1, p2) -> p2.getTitle().compareToIgnoreCase(p1.getTitle()));
-                        break;
-                    case "newest":
-                        stream = stream.sorted((p1, p2) -> p2.getCreatedAt().compareTo(p1.getCreatedAt()));
-                        break;
-                }
+                query.setMaxPrice(new BigDecimal(maxPrice.trim()));
+            }
+            if (limit != null && !limit.trim().isEmpty()) {
+                query.setLimit(Integer.parseInt(limit.trim()));
             }
             
-            List<Product> filteredProducts = stream.collect(java.util.stream.Collectors.toList());
-            sendJsonResponse(response, serializeProducts(filteredProducts));
+            ProductPage page = productDAO.findProducts(query);
+            sendJsonResponse(response, json -> writeProductPage(json, page));
             
+        } catch (NumberFormatException e) {
+            sendErrorResponse(response, "Invalid filter value");
+        } catch (IllegalArgumentException e) {
+            sendErrorResponse(response, "Invalid or expired cursor");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error filtering products - " + e.getMessage());
+            LOG.error("Error filtering products - {}", e.getMessage());
             sendErrorResponse(response, "Error filtering products");
         }
     }
@@ -338,10 +311,10 @@ public class CustomerService {
                            p.getCategoryId() == categoryId)
                 .collect(java.util.stream.Collectors.toList());
             
-            sendJsonResponse(response, serializeProducts(categoryProducts));
+            sendJsonResponse(response, json -> writeProducts(json, categoryProducts));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting products by category - " + e.getMessage());
+            LOG.error("Error getting products by category - {}", e.getMessage());
             sendErrorResponse(response, "Error loading category products");
         }
     }
@@ -374,18 +347,19 @@ public class CustomerService {
                 .limit(4)
                 .collect(java.util.stream.Collectors.toList());
             
-            StringBuilder json = new StringBuilder();
-            json.append("{");
-            json.append("\"product\": ").append(serializeSingleProduct(product)).append(",");
-            json.append("\"relatedProducts\": ").append(serializeProducts(relatedProducts));
-            json.append("}");
-            
-            sendJsonResponse(response, json.toString());
+            sendJsonResponse(response, json -> {
+                json.beginObject();
+                json.name("product");
+                writeProduct(json, product);
+                json.name("relatedProducts");
+                writeProducts(json, relatedProducts);
+                json.endObject();
+            });
             
         } catch (NumberFormatException e) {
             sendErrorResponse(response, "Invalid product ID");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting product details - " + e.getMessage());
+            LOG.error("Error getting product details - {}", e.getMessage());
             sendErrorResponse(response, "Error loading product details");
         }
     }
@@ -416,12 +390,11 @@ public class CustomerService {
                     sendErrorResponse(response, "Invalid cart action");
             }
         } catch (Exception e) {
-            System.err.println("CustomerService: Cart operations error - " + e.getMessage());
+            LOG.error("Cart operations error - {}", e.getMessage());
             sendErrorResponse(response, "Error processing cart operation");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handleAddToCart(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
@@ -452,54 +425,36 @@ public class CustomerService {
                 return;
             }
             
-            HttpSession session = request.getSession(true);
-            List<CartItem> cart = (List<CartItem>) session.getAttribute("cart");
-            if (cart == null) {
-                cart = new ArrayList<>();
-                session.setAttribute("cart", cart);
-            }
+            Cart cart = getCart(request, true);
             
-            // Check if product already in cart
-            CartItem existingItem = cart.stream()
-                .filter(item -> item.getProductId() == productId)
-                .findFirst()
-                .orElse(null);
+            CartItem newItem = new CartItem();
+            newItem.setProductId(productId);
+            newItem.setProductTitle(product.getTitle());
+            newItem.setProductImage(product.getImagePath());
+            newItem.setQuantity(quantity);
             
-            if (existingItem != null) {
-                int newQuantity = existingItem.getQuantity() + quantity;
-                if (newQuantity > product.getStockQuantity()) {
-                    sendErrorResponse(response, "Total quantity exceeds available stock");
-                    return;
-                }
-                existingItem.setQuantity(newQuantity);
-                existingItem.updateTotalPrice();
-            } else {
-                CartItem newItem = new CartItem();
-                newItem.setProductId(productId);
-                newItem.setProductTitle(product.getTitle());
-                newItem.setProductImage(product.getImagePath());
-                newItem.setQuantity(quantity);
-                
-                // Use offer price if available
-                BigDecimal unitPrice = product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                    ? product.getOfferPrice() : product.getPrice();
-                newItem.setUnitPrice(unitPrice);
-                newItem.updateTotalPrice();
-                
-                cart.add(newItem);
+            // Use offer price if available
+            BigDecimal unitPrice = product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
+                ? product.getOfferPrice() : product.getPrice();
+            newItem.setUnitPrice(unitPrice);
+            
+            // Merges with an existing line for the product
+            if (cart.add(newItem, product.getStockQuantity()) < 0) {
+                sendErrorResponse(response, "Total quantity exceeds available stock");
+                return;
             }
+            cartChanged(request);
             
             sendBooleanResponse(response, true, "Product added to cart successfully");
             
         } catch (NumberFormatException e) {
             sendErrorResponse(response, "Invalid product ID or quantity");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error adding to cart - " + e.getMessage());
+            LOG.error("Error adding to cart - {}", e.getMessage());
             sendErrorResponse(response, "Error adding product to cart");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handleUpdateCart(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
@@ -519,30 +474,20 @@ public class CustomerService {
                 return;
             }
             
-            HttpSession session = request.getSession(false);
-            if (session == null) {
-                sendErrorResponse(response, "No cart session found");
-                return;
-            }
-            
-            List<CartItem> cart = (List<CartItem>) session.getAttribute("cart");
+            Cart cart = getCart(request, false);
             if (cart == null) {
-                sendErrorResponse(response, "Cart is empty");
+                sendErrorResponse(response, "No cart session found");
                 return;
             }
             
-            CartItem cartItem = cart.stream()
-                .filter(item -> item.getProductId() == productId)
-                .findFirst()
-                .orElse(null);
-            
-            if (cartItem == null) {
+            if (cart.getItem(productId) == null) {
                 sendErrorResponse(response, "Product not found in cart");
                 return;
             }
             
             if (quantity == 0) {
-                cart.removeIf(item -> item.getProductId() == productId);
+                cart.remove(productId);
+                cartChanged(request);
                 sendBooleanResponse(response, true, "Product removed from cart");
                 return;
             }
@@ -555,20 +500,22 @@ public class CustomerService {
                 return;
             }
             
-            cartItem.setQuantity(quantity);
-            cartItem.updateTotalPrice();
+            if (!cart.setQuantity(productId, quantity)) {
+                sendErrorResponse(response, "Product not found in cart");
+                return;
+            }
+            cartChanged(request);
             
             sendBooleanResponse(response, true, "Cart updated successfully");
             
         } catch (NumberFormatException e) {
             sendErrorResponse(response, "Invalid product ID or quantity");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error updating cart - " + e.getMessage());
+            LOG.error("Error updating cart - {}", e.getMessage());
             sendErrorResponse(response, "Error updating cart");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handleRemoveFromCart(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
@@ -581,21 +528,16 @@ public class CustomerService {
             
             int productId = Integer.parseInt(productIdStr);
             
-            HttpSession session = request.getSession(false);
-            if (session == null) {
-                sendErrorResponse(response, "No cart session found");
-                return;
-            }
-            
-            List<CartItem> cart = (List<CartItem>) session.getAttribute("cart");
+            Cart cart = getCart(request, false);
             if (cart == null) {
-                sendErrorResponse(response, "Cart is empty");
+                sendErrorResponse(response, "No cart session found");
                 return;
             }
             
-            boolean removed = cart.removeIf(item -> item.getProductId() == productId);
+            boolean removed = cart.remove(productId);
             
             if (removed) {
+                cartChanged(request);
                 sendBooleanResponse(response, true, "Product removed from cart");
             } else {
                 sendErrorResponse(response, "Product not found in cart");
@@ -604,58 +546,24 @@ public class CustomerService {
         } catch (NumberFormatException e) {
             sendErrorResponse(response, "Invalid product ID");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error removing from cart - " + e.getMessage());
+            LOG.error("Error removing from cart - {}", e.getMessage());
             sendErrorResponse(response, "Error removing product from cart");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handleGetCart(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            HttpSession session = request.getSession(false);
-            List<CartItem> cart = new ArrayList<>();
-            
-            if (session != null) {
-                List<CartItem> sessionCart = (List<CartItem>) session.getAttribute("cart");
-                if (sessionCart != null) {
-                    cart = sessionCart;
-                }
+            Cart cart = getCart(request, false);
+            List<CartItem> validCart = cart != null ? revalidateCart(cart, null) : new ArrayList<>();
+            if (cart != null) {
+                cartChanged(request);
             }
             
-            // Validate cart items against current product data
-            List<CartItem> validCart = new ArrayList<>();
-            for (CartItem item : cart) {
-                Product product = productDAO.getProductById(item.getProductId());
-                if (product != null && "active".equals(product.getStatus())) {
-                    // Update price if changed
-                    BigDecimal currentPrice = product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
-                        ? product.getOfferPrice() : product.getPrice();
-                    
-                    if (!item.getUnitPrice().equals(currentPrice)) {
-                        item.setUnitPrice(currentPrice);
-                        item.updateTotalPrice();
-                    }
-                    
-                    // Adjust quantity if exceeds stock
-                    if (item.getQuantity() > product.getStockQuantity()) {
-                        item.setQuantity(product.getStockQuantity());
-                        item.updateTotalPrice();
-                    }
-                    
-                    validCart.add(item);
-                }
-            }
-            
-            // Update session with valid cart
-            if (session != null) {
-                session.setAttribute("cart", validCart);
-            }
-            
-            sendJsonResponse(response, serializeCart(validCart));
+            sendJsonResponse(response, json -> writeCart(json, validCart));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting cart - " + e.getMessage());
+            LOG.error("Error getting cart - {}", e.getMessage());
             sendErrorResponse(response, "Error loading cart");
         }
     }
@@ -663,15 +571,16 @@ public class CustomerService {
     private void handleClearCart(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            HttpSession session = request.getSession(false);
-            if (session != null) {
-                session.removeAttribute("cart");
+            Cart cart = getCart(request, false);
+            if (cart != null) {
+                cart.clear();
+                cartChanged(request);
             }
             
             sendBooleanResponse(response, true, "Cart cleared successfully");
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error clearing cart - " + e.getMessage());
+            LOG.error("Error clearing cart - {}", e.getMessage());
             sendErrorResponse(response, "Error clearing cart");
         }
     }
@@ -696,86 +605,58 @@ public class CustomerService {
                     sendErrorResponse(response, "Invalid checkout action");
             }
         } catch (Exception e) {
-            System.err.println("CustomerService: Checkout operations error - " + e.getMessage());
+            LOG.error("Checkout operations error - {}", e.getMessage());
             sendErrorResponse(response, "Error processing checkout operation");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handleValidateCart(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            HttpSession session = request.getSession(false);
-            if (session == null) {
+            Cart customerCart = getCart(request, false);
+            if (customerCart == null) {
                 sendErrorResponse(response, "No cart session found");
                 return;
             }
             
-            List<CartItem> cart = (List<CartItem>) session.getAttribute("cart");
-            if (cart == null || cart.isEmpty()) {
+            if (customerCart.isEmpty()) {
                 sendErrorResponse(response, "Cart is empty");
                 return;
             }
             
             List<String> issues = new ArrayList<>();
-            List<CartItem> validCart = new ArrayList<>();
-            
-            for (CartItem item : cart) {
-                Product product = productDAO.getProductById(item.getProductId());
-                
-                if (product == null || !"active".equals(product.getStatus())) {
-                    issues.add("Product '" + item.getProductTitle() + "' is no longer available");
-                    continue;
-                }
-                
-                if (product.getStockQuantity() <= 0) {
-                    issues.add("Product '" + item.getProductTitle() + "' is out of stock");
-                    continue;
+            List<CartItem> validCart = revalidateCart(customerCart, issues);
+            cartChanged(request);
+            
+            sendJsonResponse(response, json -> {
+                json.beginObject().field("valid", issues.isEmpty());
+                json.name("issues").beginArray();
+                for (String issue : issues) {
+                    json.value(issue);
                 }
-                
-                if (item.getQuantity() > product.getStockQuantity()) {
-                    issues.add("Only " + product.getStockQuantity() + " units available for '" + item.getProductTitle() + "'");
-                    item.setQuantity(product.getStockQuantity());
-                    item.updateTotalPrice();
-                }
-                
-                validCart.add(item);
-            }
-            
-            session.setAttribute("cart", validCart);
-            
-            StringBuilder json = new StringBuilder();
-            json.append("{");
-            json.append("\"valid\": ").append(issues.isEmpty()).append(",");
-            json.append("\"issues\": [");
-            for (int i = 0; i < issues.size(); i++) {
-                if (i > 0) json.append(",");
-                json.append("\"").append(escapeJsonString(issues.get(i))).append("\"");
-            }
-            json.append("],");
-            json.append("\"cartItems\": ").append(serializeCart(validCart));
-            json.append("}");
-            
-            sendJsonResponse(response, json.toString());
+                json.endArray();
+                json.name("cartItems");
+                writeCart(json, validCart);
+                json.endObject();
+            });
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error validating cart - " + e.getMessage());
+            LOG.error("Error validating cart - {}", e.getMessage());
             sendErrorResponse(response, "Error validating cart");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handleCalculateTotal(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            HttpSession session = request.getSession(false);
-            if (session == null) {
+            Cart customerCart = getCart(request, false);
+            if (customerCart == null) {
                 sendErrorResponse(response, "No cart session found");
                 return;
             }
             
-            List<CartItem> cart = (List<CartItem>) session.getAttribute("cart");
-            if (cart == null || cart.isEmpty()) {
+            List<CartItem> cart = customerCart.getItems();
+            if (cart.isEmpty()) {
                 sendErrorResponse(response, "Cart is empty");
                 return;
             }
@@ -821,23 +702,22 @@ public class CustomerService {
                 finalTotal = BigDecimal.ZERO;
             }
             
-            StringBuilder json = new StringBuilder();
-            json.append("{");
-            json.append("\"subtotal\": ").append(subtotal.setScale(2, RoundingMode.HALF_UP)).append(",");
-            json.append("\"discountAmount\": ").append(discountAmount.setScale(2, RoundingMode.HALF_UP)).append(",");
-            json.append("\"finalTotal\": ").append(finalTotal.setScale(2, RoundingMode.HALF_UP)).append(",");
-            json.append("\"promoMessage\": \"").append(escapeJsonString(promoMessage)).append("\"");
-            json.append("}");
-            
-            sendJsonResponse(response, json.toString());
+            BigDecimal discount = discountAmount;
+            BigDecimal total = finalTotal;
+            String message = promoMessage;
+            sendJsonResponse(response, json -> json.beginObject()
+                .field("subtotal", subtotal.setScale(2, RoundingMode.HALF_UP))
+                .field("discountAmount", discount.setScale(2, RoundingMode.HALF_UP))
+                .field("finalTotal", total.setScale(2, RoundingMode.HALF_UP))
+                .field("promoMessage", message)
+                .endObject());
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error calculating total - " + e.getMessage());
+            LOG.error("Error calculating total - {}", e.getMessage());
             sendErrorResponse(response, "Error calculating total");
         }
     }
     
-    @SuppressWarnings("unchecked")
     private void handlePlaceOrder(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
@@ -847,14 +727,9 @@ public class CustomerService {
                 return;
             }
             
-            HttpSession session = request.getSession(false);
-            if (session == null) {
-                sendErrorResponse(response, "No cart session found");
-                return;
-            }
-            
-            List<CartItem> cart = (List<CartItem>) session.getAttribute("cart");
-            if (cart == null || cart.isEmpty()) {
+            Cart customerCart = getCart(request, false);
+            List<CartItem> cart = customerCart != null ? customerCart.getItems() : new ArrayList<CartItem>();
+            if (cart.isEmpty()) {
                 sendErrorResponse(response, "Cart is empty");
                 return;
             }
@@ -904,7 +779,7 @@ public class CustomerService {
             BigDecimal finalTotal = subtotal.subtract(discountAmount);
             
             // Generate order number
-            String orderNumber = generateOrderNumber();
+            String orderNumber = OrderNumberGenerator.getInstance().nextOrderNumber();
             
             // Create order
             Order order = new Order();
@@ -932,8 +807,14 @@ public class CustomerService {
             }
             order.setOrderItems(orderItems);
             
-            // Save order
-            boolean success = orderDAO.createOrderWithItems(order);
+            // Save order (stock is taken in the same transaction)
+            boolean success;
+            try {
+                success = orderDAO.createOrderWithItems(order);
+            } catch (InsufficientStockException e) {
+                sendErrorResponse(response, insufficientStockMessage(e));
+                return;
+            }
             
             if (success) {
                 // Update promo code usage
@@ -941,29 +822,21 @@ public class CustomerService {
                     promoCodeDAO.incrementUsedCount(promoCodeId);
                 }
                 
-                // Update product stock
-                for (CartItem cartItem : cart) {
-                    updateProductStock(cartItem.getProductId(), -cartItem.getQuantity());
-                }
-                
-                // Clear cart
-                session.removeAttribute("cart");
+                // Clear cart (written now rather than behind, so it can't come back after a restart)
+                customerCart.clear();
+                cartStore.flush(customerId);
                 
-                StringBuilder json = new StringBuilder();
-                json.append("{");
-                json.append("\"success\": true,");
-                json.append("\"orderNumber\": \"").append(escapeJsonString(orderNumber)).append("\",");
-                json.append("\"message\": \"Order placed successfully\"");
-                json.append("}");
-                
-                sendJsonResponse(response, json.toString());
+                sendJsonResponse(response, json -> json.beginObject()
+                    .field("success", true)
+                    .field("orderNumber", orderNumber)
+                    .field("message", "Order placed successfully")
+                    .endObject());
             } else {
                 sendErrorResponse(response, "Failed to place order");
             }
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error placing order - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error placing order", e);
             sendErrorResponse(response, "Error placing order");
         }
     }
@@ -988,7 +861,7 @@ public class CustomerService {
                     sendErrorResponse(response, "Invalid order action");
             }
         } catch (Exception e) {
-            System.err.println("CustomerService: Order operations error - " + e.getMessage());
+            LOG.error("Order operations error - {}", e.getMessage());
             sendErrorResponse(response, "Error processing order operation");
         }
     }
@@ -1003,10 +876,10 @@ public class CustomerService {
             }
             
             List<Order> orders = orderDAO.getOrdersByUserId(customerId);
-            sendJsonResponse(response, serializeOrders(orders));
+            sendJsonResponse(response, json -> writeOrders(json, orders));
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting orders list - " + e.getMessage());
+            LOG.error("Error getting orders list - {}", e.getMessage());
             sendErrorResponse(response, "Error loading orders");
         }
     }
@@ -1034,12 +907,12 @@ public class CustomerService {
                 return;
             }
             
-            sendJsonResponse(response, serializeOrderWithItems(order));
+            sendJsonResponse(response, json -> writeOrder(json, order, true));
             
         } catch (NumberFormatException e) {
             sendErrorResponse(response, "Invalid order ID");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting order details - " + e.getMessage());
+            LOG.error("Error getting order details - {}", e.getMessage());
             sendErrorResponse(response, "Error loading order details");
         }
     }
@@ -1072,15 +945,10 @@ public class CustomerService {
                 return;
             }
             
-            boolean success = orderDAO.updateOrderStatus(orderId, "cancelled");
+            // Status change and stock restore happen in one transaction
+            boolean success = orderDAO.cancelOrder(orderId);
             
             if (success) {
-                // Restore product stock
-                List<OrderItem> orderItems = orderDAO.getOrderItems(orderId);
-                for (OrderItem item : orderItems) {
-                    updateProductStock(item.getProductId(), item.getQuantity());
-                }
-                
                 sendBooleanResponse(response, true, "Order cancelled successfully");
             } else {
                 sendErrorResponse(response, "Failed to cancel order");
@@ -1089,7 +957,7 @@ public class CustomerService {
         } catch (NumberFormatException e) {
             sendErrorResponse(response, "Invalid order ID");
         } catch (Exception e) {
-            System.err.println("CustomerService: Error cancelling order - " + e.getMessage());
+            LOG.error("Error cancelling order - {}", e.getMessage());
             sendErrorResponse(response, "Error cancelling order");
         }
     }
@@ -1114,7 +982,7 @@ public class CustomerService {
                     sendErrorResponse(response, "Invalid profile action");
             }
         } catch (Exception e) {
-            System.err.println("CustomerService: Profile operations error - " + e.getMessage());
+            LOG.error("Profile operations error - {}", e.getMessage());
             sendErrorResponse(response, "Error processing profile operation");
         }
     }
@@ -1134,21 +1002,18 @@ public class CustomerService {
                 return;
             }
             
-            StringBuilder json = new StringBuilder();
-            json.append("{");
-            json.append("\"id\": ").append(customer.getId()).append(",");
-            json.append("\"firstName\": \"").append(escapeJsonString(customer.getFirstName())).append("\",");
-            json.append("\"lastName\": \"").append(escapeJsonString(customer.getLastName())).append("\",");
-            json.append("\"email\": \"").append(escapeJsonString(customer.getEmail())).append("\",");
-            json.append("\"phone\": \"").append(escapeJsonString(customer.getPhone() != null ? customer.getPhone() : "")).append("\",");
-            json.append("\"status\": \"").append(escapeJsonString(customer.getStatus())).append("\",");
-            json.append("\"createdAt\": \"").append(customer.getCreatedAt()).append("\"");
-            json.append("}");
-            
-            sendJsonResponse(response, json.toString());
+            sendJsonResponse(response, json -> json.beginObject()
+                .field("id", customer.getId())
+                .field("firstName", customer.getFirstName())
+                .field("lastName", customer.getLastName())
+                .field("email", customer.getEmail())
+                .field("phone", customer.getPhone())
+                .field("status", customer.getStatus())
+                .field("createdAt", customer.getCreatedAt())
+                .endObject());
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error getting profile - " + e.getMessage());
+            LOG.error("Error getting profile - {}", e.getMessage());
             sendErrorResponse(response, "Error loading profile");
         }
     }
@@ -1186,9 +1051,11 @@ public class CustomerService {
             
             if (success) {
                 // Update session
-                HttpSession session = request.getSession(false);
-                if (session != null) {
-                    session.setAttribute("userName", firstName + " " + lastName);
+                SessionService sessionService = SessionService.getInstance();
+                SessionPrincipal principal = sessionService.getPrincipal(request);
+                if (principal != null &&
+                        !sessionService.updatePrincipal(request, principal.withDisplayName(customer.getFullName()))) {
+                    LOG.warn("Session name not updated for customer {}", customer.getId());
                 }
                 
                 sendBooleanResponse(response, true, "Profile updated successfully");
@@ -1197,7 +1064,7 @@ public class CustomerService {
             }
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error updating profile - " + e.getMessage());
+            LOG.error("Error updating profile - {}", e.getMessage());
             sendErrorResponse(response, "Error updating profile");
         }
     }
@@ -1252,8 +1119,11 @@ public class CustomerService {
                 sendErrorResponse(response, "Failed to change password");
             }
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response);
         } catch (Exception e) {
-            System.err.println("CustomerService: Error changing password - " + e.getMessage());
+            LOG.error("Error changing password - {}", e.getMessage());
             sendErrorResponse(response, "Error changing password");
         }
     }
@@ -1295,254 +1165,285 @@ public class CustomerService {
                 return;
             }
             
-            StringBuilder json = new StringBuilder();
-            json.append("{");
-            json.append("\"valid\": true,");
-            json.append("\"code\": \"").append(escapeJsonString(promo.getCode())).append("\",");
-            json.append("\"description\": \"").append(escapeJsonString(promo.getDescription())).append("\",");
-            json.append("\"discountType\": \"").append(escapeJsonString(promo.getDiscountType())).append("\",");
-            json.append("\"discountValue\": ").append(promo.getDiscountValue()).append(",");
-            json.append("\"message\": \"Valid promo code\"");
-            json.append("}");
-            
-            sendJsonResponse(response, json.toString());
+            sendJsonResponse(response, json -> json.beginObject()
+                .field("valid", true)
+                .field("code", promo.getCode())
+                .field("description", promo.getDescription())
+                .field("discountType", promo.getDiscountType())
+                .field("discountValue", promo.getDiscountValue())
+                .field("message", "Valid promo code")
+                .endObject());
             
         } catch (Exception e) {
-            System.err.println("CustomerService: Error validating promo code - " + e.getMessage());
+            LOG.error("Error validating promo code - {}", e.getMessage());
             sendErrorResponse(response, "Error validating promo code");
         }
     }
     
     // Helper Methods
     private Integer getCustomerId(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            return (Integer) session.getAttribute("userId");
+        return SessionService.getInstance().getUserId(request);
+    }
+    
+    /**
+     * Cart for this request: the customer's stored cart once logged in, otherwise a guest
+     * cart held in the session. A guest cart is folded into the customer's cart on first
+     * use after login. Returns null if there is no cart and create is false.
+     */
+    private Cart getCart(HttpServletRequest request, boolean create) throws SQLException {
+        Integer customerId = getCustomerId(request);
+        HttpSession session = request.getSession(create);
+        
+        if (customerId != null) {
+            Cart cart = cartStore.getCart(customerId);
+            Object guestCart = null;
+            if (session != null) {
+                // Read and removed together, so concurrent requests merge the guest cart once
+                synchronized (session) {
+                    guestCart = session.getAttribute("cart");
+                    if (guestCart != null) {
+                        session.removeAttribute("cart");
+                    }
+                }
+            }
+            if (guestCart instanceof Cart) {
+                cart.merge((Cart) guestCart);
+                cartStore.onChanged(customerId);
+            }
+            return cart;
+        }
+        
+        if (session == null) {
+            return null;
+        }
+        synchronized (session) {
+            Object attribute = session.getAttribute("cart");
+            Cart cart = attribute instanceof Cart ? (Cart) attribute : null;
+            if (cart == null && create) {
+                cart = new Cart();
+                session.setAttribute("cart", cart);
+            }
+            return cart;
         }
-        return null;
     }
     
-    private boolean updateProductStock(int productId, int quantityChange) {
-        try (java.sql.Connection connection = com.pahanaedu.utils.DatabaseConnection.getConnection()) {
-            String updateSQL = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
-            java.sql.PreparedStatement stmt = connection.prepareStatement(updateSQL);
-            stmt.setInt(1, quantityChange);
-            stmt.setInt(2, productId);
-            return stmt.executeUpdate() > 0;
-        } catch (Exception e) {
-            System.err.println("Error updating product stock: " + e.getMessage());
-            return false;
+    /**
+     * Bring every cart line in line with the catalog in one pass. All products are fetched
+     * with a single multi-get (catalog cache, or one IN query), whatever the size of the cart.
+     * Unavailable and out-of-stock lines are dropped, prices are refreshed (offer price first)
+     * and quantities are capped at the stock on hand. Package-private for the tests.
+     * 
+     * @param issues receives a customer-facing message per line dropped or reduced (may be null)
+     * @return the remaining lines as they now stand
+     */
+    List<CartItem> revalidateCart(Cart cart, List<String> issues) {
+        List<CartItem> items = cart.getItems();
+        List<Integer> productIds = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        Map<Integer, Product> products = productDAO.getProductsByIds(productIds);
+        
+        List<CartItem> validCart = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            Product product = products.get(item.getProductId());
+            
+            if (product == null || !"active".equals(product.getStatus())) {
+                addIssue(issues, "Product '" + item.getProductTitle() + "' is no longer available");
+                cart.remove(item.getProductId());
+                continue;
+            }
+            
+            if (product.getStockQuantity() <= 0) {
+                addIssue(issues, "Product '" + item.getProductTitle() + "' is out of stock");
+                cart.remove(item.getProductId());
+                continue;
+            }
+            
+            BigDecimal currentPrice = product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 
+                ? product.getOfferPrice() : product.getPrice();
+            item.setUnitPrice(currentPrice);
+            
+            if (item.getQuantity() > product.getStockQuantity()) {
+                addIssue(issues, "Only " + product.getStockQuantity() + " units available for '" + item.getProductTitle() + "'");
+                item.setQuantity(product.getStockQuantity());
+            }
+            
+            item.setProductTitle(product.getTitle());
+            item.setProductImage(product.getImagePath());
+            cart.update(item.getProductId(), item.getUnitPrice(), item.getQuantity());
+            validCart.add(item);
+        }
+        return validCart;
+    }
+    
+    private static void addIssue(List<String> issues, String issue) {
+        if (issues != null) {
+            issues.add(issue);
         }
     }
     
-    private String generateOrderNumber() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        String dateStr = LocalDateTime.now().format(formatter);
-        long timestamp = System.currentTimeMillis() % 10000;
-        return "ORD" + dateStr + timestamp;
+    /**
+     * Let the cart store know the customer's cart changed (guest carts live in the session)
+     */
+    private void cartChanged(HttpServletRequest request) {
+        Integer customerId = getCustomerId(request);
+        if (customerId != null) {
+            cartStore.onChanged(customerId);
+        }
     }
     
     // Serialization Methods
-    private String serializeProducts(List<Product> products) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < products.size(); i++) {
-            if (i > 0) json.append(",");
-            json.append(serializeSingleProduct(products.get(i)));
+    /**
+     * Package-private for the benchmarks.
+     */
+    void writeProducts(JsonWriter json, List<Product> products) throws IOException {
+        json.beginArray();
+        for (Product product : products) {
+            writeProduct(json, product);
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
-    private String serializeSingleProduct(Product product) {
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"id\": ").append(product.getId()).append(",");
-        json.append("\"title\": \"").append(escapeJsonString(product.getTitle())).append("\",");
-        json.append("\"author\": \"").append(escapeJsonString(product.getAuthor() != null ? product.getAuthor() : "")).append("\",");
-        json.append("\"isbn\": \"").append(escapeJsonString(product.getIsbn() != null ? product.getIsbn() : "")).append("\",");
-        json.append("\"categoryId\": ").append(product.getCategoryId()).append(",");
-        json.append("\"categoryName\": \"").append(escapeJsonString(product.getCategoryName() != null ? product.getCategoryName() : "")).append("\",");
-        json.append("\"description\": \"").append(escapeJsonString(product.getDescription() != null ? product.getDescription() : "")).append("\",");
-        json.append("\"price\": ").append(product.getPrice()).append(",");
-        json.append("\"offerPrice\": ").append(product.getOfferPrice() != null ? product.getOfferPrice() : "null").append(",");
-        json.append("\"stockQuantity\": ").append(product.getStockQuantity()).append(",");
-        json.append("\"imagePath\": \"").append(escapeJsonString(product.getImagePath() != null ? product.getImagePath() : "")).append("\",");
-        json.append("\"status\": \"").append(escapeJsonString(product.getStatus())).append("\",");
-        json.append("\"isOnOffer\": ").append(product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0).append(",");
-        json.append("\"displayPrice\": ").append(product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 ? product.getOfferPrice() : product.getPrice()).append(",");
-        json.append("\"savings\": ").append(product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0 ? product.getPrice().subtract(product.getOfferPrice()) : "0").append(",");
-        json.append("\"createdAt\": \"").append(product.getCreatedAt()).append("\"");
-        json.append("}");
-        return json.toString();
+    /**
+     * Paged listing: {"products": [...], "nextCursor": "...", "hasMore": true}
+     */
+    private void writeProductPage(JsonWriter json, ProductPage page) throws IOException {
+        json.beginObject();
+        json.name("products");
+        writeProducts(json, page.getProducts());
+        json.name("nextCursor").value(page.getNextCursor());
+        json.field("hasMore", page.hasMore());
+        json.endObject();
     }
     
-    private String serializeCategories(List<Category> categories) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < categories.size(); i++) {
-            if (i > 0) json.append(",");
-            Category category = categories.get(i);
-            json.append("{");
-            json.append("\"id\": ").append(category.getId()).append(",");
-            json.append("\"name\": \"").append(escapeJsonString(category.getName())).append("\",");
-            json.append("\"description\": \"").append(escapeJsonString(category.getDescription() != null ? category.getDescription() : "")).append("\",");
-            json.append("\"status\": \"").append(escapeJsonString(category.getStatus())).append("\"");
-            json.append("}");
+    private void writeProduct(JsonWriter json, Product product) throws IOException {
+        boolean onOffer = product.getOfferPrice() != null && product.getOfferPrice().compareTo(BigDecimal.ZERO) > 0;
+        
+        json.beginObject()
+            .field("id", product.getId())
+            .field("title", product.getTitle())
+            .field("author", product.getAuthor())
+            .field("isbn", product.getIsbn())
+            .field("categoryId", product.getCategoryId())
+            .field("categoryName", product.getCategoryName())
+            .field("description", product.getDescription())
+            .field("price", product.getPrice())
+            .field("offerPrice", product.getOfferPrice())
+            .field("stockQuantity", product.getStockQuantity())
+            .field("imagePath", product.getImagePath())
+            .field("thumbPath", ImageDerivatives.pathFor(product.getImagePath(), ImageDerivatives.Size.THUMB))
+            .field("gridPath", ImageDerivatives.pathFor(product.getImagePath(), ImageDerivatives.Size.GRID))
+            .field("detailPath", ImageDerivatives.pathFor(product.getImagePath(), ImageDerivatives.Size.DETAIL))
+            .field("status", product.getStatus())
+            .field("isOnOffer", onOffer)
+            .field("displayPrice", onOffer ? product.getOfferPrice() : product.getPrice())
+            .field("savings", onOffer ? product.getPrice().subtract(product.getOfferPrice()) : BigDecimal.ZERO)
+            .field("createdAt", product.getCreatedAt())
+            .endObject();
+    }
+    
+    private void writeCategories(JsonWriter json, List<Category> categories) throws IOException {
+        json.beginArray();
+        for (Category category : categories) {
+            json.beginObject()
+                .field("id", category.getId())
+                .field("name", category.getName())
+                .field("description", category.getDescription())
+                .field("status", category.getStatus())
+                .endObject();
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
-    private String serializeCart(List<CartItem> cartItems) {
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"items\": [");
-        
+    private void writeCart(JsonWriter json, List<CartItem> cartItems) throws IOException {
         BigDecimal totalAmount = BigDecimal.ZERO;
         int totalItems = 0;
         
-        for (int i = 0; i < cartItems.size(); i++) {
-            if (i > 0) json.append(",");
-            CartItem item = cartItems.get(i);
-            
-            json.append("{");
-            json.append("\"productId\": ").append(item.getProductId()).append(",");
-            json.append("\"productTitle\": \"").append(escapeJsonString(item.getProductTitle())).append("\",");
-            json.append("\"productImage\": \"").append(escapeJsonString(item.getProductImage() != null ? item.getProductImage() : "")).append("\",");
-            json.append("\"quantity\": ").append(item.getQuantity()).append(",");
-            json.append("\"unitPrice\": ").append(item.getUnitPrice()).append(",");
-            json.append("\"totalPrice\": ").append(item.getTotalPrice());
-            json.append("}");
+        json.beginObject();
+        json.name("items").beginArray();
+        for (CartItem item : cartItems) {
+            json.beginObject()
+                .field("productId", item.getProductId())
+                .field("productTitle", item.getProductTitle())
+                .field("productImage", item.getProductImage())
+                .field("quantity", item.getQuantity())
+                .field("unitPrice", item.getUnitPrice())
+                .field("totalPrice", item.getTotalPrice())
+                .endObject();
             
             totalAmount = totalAmount.add(item.getTotalPrice());
             totalItems += item.getQuantity();
         }
-        
-        json.append("],");
-        json.append("\"totalItems\": ").append(totalItems).append(",");
-        json.append("\"totalAmount\": ").append(totalAmount.setScale(2, RoundingMode.HALF_UP));
-        json.append("}");
-        
-        return json.toString();
+        json.endArray();
+        json.field("totalItems", totalItems)
+            .field("totalAmount", totalAmount.setScale(2, RoundingMode.HALF_UP))
+            .endObject();
     }
     
- // Replace the existing serializeOrders method in CustomerService.java with this enhanced version
-
-    private String serializeOrders(List<Order> orders) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < orders.size(); i++) {
-            if (i > 0) json.append(",");
-            Order order = orders.get(i);
-            
-            // Get order items for each order
-            List<OrderItem> orderItems = null;
-            try {
-                orderItems = orderDAO.getOrderItems(order.getId());
-            } catch (Exception e) {
-                System.err.println("Error fetching order items for order " + order.getId() + ": " + e.getMessage());
-                orderItems = new ArrayList<>();
-            }
-            
-            json.append("{");
-            json.append("\"id\": ").append(order.getId()).append(",");
-            json.append("\"orderNumber\": \"").append(escapeJsonString(order.getOrderNumber())).append("\",");
-            json.append("\"totalAmount\": ").append(order.getTotalAmount()).append(",");
-            json.append("\"discountAmount\": ").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "0").append(",");
-            json.append("\"finalAmount\": ").append(order.getFinalAmount()).append(",");
-            json.append("\"status\": \"").append(escapeJsonString(order.getStatus())).append("\",");
-            json.append("\"customerName\": \"").append(escapeJsonString(order.getCustomerName())).append("\",");
-            json.append("\"customerEmail\": \"").append(escapeJsonString(order.getCustomerEmail() != null ? order.getCustomerEmail() : "")).append("\",");
-            json.append("\"customerPhone\": \"").append(escapeJsonString(order.getCustomerPhone() != null ? order.getCustomerPhone() : "")).append("\",");
-            json.append("\"shippingAddress\": \"").append(escapeJsonString(order.getShippingAddress() != null ? order.getShippingAddress() : "")).append("\",");
-            json.append("\"promoCode\": \"").append(escapeJsonString(order.getPromoCode() != null ? order.getPromoCode() : "")).append("\",");
-            json.append("\"createdAt\": \"").append(order.getCreatedAt()).append("\",");
-            
-            // Add order items array
-            json.append("\"orderItems\": [");
-            if (orderItems != null && !orderItems.isEmpty()) {
-                for (int j = 0; j < orderItems.size(); j++) {
-                    if (j > 0) json.append(",");
-                    OrderItem item = orderItems.get(j);
-                    
-                    // Get product details for additional info
-                    Product product = null;
-                    try {
-                        product = productDAO.getProductById(item.getProductId());
-                    } catch (Exception e) {
-                        System.err.println("Error fetching product details for item: " + e.getMessage());
-                    }
-                    
-                    json.append("{");
-                    json.append("\"id\": ").append(item.getId()).append(",");
-                    json.append("\"productId\": ").append(item.getProductId()).append(",");
-                    json.append("\"productTitle\": \"").append(escapeJsonString(item.getProductTitle() != null ? item.getProductTitle() : "")).append("\",");
-                    json.append("\"productAuthor\": \"").append(escapeJsonString(item.getProductAuthor() != null ? item.getProductAuthor() : "")).append("\",");
-                    json.append("\"productImage\": \"").append(escapeJsonString(product != null && product.getImagePath() != null ? product.getImagePath() : "")).append("\",");
-                    json.append("\"productIsbn\": \"").append(escapeJsonString(product != null && product.getIsbn() != null ? product.getIsbn() : "")).append("\",");
-                    json.append("\"quantity\": ").append(item.getQuantity()).append(",");
-                    json.append("\"unitPrice\": ").append(item.getUnitPrice()).append(",");
-                    json.append("\"totalPrice\": ").append(item.getTotalPrice());
-                    json.append("}");
-                }
-            }
-            json.append("]");
-            
-            json.append("}");
+    private void writeOrders(JsonWriter json, List<Order> orders) throws IOException {
+        // One batched query for every order's items (with product details) instead of N+1
+        orderDAO.loadOrderItems(orders);
+        
+        json.beginArray();
+        for (Order order : orders) {
+            writeOrder(json, order, false);
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
- // Add this method to your CustomerService class to replace the existing serializeOrderWithItems method
-
-    private String serializeOrderWithItems(Order order) {
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"id\": ").append(order.getId()).append(",");
-        json.append("\"orderNumber\": \"").append(escapeJsonString(order.getOrderNumber())).append("\",");
-        json.append("\"totalAmount\": ").append(order.getTotalAmount()).append(",");
-        json.append("\"discountAmount\": ").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "0").append(",");
-        json.append("\"finalAmount\": ").append(order.getFinalAmount()).append(",");
-        json.append("\"status\": \"").append(escapeJsonString(order.getStatus())).append("\",");
-        json.append("\"customerName\": \"").append(escapeJsonString(order.getCustomerName())).append("\",");
-        json.append("\"customerEmail\": \"").append(escapeJsonString(order.getCustomerEmail())).append("\",");
-        json.append("\"customerPhone\": \"").append(escapeJsonString(order.getCustomerPhone() != null ? order.getCustomerPhone() : "")).append("\",");
-        json.append("\"shippingAddress\": \"").append(escapeJsonString(order.getShippingAddress() != null ? order.getShippingAddress() : "")).append("\",");
-        json.append("\"promoCode\": \"").append(escapeJsonString(order.getPromoCode() != null ? order.getPromoCode() : "")).append("\",");
-        json.append("\"createdAt\": \"").append(order.getCreatedAt()).append("\",");
-        json.append("\"orderItems\": [");
+    
+    /**
+     * One order with its items; the detail view also carries each product's description.
+     * Package-private for the benchmarks.
+     */
+    void writeOrder(JsonWriter json, Order order, boolean withDescriptions) throws IOException {
+        json.beginObject()
+            .field("id", order.getId())
+            .field("orderNumber", order.getOrderNumber())
+            .field("totalAmount", order.getTotalAmount())
+            .field("discountAmount", order.getDiscountAmount() != null ? order.getDiscountAmount() : BigDecimal.ZERO)
+            .field("finalAmount", order.getFinalAmount())
+            .field("status", order.getStatus())
+            .field("customerName", order.getCustomerName())
+            .field("customerEmail", order.getCustomerEmail())
+            .field("customerPhone", order.getCustomerPhone())
+            .field("shippingAddress", order.getShippingAddress())
+            .field("promoCode", order.getPromoCode())
+            .field("createdAt", order.getCreatedAt());
         
-        List<OrderItem> items = order.getOrderItems();
-        if (items != null) {
-            for (int i = 0; i < items.size(); i++) {
-                if (i > 0) json.append(",");
-                OrderItem item = items.get(i);
-                
-                // Get product details to include image path
-                Product product = null;
-                try {
-                    product = productDAO.getProductById(item.getProductId());
-                } catch (Exception e) {
-                    System.err.println("Error fetching product details for order item: " + e.getMessage());
+        json.name("orderItems").beginArray();
+        if (order.getOrderItems() != null) {
+            for (OrderItem item : order.getOrderItems()) {
+                json.beginObject()
+                    .field("id", item.getId())
+                    .field("productId", item.getProductId())
+                    .field("productTitle", item.getProductTitle())
+                    .field("productAuthor", item.getProductAuthor())
+                    .field("productImage", item.getProductImage())
+                    .field("productIsbn", item.getProductIsbn());
+                if (withDescriptions) {
+                    json.field("productDescription", item.getProductDescription());
                 }
-                
-                json.append("{");
-                json.append("\"id\": ").append(item.getId()).append(",");
-                json.append("\"productId\": ").append(item.getProductId()).append(",");
-                json.append("\"productTitle\": \"").append(escapeJsonString(item.getProductTitle())).append("\",");
-                json.append("\"productAuthor\": \"").append(escapeJsonString(item.getProductAuthor() != null ? item.getProductAuthor() : "")).append("\",");
-                json.append("\"productImage\": \"").append(escapeJsonString(product != null && product.getImagePath() != null ? product.getImagePath() : "")).append("\",");
-                json.append("\"productIsbn\": \"").append(escapeJsonString(product != null && product.getIsbn() != null ? product.getIsbn() : "")).append("\",");
-                json.append("\"productDescription\": \"").append(escapeJsonString(product != null && product.getDescription() != null ? product.getDescription() : "")).append("\",");
-                json.append("\"quantity\": ").append(item.getQuantity()).append(",");
-                json.append("\"unitPrice\": ").append(item.getUnitPrice()).append(",");
-                json.append("\"totalPrice\": ").append(item.getTotalPrice());
-                json.append("}");
+                json.field("quantity", item.getQuantity())
+                    .field("unitPrice", item.getUnitPrice())
+                    .field("totalPrice", item.getTotalPrice())
+                    .endObject();
             }
         }
+        json.endArray();
         
-        json.append("]}");
-        return json.toString();
+        json.endObject();
     }
+    
     // Utility Methods
+    private String insufficientStockMessage(InsufficientStockException e) {
+        String title = e.getProductTitle() != null ? e.getProductTitle() : "a product in your cart";
+        if (e.getAvailable() <= 0) {
+            return "Sorry, '" + title + "' is out of stock";
+        }
+        return "Only " + e.getAvailable() + " units available for '" + title + "'";
+    }
+    
     private void sendJsonResponse(HttpServletResponse response, String jsonData) throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
@@ -1553,91 +1454,48 @@ public class CustomerService {
         out.flush();
     }
     
-    private void sendBooleanResponse(HttpServletResponse response, boolean success, String message) 
-            throws IOException {
+    /**
+     * Stream the JSON straight to the response instead of building it in memory first
+     */
+    private void sendJsonResponse(HttpServletResponse response, JsonWriter.Body body) throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
         
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"success\": ").append(success).append(",");
-        json.append("\"message\": \"").append(escapeJsonString(message)).append("\"");
-        json.append("}");
-        
-        PrintWriter out = response.getWriter();
-        out.print(json.toString());
-        out.flush();
+        JsonWriter json = new JsonWriter(response.getWriter());
+        body.write(json);
+        json.flush();
     }
     
-    private void sendErrorResponse(HttpServletResponse response, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+    private void sendBooleanResponse(HttpServletResponse response, boolean success, String message) 
+            throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
         
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"success\": false,");
-        json.append("\"error\": true,");
-        json.append("\"message\": \"").append(escapeJsonString(message)).append("\"");
-        json.append("}");
-        
-        PrintWriter out = response.getWriter();
-        out.print(json.toString());
-        out.flush();
-    }
-    
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t")
-                 .replace("\b", "\\b")
-                 .replace("\f", "\\f");
-    }
-}
-
-// CartItem Helper Class
-class CartItem {
-    private int productId;
-    private String productTitle;
-    private String productImage;
-    private int quantity;
-    private BigDecimal unitPrice;
-    private BigDecimal totalPrice;
-    
-    public CartItem() {
-        this.unitPrice = BigDecimal.ZERO;
-        this.totalPrice = BigDecimal.ZERO;
+        JsonWriter json = new JsonWriter(response.getWriter());
+        json.beginObject().field("success", success).field("message", message).endObject();
+        json.flush();
     }
     
-    // Getters and setters
-    public int getProductId() { return productId; }
-    public void setProductId(int productId) { this.productId = productId; }
-    
-    public String getProductTitle() { return productTitle; }
-    public void setProductTitle(String productTitle) { this.productTitle = productTitle; }
-    
-    public String getProductImage() { return productImage; }
-    public void setProductImage(String productImage) { this.productImage = productImage; }
-    
-    public int getQuantity() { return quantity; }
-    public void setQuantity(int quantity) { 
-        this.quantity = quantity;
-        updateTotalPrice();
+    private void sendErrorResponse(HttpServletResponse response, String message) throws IOException {
+        sendErrorResponse(response, message, HttpServletResponse.SC_BAD_REQUEST);
     }
     
-    public BigDecimal getUnitPrice() { return unitPrice; }
-    public void setUnitPrice(BigDecimal unitPrice) { 
-        this.unitPrice = unitPrice;
-        updateTotalPrice();
+    /**
+     * The password hashing pool is saturated: ask the client to come back shortly
+     */
+    private void sendBusyResponse(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", "5");
+        sendErrorResponse(response, "The server is busy right now. Please try again in a few seconds.", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
     }
     
-    public BigDecimal getTotalPrice() { return totalPrice; }
-    public void setTotalPrice(BigDecimal totalPrice) { this.totalPrice = totalPrice; }
-    
-    public void updateTotalPrice() {
-        this.totalPrice = this.unitPrice.multiply(new BigDecimal(this.quantity));
+    private void sendErrorResponse(HttpServletResponse response, String message, int status) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        
+        JsonWriter json = new JsonWriter(response.getWriter());
+        json.beginObject().field("success", false).field("error", true).field("message", message).endObject();
+        json.flush();
     }
-}
\ No newline at end of file
+}
@@ -5,16 +5,20 @@ import java.io.PrintWriter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import com.pahanaedu.dao.UserDAO;
 import com.pahanaedu.models.User;
+import com.pahanaedu.utils.AuthenticationBusyException;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
+import com.pahanaedu.utils.LoginThrottle;
 
 /**
  * Login Service using Singleton Pattern
  * Handles authentication for Admin, Customer, and Staff roles
  */
 public class LoginService {
+    private static final Log LOG = Log.get(LoginService.class);
     
     // Singleton instance
     private static LoginService instance = null;
@@ -23,11 +27,18 @@ public class LoginService {
     private static final String ADMIN_EMAIL = "admin@pahana.lk";
     private static final String ADMIN_PASSWORD = "admin123";
     
+    // Not defined in the Servlet 3.1 API
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+    
     private UserDAO userDAO;
+    private LoginThrottle loginThrottle;
+    private SessionService sessionService;
     
     // Private constructor
     private LoginService() {
         userDAO = UserDAO.getInstance();
+        loginThrottle = LoginThrottle.getInstance();
+        sessionService = SessionService.getInstance();
     }
     
     /**
@@ -61,7 +72,7 @@ public class LoginService {
             String password = request.getParameter("password");
             String rememberMe = request.getParameter("rememberMe");
             
-            System.out.println("LoginService: Processing login request for: " + email);
+            LOG.debug("Processing login request for: {}", email);
             
             // Validation
             if (email == null || email.trim().isEmpty()) {
@@ -76,6 +87,17 @@ public class LoginService {
             
             email = email.trim().toLowerCase();
             
+            // Refuse locked-out emails/addresses before spending a password check on them
+            long retryAfterMs = loginThrottle.retryAfterMillis(email, request.getRemoteAddr());
+            if (retryAfterMs > 0) {
+                long retryAfterSeconds = (retryAfterMs + 999) / 1000;
+                LOG.warn("Login throttled for: {}", email);
+                response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+                sendErrorResponse(response, out, "Too many failed login attempts. Please try again in " 
+                                 + ((retryAfterSeconds + 59) / 60) + " minute(s).", SC_TOO_MANY_REQUESTS);
+                return;
+            }
+            
             // Check for default admin login
             if (ADMIN_EMAIL.equalsIgnoreCase(email) && ADMIN_PASSWORD.equals(password)) {
                 handleDefaultAdminLogin(request, response, out, rememberMe);
@@ -86,8 +108,7 @@ public class LoginService {
             authenticateUser(email, password, request, response, out, rememberMe);
             
         } catch (Exception e) {
-            System.err.println("LoginService: Unexpected error during login - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Unexpected error during login", e);
             
             if (out != null) {
                 sendErrorResponse(response, out, "An unexpected error occurred. Please try again.");
@@ -105,7 +126,7 @@ public class LoginService {
     private void handleDefaultAdminLogin(HttpServletRequest request, HttpServletResponse response, 
                                        PrintWriter out, String rememberMe) throws IOException {
         
-        System.out.println("LoginService: Processing default admin login");
+        LOG.debug("Processing default admin login");
         
         User adminUser = new User();
         adminUser.setId(-1);
@@ -116,9 +137,13 @@ public class LoginService {
         adminUser.setRole(User.ROLE_ADMIN);
         adminUser.setStatus(User.STATUS_ACTIVE);
         
-        configureSession(request, adminUser, rememberMe);
+        if (!configureSession(request, response, adminUser, rememberMe)) {
+            sendErrorResponse(response, out, "Could not start your session. Please try again.", 
+                             HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
         
-        System.out.println("LoginService: Default admin login successful");
+        LOG.info("Default admin login successful");
         
         sendSuccessResponse(response, out, "Admin login successful!", 
                            User.ROLE_ADMIN, "admin-dashboard.jsp");
@@ -131,83 +156,67 @@ public class LoginService {
                                  HttpServletResponse response, PrintWriter out, String rememberMe) 
                                  throws IOException {
         
-        System.out.println("LoginService: Authenticating user: " + email);
+        LOG.debug("Authenticating user: {}", email);
         
         try {
             User user = userDAO.validateLogin(email, password);
             
             if (user == null) {
-                System.out.println("LoginService: Authentication failed for: " + email);
+                LOG.debug("Authentication failed for: {}", email);
+                loginThrottle.recordFailure(email, request.getRemoteAddr());
                 sendErrorResponse(response, out, "Invalid email or password");
                 return;
             }
             
+            loginThrottle.recordSuccess(email);
+            
             if (!user.isActive()) {
-                System.out.println("LoginService: Account inactive for: " + email);
+                LOG.info("Account inactive for: {}", email);
                 sendErrorResponse(response, out, "Your account has been deactivated. Please contact support.");
                 return;
             }
             
-            configureSession(request, user, rememberMe);
+            if (!configureSession(request, response, user, rememberMe)) {
+                sendErrorResponse(response, out, "Could not start your session. Please try again.", 
+                                 HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
             
             String redirectUrl = determineRedirectUrl(user.getRole());
             String successMessage = getSuccessMessage(user.getRole());
             
-            System.out.println("LoginService: User authentication successful - " + email + 
-                             " (Role: " + user.getRole() + ")");
+            LOG.info("User authentication successful - {} (Role: {})", email, user.getRole());
             
             sendSuccessResponse(response, out, successMessage, user.getRole(), redirectUrl);
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            response.setHeader("Retry-After", "5");
+            sendErrorResponse(response, out, "The server is busy right now. Please try again in a few seconds.", 
+                             HttpServletResponse.SC_SERVICE_UNAVAILABLE);
         } catch (Exception e) {
-            System.err.println("LoginService: Error during authentication - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error during authentication", e);
             sendErrorResponse(response, out, "Authentication error. Please try again.");
         }
     }
     
     /**
      * Configure user session
+     * @return false if the session could not be started
      */
-    private void configureSession(HttpServletRequest request, User user, String rememberMe) {
-        System.out.println("LoginService: Configuring session for: " + user.getEmail());
-        
-        HttpSession oldSession = request.getSession(false);
-        if (oldSession != null) {
-            oldSession.invalidate();
-        }
+    private boolean configureSession(HttpServletRequest request, HttpServletResponse response, 
+                                     User user, String rememberMe) {
+        LOG.debug("Configuring session for: {}", user.getEmail());
         
-        HttpSession session = request.getSession(true);
-        
-        // Set user attributes
-        session.setAttribute("user", user);
-        session.setAttribute("userId", user.getId());
-        session.setAttribute("userEmail", user.getEmail());
-        session.setAttribute("userName", user.getFullName());
-        session.setAttribute("userRole", user.getRole());
-        session.setAttribute("userFirstName", user.getFirstName());
-        session.setAttribute("userLastName", user.getLastName());
-        session.setAttribute("userPhone", user.getPhone());
-        session.setAttribute("userStatus", user.getStatus());
-        session.setAttribute("isLoggedIn", true);
-        session.setAttribute("loginTime", System.currentTimeMillis());
-        
-        // Set role flags - Support for all three roles
-        session.setAttribute("isAdmin", user.isAdmin());
-        session.setAttribute("isCustomer", user.isCustomer());
-        session.setAttribute("isStaff", user.isStaff());
-        
-        // Configure session timeout
         boolean rememberMeEnabled = "on".equals(rememberMe) || "true".equals(rememberMe);
         
-        if (rememberMeEnabled) {
-            session.setMaxInactiveInterval(7 * 24 * 60 * 60); // 7 days
-            session.setAttribute("rememberMe", true);
-        } else {
-            session.setMaxInactiveInterval(30 * 60); // 30 minutes
-            session.setAttribute("rememberMe", false);
+        if (!sessionService.login(request, response, user, rememberMeEnabled)) {
+            LOG.error("Could not store session for: {}", user.getEmail());
+            return false;
         }
         
-        System.out.println("LoginService: Session configured successfully with role: " + user.getRole());
+        LOG.debug("Session configured successfully with role: {}", user.getRole());
+        return true;
     }
     
     /**
@@ -257,43 +266,39 @@ public class LoginService {
         
         String jsonResponse = String.format(
             "{\"success\": true, \"message\": \"%s\", \"role\": \"%s\", \"redirectUrl\": \"%s\"}",
-            escapeJsonString(message),
-            escapeJsonString(role),
-            escapeJsonString(redirectUrl)
+            JsonWriter.escape(message),
+            JsonWriter.escape(role),
+            JsonWriter.escape(redirectUrl)
         );
         
         out.print(jsonResponse);
         out.flush();
         
-        System.out.println("LoginService: Success response sent for role: " + role);
+        LOG.debug("Success response sent for role: {}", role);
     }
     
     /**
      * Send error response
      */
     private void sendErrorResponse(HttpServletResponse response, PrintWriter out, String message) {
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        sendErrorResponse(response, out, message, HttpServletResponse.SC_UNAUTHORIZED);
+    }
+    
+    /**
+     * Send error response with a specific status code
+     */
+    private void sendErrorResponse(HttpServletResponse response, PrintWriter out, String message, int status) {
+        response.setStatus(status);
         
         String jsonResponse = String.format(
             "{\"success\": false, \"message\": \"%s\"}",
-            escapeJsonString(message)
+            JsonWriter.escape(message)
         );
         
         out.print(jsonResponse);
         out.flush();
         
-        System.out.println("LoginService: Error response sent - " + message);
+        LOG.debug("Error response sent - {}", message);
     }
     
-    /**
-     * Escape JSON string
-     */
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t");
-    }
 }
\ No newline at end of file
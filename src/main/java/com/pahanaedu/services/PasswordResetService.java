@@ -8,6 +8,9 @@ import javax.servlet.http.HttpServletResponse;
 
 import com.pahanaedu.dao.UserDAO;
 import com.pahanaedu.models.User;
+import com.pahanaedu.utils.AuthenticationBusyException;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 /**
  * Password Reset Service using Singleton Pattern
@@ -15,6 +18,7 @@ import com.pahanaedu.models.User;
  * Integrates with existing UserDAO and follows the same patterns as other services
  */
 public class PasswordResetService {
+    private static final Log LOG = Log.get(PasswordResetService.class);
     
     // Singleton instance
     private static PasswordResetService instance = null;
@@ -55,7 +59,7 @@ public class PasswordResetService {
             
             String email = request.getParameter("email");
             
-            System.out.println("PasswordResetService: Processing reset request for: " + email);
+            LOG.debug("Processing reset request for: {}", email);
             
             // Validation
             if (email == null || email.trim().isEmpty()) {
@@ -96,8 +100,8 @@ public class PasswordResetService {
             String tempPassword = userDAO.resetPassword(email);
             
             if (tempPassword != null) {
-                System.out.println("PasswordResetService: Password reset successful for - " + email);
-                System.out.println("PasswordResetService: Temporary password - " + tempPassword);
+                LOG.info("Password reset successful for - {}", email);
+                LOG.info("Temporary password - {}", tempPassword);
                 
                 // In a real application, you would send this via email
                 // For now, we'll return it in the response (NOT RECOMMENDED for production)
@@ -110,13 +114,15 @@ public class PasswordResetService {
                 sendSuccessResponse(response, out, message);
                 
             } else {
-                System.err.println("PasswordResetService: Failed to reset password for - " + email);
+                LOG.error("Failed to reset password for - {}", email);
                 sendErrorResponse(response, out, "Failed to reset password. Please try again.");
             }
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response, out);
         } catch (Exception e) {
-            System.err.println("PasswordResetService: Unexpected error - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Unexpected error", e);
             
             if (out != null) {
                 sendErrorResponse(response, out, "Reset error occurred. Please try again.");
@@ -150,7 +156,7 @@ public class PasswordResetService {
             String newPassword = request.getParameter("newPassword");
             String confirmPassword = request.getParameter("confirmPassword");
             
-            System.out.println("PasswordResetService: Processing password change for: " + email);
+            LOG.debug("Processing password change for: {}", email);
             
             // Validation
             if (email == null || email.trim().isEmpty()) {
@@ -207,16 +213,18 @@ public class PasswordResetService {
             
             // Update password
             if (userDAO.updatePassword(email, newPassword)) {
-                System.out.println("PasswordResetService: Password changed successfully for - " + email);
+                LOG.info("Password changed successfully for - {}", email);
                 sendSuccessResponse(response, out, "Password changed successfully! You can now login with your new password.");
             } else {
-                System.err.println("PasswordResetService: Failed to change password for - " + email);
+                LOG.error("Failed to change password for - {}", email);
                 sendErrorResponse(response, out, "Failed to change password. Please try again.");
             }
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response, out);
         } catch (Exception e) {
-            System.err.println("PasswordResetService: Error changing password - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error changing password", e);
             
             if (out != null) {
                 sendErrorResponse(response, out, "Password change error. Please try again.");
@@ -259,41 +267,46 @@ public class PasswordResetService {
         
         String jsonResponse = String.format(
             "{\"success\": true, \"message\": \"%s\"}",
-            escapeJsonString(message)
+            JsonWriter.escape(message)
         );
         
         out.print(jsonResponse);
         out.flush();
         
-        System.out.println("PasswordResetService: Success response sent");
+        LOG.debug("Success response sent");
     }
     
     /**
      * Send error response (same pattern as other services)
      */
     private void sendErrorResponse(HttpServletResponse response, PrintWriter out, String message) {
-        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        sendErrorResponse(response, out, message, HttpServletResponse.SC_BAD_REQUEST);
+    }
+    
+    /**
+     * The password hashing pool is saturated: ask the client to come back shortly
+     */
+    private void sendBusyResponse(HttpServletResponse response, PrintWriter out) {
+        response.setHeader("Retry-After", "5");
+        sendErrorResponse(response, out, "The server is busy right now. Please try again in a few seconds.",
+                         HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+    
+    /**
+     * Send error response with a specific status code
+     */
+    private void sendErrorResponse(HttpServletResponse response, PrintWriter out, String message, int status) {
+        response.setStatus(status);
         
         String jsonResponse = String.format(
             "{\"success\": false, \"message\": \"%s\"}",
-            escapeJsonString(message)
+            JsonWriter.escape(message)
         );
         
         out.print(jsonResponse);
         out.flush();
         
-        System.out.println("PasswordResetService: Error response sent - " + message);
+        LOG.debug("Error response sent - {}", message);
     }
     
-    /**
-     * Escape JSON string (same as other services)
-     */
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t");
-    }
 }
\ No newline at end of file
@@ -0,0 +1,441 @@
+package com.pahanaedu.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import com.pahanaedu.dao.JdbcSessionStore;
+import com.pahanaedu.dao.MemorySessionStore;
+import com.pahanaedu.dao.RememberMeTokenDAO;
+import com.pahanaedu.dao.SessionStore;
+import com.pahanaedu.dao.UserDAO;
+import com.pahanaedu.models.RememberMeToken;
+import com.pahanaedu.models.SessionPrincipal;
+import com.pahanaedu.models.User;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.Log;
+
+/**
+ * Session Service using Singleton Pattern
+ * Signs users in and out and resolves the signed-in user (SessionPrincipal) for a request.
+ *
+ * The browser holds a random token in the PAHANA_SESSION cookie; the configured
+ * SessionStore (session.store = memory | jdbc) maps a SHA-256 of that token to the principal.
+ * Nothing about the user is kept in the HttpSession, so with the jdbc store any node can
+ * serve any request. The principal is resolved at most once per request and exposed to
+ * JSPs as the "principal" request attribute.
+ *
+ * "Remember me" does not stretch the session: sessions always use the short timeout, and
+ * a PAHANA_REMEMBER cookie (selector.validator) lets a later request start a new one.
+ * Only the SHA-256 of the validator is stored, and it is replaced every time the cookie
+ * is used; presenting a validator that was already replaced (outside a short grace period
+ * for requests in flight) revokes all of the user's remembered logins.
+ */
+public class SessionService {
+    private static final Log LOG = Log.get(SessionService.class);
+
+    // Singleton instance
+    private static SessionService instance = null;
+
+    public static final String COOKIE_NAME = "PAHANA_SESSION";
+    public static final String REMEMBER_COOKIE_NAME = "PAHANA_REMEMBER";
+    public static final String PRINCIPAL_ATTRIBUTE = "principal";
+
+    // Marks "already looked up, nobody signed in" so a request resolves at most once
+    private static final String RESOLVED_ATTRIBUTE = "com.pahanaedu.principalResolved";
+
+    // Set by SessionPrincipalFilter; needed to send new cookies when restoring a remembered login
+    private static final String RESPONSE_ATTRIBUTE = "com.pahanaedu.response";
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int SELECTOR_BYTES = 12;
+
+    private final SessionStore store;
+    private final RememberMeTokenDAO rememberMeTokenDAO;
+    private final UserDAO userDAO;
+    private final int timeoutSeconds;
+    private final int rememberMeLifetimeSeconds;
+    private final long rotationGraceMs;
+    private final long purgeIntervalMs;
+    private final SecureRandom random = new SecureRandom();
+    private ScheduledExecutorService purger;
+
+    // Private constructor
+    private SessionService() {
+        String storeType = AppConfig.getString("session.store", "memory");
+        this.store = "jdbc".equalsIgnoreCase(storeType) ? new JdbcSessionStore() : new MemorySessionStore();
+        this.rememberMeTokenDAO = RememberMeTokenDAO.getInstance();
+        this.userDAO = UserDAO.getInstance();
+        this.timeoutSeconds = AppConfig.getInt("session.timeoutSeconds", 30 * 60);
+        this.rememberMeLifetimeSeconds = AppConfig.getInt("remember.tokenLifetimeSeconds", 7 * 24 * 60 * 60);
+        this.rotationGraceMs = AppConfig.getLong("remember.rotationGraceMs", 60_000L);
+        this.purgeIntervalMs = AppConfig.getLong("session.purgeIntervalMs", 300_000L);
+        LOG.info("Using {}", store.getClass().getSimpleName());
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized SessionService getInstance() {
+        if (instance == null) {
+            instance = new SessionService();
+        }
+        return instance;
+    }
+
+    /**
+     * Signed-in user for this request, or null
+     */
+    public SessionPrincipal getPrincipal(HttpServletRequest request) {
+        SessionPrincipal principal = (SessionPrincipal) request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (principal != null || request.getAttribute(RESOLVED_ATTRIBUTE) != null) {
+            return principal;
+        }
+
+        String token = readCookie(request, COOKIE_NAME);
+        principal = token != null ? store.get(sessionId(token)) : null;
+
+        if (principal == null) {
+            HttpServletResponse response = (HttpServletResponse) request.getAttribute(RESPONSE_ATTRIBUTE);
+            if (response != null && !response.isCommitted() && readCookie(request, REMEMBER_COOKIE_NAME) != null) {
+                principal = restoreRememberedLogin(request, response);
+            }
+        }
+
+        request.setAttribute(RESOLVED_ATTRIBUTE, Boolean.TRUE);
+        if (principal != null) {
+            request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        }
+        return principal;
+    }
+
+    /**
+     * Make the response available to getPrincipal(), which may need to set cookies
+     * when it signs a remembered user back in
+     */
+    public void bindResponse(HttpServletRequest request, HttpServletResponse response) {
+        request.setAttribute(RESPONSE_ATTRIBUTE, response);
+    }
+
+    /**
+     * Id of the signed-in user, or null
+     */
+    public Integer getUserId(HttpServletRequest request) {
+        SessionPrincipal principal = getPrincipal(request);
+        return principal != null ? principal.getUserId() : null;
+    }
+
+    /**
+     * True if someone is signed in with one of the given roles
+     */
+    public boolean hasRole(HttpServletRequest request, String... roles) {
+        SessionPrincipal principal = getPrincipal(request);
+        if (principal == null) {
+            return false;
+        }
+        for (String role : roles) {
+            if (role.equals(principal.getRole())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Start a signed-in session for the user, replacing any session this browser had
+     * @return false if the session could not be stored
+     */
+    public boolean login(HttpServletRequest request, HttpServletResponse response, User user, boolean rememberMe) {
+        endSession(request);
+        boolean hadRememberCookie = deleteRememberedLogin(request);
+
+        SessionPrincipal principal = startSession(request, response, user);
+        if (principal == null) {
+            return false;
+        }
+
+        // The built-in admin account has no users row to restore from
+        if (rememberMe && user.getId() > 0) {
+            rememberLogin(request, response, user.getId());
+        } else if (hadRememberCookie) {
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, "", 0);
+        }
+
+        LOG.debug("Session started for user {} (Role: {}, remember me: {})", user.getId(), user.getRole(), rememberMe);
+        return true;
+    }
+
+    /**
+     * Replace the signed-in user's principal (e.g. after a profile change)
+     */
+    public boolean updatePrincipal(HttpServletRequest request, SessionPrincipal principal) {
+        String token = readCookie(request, COOKIE_NAME);
+        if (token == null || !store.update(sessionId(token), principal)) {
+            return false;
+        }
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        return true;
+    }
+
+    /**
+     * End the signed-in session (and the guest HttpSession, if any)
+     * @return true if there was anything to end
+     */
+    public boolean logout(HttpServletRequest request, HttpServletResponse response) {
+        boolean ended = endSession(request);
+        if (ended) {
+            writeCookie(request, response, COOKIE_NAME, "", 0);
+        }
+        if (deleteRememberedLogin(request)) {
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, "", 0);
+            ended = true;
+        }
+
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+            ended = true;
+        }
+
+        request.removeAttribute(PRINCIPAL_ATTRIBUTE);
+        request.setAttribute(RESOLVED_ATTRIBUTE, Boolean.TRUE);
+        return ended;
+    }
+
+    // ==============================================================================================
+    // LIFECYCLE
+    // ==============================================================================================
+
+    /**
+     * Start removing expired sessions in the background (no-op when session.purgeIntervalMs is 0)
+     */
+    public synchronized void startPurger() {
+        if (purger != null || purgeIntervalMs <= 0) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(() -> {
+            try {
+                int removed = store.purgeExpired();
+                if (removed > 0) {
+                    LOG.info("Purged {} expired sessions", removed);
+                }
+                int tokens = rememberMeTokenDAO.purgeExpired();
+                if (tokens > 0) {
+                    LOG.info("Purged {} expired remember-me tokens", tokens);
+                }
+            } catch (RuntimeException e) {
+                LOG.error("Purge failed - {}", e.getMessage());
+            }
+        }, purgeIntervalMs, purgeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (purger != null) {
+            purger.shutdownNow();
+            purger = null;
+        }
+    }
+
+    // ==============================================================================================
+    // REMEMBER ME
+    // ==============================================================================================
+
+    private void rememberLogin(HttpServletRequest request, HttpServletResponse response, int userId) {
+        String selector = randomToken(SELECTOR_BYTES);
+        String validator = randomToken(TOKEN_BYTES);
+        Timestamp expiresAt = new Timestamp(System.currentTimeMillis() + rememberMeLifetimeSeconds * 1000L);
+
+        if (rememberMeTokenDAO.createToken(selector, sha256Hex(validator), userId, expiresAt)) {
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, selector + "." + validator, rememberMeLifetimeSeconds);
+        } else {
+            LOG.error("Could not store remember-me token for user {}", userId);
+        }
+    }
+
+    /**
+     * Start a new session from the PAHANA_REMEMBER cookie, rotating its validator
+     * @return the new principal, or null if the cookie is not (or no longer) valid
+     */
+    private SessionPrincipal restoreRememberedLogin(HttpServletRequest request, HttpServletResponse response) {
+        String cookie = readCookie(request, REMEMBER_COOKIE_NAME);
+        int dot = cookie.indexOf('.');
+        if (dot <= 0 || dot == cookie.length() - 1) {
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, "", 0);
+            return null;
+        }
+        String selector = cookie.substring(0, dot);
+        String validatorHash = sha256Hex(cookie.substring(dot + 1));
+
+        long now = System.currentTimeMillis();
+        RememberMeToken token = rememberMeTokenDAO.getToken(selector);
+        if (token == null || token.isExpired(now)) {
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, "", 0);
+            return null;
+        }
+
+        boolean current = hashesEqual(validatorHash, token.getValidatorHash());
+        boolean justRotated = !current
+                && token.getRotatedAt() != null
+                && now - token.getRotatedAt().getTime() <= rotationGraceMs
+                && hashesEqual(validatorHash, token.getPreviousValidatorHash());
+
+        if (!current && !justRotated) {
+            // Someone used this cookie after it was rotated: assume it was copied
+            LOG.warn("Replayed remember-me token for user {}, revoking all remembered logins", token.getUserId());
+            rememberMeTokenDAO.deleteTokensForUser(token.getUserId());
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, "", 0);
+            return null;
+        }
+
+        User user = userDAO.getUserById(token.getUserId());
+        if (user == null || !user.isActive()) {
+            rememberMeTokenDAO.deleteToken(selector);
+            writeCookie(request, response, REMEMBER_COOKIE_NAME, "", 0);
+            return null;
+        }
+
+        // A request that lost the rotation race (or arrived with the previous validator)
+        // still signs in; the winner's response carries the new cookie
+        if (current) {
+            String validator = randomToken(TOKEN_BYTES);
+            Timestamp expiresAt = new Timestamp(now + rememberMeLifetimeSeconds * 1000L);
+            if (rememberMeTokenDAO.rotateToken(selector, token.getValidatorHash(), sha256Hex(validator), expiresAt)) {
+                writeCookie(request, response, REMEMBER_COOKIE_NAME, selector + "." + validator, rememberMeLifetimeSeconds);
+            }
+        }
+
+        SessionPrincipal principal = startSession(request, response, user);
+        if (principal != null) {
+            LOG.debug("Restored remembered login for user {}", user.getId());
+        }
+        return principal;
+    }
+
+    /**
+     * Delete the token behind this browser's remember-me cookie (the cookie is left to the caller)
+     * @return true if the browser sent one
+     */
+    private boolean deleteRememberedLogin(HttpServletRequest request) {
+        String cookie = readCookie(request, REMEMBER_COOKIE_NAME);
+        if (cookie == null) {
+            return false;
+        }
+        int dot = cookie.indexOf('.');
+        if (dot > 0) {
+            rememberMeTokenDAO.deleteToken(cookie.substring(0, dot));
+        }
+        return true;
+    }
+
+    // ==============================================================================================
+    // HELPERS
+    // ==============================================================================================
+
+    /**
+     * Store a new session for the user and send its cookie (ends with the browser session)
+     */
+    private SessionPrincipal startSession(HttpServletRequest request, HttpServletResponse response, User user) {
+        SessionPrincipal principal = SessionPrincipal.from(user);
+        String token = randomToken(TOKEN_BYTES);
+
+        if (!store.create(sessionId(token), principal, timeoutSeconds)) {
+            return null;
+        }
+
+        writeCookie(request, response, COOKIE_NAME, token, -1);
+        request.setAttribute(PRINCIPAL_ATTRIBUTE, principal);
+        request.setAttribute(RESOLVED_ATTRIBUTE, Boolean.TRUE);
+        return principal;
+    }
+
+    /**
+     * Remove this browser's session from the store
+     * @return true if it had one
+     */
+    private boolean endSession(HttpServletRequest request) {
+        String token = readCookie(request, COOKIE_NAME);
+        if (token == null) {
+            return false;
+        }
+        store.delete(sessionId(token));
+        return true;
+    }
+
+    private String readCookie(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (name.equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void writeCookie(HttpServletRequest request, HttpServletResponse response,
+                             String name, String value, int maxAge) {
+        Cookie cookie = new Cookie(name, value);
+        String contextPath = request.getContextPath();
+        cookie.setPath(contextPath == null || contextPath.isEmpty() ? "/" : contextPath);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        response.addCookie(cookie);
+    }
+
+    private String randomToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        random.nextBytes(buffer);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer);
+    }
+
+    /**
+     * Stores only ever see the SHA-256 of the token
+     */
+    private static String sessionId(String token) {
+        return sha256Hex(token);
+    }
+
+    private static String sha256Hex(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(value.getBytes(StandardCharsets.US_ASCII));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Constant-time comparison, so response timing doesn't reveal how much of a hash matched
+     */
+    private static boolean hashesEqual(String a, String b) {
+        if (a == null || b == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(a.getBytes(StandardCharsets.US_ASCII), b.getBytes(StandardCharsets.US_ASCII));
+    }
+}
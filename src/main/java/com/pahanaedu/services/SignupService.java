@@ -5,25 +5,30 @@ import java.io.PrintWriter;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 
 import com.pahanaedu.dao.UserDAO;
 import com.pahanaedu.models.User;
+import com.pahanaedu.utils.AuthenticationBusyException;
+import com.pahanaedu.utils.JsonWriter;
+import com.pahanaedu.utils.Log;
 
 /**
  * Signup Service using Singleton Pattern
  * Handles customer registration only (Admin and Staff are created through admin panel)
  */
 public class SignupService {
+    private static final Log LOG = Log.get(SignupService.class);
     
     // Singleton instance
     private static SignupService instance = null;
     
     private UserDAO userDAO;
+    private SessionService sessionService;
     
     // Private constructor
     private SignupService() {
         userDAO = UserDAO.getInstance();
+        sessionService = SessionService.getInstance();
     }
     
     /**
@@ -60,7 +65,7 @@ public class SignupService {
             String password = request.getParameter("password");
             String confirmPassword = request.getParameter("confirmPassword");
             
-            System.out.println("SignupService: Processing signup request for: " + email);
+            LOG.debug("Processing signup request for: {}", email);
             
             // Validation
             if (firstName == null || firstName.trim().isEmpty()) {
@@ -137,22 +142,29 @@ public class SignupService {
             newUser.setStatus(User.STATUS_ACTIVE);
             
             if (userDAO.createUser(newUser)) {
-                System.out.println("SignupService: Customer registration successful - " + email);
+                LOG.info("Customer registration successful - {}", email);
                 
-                createUserSession(request, newUser);
-                
-                sendSuccessResponse(response, out, 
-                    "Account created successfully! Welcome to Pahana Edu!", 
-                    User.ROLE_CUSTOMER, "customer-dashboard.jsp");
+                if (createUserSession(request, response, newUser)) {
+                    sendSuccessResponse(response, out, 
+                        "Account created successfully! Welcome to Pahana Edu!", 
+                        User.ROLE_CUSTOMER, "customer-dashboard.jsp");
+                } else {
+                    // The account exists; the user just has to sign in
+                    sendSuccessResponse(response, out, 
+                        "Account created successfully! Please sign in to continue.", 
+                        User.ROLE_CUSTOMER, "login-signup.jsp");
+                }
                 
             } else {
-                System.err.println("SignupService: Database error during registration - " + email);
+                LOG.error("Database error during registration - {}", email);
                 sendErrorResponse(response, out, "Failed to create account. Please try again.");
             }
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response, out);
         } catch (Exception e) {
-            System.err.println("SignupService: Unexpected error during signup - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Unexpected error during signup", e);
             
             if (out != null) {
                 sendErrorResponse(response, out, "Registration error occurred. Please try again.");
@@ -166,40 +178,18 @@ public class SignupService {
     
     /**
      * Create user session after successful registration
+     * @return false if the session could not be started
      */
-    private void createUserSession(HttpServletRequest request, User user) {
-        System.out.println("SignupService: Creating session for new user: " + user.getEmail());
+    private boolean createUserSession(HttpServletRequest request, HttpServletResponse response, User user) {
+        LOG.debug("Creating session for new user: {}", user.getEmail());
         
-        HttpSession oldSession = request.getSession(false);
-        if (oldSession != null) {
-            oldSession.invalidate();
+        if (!sessionService.login(request, response, user, false)) {
+            LOG.error("Could not store session for: {}", user.getEmail());
+            return false;
         }
         
-        HttpSession session = request.getSession(true);
-        
-        // Set user attributes
-        session.setAttribute("user", user);
-        session.setAttribute("userId", user.getId());
-        session.setAttribute("userEmail", user.getEmail());
-        session.setAttribute("userName", user.getFullName());
-        session.setAttribute("userRole", user.getRole());
-        session.setAttribute("userFirstName", user.getFirstName());
-        session.setAttribute("userLastName", user.getLastName());
-        session.setAttribute("userPhone", user.getPhone());
-        session.setAttribute("userStatus", user.getStatus());
-        session.setAttribute("isLoggedIn", true);
-        session.setAttribute("loginTime", System.currentTimeMillis());
-        
-        // Set role flags
-        session.setAttribute("isAdmin", false);
-        session.setAttribute("isCustomer", true);
-        session.setAttribute("isStaff", false);
-        
-        // Set session timeout
-        session.setMaxInactiveInterval(30 * 60); // 30 minutes
-        session.setAttribute("rememberMe", false);
-        
-        System.out.println("SignupService: Session created successfully");
+        LOG.debug("Session created successfully");
+        return true;
     }
     
     /**
@@ -234,44 +224,48 @@ public class SignupService {
         
         String jsonResponse = String.format(
             "{\"success\": true, \"message\": \"%s\", \"role\": \"%s\", \"redirectUrl\": \"%s\"}",
-            escapeJsonString(message),
-            escapeJsonString(role),
-            escapeJsonString(redirectUrl)
+            JsonWriter.escape(message),
+            JsonWriter.escape(role),
+            JsonWriter.escape(redirectUrl)
         );
         
         out.print(jsonResponse);
         out.flush();
         
-        System.out.println("SignupService: Success response sent");
+        LOG.debug("Success response sent");
     }
     
     /**
      * Send error response
      */
     private void sendErrorResponse(HttpServletResponse response, PrintWriter out, String message) {
-        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        sendErrorResponse(response, out, message, HttpServletResponse.SC_BAD_REQUEST);
+    }
+    
+    /**
+     * The password hashing pool is saturated: ask the client to come back shortly
+     */
+    private void sendBusyResponse(HttpServletResponse response, PrintWriter out) {
+        response.setHeader("Retry-After", "5");
+        sendErrorResponse(response, out, "The server is busy right now. Please try again in a few seconds.",
+                         HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+    
+    /**
+     * Send error response with a specific status code
+     */
+    private void sendErrorResponse(HttpServletResponse response, PrintWriter out, String message, int status) {
+        response.setStatus(status);
         
         String jsonResponse = String.format(
             "{\"success\": false, \"message\": \"%s\"}",
-            escapeJsonString(message)
+            JsonWriter.escape(message)
         );
         
         out.print(jsonResponse);
         out.flush();
         
-        System.out.println("SignupService: Error response sent - " + message);
-    }
-    
-    /**
-     * Escape JSON string
-     */
-    private String escapeJsonString(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\")
-                 .replace("\"", "\\\"")
-                 .replace("\n", "\\n")
-                 .replace("\r", "\\r")
-                 .replace("\t", "\\t");
+        LOG.debug("Error response sent - {}", message);
     }
     
     /**
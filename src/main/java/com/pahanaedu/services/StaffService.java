@@ -4,20 +4,67 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
 
 import com.pahanaedu.dao.*;
 import com.pahanaedu.models.*;
+import com.pahanaedu.utils.AppConfig;
+import com.pahanaedu.utils.AuthenticationBusyException;
 import com.pahanaedu.utils.FileUploadHandler;
+import com.pahanaedu.utils.Log;
+import com.pahanaedu.utils.OrderNumberGenerator;
+import com.pahanaedu.utils.ImageDerivatives;
+import com.pahanaedu.utils.JsonParseException;
+import com.pahanaedu.utils.JsonReader;
+import com.pahanaedu.utils.JsonWriter;
 
 public class StaffService {
+    private static final Log LOG = Log.get(StaffService.class);
+
     private static StaffService instance = null;
     
+    // Limits on the POS basket (orderItems)
+    private static final int MAX_ORDER_ITEMS_CHARS = AppConfig.getInt("pos.maxOrderItemsChars", 64 * 1024);
+    private static final int MAX_ORDER_LINES = AppConfig.getInt("pos.maxOrderLines", 200);
+    private static final int MAX_LINE_QUANTITY = AppConfig.getInt("pos.maxLineQuantity", 10_000);
+    private static final BigDecimal MAX_UNIT_PRICE = new BigDecimal("99999999.99"); // decimal(10,2)
+    private static final int MAX_TITLE_LENGTH = 255;
+    
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
+    // Everything on the printed bill that doesn't depend on the order
+    private static final String BILL_STYLE =
+        "<style>" +
+        "body { font-family: Arial, sans-serif; margin: 20px; font-size: 12px; }" +
+        ".bill-header { text-align: center; margin-bottom: 20px; }" +
+        ".bill-details { margin-bottom: 20px; }" +
+        ".items-table { width: 100%; border-collapse: collapse; margin-bottom: 20px; }" +
+        ".items-table th, .items-table td { border: 1px solid #ddd; padding: 8px; text-align: left; }" +
+        ".items-table th { background-color: #f2f2f2; }" +
+        ".total-section { margin-top: 20px; text-align: right; }" +
+        ".footer { margin-top: 30px; text-align: center; font-size: 10px; }" +
+        "@media print { body { margin: 0; } }" +
+        "</style>" +
+        "</head><body>" +
+        "<div class='bill-header'>" +
+        "<h2>Pahana Educational Services</h2>" +
+        "<p>123 Education Street, Kurunegala<br>Tel: +94 77 123 4567</p>" +
+        "<hr>" +
+        "</div>";
+    private static final String BILL_FOOTER =
+        "<div class='footer'>" +
+        "<p>Thank you for your business!<br>" +
+        "Visit us again for more educational resources.</p>" +
+        "</div>" +
+        "<script>window.onload = function() { window.print(); };</script>" +
+        "</body></html>";
+    
     private UserDAO userDAO;
     private CategoryDAO categoryDAO;
     private ProductDAO productDAO;
@@ -41,37 +88,16 @@ public class StaffService {
     public void handleDashboardStats(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            List<Product> allProducts = productDAO.getAllProducts();
-            List<Order> allOrders = orderDAO.getAllOrders();
-            List<User> allCustomers = userDAO.getUsersByRole("CUSTOMER");
-            
-            int totalProducts = allProducts.size();
-            long activeProducts = allProducts.stream().filter(p -> "active".equals(p.getStatus())).count();
-            int totalOrders = allOrders.size();
-            long pendingOrders = allOrders.stream().filter(o -> "pending".equals(o.getStatus())).count();
-            int totalCustomers = allCustomers.size();
+            // Maintained incrementally and reconciled with SQL aggregates; no table scans here
+            DashboardStats.Snapshot snapshot = DashboardStats.getInstance().getSnapshot();
             
-            // Today's orders
-            long todayOrders = allOrders.stream()
-                .filter(order -> {
-                    if (order.getCreatedAt() != null) {
-                        return order.getCreatedAt().toLocalDateTime().toLocalDate()
-                            .equals(java.time.LocalDate.now());
-                    }
-                    return false;
-                }).count();
-            
-            // Calculate today's revenue
-            BigDecimal todayRevenue = allOrders.stream()
-                .filter(order -> {
-                    if (order.getCreatedAt() != null) {
-                        return order.getCreatedAt().toLocalDateTime().toLocalDate()
-                            .equals(java.time.LocalDate.now());
-                    }
-                    return false;
-                })
-                .map(Order::getFinalAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            long totalProducts = snapshot.getTotalProducts();
+            long activeProducts = snapshot.getActiveProducts();
+            long totalOrders = snapshot.getTotalOrders();
+            long pendingOrders = snapshot.getOrderCount(Order.STATUS_PENDING);
+            long todayOrders = snapshot.getTodayOrders();
+            long totalCustomers = snapshot.getUserCount(User.ROLE_CUSTOMER);
+            BigDecimal todayRevenue = snapshot.getTodayRevenue();
             
             StringBuilder stats = new StringBuilder();
             stats.append("{");
@@ -87,7 +113,7 @@ public class StaffService {
             sendJsonResponse(response, stats.toString());
             
         } catch (Exception e) {
-            System.err.println("StaffService: Dashboard stats error - " + e.getMessage());
+            LOG.error("Dashboard stats error - {}", e.getMessage());
             sendErrorResponse(response, "Error loading dashboard statistics");
         }
     }
@@ -121,7 +147,7 @@ public class StaffService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("StaffService: Product management error - " + e.getMessage());
+            LOG.error("Product management error - {}", e.getMessage());
             sendErrorResponse(response, "Product management error");
         }
     }
@@ -130,15 +156,7 @@ public class StaffService {
     public void handleProductWithFileUpload(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         try {
-            String imagePath = null;
-            
-            for (Part part : request.getParts()) {
-                if ("productImage".equals(part.getName()) && part.getSize() > 0) {
-                    imagePath = FileUploadHandler.uploadProductImage(part, 
-                        request.getServletContext().getRealPath(""));
-                    break;
-                }
-            }
+            String imagePath = FileUploadHandler.uploadProductImage(request.getPart("productImage"));
             
             if (imagePath != null) {
                 request.setAttribute("uploadedImagePath", imagePath);
@@ -147,7 +165,7 @@ public class StaffService {
             handleProductManagement(request, response);
             
         } catch (Exception e) {
-            System.err.println("StaffService: File upload error - " + e.getMessage());
+            LOG.error("File upload error - {}", e.getMessage());
             sendErrorResponse(response, "File upload error: " + e.getMessage());
         }
     }
@@ -178,7 +196,7 @@ public class StaffService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("StaffService: Customer management error - " + e.getMessage());
+            LOG.error("Customer management error - {}", e.getMessage());
             sendErrorResponse(response, "Customer management error");
         }
     }
@@ -212,7 +230,7 @@ public class StaffService {
                     sendErrorResponse(response, "Invalid action");
             }
         } catch (Exception e) {
-            System.err.println("StaffService: Order management error - " + e.getMessage());
+            LOG.error("Order management error - {}", e.getMessage());
             sendErrorResponse(response, "Order management error");
         }
     }
@@ -230,11 +248,11 @@ public class StaffService {
         }
         
         // Filter only active products with stock
-        products = products.stream()
+        List<Product> available = products.stream()
             .filter(p -> "active".equals(p.getStatus()) && p.getStockQuantity() > 0)
             .collect(java.util.stream.Collectors.toList());
         
-        sendJsonResponse(response, serializePOSProducts(products));
+        sendJsonResponse(response, json -> writePOSProducts(json, available));
     }
     
     private void handleSearchCustomersForPOS(HttpServletRequest request, HttpServletResponse response) 
@@ -289,6 +307,9 @@ public class StaffService {
                 sendErrorResponse(response, "Failed to create guest customer");
             }
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response);
         } catch (Exception e) {
             sendErrorResponse(response, "Error creating guest customer: " + e.getMessage());
         }
@@ -306,8 +327,13 @@ public class StaffService {
             BigDecimal discount = (discountStr != null && !discountStr.trim().isEmpty()) 
                 ? new BigDecimal(discountStr) : BigDecimal.ZERO;
             
-            // Parse order items from JSON
-            List<OrderItem> orderItems = parseOrderItemsFromJson(orderItemsJson);
+            List<OrderItem> orderItems;
+            try {
+                orderItems = parseOrderItemsFromJson(orderItemsJson);
+            } catch (JsonParseException e) {
+                sendErrorResponse(response, "Invalid order items: " + e.getMessage());
+                return;
+            }
             
             if (orderItems.isEmpty()) {
                 sendErrorResponse(response, "No items in the order");
@@ -322,7 +348,7 @@ public class StaffService {
             BigDecimal finalAmount = subtotal.subtract(discount);
             
             // Generate order number
-            String orderNumber = generateOrderNumber();
+            String orderNumber = OrderNumberGenerator.getInstance().nextOrderNumber();
             
             // Get customer details
             User customer = userDAO.getUserById(customerId);
@@ -350,24 +376,27 @@ public class StaffService {
             }
             order.setShippingAddress(orderNotes);
             
-            boolean success = createOrderWithItems(order);
+            // Stock is taken in the same transaction as the order insert
+            boolean success;
+            try {
+                success = orderDAO.createOrderWithItems(order);
+            } catch (InsufficientStockException e) {
+                String title = e.getProductTitle() != null ? e.getProductTitle() : "Product #" + e.getProductId();
+                sendErrorResponse(response, "Insufficient stock for '" + title + "': requested "
+                        + e.getRequested() + ", available " + e.getAvailable());
+                return;
+            }
             
             if (success) {
-                // Update product stock
-                for (OrderItem item : orderItems) {
-                    updateProductStock(item.getProductId(), -item.getQuantity());
-                }
-                
                 // Get complete order details for response
-                Order createdOrder = getOrderByNumber(orderNumber);
+                Order createdOrder = orderDAO.getOrderByNumber(orderNumber);
                 sendJsonResponse(response, serializeOrderWithItems(createdOrder));
             } else {
                 sendErrorResponse(response, "Failed to create order");
             }
             
         } catch (Exception e) {
-            System.err.println("Error creating POS order: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error creating POS order", e);
             sendErrorResponse(response, "Error creating order: " + e.getMessage());
         }
     }
@@ -381,7 +410,7 @@ public class StaffService {
             Order order = null;
             
             if (orderNumber != null && !orderNumber.trim().isEmpty()) {
-                order = getOrderByNumber(orderNumber);
+                order = orderDAO.getOrderByNumber(orderNumber);
             } else if (orderId != null && !orderId.trim().isEmpty()) {
                 order = orderDAO.getOrderById(Integer.parseInt(orderId));
             }
@@ -417,235 +446,122 @@ public class StaffService {
         }
     }
     
-    // Helper Methods for Order Processing
-    private boolean createOrderWithItems(Order order) {
-        try (java.sql.Connection connection = com.pahanaedu.utils.DatabaseConnection.getConnection()) {
-            connection.setAutoCommit(false);
-            
-            try {
-                // Insert order
-                String insertOrderSQL = "INSERT INTO orders (user_id, order_number, total_amount, discount_amount, final_amount, status, customer_name, customer_email, shipping_address) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
-                
-                java.sql.PreparedStatement orderStmt = connection.prepareStatement(insertOrderSQL, java.sql.Statement.RETURN_GENERATED_KEYS);
-                orderStmt.setInt(1, order.getUserId());
-                orderStmt.setString(2, order.getOrderNumber());
-                orderStmt.setBigDecimal(3, order.getTotalAmount());
-                orderStmt.setBigDecimal(4, order.getDiscountAmount());
-                orderStmt.setBigDecimal(5, order.getFinalAmount());
-                orderStmt.setString(6, order.getStatus());
-                orderStmt.setString(7, order.getCustomerName());
-                orderStmt.setString(8, order.getCustomerEmail());
-                orderStmt.setString(9, order.getShippingAddress());
-                
-                int rowsAffected = orderStmt.executeUpdate();
-                
-                if (rowsAffected > 0) {
-                    java.sql.ResultSet generatedKeys = orderStmt.getGeneratedKeys();
-                    if (generatedKeys.next()) {
-                        int orderId = generatedKeys.getInt(1);
-                        
-                        // Insert order items
-                        String insertItemSQL = "INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price) VALUES (?, ?, ?, ?, ?)";
-                        java.sql.PreparedStatement itemStmt = connection.prepareStatement(insertItemSQL);
-                        
-                        for (OrderItem item : order.getOrderItems()) {
-                            itemStmt.setInt(1, orderId);
-                            itemStmt.setInt(2, item.getProductId());
-                            itemStmt.setInt(3, item.getQuantity());
-                            itemStmt.setBigDecimal(4, item.getUnitPrice());
-                            itemStmt.setBigDecimal(5, item.getTotalPrice());
-                            itemStmt.addBatch();
-                        }
-                        
-                        itemStmt.executeBatch();
-                        connection.commit();
-                        return true;
-                    }
-                }
-                
-                connection.rollback();
-                return false;
-                
-            } catch (Exception e) {
-                connection.rollback();
-                throw e;
-            }
-            
-        } catch (Exception e) {
-            System.err.println("Error creating order with items: " + e.getMessage());
-            return false;
-        }
-    }
+    // Helper Methods
     
-    private boolean updateProductStock(int productId, int quantityChange) {
-        try (java.sql.Connection connection = com.pahanaedu.utils.DatabaseConnection.getConnection()) {
-            String updateSQL = "UPDATE products SET stock_quantity = stock_quantity + ? WHERE id = ?";
-            java.sql.PreparedStatement stmt = connection.prepareStatement(updateSQL);
-            stmt.setInt(1, quantityChange);
-            stmt.setInt(2, productId);
-            return stmt.executeUpdate() > 0;
-        } catch (Exception e) {
-            System.err.println("Error updating product stock: " + e.getMessage());
-            return false;
+    /**
+     * Read the POS basket ([{"productId":1,"productTitle":"...","quantity":2,"unitPrice":450.00}, ...])
+     * in one pass. Other members (the page also sends totalPrice) are ignored; totals are
+     * worked out here. Package-private for the tests and benchmarks.
+     */
+    static List<OrderItem> parseOrderItemsFromJson(String orderItemsJson) throws JsonParseException {
+        if (orderItemsJson == null || orderItemsJson.trim().isEmpty()) {
+            throw new JsonParseException("No order items were sent", -1);
         }
-    }
-    
-    private Order getOrderByNumber(String orderNumber) {
-        try (java.sql.Connection connection = com.pahanaedu.utils.DatabaseConnection.getConnection()) {
-            String selectSQL = "SELECT o.*, u.first_name, u.last_name FROM orders o LEFT JOIN users u ON o.user_id = u.id WHERE o.order_number = ?";
-            java.sql.PreparedStatement stmt = connection.prepareStatement(selectSQL);
-            stmt.setString(1, orderNumber);
-            java.sql.ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                Order order = new Order();
-                order.setId(rs.getInt("id"));
-                order.setUserId(rs.getInt("user_id"));
-                order.setOrderNumber(rs.getString("order_number"));
-                order.setTotalAmount(rs.getBigDecimal("total_amount"));
-                order.setDiscountAmount(rs.getBigDecimal("discount_amount"));
-                order.setFinalAmount(rs.getBigDecimal("final_amount"));
-                order.setStatus(rs.getString("status"));
-                order.setCustomerName(rs.getString("customer_name"));
-                order.setCustomerEmail(rs.getString("customer_email"));
-                order.setShippingAddress(rs.getString("shipping_address"));
-                order.setCreatedAt(rs.getTimestamp("created_at"));
-                
-                // Get order items
-                order.setOrderItems(orderDAO.getOrderItems(order.getId()));
-                
-                return order;
+        if (orderItemsJson.length() > MAX_ORDER_ITEMS_CHARS) {
+            throw new JsonParseException("Order items exceed " + MAX_ORDER_ITEMS_CHARS + " characters", -1);
+        }
+        
+        JsonReader json = new JsonReader(orderItemsJson);
+        List<OrderItem> items = new ArrayList<>();
+        json.beginArray();
+        while (json.hasNext()) {
+            if (items.size() == MAX_ORDER_LINES) {
+                throw new JsonParseException("An order can have at most " + MAX_ORDER_LINES + " lines", -1);
             }
-        } catch (Exception e) {
-            System.err.println("Error getting order by number: " + e.getMessage());
+            items.add(readOrderItem(json, items.size() + 1));
         }
-        return null;
+        json.endArray();
+        json.endDocument();
+        return items;
     }
     
-    // Helper Methods
-    private List<OrderItem> parseOrderItemsFromJson(String orderItemsJson) {
-        // Simple JSON parsing for order items
-        List<OrderItem> items = new java.util.ArrayList<>();
-        
-        try {
-            // Remove brackets and split by },{ pattern
-            orderItemsJson = orderItemsJson.trim();
-            if (orderItemsJson.startsWith("[")) orderItemsJson = orderItemsJson.substring(1);
-            if (orderItemsJson.endsWith("]")) orderItemsJson = orderItemsJson.substring(0, orderItemsJson.length() - 1);
-            
-            String[] itemStrings = orderItemsJson.split("\\},\\{");
-            
-            for (String itemString : itemStrings) {
-                itemString = itemString.replace("{", "").replace("}", "");
-                String[] pairs = itemString.split(",");
-                
-                OrderItem item = new OrderItem();
-                for (String pair : pairs) {
-                    String[] keyValue = pair.split(":");
-                    if (keyValue.length == 2) {
-                        String key = keyValue[0].trim().replace("\"", "");
-                        String value = keyValue[1].trim().replace("\"", "");
-                        
-                        switch (key) {
-                            case "productId":
-                                item.setProductId(Integer.parseInt(value));
-                                break;
-                            case "productTitle":
-                                item.setProductTitle(value);
-                                break;
-                            case "quantity":
-                                item.setQuantity(Integer.parseInt(value));
-                                break;
-                            case "unitPrice":
-                                item.setUnitPrice(new BigDecimal(value));
-                                break;
-                        }
-                    }
-                }
-                
-                if (item.getProductId() > 0 && item.getQuantity() > 0) {
-                    item.setTotalPrice(item.getUnitPrice().multiply(new BigDecimal(item.getQuantity())));
-                    items.add(item);
-                }
+    private static OrderItem readOrderItem(JsonReader json, int line) throws JsonParseException {
+        OrderItem item = new OrderItem();
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "productId":
+                    item.setProductId(json.nextInt());
+                    break;
+                case "productTitle":
+                    item.setProductTitle(json.nextIfNull() ? null : json.nextString());
+                    break;
+                case "quantity":
+                    item.setQuantity(json.nextInt());
+                    break;
+                case "unitPrice":
+                    item.setUnitPrice(readUnitPrice(json, line));
+                    break;
+                default:
+                    json.skipValue();
             }
-            
-        } catch (Exception e) {
-            System.err.println("Error parsing order items JSON: " + e.getMessage());
         }
+        json.endObject();
         
-        return items;
+        if (item.getProductId() <= 0) {
+            throw new JsonParseException("Line " + line + ": productId is missing or invalid", -1);
+        }
+        if (item.getQuantity() <= 0 || item.getQuantity() > MAX_LINE_QUANTITY) {
+            throw new JsonParseException("Line " + line + ": quantity must be between 1 and " + MAX_LINE_QUANTITY, -1);
+        }
+        BigDecimal unitPrice = item.getUnitPrice();
+        if (unitPrice == null || unitPrice.signum() < 0 || unitPrice.compareTo(MAX_UNIT_PRICE) > 0) {
+            throw new JsonParseException("Line " + line + ": unitPrice is missing or out of range", -1);
+        }
+        if (item.getProductTitle() != null && item.getProductTitle().length() > MAX_TITLE_LENGTH) {
+            throw new JsonParseException("Line " + line + ": productTitle is too long", -1);
+        }
+        // Exact: readUnitPrice allows at most two decimal places
+        item.setUnitPrice(unitPrice.setScale(2));
+        item.setTotalPrice(item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+        return item;
     }
     
-    private String generateOrderNumber() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMdd");
-        String dateStr = LocalDateTime.now().format(formatter);
-        long timestamp = System.currentTimeMillis() % 10000;
-        return "ORD" + dateStr + timestamp;
+    /**
+     * A price as the page sends it (450, 450.5, 450.00). Exponents and more than two decimal
+     * places are refused before the value is scaled, so a tiny or huge exponent can't make
+     * BigDecimal allocate or loop on it.
+     */
+    private static BigDecimal readUnitPrice(JsonReader json, int line) throws JsonParseException {
+        BigDecimal price = json.nextPlainDecimal();
+        if (price.scale() > 2 || price.precision() > 10) {
+            throw new JsonParseException("Line " + line + ": unitPrice must have at most 8 digits and 2 decimal places", -1);
+        }
+        return price;
     }
     
-    private String generateBillHTML(Order order) {
-        StringBuilder html = new StringBuilder();
-        html.append("<!DOCTYPE html>");
-        html.append("<html><head>");
-        html.append("<title>Bill - ").append(escapeJson(order.getOrderNumber())).append("</title>");
-        html.append("<style>");
-        html.append("body { font-family: Arial, sans-serif; margin: 20px; font-size: 12px; }");
-        html.append(".bill-header { text-align: center; margin-bottom: 20px; }");
-        html.append(".bill-details { margin-bottom: 20px; }");
-        html.append(".items-table { width: 100%; border-collapse: collapse; margin-bottom: 20px; }");
-        html.append(".items-table th, .items-table td { border: 1px solid #ddd; padding: 8px; text-align: left; }");
-        html.append(".items-table th { background-color: #f2f2f2; }");
-        html.append(".total-section { margin-top: 20px; text-align: right; }");
-        html.append(".footer { margin-top: 30px; text-align: center; font-size: 10px; }");
-        html.append("@media print { body { margin: 0; } }");
-        html.append("</style>");
-        html.append("</head><body>");
-        
-        // Header
-        html.append("<div class='bill-header'>");
-        html.append("<h2>Pahana Educational Services</h2>");
-        html.append("<p>123 Education Street, Kurunegala<br>Tel: +94 77 123 4567</p>");
-        html.append("<hr>");
-        html.append("</div>");
+    /**
+     * Printable bill for a POS order. Package-private for the tests and benchmarks.
+     */
+    String generateBillHTML(Order order) {
+        List<OrderItem> items = order.getOrderItems();
+        int itemCount = items != null ? items.size() : 0;
+        StringBuilder html = new StringBuilder(BILL_STYLE.length() + BILL_FOOTER.length() + 1024 + itemCount * 160);
+        html.append("<!DOCTYPE html><html><head><title>Bill - ").append(escapeHtml(order.getOrderNumber())).append("</title>");
+        html.append(BILL_STYLE);
         
         // Bill details
         html.append("<div class='bill-details'>");
         html.append("<table style='width: 100%;'>");
-        html.append("<tr><td><strong>Bill No:</strong> ").append(escapeJson(order.getOrderNumber())).append("</td>");
+        html.append("<tr><td><strong>Bill No:</strong> ").append(escapeHtml(order.getOrderNumber())).append("</td>");
         html.append("<td style='text-align: right;'><strong>Date:</strong> ").append(formatDate(order.getCreatedAt())).append("</td></tr>");
-        html.append("<tr><td><strong>Customer:</strong> ").append(escapeJson(order.getCustomerName())).append("</td>");
-        
-        // Extract payment method from shipping address
-        String paymentMethod = "Cash";
-        if (order.getShippingAddress() != null && order.getShippingAddress().contains("Payment:")) {
-            String[] parts = order.getShippingAddress().split("\\|");
-            if (parts.length > 0 && parts[0].contains("Payment:")) {
-                paymentMethod = parts[0].replace("Payment:", "").trim();
-            }
-        }
-        
-        html.append("<td style='text-align: right;'><strong>Payment:</strong> ").append(escapeJson(paymentMethod)).append("</td></tr>");
+        html.append("<tr><td><strong>Customer:</strong> ").append(escapeHtml(order.getCustomerName())).append("</td>");
+        html.append("<td style='text-align: right;'><strong>Payment:</strong> ").append(escapeHtml(billPaymentMethod(order))).append("</td></tr>");
         html.append("</table>");
         html.append("</div>");
         
         // Items
         html.append("<table class='items-table'>");
-        html.append("<thead>");
-        html.append("<tr><th>Item</th><th>Qty</th><th>Price</th><th>Total</th></tr>");
-        html.append("</thead>");
+        html.append("<thead><tr><th>Item</th><th>Qty</th><th>Price</th><th>Total</th></tr></thead>");
         html.append("<tbody>");
-        
-        if (order.getOrderItems() != null) {
-            for (OrderItem item : order.getOrderItems()) {
-                html.append("<tr>");
-                html.append("<td>").append(escapeJson(item.getProductTitle())).append("</td>");
+        if (items != null) {
+            for (OrderItem item : items) {
+                html.append("<tr><td>").append(escapeHtml(item.getProductTitle())).append("</td>");
                 html.append("<td>").append(item.getQuantity()).append("</td>");
                 html.append("<td>Rs. ").append(formatCurrency(item.getUnitPrice())).append("</td>");
-                html.append("<td>Rs. ").append(formatCurrency(item.getTotalPrice())).append("</td>");
-                html.append("</tr>");
+                html.append("<td>Rs. ").append(formatCurrency(item.getTotalPrice())).append("</td></tr>");
             }
         }
-        
         html.append("</tbody>");
         html.append("</table>");
         
@@ -660,26 +576,55 @@ public class StaffService {
         html.append("</table>");
         html.append("</div>");
         
-        // Footer
-        html.append("<div class='footer'>");
-        html.append("<p>Thank you for your business!<br>");
-        html.append("Visit us again for more educational resources.</p>");
-        html.append("</div>");
-        
-        html.append("<script>");
-        html.append("window.onload = function() { window.print(); };");
-        html.append("</script>");
-        
-        html.append("</body></html>");
-        
+        html.append(BILL_FOOTER);
         return html.toString();
     }
     
+    /**
+     * Payment method from the "Payment: X | Notes: Y" text POS orders keep in the shipping address
+     */
+    private static String billPaymentMethod(Order order) {
+        String address = order.getShippingAddress();
+        if (address == null || !address.startsWith("Payment:")) {
+            return "Cash";
+        }
+        int bar = address.indexOf('|');
+        return address.substring("Payment:".length(), bar >= 0 ? bar : address.length()).trim();
+    }
+    
+    private static String escapeHtml(String str) {
+        if (str == null) {
+            return "";
+        }
+        StringBuilder escaped = null;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            String replacement;
+            switch (c) {
+                case '<': replacement = "&lt;"; break;
+                case '>': replacement = "&gt;"; break;
+                case '&': replacement = "&amp;"; break;
+                case '"': replacement = "&quot;"; break;
+                case '\'': replacement = "&#39;"; break;
+                default: replacement = null;
+            }
+            if (replacement != null) {
+                if (escaped == null) {
+                    escaped = new StringBuilder(str.length() + 16).append(str, 0, i);
+                }
+                escaped.append(replacement);
+            } else if (escaped != null) {
+                escaped.append(c);
+            }
+        }
+        return escaped != null ? escaped.toString() : str;
+    }
+    
     // Existing implementation methods (keeping them as they were)
     private void handleListProducts(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         List<Product> products = productDAO.getAllProducts();
-        sendJsonResponse(response, serializeProducts(products));
+        sendJsonResponse(response, json -> writeProducts(json, products));
     }
     
     private void handleCreateProduct(HttpServletRequest request, HttpServletResponse response) 
@@ -733,9 +678,6 @@ public class StaffService {
                 return;
             }
             
-            // Store old image path for potential deletion
-            String oldImagePath = product.getImagePath();
-            
             // Update product fields
             product.setTitle(getParameterValue(request, "title"));
             product.setAuthor(getParameterValue(request, "author"));
@@ -756,29 +698,17 @@ public class StaffService {
             if (newImagePath != null) {
                 // New image uploaded
                 product.setImagePath(newImagePath);
-                System.out.println("StaffService: Using new uploaded image via FileUploadHandler - " + newImagePath);
-                
-                // Delete old image if it exists and is different from new one
-                if (oldImagePath != null && !oldImagePath.equals(newImagePath)) {
-                    try {
-                        String webAppPath = request.getServletContext().getRealPath("");
-                        boolean deleted = FileUploadHandler.deleteProductImage(oldImagePath, webAppPath);
-                        if (deleted) {
-                            System.out.println("StaffService: Deleted old image via FileUploadHandler - " + oldImagePath);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("StaffService: Warning - Could not delete old image: " + e.getMessage());
-                    }
-                }
+                LOG.debug("Using new uploaded image via FileUploadHandler - {}", newImagePath);
             }
             
             boolean success = productDAO.updateProduct(product);
+            
+            // A replaced image is left to ImageSweeper, which removes it once no product refers to it
             sendBooleanResponse(response, success, 
                 success ? "Product updated successfully" : "Failed to update product");
             
         } catch (Exception e) {
-            System.err.println("StaffService: Error updating product - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error updating product", e);
             sendErrorResponse(response, "Error updating product: " + e.getMessage());
         }
     }
@@ -796,28 +726,12 @@ public class StaffService {
                 return;
             }
             
-            // Store image path for deletion
-            String imagePath = product.getImagePath();
-            
-            // Delete from database first
             boolean success = productDAO.deleteProduct(id);
             
             if (success) {
-                // Delete associated image file using FileUploadHandler if exists
-                if (imagePath != null && !imagePath.trim().isEmpty()) {
-                    try {
-                        String webAppPath = request.getServletContext().getRealPath("");
-                        boolean imageDeleted = FileUploadHandler.deleteProductImage(imagePath, webAppPath);
-                        
-                        if (imageDeleted) {
-                            System.out.println("StaffService: Product and image deleted successfully via FileUploadHandler - " + imagePath);
-                        } else {
-                            System.out.println("StaffService: Product deleted but image deletion failed via FileUploadHandler - " + imagePath);
-                        }
-                    } catch (Exception e) {
-                        System.err.println("StaffService: Warning - Product deleted but could not delete image: " + e.getMessage());
-                    }
-                }
+                // The image is left to ImageSweeper: another product, or an upload of the same
+                // picture in flight, may still refer to it
+                LOG.info("Product deleted - {}", id);
                 
                 sendBooleanResponse(response, success, 
                     success ? "Product deleted successfully" : "Failed to delete product");
@@ -826,8 +740,7 @@ public class StaffService {
             }
             
         } catch (Exception e) {
-            System.err.println("StaffService: Error deleting product - " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error deleting product", e);
             sendErrorResponse(response, "Error deleting product: " + e.getMessage());
         }
     }
@@ -836,13 +749,13 @@ public class StaffService {
             throws IOException {
         String keyword = request.getParameter("keyword");
         List<Product> products = productDAO.searchProducts(keyword);
-        sendJsonResponse(response, serializeProducts(products));
+        sendJsonResponse(response, json -> writeProducts(json, products));
     }
     
     private void handleListCustomers(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         List<User> customers = userDAO.getUsersByRole("CUSTOMER");
-        sendJsonResponse(response, serializeUsers(customers));
+        sendJsonResponse(response, json -> writeUsers(json, customers));
     }
     
     private void handleCreateCustomer(HttpServletRequest request, HttpServletResponse response) 
@@ -867,6 +780,9 @@ public class StaffService {
             sendBooleanResponse(response, success, 
                 success ? "Customer created successfully" : "Failed to create customer");
             
+        } catch (AuthenticationBusyException e) {
+            LOG.error("Authentication pool busy - {}", e.getMessage());
+            sendBusyResponse(response);
         } catch (Exception e) {
             sendErrorResponse(response, "Error creating customer: " + e.getMessage());
         }
@@ -885,13 +801,14 @@ public class StaffService {
                 .collect(java.util.stream.Collectors.toList());
         }
         
-        sendJsonResponse(response, serializeUsers(customers));
+        List<User> matches = customers;
+        sendJsonResponse(response, json -> writeUsers(json, matches));
     }
     
     private void handleListOrders(HttpServletRequest request, HttpServletResponse response) 
             throws IOException {
         List<Order> orders = orderDAO.getAllOrders();
-        sendJsonResponse(response, serializeOrders(orders));
+        sendJsonResponse(response, json -> writeOrders(json, orders));
     }
     
     private void handleUpdateOrderStatus(HttpServletRequest request, HttpServletResponse response) 
@@ -948,70 +865,67 @@ public class StaffService {
         return null;
     }
     
-    private String serializeProducts(List<Product> products) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < products.size(); i++) {
-            if (i > 0) json.append(",");
-            Product p = products.get(i);
-            json.append("{")
-                .append("\"id\":").append(p.getId()).append(",")
-                .append("\"title\":\"").append(escapeJson(p.getTitle())).append("\",")
-                .append("\"author\":\"").append(escapeJson(p.getAuthor())).append("\",")
-                .append("\"isbn\":\"").append(escapeJson(p.getIsbn())).append("\",")
-                .append("\"categoryId\":").append(p.getCategoryId()).append(",")
-                .append("\"categoryName\":\"").append(escapeJson(p.getCategoryName() != null ? p.getCategoryName() : "")).append("\",")
-                .append("\"description\":\"").append(escapeJson(p.getDescription())).append("\",")
-                .append("\"price\":").append(p.getPrice()).append(",")
-                .append("\"offerPrice\":").append(p.getOfferPrice() != null ? p.getOfferPrice() : "null").append(",")
-                .append("\"stockQuantity\":").append(p.getStockQuantity()).append(",")
-                .append("\"imagePath\":\"").append(escapeJson(p.getImagePath())).append("\",")
-                .append("\"status\":\"").append(escapeJson(p.getStatus())).append("\",")
-                .append("\"createdAt\":\"").append(p.getCreatedAt()).append("\"")
-                .append("}");
+    private void writeProducts(JsonWriter json, List<Product> products) throws IOException {
+        json.beginArray();
+        for (Product p : products) {
+            json.beginObject()
+                .field("id", p.getId())
+                .field("title", p.getTitle())
+                .field("author", p.getAuthor())
+                .field("isbn", p.getIsbn())
+                .field("categoryId", p.getCategoryId())
+                .field("categoryName", p.getCategoryName())
+                .field("description", p.getDescription())
+                .field("price", p.getPrice())
+                .field("offerPrice", p.getOfferPrice())
+                .field("stockQuantity", p.getStockQuantity())
+                .field("imagePath", p.getImagePath())
+                .field("thumbPath", ImageDerivatives.pathFor(p.getImagePath(), ImageDerivatives.Size.THUMB))
+                .field("gridPath", ImageDerivatives.pathFor(p.getImagePath(), ImageDerivatives.Size.GRID))
+                .field("detailPath", ImageDerivatives.pathFor(p.getImagePath(), ImageDerivatives.Size.DETAIL))
+                .field("status", p.getStatus())
+                .field("createdAt", p.getCreatedAt())
+                .endObject();
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
-    private String serializePOSProducts(List<Product> products) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < products.size(); i++) {
-            if (i > 0) json.append(",");
-            Product p = products.get(i);
+    private void writePOSProducts(JsonWriter json, List<Product> products) throws IOException {
+        json.beginArray();
+        for (Product p : products) {
             BigDecimal actualPrice = p.getOfferPrice() != null ? p.getOfferPrice() : p.getPrice();
-            json.append("{")
-                .append("\"id\":").append(p.getId()).append(",")
-                .append("\"title\":\"").append(escapeJson(p.getTitle())).append("\",")
-                .append("\"author\":\"").append(escapeJson(p.getAuthor())).append("\",")
-                .append("\"isbn\":\"").append(escapeJson(p.getIsbn())).append("\",")
-                .append("\"price\":").append(actualPrice).append(",")
-                .append("\"stockQuantity\":").append(p.getStockQuantity()).append(",")
-                .append("\"imagePath\":\"").append(escapeJson(p.getImagePath())).append("\"")
-                .append("}");
+            json.beginObject()
+                .field("id", p.getId())
+                .field("title", p.getTitle())
+                .field("author", p.getAuthor())
+                .field("isbn", p.getIsbn())
+                .field("price", actualPrice)
+                .field("stockQuantity", p.getStockQuantity())
+                .field("imagePath", p.getImagePath())
+                .field("thumbPath", ImageDerivatives.pathFor(p.getImagePath(), ImageDerivatives.Size.THUMB))
+                .field("gridPath", ImageDerivatives.pathFor(p.getImagePath(), ImageDerivatives.Size.GRID))
+                .field("detailPath", ImageDerivatives.pathFor(p.getImagePath(), ImageDerivatives.Size.DETAIL))
+                .endObject();
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
-    private String serializeUsers(List<User> users) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < users.size(); i++) {
-            if (i > 0) json.append(",");
-            User u = users.get(i);
-            json.append("{")
-                .append("\"id\":").append(u.getId()).append(",")
-                .append("\"firstName\":\"").append(escapeJson(u.getFirstName())).append("\",")
-                .append("\"lastName\":\"").append(escapeJson(u.getLastName())).append("\",")
-                .append("\"email\":\"").append(escapeJson(u.getEmail())).append("\",")
-                .append("\"phone\":\"").append(escapeJson(u.getPhone())).append("\",")
-                .append("\"role\":\"").append(escapeJson(u.getRole())).append("\",")
-                .append("\"status\":\"").append(escapeJson(u.getStatus())).append("\",")
-                .append("\"isGuest\":").append(u.getEmail().contains("@pahana.local")).append(",")
-                .append("\"createdAt\":\"").append(u.getCreatedAt()).append("\"")
-                .append("}");
+    private void writeUsers(JsonWriter json, List<User> users) throws IOException {
+        json.beginArray();
+        for (User u : users) {
+            json.beginObject()
+                .field("id", u.getId())
+                .field("firstName", u.getFirstName())
+                .field("lastName", u.getLastName())
+                .field("email", u.getEmail())
+                .field("phone", u.getPhone())
+                .field("role", u.getRole())
+                .field("status", u.getStatus())
+                .field("isGuest", u.getEmail() != null && u.getEmail().contains("@pahana.local"))
+                .field("createdAt", u.getCreatedAt())
+                .endObject();
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
     private String serializePOSCustomers(List<User> customers) {
@@ -1021,9 +935,9 @@ public class StaffService {
             User c = customers.get(i);
             json.append("{")
                 .append("\"id\":").append(c.getId()).append(",")
-                .append("\"name\":\"").append(escapeJson(c.getFirstName() + " " + c.getLastName())).append("\",")
-                .append("\"email\":\"").append(escapeJson(c.getEmail())).append("\",")
-                .append("\"phone\":\"").append(escapeJson(c.getPhone())).append("\"")
+                .append("\"name\":\"").append(JsonWriter.escape(c.getFirstName() + " " + c.getLastName())).append("\",")
+                .append("\"email\":\"").append(JsonWriter.escape(c.getEmail())).append("\",")
+                .append("\"phone\":\"").append(JsonWriter.escape(c.getPhone())).append("\"")
                 .append("}");
         }
         json.append("]");
@@ -1033,17 +947,23 @@ public class StaffService {
     private String serializeSingleCustomer(User customer) {
         return "{" +
             "\"id\":" + customer.getId() + "," +
-            "\"name\":\"" + escapeJson(customer.getFirstName() + " " + customer.getLastName()) + "\"," +
-            "\"email\":\"" + escapeJson(customer.getEmail()) + "\"," +
-            "\"phone\":\"" + escapeJson(customer.getPhone()) + "\"" +
+            "\"name\":\"" + JsonWriter.escape(customer.getFirstName() + " " + customer.getLastName()) + "\"," +
+            "\"email\":\"" + JsonWriter.escape(customer.getEmail()) + "\"," +
+            "\"phone\":\"" + JsonWriter.escape(customer.getPhone()) + "\"" +
             "}";
     }
     
-    private String serializeOrders(List<Order> orders) {
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < orders.size(); i++) {
-            if (i > 0) json.append(",");
-            Order o = orders.get(i);
+    private void writeOrders(JsonWriter json, List<Order> orders) throws IOException {
+        // Item counts for the whole list in one grouped query
+        List<Integer> orderIds = new ArrayList<>(orders.size());
+        for (Order o : orders) {
+            orderIds.add(o.getId());
+        }
+        Map<Integer, Integer> itemCounts = orderDAO.getItemCountsForOrders(orderIds);
+        
+        json.beginArray();
+        for (Order o : orders) {
+            Integer itemCount = itemCounts.get(o.getId());
             
             // Extract payment method from shipping address
             String paymentMethod = "Cash";
@@ -1054,19 +974,19 @@ public class StaffService {
                 }
             }
             
-            json.append("{")
-                .append("\"id\":").append(o.getId()).append(",")
-                .append("\"orderNumber\":\"").append(escapeJson(o.getOrderNumber())).append("\",")
-                .append("\"customerName\":\"").append(escapeJson(o.getCustomerName())).append("\",")
-                .append("\"customerEmail\":\"").append(escapeJson(o.getCustomerEmail())).append("\",")
-                .append("\"finalAmount\":").append(o.getFinalAmount()).append(",")
-                .append("\"status\":\"").append(escapeJson(o.getStatus())).append("\",")
-                .append("\"paymentMethod\":\"").append(escapeJson(paymentMethod)).append("\",")
-                .append("\"createdAt\":\"").append(o.getCreatedAt()).append("\"")
-                .append("}");
+            json.beginObject()
+                .field("id", o.getId())
+                .field("orderNumber", o.getOrderNumber())
+                .field("customerName", o.getCustomerName())
+                .field("customerEmail", o.getCustomerEmail())
+                .field("finalAmount", o.getFinalAmount())
+                .field("status", o.getStatus())
+                .field("paymentMethod", paymentMethod)
+                .field("itemCount", itemCount != null ? itemCount : 0)
+                .field("createdAt", o.getCreatedAt())
+                .endObject();
         }
-        json.append("]");
-        return json.toString();
+        json.endArray();
     }
     
     private String serializeOrderWithItems(Order order) {
@@ -1086,15 +1006,15 @@ public class StaffService {
         
         StringBuilder json = new StringBuilder("{");
         json.append("\"id\":").append(order.getId()).append(",")
-            .append("\"orderNumber\":\"").append(escapeJson(order.getOrderNumber())).append("\",")
-            .append("\"customerName\":\"").append(escapeJson(order.getCustomerName())).append("\",")
-            .append("\"customerEmail\":\"").append(escapeJson(order.getCustomerEmail())).append("\",")
+            .append("\"orderNumber\":\"").append(JsonWriter.escape(order.getOrderNumber())).append("\",")
+            .append("\"customerName\":\"").append(JsonWriter.escape(order.getCustomerName())).append("\",")
+            .append("\"customerEmail\":\"").append(JsonWriter.escape(order.getCustomerEmail())).append("\",")
             .append("\"subtotal\":").append(order.getTotalAmount() != null ? order.getTotalAmount() : "0").append(",")
             .append("\"discount\":").append(order.getDiscountAmount() != null ? order.getDiscountAmount() : "0").append(",")
             .append("\"finalAmount\":").append(order.getFinalAmount()).append(",")
-            .append("\"status\":\"").append(escapeJson(order.getStatus())).append("\",")
-            .append("\"paymentMethod\":\"").append(escapeJson(paymentMethod)).append("\",")
-            .append("\"notes\":\"").append(escapeJson(notes)).append("\",")
+            .append("\"status\":\"").append(JsonWriter.escape(order.getStatus())).append("\",")
+            .append("\"paymentMethod\":\"").append(JsonWriter.escape(paymentMethod)).append("\",")
+            .append("\"notes\":\"").append(JsonWriter.escape(notes)).append("\",")
             .append("\"createdAt\":\"").append(order.getCreatedAt()).append("\",")
             .append("\"orderItems\":[");
         
@@ -1105,7 +1025,7 @@ public class StaffService {
                 OrderItem item = items.get(i);
                 json.append("{")
                     .append("\"productId\":").append(item.getProductId()).append(",")
-                    .append("\"productTitle\":\"").append(escapeJson(item.getProductTitle())).append("\",")
+                    .append("\"productTitle\":\"").append(JsonWriter.escape(item.getProductTitle())).append("\",")
                     .append("\"quantity\":").append(item.getQuantity()).append(",")
                     .append("\"unitPrice\":").append(item.getUnitPrice()).append(",")
                     .append("\"totalPrice\":").append(item.getTotalPrice())
@@ -1124,31 +1044,49 @@ public class StaffService {
         out.flush();
     }
     
+    /**
+     * Stream the JSON straight to the response instead of building it in memory first
+     */
+    private void sendJsonResponse(HttpServletResponse response, JsonWriter.Body body) throws IOException {
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        JsonWriter json = new JsonWriter(response.getWriter());
+        body.write(json);
+        json.flush();
+    }
+    
     private void sendBooleanResponse(HttpServletResponse response, boolean success, String message) 
             throws IOException {
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        String json = "{\"success\":" + success + ",\"message\":\"" + escapeJson(message) + "\"}";
+        String json = "{\"success\":" + success + ",\"message\":\"" + JsonWriter.escape(message) + "\"}";
         PrintWriter out = response.getWriter();
         out.print(json);
         out.flush();
     }
     
     private void sendErrorResponse(HttpServletResponse response, String message) throws IOException {
-        response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+        sendErrorResponse(response, message, HttpServletResponse.SC_BAD_REQUEST);
+    }
+    
+    /**
+     * The password hashing pool is saturated: ask the client to come back shortly
+     */
+    private void sendBusyResponse(HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", "5");
+        sendErrorResponse(response, "The server is busy right now. Please try again in a few seconds.", HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+    
+    private void sendErrorResponse(HttpServletResponse response, String message, int status) throws IOException {
+        response.setStatus(status);
         response.setContentType("application/json");
         response.setCharacterEncoding("UTF-8");
-        String json = "{\"success\":false,\"error\":true,\"message\":\"" + escapeJson(message) + "\"}";
+        String json = "{\"success\":false,\"error\":true,\"message\":\"" + JsonWriter.escape(message) + "\"}";
         PrintWriter out = response.getWriter();
         out.print(json);
         out.flush();
     }
     
-    private String escapeJson(String str) {
-        if (str == null) return "";
-        return str.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n").replace("\r", "\\r");
-    }
-    
     private String formatCurrency(BigDecimal amount) {
         if (amount == null) return "0.00";
         return amount.setScale(2, RoundingMode.HALF_UP).toString();
@@ -1156,6 +1094,6 @@ public class StaffService {
     
     private String formatDate(java.sql.Timestamp timestamp) {
         if (timestamp == null) return "";
-        return timestamp.toLocalDateTime().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm"));
+        return timestamp.toLocalDateTime().format(DATE_FORMAT);
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Application configuration loaded from application.properties on the classpath.
+ * Any key can be overridden with a JVM system property of the same name
+ * (e.g. -Ddb.pool.maxSize=40), which is handy for per-node settings.
+ */
+public final class AppConfig {
+
+    private static final String CONFIG_FILE = "application.properties";
+    private static final Properties PROPERTIES = new Properties();
+
+    static {
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                PROPERTIES.load(in);
+            } else {
+                System.err.println("AppConfig: " + CONFIG_FILE + " not found on classpath, using defaults");
+            }
+        } catch (IOException e) {
+            System.err.println("AppConfig: Error loading " + CONFIG_FILE + " - " + e.getMessage());
+        }
+    }
+
+    private AppConfig() {
+    }
+
+    /**
+     * Get a string value, or the default when the key is missing or blank
+     */
+    public static String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = PROPERTIES.getProperty(key);
+        }
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        return value.trim();
+    }
+
+    /**
+     * Get a string value allowing an explicitly empty value (e.g. a blank password)
+     */
+    public static String getRawString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = PROPERTIES.getProperty(key);
+        }
+        return value != null ? value.trim() : defaultValue;
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("AppConfig: Invalid integer for " + key + " - " + value);
+            return defaultValue;
+        }
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("AppConfig: Invalid number for " + key + " - " + value);
+            return defaultValue;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        return value != null ? Boolean.parseBoolean(value) : defaultValue;
+    }
+}
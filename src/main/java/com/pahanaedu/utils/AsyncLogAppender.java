@@ -0,0 +1,289 @@
+package com.pahanaedu.utils;
+
+import java.io.PrintStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes log messages on one background thread.
+ *
+ * Callers claim a slot in a fixed ring of preallocated entries (a bounded multi-producer
+ * queue: one CAS on the tail, then a volatile sequence write to publish), so logging
+ * allocates nothing beyond any varargs array and never waits on the console. The writer
+ * formats and prints entries in order, flushing whenever it catches up; DEBUG and INFO go
+ * to stdout, WARN and ERROR to stderr as before.
+ *
+ * When the ring is full, log.overflow decides: "drop" (default) discards DEBUG/INFO
+ * messages and counts them, while WARN/ERROR always wait for room; "block" makes every
+ * level wait. With log.async=false, or once the writer has stopped, messages are written
+ * directly on the calling thread.
+ */
+final class AsyncLogAppender {
+
+    private static final DateTimeFormatter SECOND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final AsyncLogAppender INSTANCE = new AsyncLogAppender();
+
+    private static final class Entry {
+        // Ring position this entry may next be written at (+1 once written)
+        volatile long sequence;
+        Log.Level level;
+        String logger;
+        String thread;
+        long time;
+        String message;
+        int argCount;
+        Object arg0;
+        Object arg1;
+        Object[] args;
+    }
+
+    private final Entry[] ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // writer thread only
+
+    private final boolean dropWhenFull;
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+
+    private final PrintStream out = System.out;
+    private final PrintStream err = System.err;
+    private final StringBuilder line = new StringBuilder(256);
+    private long cachedSecond = -1;
+    private String cachedSecondText;
+
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerWaiting;
+
+    private AsyncLogAppender() {
+        int size = Integer.highestOneBit(Math.max(64, AppConfig.getInt("log.bufferSize", 8192) - 1) << 1);
+        ring = new Entry[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Entry();
+            ring[i].sequence = i;
+        }
+        mask = size - 1;
+        dropWhenFull = !"block".equalsIgnoreCase(AppConfig.getString("log.overflow", "drop"));
+
+        if (AppConfig.getBoolean("log.async", true)) {
+            running = true;
+            writer = new Thread(this::run, "async-logger");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            writer = null;
+        }
+    }
+
+    static AsyncLogAppender getInstance() {
+        return INSTANCE;
+    }
+
+    void append(Log.Level level, String logger, String message, int argCount, Object arg0, Object arg1, Object[] args) {
+        long time = System.currentTimeMillis();
+        boolean mayDrop = dropWhenFull && level.ordinal() < Log.Level.WARN.ordinal();
+
+        while (running) {
+            long position = tail.get();
+            Entry entry = ring[(int) position & mask];
+            long diff = entry.sequence - position;
+
+            if (diff == 0) {
+                if (!tail.compareAndSet(position, position + 1)) {
+                    continue;
+                }
+                entry.level = level;
+                entry.logger = logger;
+                entry.thread = Thread.currentThread().getName();
+                entry.time = time;
+                entry.message = message;
+                entry.argCount = argCount;
+                entry.arg0 = arg0;
+                entry.arg1 = arg1;
+                entry.args = args;
+                entry.sequence = position + 1;
+                if (writerWaiting) {
+                    LockSupport.unpark(writer);
+                }
+                return;
+            }
+
+            if (diff < 0) {
+                // Full: the writer hasn't freed this slot yet
+                if (mayDrop) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(WAIT_NANOS);
+            }
+            // diff > 0: another thread took this position; re-read the tail
+        }
+
+        synchronized (this) {
+            write(level, logger, Thread.currentThread().getName(), time, message, argCount, arg0, arg1, args);
+            flush();
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    void shutdown() {
+        if (writer == null || !running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            boolean wrote = drain();
+            if (wrote) {
+                continue;
+            }
+            synchronized (this) {
+                reportDropped();
+                flush();
+            }
+            if (!running) {
+                // Producers that saw running=true just before shutdown may still be publishing
+                LockSupport.parkNanos(WAIT_NANOS * 10);
+                drain();
+                synchronized (this) {
+                    flush();
+                }
+                return;
+            }
+            writerWaiting = true;
+            if (!isReady()) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            writerWaiting = false;
+        }
+    }
+
+    private boolean isReady() {
+        return ring[(int) head & mask].sequence == head + 1;
+    }
+
+    /**
+     * Write every published entry; true if there was any
+     */
+    private boolean drain() {
+        boolean wrote = false;
+        while (isReady()) {
+            Entry entry = ring[(int) head & mask];
+            synchronized (this) {
+                write(entry.level, entry.logger, entry.thread, entry.time, entry.message,
+                        entry.argCount, entry.arg0, entry.arg1, entry.args);
+            }
+            // Drop references so queued arguments can be collected
+            entry.message = null;
+            entry.arg0 = null;
+            entry.arg1 = null;
+            entry.args = null;
+            entry.sequence = head + ring.length;
+            head++;
+            wrote = true;
+        }
+        return wrote;
+    }
+
+    private void reportDropped() {
+        long total = dropped.get();
+        if (total != droppedReported) {
+            line.setLength(0);
+            appendPrefix(Log.Level.WARN, "AsyncLogAppender", Thread.currentThread().getName(), System.currentTimeMillis());
+            line.append(total - droppedReported).append(" log messages dropped (buffer full)");
+            err.println(line);
+            droppedReported = total;
+        }
+    }
+
+    private void write(Log.Level level, String logger, String thread, long time, String message,
+                       int argCount, Object arg0, Object arg1, Object[] args) {
+        line.setLength(0);
+        appendPrefix(level, logger, thread, time);
+
+        Throwable thrown = null;
+        int used = 0;
+        int from = 0;
+        if (message == null) {
+            message = "null";
+        }
+        while (used < argCount) {
+            int placeholder = message.indexOf("{}", from);
+            if (placeholder < 0) {
+                break;
+            }
+            line.append(message, from, placeholder);
+            line.append(argument(used, arg0, arg1, args));
+            used++;
+            from = placeholder + 2;
+        }
+        line.append(message, from, message.length());
+        if (used < argCount) {
+            Object last = argument(argCount - 1, arg0, arg1, args);
+            if (last instanceof Throwable) {
+                thrown = (Throwable) last;
+            }
+        }
+
+        PrintStream stream = level.ordinal() >= Log.Level.WARN.ordinal() ? err : out;
+        stream.println(line);
+        if (thrown != null) {
+            thrown.printStackTrace(stream);
+        }
+    }
+
+    private static Object argument(int index, Object arg0, Object arg1, Object[] args) {
+        if (args != null) {
+            return args[index];
+        }
+        return index == 0 ? arg0 : arg1;
+    }
+
+    private void appendPrefix(Log.Level level, String logger, String thread, long time) {
+        long second = time / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = LocalDateTime.ofInstant(Instant.ofEpochSecond(second),
+                    ZoneId.systemDefault()).format(SECOND_FORMAT);
+        }
+        int millis = (int) (time % 1000);
+        line.append(cachedSecondText).append('.');
+        if (millis < 100) {
+            line.append('0');
+        }
+        if (millis < 10) {
+            line.append('0');
+        }
+        line.append(millis).append(' ').append(level.name());
+        if (level.name().length() == 4) {
+            line.append(' ');
+        }
+        line.append(" [").append(thread).append("] ").append(logger).append(" - ");
+    }
+
+    private void flush() {
+        out.flush();
+        err.flush();
+    }
+}
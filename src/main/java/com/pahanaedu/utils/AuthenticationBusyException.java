@@ -0,0 +1,19 @@
+package com.pahanaedu.utils;
+
+/**
+ * Thrown when a password hash or check cannot be run because the authentication pool is
+ * saturated (queue full, or the work did not finish within auth.pool.timeoutMs).
+ * Callers should answer "try again shortly" rather than "wrong password".
+ */
+public class AuthenticationBusyException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AuthenticationBusyException(String message) {
+        super(message);
+    }
+
+    public AuthenticationBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
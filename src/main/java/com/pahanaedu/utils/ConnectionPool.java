@@ -0,0 +1,540 @@
+package com.pahanaedu.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool.
+ *
+ * Callers get a proxy connection; calling close() on it hands the physical
+ * connection back to the pool instead of closing it, so the usual
+ * try-with-resources pattern in the DAOs keeps working unchanged.
+ *
+ * - At most maxSize physical connections exist at any time
+ * - Borrowers wait up to connectionTimeoutMs, then get ConnectionPoolTimeoutException
+ * - Connections idle longer than validationIntervalMs are checked with isValid() on borrow
+ * - Connections are retired after maxLifetimeMs, and idle extras after idleTimeoutMs
+ * - A connection held longer than leakDetectionThresholdMs is logged with the borrower's stack
+ * - Prepared statements are cached per physical connection (see StatementCache), and any
+ *   statement or ResultSet the caller forgot to close is closed when the connection is returned
+ */
+public class ConnectionPool {
+    private static final Log LOG = Log.get(ConnectionPool.class);
+
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final long connectionTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long idleTimeoutMs;
+    private final long validationIntervalMs;
+    private final int validationTimeoutSeconds;
+    private final long leakDetectionThresholdMs;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final AtomicInteger waitingThreads = new AtomicInteger();
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong closedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final LatencyHistogram borrowLatency = new LatencyHistogram();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    public ConnectionPool(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+
+        this.maxSize = Math.max(1, AppConfig.getInt("db.pool.maxSize", 20));
+        this.minIdle = Math.min(maxSize, Math.max(0, AppConfig.getInt("db.pool.minIdle", 2)));
+        this.connectionTimeoutMs = AppConfig.getLong("db.pool.connectionTimeoutMs", 5_000L);
+        this.maxLifetimeMs = AppConfig.getLong("db.pool.maxLifetimeMs", 1_800_000L);
+        this.idleTimeoutMs = AppConfig.getLong("db.pool.idleTimeoutMs", 600_000L);
+        this.validationIntervalMs = AppConfig.getLong("db.pool.validationIntervalMs", 5_000L);
+        this.validationTimeoutSeconds = AppConfig.getInt("db.pool.validationTimeoutSeconds", 2);
+        this.leakDetectionThresholdMs = AppConfig.getLong("db.pool.leakDetectionThresholdMs", 30_000L);
+        this.statementCacheSize = AppConfig.getInt("db.pool.statementCacheSize", 64);
+
+        this.permits = new Semaphore(maxSize, true);
+
+        long period = Math.max(1_000L, AppConfig.getLong("db.pool.housekeepingPeriodMs", 30_000L));
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+
+        LOG.info("Started (maxSize={}, minIdle={}, timeout={}ms)", maxSize, minIdle, connectionTimeoutMs);
+    }
+
+    /**
+     * Borrow a connection, waiting up to the configured timeout
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool has been shut down", "08003");
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+
+        waitingThreads.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+        } finally {
+            waitingThreads.decrementAndGet();
+        }
+
+        if (!acquired) {
+            throw timeout(start);
+        }
+
+        try {
+            PooledEntry entry = takeEntry(deadline, start);
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.borrowStack = leakDetectionThresholdMs > 0
+                    ? new Throwable("Connection borrowed by thread " + Thread.currentThread().getName())
+                    : null;
+            entry.leakReported = false;
+            borrowed.add(entry);
+
+            borrowCount.incrementAndGet();
+            borrowLatency.recordNanos(System.nanoTime() - start);
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Close every idle connection and stop the housekeeper.
+     * Borrowed connections are closed as they are returned.
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closePhysical(entry);
+        }
+        LOG.info("Shut down ({} connections still borrowed)", borrowed.size());
+    }
+
+    // ==============================================================================================
+    // METRICS
+    // ==============================================================================================
+
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getTotalCount() {
+        return totalConnections.get();
+    }
+
+    public int getWaitingCount() {
+        return waitingThreads.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getClosedCount() {
+        return closedCount.get();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailureCount.get();
+    }
+
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    public LatencyHistogram getBorrowLatency() {
+        return borrowLatency;
+    }
+
+    // ==============================================================================================
+    // INTERNALS
+    // ==============================================================================================
+
+    /**
+     * Take a healthy idle connection or open a new one. Caller already holds a permit.
+     */
+    private PooledEntry takeEntry(long deadline, long start) throws SQLException {
+        while (true) {
+            PooledEntry entry = idle.pollFirst();
+
+            if (entry == null) {
+                if (reserveSlot()) {
+                    return openEntry();
+                }
+                // Pool is at capacity but a connection is on its way back
+                long remaining = deadline - System.nanoTime();
+                try {
+                    entry = remaining > 0 ? idle.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", "08001", e);
+                }
+                if (entry == null) {
+                    throw timeout(start);
+                }
+            }
+
+            if (isExpired(entry)) {
+                closePhysical(entry);
+                continue;
+            }
+
+            if (!isHealthy(entry)) {
+                validationFailureCount.incrementAndGet();
+                closePhysical(entry);
+                continue;
+            }
+
+            return entry;
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Open a physical connection for an already reserved slot
+     */
+    private PooledEntry openEntry() throws SQLException {
+        try {
+            Connection physical = DriverManager.getConnection(url, username, password);
+            createdCount.incrementAndGet();
+            return new PooledEntry(physical);
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isExpired(PooledEntry entry) {
+        return maxLifetimeMs > 0 && System.currentTimeMillis() - entry.createdAt > maxLifetimeMs;
+    }
+
+    private boolean isHealthy(PooledEntry entry) {
+        if (System.currentTimeMillis() - entry.lastUsedAt < validationIntervalMs) {
+            return true;
+        }
+        try {
+            return entry.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Called by the handle when the application closes its connection
+     */
+    void release(PooledEntry entry) {
+        borrowed.remove(entry);
+        entry.borrowStack = null;
+        entry.lastUsedAt = System.currentTimeMillis();
+
+        try {
+            if (shutdown || entry.broken || isExpired(entry) || !resetState(entry)) {
+                closePhysical(entry);
+            } else {
+                idle.offerFirst(entry);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Undo anything the borrower left behind so the next borrower gets a clean connection
+     */
+    private boolean resetState(PooledEntry entry) {
+        try {
+            if (!entry.physical.getAutoCommit()) {
+                entry.physical.rollback();
+                entry.physical.setAutoCommit(true);
+            }
+            if (entry.physical.isReadOnly()) {
+                entry.physical.setReadOnly(false);
+            }
+            entry.physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            LOG.warn("Discarding connection that failed reset - {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void closePhysical(PooledEntry entry) {
+        try {
+            entry.statementCache.closeAll();
+            entry.physical.close();
+        } catch (SQLException e) {
+            LOG.error("Error closing connection - {}", e.getMessage());
+        } finally {
+            totalConnections.decrementAndGet();
+            closedCount.incrementAndGet();
+        }
+    }
+
+    private ConnectionPoolTimeoutException timeout(long start) {
+        timeoutCount.incrementAndGet();
+        long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ConnectionPoolTimeoutException("No database connection available after " + waited
+                + "ms (active=" + borrowed.size() + ", max=" + maxSize
+                + ", waiting=" + waitingThreads.get() + ")", waited);
+    }
+
+    /**
+     * Periodic maintenance: leak reports, retirement of old/idle connections, and min-idle top-up
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+
+            if (leakDetectionThresholdMs > 0) {
+                for (PooledEntry entry : borrowed) {
+                    Throwable stack = entry.borrowStack;
+                    if (!entry.leakReported && stack != null && now - entry.borrowedAt > leakDetectionThresholdMs) {
+                        entry.leakReported = true;
+                        leakCount.incrementAndGet();
+                        LOG.warn("Possible connection leak - held for {}ms", now - entry.borrowedAt, stack);
+                    }
+                }
+            }
+
+            List<PooledEntry> snapshot = new ArrayList<>(idle);
+            int idleCount = snapshot.size();
+            for (PooledEntry entry : snapshot) {
+                boolean idleTooLong = idleTimeoutMs > 0 && idleCount > minIdle && now - entry.lastUsedAt > idleTimeoutMs;
+                if ((isExpired(entry) || idleTooLong) && idle.remove(entry)) {
+                    closePhysical(entry);
+                    idleCount--;
+                }
+            }
+
+            while (!shutdown && idle.size() < minIdle && reserveSlot()) {
+                try {
+                    idle.offerLast(openEntry());
+                } catch (SQLException e) {
+                    LOG.error("Could not top up idle connections - {}", e.getMessage());
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Housekeeping failed - {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One physical connection and its bookkeeping
+     */
+    final class PooledEntry {
+        final Connection physical;
+        final StatementCache statementCache;
+        final long createdAt;
+        volatile long lastUsedAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowStack;
+        volatile boolean leakReported;
+        volatile boolean broken;
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statementCache = new StatementCache(physical, statementCacheSize);
+            this.createdAt = System.currentTimeMillis();
+            this.lastUsedAt = createdAt;
+        }
+
+        Connection newHandle() {
+            ConnectionHandle handle = new ConnectionHandle(this);
+            handle.proxy = (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[] { Connection.class },
+                    handle);
+            return handle.proxy;
+        }
+    }
+
+    /**
+     * The application-facing side of a borrowed connection. Each borrow gets a fresh
+     * handle, so a stale reference kept after close() cannot touch the next borrower's work.
+     * Statements created through the handle are tracked and closed when the connection is.
+     */
+    private final class ConnectionHandle implements InvocationHandler, StatementHandle.Owner {
+        private final PooledEntry entry;
+        private final List<StatementHandle> openStatements = new ArrayList<>(4);
+        private Connection proxy;
+        private boolean closed = false;
+
+        ConnectionHandle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close":
+                    if (!closed) {
+                        closeOpenStatements();
+                        closed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + (closed ? ", closed" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (closed) {
+                throw new SQLException("Connection has already been returned to the pool", "08003");
+            }
+
+            try {
+                if ("prepareStatement".equals(name) && isCacheable(args)) {
+                    String sql = (String) args[0];
+                    int keys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                    PreparedStatement cached = entry.statementCache.borrow(sql, keys);
+                    if (cached != null) {
+                        return track(cached, sql, entry.statementCache);
+                    }
+                }
+
+                Object result = method.invoke(entry.physical, args);
+                if (result instanceof Statement) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                    return track((Statement) result, sql, null);
+                }
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    connectionError((SQLException) cause);
+                }
+                throw cause;
+            } catch (SQLException e) {
+                connectionError(e);
+                throw e;
+            }
+        }
+
+        /**
+         * Only the plain prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys) forms are cached
+         */
+        private boolean isCacheable(Object[] args) {
+            if (args == null || args.length == 0 || !(args[0] instanceof String)) {
+                return false;
+            }
+            return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+        }
+
+        private Object track(Statement statement, String sql, StatementCache cache) {
+            StatementHandle handle = StatementHandle.wrap(statement, sql, cache, this);
+            openStatements.add(handle);
+            return handle.proxy();
+        }
+
+        private void closeOpenStatements() {
+            // Copy first: closing a statement removes it from the list
+            for (StatementHandle handle : new ArrayList<>(openStatements)) {
+                handle.close();
+            }
+            openStatements.clear();
+        }
+
+        @Override
+        public Connection proxy() {
+            return proxy;
+        }
+
+        @Override
+        public void statementClosed(StatementHandle handle) {
+            openStatements.remove(handle);
+        }
+
+        @Override
+        public void connectionError(SQLException e) {
+            String state = e.getSQLState();
+            // Class 08 = connection exception; don't hand this connection out again
+            if (state != null && state.startsWith("08")) {
+                entry.broken = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.pahanaedu.utils;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Thrown when no pooled connection becomes available within the configured wait timeout.
+ * It is a SQLException, so existing DAO catch blocks handle it without changes,
+ * but callers that care can tell "database busy" apart from real SQL errors.
+ */
+public class ConnectionPoolTimeoutException extends SQLTransientConnectionException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long waitedMillis;
+
+    public ConnectionPoolTimeoutException(String message, long waitedMillis) {
+        super(message, "08001");
+        this.waitedMillis = waitedMillis;
+    }
+
+    public long getWaitedMillis() {
+        return waitedMillis;
+    }
+}
@@ -1,40 +1,66 @@
 package com.pahanaedu.utils;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
-    
-    // Database connection details - Change these according to your setup
-    private static final String URL = "jdbc:mysql://localhost:3306/pahana-db";
-    private static final String USERNAME = "root"; // Change to your MySQL username
-    private static final String PASSWORD = ""; // Change to your MySQL password
-    
+    private static final Log LOG = Log.get(DatabaseConnection.class);
+
+    // Database connection details - configured in application.properties (db.*)
+    private static final String DRIVER = AppConfig.getString("db.driver", "com.mysql.cj.jdbc.Driver");
+    private static final String URL = AppConfig.getString("db.url", "jdbc:mysql://localhost:3306/pahana-db");
+    private static final String USERNAME = AppConfig.getString("db.username", "root");
+    private static final String PASSWORD = AppConfig.getRawString("db.password", "");
+
+    private static volatile ConnectionPool pool = null;
+
     static {
         try {
             // Load MySQL JDBC driver
-            Class.forName("com.mysql.cj.jdbc.Driver");
+            Class.forName(DRIVER);
         } catch (ClassNotFoundException e) {
-            System.err.println("MySQL JDBC Driver not found!");
-            e.printStackTrace();
+            LOG.error("MySQL JDBC Driver not found!", e);
         }
     }
-    
+
     /**
-     * Get database connection
+     * Get database connection from the pool.
+     * Closing the returned connection hands it back to the pool.
      * @return Connection object
+     * @throws ConnectionPoolTimeoutException if no connection frees up within db.pool.connectionTimeoutMs
+     * @throws SQLException if a new connection cannot be opened
      */
-    public static Connection getConnection() {
-        try {
-            return DriverManager.getConnection(URL, USERNAME, PASSWORD);
-        } catch (SQLException e) {
-            System.err.println("Database connection failed!");
-            e.printStackTrace();
-            return null;
+    public static Connection getConnection() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    /**
+     * Get the shared connection pool (created on first use)
+     */
+    public static ConnectionPool getPool() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            synchronized (DatabaseConnection.class) {
+                current = pool;
+                if (current == null) {
+                    current = new ConnectionPool(URL, USERNAME, PASSWORD);
+                    pool = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Shut down the pool (called when the application is undeployed)
+     */
+    public static synchronized void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
         }
     }
-    
+
     /**
      * Close database connection
      * @param connection Connection to close
@@ -44,9 +70,8 @@ public class DatabaseConnection {
             try {
                 connection.close();
             } catch (SQLException e) {
-                System.err.println("Error closing connection!");
-                e.printStackTrace();
+                LOG.error("Error closing connection!", e);
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,205 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends a file from disk as an HTTP response, with the validation and partial-content
+ * handling the container's default servlet would give a static file.
+ *
+ * - ETag / If-None-Match and Last-Modified / If-Modified-Since answer repeat requests
+ *   with a bodiless 304
+ * - a single "Range: bytes=..." gives 206 (honouring If-Range); multi-range requests
+ *   get the whole file, which HTTP allows
+ * - the body goes out through Tomcat's sendfile when the connector offers it, which is
+ *   zero-copy; otherwise FileChannel.transferTo writes it to the servlet output stream,
+ *   which copies it through a buffer on the heap
+ */
+public final class FileSender {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileSender() {
+    }
+
+    /**
+     * @param etag         quoted entity tag, or null to derive one from size and modification time
+     * @param cacheControl Cache-Control value, or null to leave it unset
+     * @param includeBody  false for HEAD requests
+     */
+    public static void send(HttpServletRequest request, HttpServletResponse response, Path file,
+                            String contentType, String cacheControl, String etag,
+                            boolean includeBody) throws IOException {
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (etag == null) {
+            etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+        }
+
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Accept-Ranges", "bytes");
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+
+        if (isNotModified(request, etag, lastModified)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader("Range");
+        if (range != null && length > 0 && isRangeCurrent(request, etag, lastModified)) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == null) {
+                response.setHeader("Content-Range", "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds.length == 2) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(contentType);
+        response.setHeader("Content-Length", Long.toString(count));
+        if (!includeBody || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // The connector writes the file straight to the socket once the servlet returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, Long.valueOf(start));
+            request.setAttribute(SENDFILE_END, Long.valueOf(end + 1));
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break; // file shrank underneath us
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matchesAny(ifNoneMatch, etag);
+        }
+        long ifModifiedSince = dateHeader(request, "If-Modified-Since");
+        // HTTP dates have whole-second precision
+        return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    /**
+     * If-Range: only honour the Range if the client's copy is still the current one
+     */
+    private static boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        long date = dateHeader(request, "If-Range");
+        return date >= 0 && lastModified / 1000 <= date / 1000;
+    }
+
+    private static boolean matchesAny(String header, String etag) {
+        for (String candidate : header.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long dateHeader(HttpServletRequest request, String name) {
+        try {
+            return request.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return {start, end} (inclusive) for a single satisfiable range, an empty array if
+     *         the header should be ignored (malformed or several ranges), or null if
+     *         the range lies beyond the end of the file
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return new long[0];
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return new long[0];
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            long start;
+            long end;
+            if (first.isEmpty()) {
+                // Suffix range: the last N bytes
+                if (last.isEmpty()) {
+                    return new long[0];
+                }
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return null;
+                }
+                start = Math.max(0, length - suffix);
+                end = length - 1;
+            } else {
+                start = Long.parseLong(first);
+                end = last.isEmpty() ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+                if (end < start) {
+                    return start >= length ? null : new long[0];
+                }
+            }
+            if (start >= length) {
+                return null;
+            }
+            return new long[] {start, end};
+        } catch (NumberFormatException e) {
+            return new long[0];
+        }
+    }
+}
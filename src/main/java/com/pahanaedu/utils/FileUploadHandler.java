@@ -2,99 +2,104 @@ package com.pahanaedu.utils;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.InputStream;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
-import java.util.UUID;
 import javax.servlet.http.Part;
 
+
 /**
- * Enhanced utility class for handling file uploads - Dual Storage System
- * Saves images to both project source (persistent) and server deployment (immediate access)
+ * Utility class for handling product image uploads
+ *
+ * Uploads go to the configured ImageStorage (upload.storage) in a single streaming pass:
+ * the multipart Part is read once, hashed on the way to disk and stored under its
+ * SHA-256, so identical images are kept once. Because of that sharing, images are never
+ * deleted while handling a request; ImageSweeper removes them once no product has
+ * referred to them for image.gc.graceMs.
  */
 public class FileUploadHandler {
+    private static final Log LOG = Log.get(FileUploadHandler.class);
     
     private static final String UPLOAD_DIR = "uploads/products/";
     private static final String[] ALLOWED_EXTENSIONS = {".jpg", ".jpeg", ".png", ".gif", ".webp"};
     private static final long MAX_FILE_SIZE = 5 * 1024 * 1024; // 5MB
     
+    private static ImageStorage storage;
+    
+    /**
+     * Set up image storage; called once at startup with the webapp's real path
+     * (null when the application runs from an unexploded WAR)
+     */
+    public static synchronized void configure(String webAppPath) {
+        storage = createStorage(webAppPath);
+    }
+    
+    /**
+     * The configured image storage
+     */
+    public static synchronized ImageStorage getStorage() {
+        if (storage == null) {
+            storage = createStorage(null);
+        }
+        return storage;
+    }
+    
+    private static ImageStorage createStorage(String webAppPath) {
+        String type = AppConfig.getString("upload.storage", "local");
+        
+        if (!"local".equalsIgnoreCase(type)) {
+            try {
+                ImageStorage custom = (ImageStorage) Class.forName(type).getDeclaredConstructor().newInstance();
+                LOG.info("Using image storage {}", type);
+                return custom;
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                LOG.warn("Cannot create image storage {}, falling back to local - {}", type, e.getMessage());
+            }
+        }
+        
+        String storeDir = AppConfig.getString("upload.storeDir", "");
+        if (storeDir.isEmpty()) {
+            storeDir = getDeploymentUploadPath(webAppPath);
+        }
+        
+        try {
+            LocalImageStorage local = new LocalImageStorage(Paths.get(storeDir), UPLOAD_DIR);
+            LOG.info("Storing images in {}", local.getRoot());
+            return local;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create image store at " + storeDir, e);
+        }
+    }
+    
     /**
-     * Upload product image to both project source and deployment directories
+     * Store an uploaded product image
+     * @return the image path to save with the product, or null if no file was sent
      */
-    public static String uploadProductImage(Part filePart, String webAppPath) throws IOException {
+    public static String uploadProductImage(Part filePart) throws IOException {
         if (filePart == null || filePart.getSize() == 0) {
             return null;
         }
         
-        // Validate file size
-        if (filePart.getSize() > MAX_FILE_SIZE) {
-            throw new IOException("File size exceeds maximum limit of 5MB");
-        }
+        validateImageFile(filePart);
         
-        // Get original filename
         String originalFileName = getFileName(filePart);
         if (originalFileName == null || originalFileName.isEmpty()) {
             throw new IOException("Invalid file name");
         }
-        
-        // Validate file extension
         String extension = getFileExtension(originalFileName).toLowerCase();
-        if (!isValidExtension(extension)) {
-            throw new IOException("Invalid file type. Only JPG, PNG, GIF, and WEBP files are allowed");
-        }
-        
-        // Generate unique filename
-        String uniqueFileName = generateUniqueFileName(extension);
-        
-        // Get both upload paths
-        String projectUploadPath = getProjectUploadPath();
-        String deploymentUploadPath = getDeploymentUploadPath(webAppPath);
-        
-        // Create upload directories if they don't exist
-        createDirectoryIfNotExists(projectUploadPath);
-        createDirectoryIfNotExists(deploymentUploadPath);
         
-        // Debug information
-        System.out.println("=== DUAL STORAGE FILE UPLOAD DEBUG ===");
-        System.out.println("Original filename: " + originalFileName);
-        System.out.println("Generated filename: " + uniqueFileName);
-        System.out.println("Project upload path: " + projectUploadPath);
-        System.out.println("Deployment upload path: " + deploymentUploadPath);
-        
-        // Save file to project source directory first (persistent storage)
-        Path projectFilePath = Paths.get(projectUploadPath + uniqueFileName);
-        Files.copy(filePart.getInputStream(), projectFilePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Also save to deployment directory (immediate access)
-        Path deploymentFilePath = Paths.get(deploymentUploadPath + uniqueFileName);
-        Files.copy(Files.newInputStream(projectFilePath), deploymentFilePath, StandardCopyOption.REPLACE_EXISTING);
-        
-        // Verify both files were saved
-        File projectFile = new File(projectFilePath.toString());
-        File deploymentFile = new File(deploymentFilePath.toString());
-        
-        System.out.println("Project file saved: " + projectFile.exists() + " (Size: " + projectFile.length() + " bytes)");
-        System.out.println("Deployment file saved: " + deploymentFile.exists() + " (Size: " + deploymentFile.length() + " bytes)");
-        System.out.println("Project file path: " + projectFilePath.toString());
-        System.out.println("Deployment file path: " + deploymentFilePath.toString());
+        String imagePath;
+        try (InputStream content = filePart.getInputStream()) {
+            imagePath = getStorage().store(content, extension, MAX_FILE_SIZE);
+        } finally {
+            // Drop the container's temp copy now rather than at the end of the request
+            filePart.delete();
+        }
         
-        // Return relative path for database storage
-        return UPLOAD_DIR + uniqueFileName;
-    }
-    
-    /**
-     * Get project source upload path (persistent storage)
-     */
-    private static String getProjectUploadPath() {
-        // Direct path to your project's webapp directory
-        String projectPath = "C:" + File.separator + "Users" + File.separator + 
-                           "Chama Computers" + File.separator + "eclipse-workspace" + 
-                           File.separator + "assigment-pahanaedu" + File.separator + 
-                           "src" + File.separator + "main" + File.separator + 
-                           "webapp" + File.separator + UPLOAD_DIR.replace("/", File.separator);
+        LOG.info("Stored {} ({} bytes) as {}", originalFileName, filePart.getSize(), imagePath);
         
-        return projectPath;
+        // Thumbnails and listing sizes are made in the background
+        ImageDerivatives.getInstance().generateAll(imagePath);
+        return imagePath;
     }
     
     /**
@@ -114,84 +119,6 @@ public class FileUploadHandler {
         }
     }
     
-    /**
-     * Create directory if it doesn't exist
-     */
-    private static void createDirectoryIfNotExists(String directoryPath) {
-        File directory = new File(directoryPath);
-        if (!directory.exists()) {
-            boolean created = directory.mkdirs();
-            System.out.println("Directory created: " + created + " at " + directoryPath);
-        }
-    }
-    
-    /**
-     * Delete product image from both locations
-     */
-    public static boolean deleteProductImage(String imagePath, String webAppPath) {
-        if (imagePath == null || imagePath.isEmpty()) {
-            return true;
-        }
-        
-        try {
-            String fileName = imagePath.substring(imagePath.lastIndexOf('/') + 1);
-            
-            // Delete from project source
-            String projectPath = getProjectUploadPath() + fileName;
-            Path projectFilePath = Paths.get(projectPath);
-            boolean projectDeleted = Files.deleteIfExists(projectFilePath);
-            
-            // Delete from deployment
-            String deploymentPath = getDeploymentUploadPath(webAppPath) + fileName;
-            Path deploymentFilePath = Paths.get(deploymentPath);
-            boolean deploymentDeleted = Files.deleteIfExists(deploymentFilePath);
-            
-            System.out.println("Project file deleted: " + projectDeleted + " from " + projectPath);
-            System.out.println("Deployment file deleted: " + deploymentDeleted + " from " + deploymentPath);
-            
-            return projectDeleted || deploymentDeleted;
-            
-        } catch (IOException e) {
-            System.err.println("Error deleting image: " + e.getMessage());
-            return false;
-        }
-    }
-    
-    /**
-     * Sync project files to deployment directory
-     * Call this during server startup to ensure all images are available
-     */
-    public static void syncProjectFilesToDeployment(String webAppPath) {
-        try {
-            String projectUploadPath = getProjectUploadPath();
-            String deploymentUploadPath = getDeploymentUploadPath(webAppPath);
-            
-            File projectDir = new File(projectUploadPath);
-            if (!projectDir.exists()) {
-                System.out.println("Project upload directory doesn't exist: " + projectUploadPath);
-                return;
-            }
-            
-            createDirectoryIfNotExists(deploymentUploadPath);
-            
-            File[] projectFiles = projectDir.listFiles();
-            if (projectFiles != null) {
-                int syncedCount = 0;
-                for (File projectFile : projectFiles) {
-                    if (projectFile.isFile()) {
-                        Path deploymentFilePath = Paths.get(deploymentUploadPath + projectFile.getName());
-                        Files.copy(projectFile.toPath(), deploymentFilePath, StandardCopyOption.REPLACE_EXISTING);
-                        syncedCount++;
-                    }
-                }
-                System.out.println("Synced " + syncedCount + " files from project to deployment directory");
-            }
-            
-        } catch (IOException e) {
-            System.err.println("Error syncing files: " + e.getMessage());
-        }
-    }
-    
     /**
      * Get filename from Part
      */
@@ -230,13 +157,6 @@ public class FileUploadHandler {
         return false;
     }
     
-    /**
-     * Generate unique filename
-     */
-    private static String generateUniqueFileName(String extension) {
-        return "product_" + UUID.randomUUID().toString() + extension;
-    }
-    
     /**
      * Validate image file
      */
@@ -258,6 +178,24 @@ public class FileUploadHandler {
         }
     }
     
+    /**
+     * True for names given by the content-addressed store (SHA-256 hex plus extension),
+     * whose content can never change
+     */
+    public static boolean isContentHashedName(String fileName) {
+        int dot = fileName.indexOf('.');
+        if (dot != 64) {
+            return false;
+        }
+        for (int i = 0; i < dot; i++) {
+            char c = fileName.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
     /**
      * Get upload directory
      */
@@ -0,0 +1,559 @@
+package com.pahanaedu.utils;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Resized copies of product images (thumb, grid and detail sizes) so listings don't
+ * download full-size uploads.
+ *
+ * After an upload, every size is generated on a small background pool. A size that is
+ * still missing when requested (older images, a full queue, a cleared cache) is generated
+ * on the spot, and concurrent requests for the same file share one generation.
+ * JPEG sources give JPEG copies, everything else PNG; if an ImageIO WebP plugin is
+ * installed, WebP copies are made as well and served to browsers that accept them.
+ *
+ * Copies live under image.derivedDir as &lt;size&gt;/&lt;original file name&gt; and are
+ * kept within image.derived.maxBytes by dropping the least recently used ones.
+ */
+public class ImageDerivatives {
+    private static final Log LOG = Log.get(ImageDerivatives.class);
+
+    /**
+     * Sizes are the longest edge in pixels; images are never enlarged
+     */
+    public enum Size {
+        THUMB("thumb", 160), GRID("grid", 400), DETAIL("detail", 900);
+
+        private final String name;
+        private final int maxEdge;
+
+        Size(String name, int maxEdge) {
+            this.name = name;
+            this.maxEdge = AppConfig.getInt("image.size." + name, maxEdge);
+        }
+
+        public String getName() { return name; }
+
+        public int getMaxEdge() { return maxEdge; }
+
+        public static Size fromName(String name) {
+            for (Size size : values()) {
+                if (size.name.equals(name)) {
+                    return size;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static ImageDerivatives instance = null;
+
+    private static final String URL_PREFIX = "images/";
+    private static final String WEBP_SUFFIX = ".webp";
+    private static final String TEMP_DIR = ".incoming";
+    private static final float JPEG_QUALITY = 0.82f;
+
+    private final ImageStorage storage;
+    private final String uploadPrefix;
+    private final Path root;
+    private final Path tempDir;
+    private final long maxBytes;
+    private final long maxSourcePixels;
+    private final long requestTimeoutMs;
+    private final boolean webpSupported;
+    private final ThreadPoolExecutor worker;
+
+    // Generations in progress, so a file is only ever produced once at a time
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    // Every cached file and its size, least recently used first
+    private final LinkedHashMap<Path, Long> lru = new LinkedHashMap<>(1024, 0.75f, true);
+    private long cachedBytes;
+
+    private ImageDerivatives(ImageStorage storage, String uploadPrefix, Path root) throws IOException {
+        this.storage = storage;
+        this.uploadPrefix = uploadPrefix;
+        this.root = root.toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve(TEMP_DIR);
+        this.maxBytes = AppConfig.getLong("image.derived.maxBytes", 512L * 1024 * 1024);
+        this.maxSourcePixels = AppConfig.getLong("image.maxSourcePixels", 50_000_000L);
+        this.requestTimeoutMs = AppConfig.getLong("image.derived.requestTimeoutMs", 10_000L);
+        this.webpSupported = ImageIO.getImageWritersByFormatName("webp").hasNext();
+
+        Files.createDirectories(tempDir);
+        for (Size size : Size.values()) {
+            Files.createDirectories(this.root.resolve(size.getName()));
+        }
+
+        int threads = Math.max(1, AppConfig.getInt("image.derived.threads", 1));
+        int queueSize = Math.max(1, AppConfig.getInt("image.derived.queueSize", 256));
+        // Dropped jobs are not lost: the copies are made on first request instead
+        this.worker = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueSize), runnable -> {
+                    Thread thread = new Thread(runnable, "image-derivatives");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+
+        // Decoding streams are small; keep ImageIO from spilling them to temp files
+        ImageIO.setUseCache(false);
+    }
+
+    /**
+     * Set up derivatives for the given image storage; called once at startup
+     */
+    public static synchronized void configure(ImageStorage storage, String uploadPrefix) {
+        String configured = AppConfig.getString("image.derivedDir", "");
+        Path derivedDir;
+        if (!configured.isEmpty()) {
+            derivedDir = Paths.get(configured);
+        } else if (storage instanceof LocalImageStorage) {
+            // uploads/products -> uploads/derived
+            derivedDir = ((LocalImageStorage) storage).getRoot().resolveSibling("derived");
+        } else {
+            derivedDir = Paths.get(System.getProperty("java.io.tmpdir"), "pahana-derived");
+        }
+
+        try {
+            instance = new ImageDerivatives(storage, uploadPrefix, derivedDir);
+            instance.worker.execute(instance::indexCache);
+            LOG.info("Caching resized images in {} (WebP {})",
+                    instance.root, instance.webpSupported ? "enabled" : "not available");
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create derived image directory " + derivedDir, e);
+        }
+    }
+
+    /**
+     * Get singleton instance
+     */
+    public static synchronized ImageDerivatives getInstance() {
+        if (instance == null) {
+            configure(FileUploadHandler.getStorage(), FileUploadHandler.getUploadDirectory());
+        }
+        return instance;
+    }
+
+    /**
+     * Path of a resized copy, for product JSON. Images that are not uploads (e.g. external
+     * URLs) are returned unchanged.
+     */
+    public static String pathFor(String imagePath, Size size) {
+        String fileName = uploadedFileName(imagePath);
+        return fileName != null ? URL_PREFIX + size.getName() + "/" + fileName : imagePath;
+    }
+
+    public boolean isWebpSupported() {
+        return webpSupported;
+    }
+
+    /**
+     * Queue every size of a newly stored image
+     */
+    public void generateAll(String imagePath) {
+        String fileName = uploadedFileName(imagePath);
+        if (fileName == null) {
+            return;
+        }
+        worker.execute(() -> {
+            for (Size size : Size.values()) {
+                try {
+                    get(fileName, size, false);
+                    if (webpSupported) {
+                        get(fileName, size, true);
+                    }
+                } catch (IOException e) {
+                    LOG.error("Could not resize {} - {}", fileName, e.getMessage());
+                    return;
+                }
+            }
+        });
+    }
+
+    /**
+     * A resized copy of an uploaded image, made now if it doesn't exist yet
+     *
+     * @return the file, or null if there is no such upload
+     * @throws IOException if the image could not be read or resized
+     */
+    public Path get(String fileName, Size size, boolean webp) throws IOException {
+        if (!isSafeName(fileName) || (webp && !webpSupported)) {
+            return null;
+        }
+        Path target = root.resolve(size.getName()).resolve(webp ? fileName + WEBP_SUFFIX : fileName);
+
+        if (Files.isRegularFile(target)) {
+            touch(target);
+            return target;
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inFlight.putIfAbsent(target, mine);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            Path result = generate(fileName, size, webp, target);
+            mine.complete(result);
+            return result;
+        } catch (IOException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(target, mine);
+        }
+    }
+
+    /**
+     * Content type of a copy returned by get()
+     */
+    public static String contentType(Path derived) {
+        String name = derived.getFileName().toString();
+        if (name.endsWith(WEBP_SUFFIX)) {
+            return "image/webp";
+        }
+        return isJpeg(name) ? "image/jpeg" : "image/png";
+    }
+
+    /**
+     * Drop every copy of an image (after the original is deleted)
+     */
+    public void remove(String imagePath) {
+        String fileName = uploadedFileName(imagePath);
+        if (fileName == null) {
+            return;
+        }
+        for (Size size : Size.values()) {
+            Path dir = root.resolve(size.getName());
+            evict(dir.resolve(fileName));
+            evict(dir.resolve(fileName + WEBP_SUFFIX));
+        }
+    }
+
+    public int getCachedCount() {
+        synchronized (lru) {
+            return lru.size();
+        }
+    }
+
+    public long getCachedBytes() {
+        synchronized (lru) {
+            return cachedBytes;
+        }
+    }
+
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+
+    // ==============================================================================================
+    // RESIZING
+    // ==============================================================================================
+
+    private Path generate(String fileName, Size size, boolean webp, Path target) throws IOException {
+        BufferedImage source;
+        try (InputStream in = storage.open(uploadPrefix + fileName)) {
+            source = read(in, size.getMaxEdge());
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+
+        boolean jpeg = !webp && isJpeg(fileName);
+        BufferedImage scaled = scale(source, size.getMaxEdge(), jpeg);
+
+        Path temp = Files.createTempFile(tempDir, "derived-", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                write(scaled, webp ? "webp" : jpeg ? "jpeg" : "png", out);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        add(target, Files.size(target));
+        return target;
+    }
+
+    /**
+     * Decode an image, skipping pixels the target size won't need
+     */
+    private BufferedImage read(InputStream in, int maxEdge) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > maxSourcePixels) {
+                    throw new IOException("Image too large (" + width + "x" + height + ")");
+                }
+
+                // Keep at least twice the target resolution for a smooth final downscale
+                int subsampling = Math.max(1, Math.max(width, height) / (maxEdge * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Halve repeatedly, then do a final bilinear step; cheap and without the aliasing
+     * of a single large bilinear reduction
+     */
+    private static BufferedImage scale(BufferedImage source, int maxEdge, boolean opaque) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double ratio = Math.min(1.0, (double) maxEdge / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * ratio));
+        int targetHeight = Math.max(1, (int) Math.round(height * ratio));
+        int type = opaque ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+
+        BufferedImage current = source;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (opaque) {
+                    // JPEG has no alpha: flatten transparency onto white
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private static void write(BufferedImage image, String format, OutputStream out) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName(format);
+        if (!writers.hasNext()) {
+            throw new IOException("No " + format + " encoder");
+        }
+        ImageWriter writer = writers.next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if ("jpeg".equals(format)) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // ==============================================================================================
+    // DISK CACHE
+    // ==============================================================================================
+
+    /**
+     * Pick up copies left by earlier runs, oldest first, so they are evicted first
+     */
+    private void indexCache() {
+        List<Path> files = new ArrayList<>();
+        for (Size size : Size.values()) {
+            try (DirectoryStream<Path> dir = Files.newDirectoryStream(root.resolve(size.getName()))) {
+                for (Path file : dir) {
+                    files.add(file);
+                }
+            } catch (IOException e) {
+                LOG.error("Cannot list {} copies - {}", size.getName(), e.getMessage());
+            }
+        }
+
+        Map<Path, Long> modified = new HashMap<>();
+        Map<Path, Long> sizes = new HashMap<>();
+        for (Path file : files) {
+            try {
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+                sizes.put(file, Files.size(file));
+            } catch (IOException e) {
+                // Removed meanwhile
+            }
+        }
+        files.removeIf(file -> !sizes.containsKey(file));
+        files.sort((a, b) -> Long.compare(modified.get(a), modified.get(b)));
+
+        synchronized (lru) {
+            // Files already used in this run were added by touch()/add() and count as recent
+            LinkedHashMap<Path, Long> recent = new LinkedHashMap<>(lru);
+            lru.clear();
+            cachedBytes = 0;
+            for (Path file : files) {
+                if (!recent.containsKey(file)) {
+                    lru.put(file, sizes.get(file));
+                    cachedBytes += sizes.get(file);
+                }
+            }
+            for (Map.Entry<Path, Long> entry : recent.entrySet()) {
+                lru.put(entry.getKey(), entry.getValue());
+                cachedBytes += entry.getValue();
+            }
+        }
+        trim();
+        LOG.info("{} cached copies ({} KB)", files.size(), cachedBytes / 1024);
+    }
+
+    private void touch(Path file) {
+        synchronized (lru) {
+            if (lru.get(file) != null) {
+                return;
+            }
+        }
+        try {
+            add(file, Files.size(file));
+        } catch (IOException e) {
+            // Evicted meanwhile
+        }
+    }
+
+    private void add(Path file, long bytes) {
+        synchronized (lru) {
+            Long previous = lru.put(file, bytes);
+            cachedBytes += bytes - (previous != null ? previous : 0L);
+        }
+        trim();
+    }
+
+    private void trim() {
+        List<Path> victims = new ArrayList<>();
+        synchronized (lru) {
+            Iterator<Map.Entry<Path, Long>> it = lru.entrySet().iterator();
+            // Never evict the most recent entry, it is about to be served
+            while (cachedBytes > maxBytes && lru.size() > 1 && it.hasNext()) {
+                Map.Entry<Path, Long> eldest = it.next();
+                cachedBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (Path victim : victims) {
+            try {
+                Files.deleteIfExists(victim);
+            } catch (IOException e) {
+                LOG.error("Cannot evict {} - {}", victim, e.getMessage());
+            }
+        }
+    }
+
+    private void evict(Path file) {
+        synchronized (lru) {
+            Long bytes = lru.remove(file);
+            if (bytes != null) {
+                cachedBytes -= bytes;
+            }
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOG.error("Cannot delete {} - {}", file, e.getMessage());
+        }
+    }
+
+    // ==============================================================================================
+    // HELPERS
+    // ==============================================================================================
+
+    private Path await(CompletableFuture<Path> future) throws IOException {
+        try {
+            return future.get(requestTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while resizing image");
+        } catch (TimeoutException e) {
+            throw new IOException("Timed out waiting for resized image");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    private static String uploadedFileName(String imagePath) {
+        String prefix = FileUploadHandler.getUploadDirectory();
+        if (imagePath == null || !imagePath.startsWith(prefix)) {
+            return null;
+        }
+        String fileName = imagePath.substring(prefix.length());
+        return isSafeName(fileName) ? fileName : null;
+    }
+
+    private static boolean isSafeName(String fileName) {
+        if (fileName == null || fileName.isEmpty() || fileName.length() > 200 || fileName.charAt(0) == '.') {
+            return false;
+        }
+        for (int i = 0; i < fileName.length(); i++) {
+            char c = fileName.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '.' || c == '_' || c == '-';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isJpeg(String fileName) {
+        String lower = fileName.toLowerCase();
+        return lower.endsWith(".jpg") || lower.endsWith(".jpeg");
+    }
+}
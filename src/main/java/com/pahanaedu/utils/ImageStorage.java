@@ -0,0 +1,42 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Where product images are kept. Images are content-addressed: the stored name is the
+ * SHA-256 of the bytes, so uploading the same picture twice stores it once and a stored
+ * image never changes. Paths handed out (and saved in products.image_path) look like
+ * "uploads/products/&lt;sha256&gt;.jpg".
+ *
+ * LocalImageStorage keeps images on the local filesystem; other backends can be plugged
+ * in through the upload.storage setting (see FileUploadHandler).
+ */
+public interface ImageStorage {
+
+    /**
+     * Store an image, reading the stream exactly once
+     *
+     * @param extension file extension including the dot, e.g. ".png"
+     * @param maxBytes  the upload is rejected once it grows past this
+     * @return the stored image's path
+     */
+    String store(InputStream content, String extension, long maxBytes) throws IOException;
+
+    /**
+     * Read a stored image
+     * @throws java.io.FileNotFoundException if there is no such image
+     */
+    InputStream open(String imagePath) throws IOException;
+
+    /**
+     * Remove an image unless it was stored (or stored again) at or after the cutoff. Storing
+     * the same picture again and removing it are atomic with respect to each other, so an
+     * upload that re-uses an existing image can't have it removed underneath it.
+     *
+     * @return true if an image was removed
+     */
+    boolean deleteIfOlderThan(String imagePath, long cutoffMillis) throws IOException;
+
+    boolean exists(String imagePath);
+}
@@ -0,0 +1,254 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.pahanaedu.dao.ProductDAO;
+
+/**
+ * Removes product images that no product refers to any more.
+ *
+ * Every image.gc.intervalMs the store is walked for files older than image.gc.graceMs
+ * (younger ones may belong to a product that is still being saved), then the image paths
+ * in the products table are streamed past that candidate list to strike out the ones in
+ * use. Whatever is left is checked once more against the database and then deleted, or
+ * moved to image.gc.quarantineDir if one is set. With image.gc.dryRun the sweep only
+ * reports what it would remove.
+ *
+ * Files placed by UploadSync belong to the project's upload directory and are left alone.
+ */
+public class ImageSweeper {
+    private static final Log LOG = Log.get(ImageSweeper.class);
+
+    private static ImageSweeper instance = null;
+
+    private final LocalImageStorage storage;
+    private final Path root;
+    private final String uploadPrefix;
+    private final long intervalMs;
+    private final long initialDelayMs;
+    private final long graceMs;
+    private final boolean dryRun;
+    private final Path quarantineDir;
+
+    private ScheduledExecutorService scheduler;
+
+    // Results of the last sweep, for logs and the metrics endpoint
+    private volatile long lastRunAt;
+    private volatile long lastDurationMs;
+    private volatile int lastScanned;
+    private volatile int lastOrphans;
+    private volatile long lastReclaimedBytes;
+    private final AtomicLong totalReclaimedBytes = new AtomicLong();
+    private final AtomicLong totalRemoved = new AtomicLong();
+
+    private ImageSweeper(LocalImageStorage storage, String uploadPrefix) {
+        this.storage = storage;
+        this.root = storage.getRoot();
+        this.uploadPrefix = uploadPrefix;
+        this.intervalMs = AppConfig.getLong("image.gc.intervalMs", 6 * 60 * 60 * 1000L);
+        this.initialDelayMs = AppConfig.getLong("image.gc.initialDelayMs", 10 * 60 * 1000L);
+        this.graceMs = AppConfig.getLong("image.gc.graceMs", 24 * 60 * 60 * 1000L);
+        this.dryRun = AppConfig.getBoolean("image.gc.dryRun", false);
+        String quarantine = AppConfig.getString("image.gc.quarantineDir", "");
+        this.quarantineDir = quarantine.isEmpty() ? null : Paths.get(quarantine).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Get singleton instance; null when the image store is not a local directory
+     */
+    public static synchronized ImageSweeper getInstance() {
+        if (instance == null) {
+            ImageStorage storage = FileUploadHandler.getStorage();
+            if (!(storage instanceof LocalImageStorage)) {
+                return null;
+            }
+            instance = new ImageSweeper((LocalImageStorage) storage, FileUploadHandler.getUploadDirectory());
+        }
+        return instance;
+    }
+
+    /**
+     * Start periodic sweeps (no-op when image.gc.intervalMs is 0)
+     */
+    public synchronized void start() {
+        if (scheduler != null || intervalMs <= 0) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "image-sweeper");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                LOG.error("Sweep failed - {}", e.getMessage());
+            }
+        }, initialDelayMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Run one sweep now
+     */
+    public void sweep() {
+        long started = System.currentTimeMillis();
+
+        Map<String, Long> candidates;
+        try {
+            candidates = findCandidates(started - graceMs);
+        } catch (IOException e) {
+            LOG.error("Error walking {} - {}", root, e.getMessage());
+            return;
+        }
+        int scanned = candidates.size();
+
+        UploadSync uploadSync = UploadSync.getInstance();
+        if (uploadSync != null) {
+            candidates.keySet().removeAll(uploadSync.getSyncedNames());
+        }
+
+        if (!candidates.isEmpty()) {
+            boolean complete = ProductDAO.getInstance().forEachImagePath(imagePath -> {
+                if (imagePath.startsWith(uploadPrefix)) {
+                    candidates.remove(imagePath.substring(uploadPrefix.length()));
+                }
+            });
+            if (!complete) {
+                LOG.error("Could not read product images, nothing removed");
+                return;
+            }
+        }
+
+        int removed = 0;
+        long reclaimed = 0;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            String name = candidate.getKey();
+            if (dryRun) {
+                LOG.info("Would remove {} ({} bytes)", name, candidate.getValue());
+                removed++;
+                reclaimed += candidate.getValue();
+            } else if (remove(name, started - graceMs)) {
+                removed++;
+                reclaimed += candidate.getValue();
+            }
+        }
+
+        lastRunAt = started;
+        lastDurationMs = System.currentTimeMillis() - started;
+        lastScanned = scanned;
+        lastOrphans = removed;
+        lastReclaimedBytes = reclaimed;
+        if (!dryRun) {
+            totalRemoved.addAndGet(removed);
+            totalReclaimedBytes.addAndGet(reclaimed);
+        }
+
+        String outcome = dryRun ? "unreferenced (dry run)" : quarantineDir != null ? "quarantined" : "removed";
+        LOG.info("{} images past the grace period, {} {}, {} KB in {} ms",
+                scanned, removed, outcome, reclaimed / 1024, lastDurationMs);
+    }
+
+    /**
+     * Store files last modified before the cutoff, with their sizes. Hidden files and
+     * directories (temp files, the sync manifest) are skipped.
+     */
+    private Map<String, Long> findCandidates(long cutoff) throws IOException {
+        Map<String, Long> candidates = new HashMap<>();
+        Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), 1, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                String name = file.getFileName().toString();
+                if (attributes.isRegularFile() && !name.startsWith(".") &&
+                        attributes.lastModifiedTime().toMillis() < cutoff) {
+                    candidates.put(name, attributes.size());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // Removed while walking
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return candidates;
+    }
+
+    private boolean remove(String name, long cutoff) {
+        String imagePath = uploadPrefix + name;
+        // A product may have picked the image up since the paths were read
+        if (ProductDAO.getInstance().isImageInUse(imagePath)) {
+            return false;
+        }
+        try {
+            // ...or an upload of the same picture may have just re-used it; the storage
+            // rechecks the file's age under the lock store() takes
+            if (!storage.removeIfOlderThan(imagePath, cutoff, quarantineDir)) {
+                return false;
+            }
+            ImageDerivatives.getInstance().remove(imagePath);
+            return true;
+        } catch (IOException e) {
+            LOG.error("Error removing {} - {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    public long getLastRunAt() {
+        return lastRunAt;
+    }
+
+    public long getLastDurationMs() {
+        return lastDurationMs;
+    }
+
+    public int getLastScanned() {
+        return lastScanned;
+    }
+
+    public int getLastOrphans() {
+        return lastOrphans;
+    }
+
+    public long getLastReclaimedBytes() {
+        return lastReclaimedBytes;
+    }
+
+    public long getTotalRemoved() {
+        return totalRemoved.get();
+    }
+
+    public long getTotalReclaimedBytes() {
+        return totalReclaimedBytes.get();
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+}
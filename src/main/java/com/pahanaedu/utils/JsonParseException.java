@@ -0,0 +1,24 @@
+package com.pahanaedu.utils;
+
+/**
+ * Thrown by JsonReader when the input is not valid JSON or not the shape the caller
+ * expects. The message says what was wrong and where, and is safe to show to the client.
+ */
+public class JsonParseException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public JsonParseException(String message, int position) {
+        super(position >= 0 ? message + " at character " + position : message);
+        this.position = position;
+    }
+
+    /**
+     * Offset in the input where the problem was found, or -1 if not tied to one
+     */
+    public int getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,376 @@
+package com.pahanaedu.utils;
+
+import java.math.BigDecimal;
+
+/**
+ * Minimal pull-style JSON reader, the counterpart of JsonWriter.
+ *
+ * Reads a document in one pass, leaving the structure to the caller, so request payloads
+ * become model objects directly without an intermediate tree or string splitting:
+ *
+ *   json.beginArray();
+ *   while (json.hasNext()) {
+ *       json.beginObject();
+ *       while (json.hasNext()) {
+ *           switch (json.nextName()) { case "quantity": item.setQuantity(json.nextInt()); break; ... }
+ *       }
+ *       json.endObject();
+ *   }
+ *   json.endArray();
+ *   json.endDocument();
+ *
+ * Parsing is strict (RFC 8259: no comments, trailing commas, single quotes or bare words)
+ * and every problem is reported as a JsonParseException with its position. Nesting is
+ * limited to MAX_DEPTH, so skipping an unexpected value can't be made to recurse deeply.
+ */
+public class JsonReader {
+
+    private static final int MAX_DEPTH = 32;
+    // Longer numbers are not prices or ids; refuse them before BigDecimal sees them
+    private static final int MAX_NUMBER_LENGTH = 40;
+
+    private final String in;
+    private final int length;
+    private int pos = 0;
+
+    // One entry per open object/array: has a member been read from it yet?
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private final boolean[] isObject = new boolean[MAX_DEPTH];
+    private int depth = 0;
+
+    public JsonReader(String in) {
+        this.in = in;
+        this.length = in.length();
+    }
+
+    // ==============================================================================================
+    // STRUCTURE
+    // ==============================================================================================
+
+    public void beginArray() throws JsonParseException {
+        open('[', false);
+    }
+
+    public void endArray() throws JsonParseException {
+        close(']', false);
+    }
+
+    public void beginObject() throws JsonParseException {
+        open('{', true);
+    }
+
+    public void endObject() throws JsonParseException {
+        close('}', true);
+    }
+
+    /**
+     * True if the current array or object has another element; consumes the comma before it
+     */
+    public boolean hasNext() throws JsonParseException {
+        if (depth == 0) {
+            throw error("Not inside an array or object");
+        }
+        skipWhitespace();
+        if (pos >= length) {
+            throw error("Unexpected end of input");
+        }
+        char c = in.charAt(pos);
+        if (c == ']' || c == '}') {
+            return false;
+        }
+        if (hasElements[depth - 1]) {
+            if (c != ',') {
+                throw error("Expected ',' or '" + (isObject[depth - 1] ? '}' : ']') + "'");
+            }
+            pos++;
+        }
+        hasElements[depth - 1] = true;
+        return true;
+    }
+
+    /**
+     * Name of the next object member; the reader is then positioned at its value
+     */
+    public String nextName() throws JsonParseException {
+        if (depth == 0 || !isObject[depth - 1]) {
+            throw error("Expected a value, not a member name");
+        }
+        skipWhitespace();
+        if (pos >= length || in.charAt(pos) != '"') {
+            throw error("Expected a member name");
+        }
+        String name = readString();
+        skipWhitespace();
+        expect(':');
+        return name;
+    }
+
+    /**
+     * Check that nothing but whitespace follows the document
+     */
+    public void endDocument() throws JsonParseException {
+        skipWhitespace();
+        if (depth != 0 || pos < length) {
+            throw error("Unexpected content after the end of the document");
+        }
+    }
+
+    // ==============================================================================================
+    // VALUES
+    // ==============================================================================================
+
+    public String nextString() throws JsonParseException {
+        skipWhitespace();
+        if (pos >= length || in.charAt(pos) != '"') {
+            throw error("Expected a string");
+        }
+        return readString();
+    }
+
+    /**
+     * A JSON number without fraction or exponent that fits in an int
+     */
+    public int nextInt() throws JsonParseException {
+        skipWhitespace();
+        int start = pos;
+        String number = readNumber();
+        if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+            throw error("Expected a whole number", start);
+        }
+        try {
+            return Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw error("Number out of range", start);
+        }
+    }
+
+    public BigDecimal nextDecimal() throws JsonParseException {
+        return new BigDecimal(readNumber());
+    }
+
+    /**
+     * A JSON number written without an exponent, e.g. a price or quantity. Exponent forms
+     * such as 1e-999999999 are valid JSON but can make BigDecimal arithmetic on the result
+     * arbitrarily expensive, so callers handling money use this instead of nextDecimal().
+     */
+    public BigDecimal nextPlainDecimal() throws JsonParseException {
+        skipWhitespace();
+        int start = pos;
+        String number = readNumber();
+        if (number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+            throw error("Expected a number without an exponent", start);
+        }
+        return new BigDecimal(number);
+    }
+
+    /**
+     * Consume a null literal if that is what comes next
+     */
+    public boolean nextIfNull() throws JsonParseException {
+        skipWhitespace();
+        if (in.startsWith("null", pos)) {
+            pos += 4;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Skip the next value, including any arrays and objects nested in it
+     */
+    public void skipValue() throws JsonParseException {
+        int startDepth = depth;
+        do {
+            skipWhitespace();
+            if (pos >= length) {
+                throw error("Unexpected end of input");
+            }
+            char c = in.charAt(pos);
+            if (c == '[' || c == '{') {
+                open(c, c == '{');
+            } else if (c == '"') {
+                readString();
+            } else if (c == '-' || (c >= '0' && c <= '9')) {
+                readNumber();
+            } else if (!skipLiteral("true") && !skipLiteral("false") && !skipLiteral("null")) {
+                throw error("Expected a value");
+            }
+            // Close every container that ended, then continue with the next element if any
+            while (depth > startDepth && !hasNext()) {
+                close(isObject[depth - 1] ? '}' : ']', isObject[depth - 1]);
+            }
+            if (depth > startDepth && isObject[depth - 1]) {
+                nextName();
+            }
+        } while (depth > startDepth);
+    }
+
+    // ==============================================================================================
+    // LEXING
+    // ==============================================================================================
+
+    private void open(char bracket, boolean object) throws JsonParseException {
+        skipWhitespace();
+        if (depth == MAX_DEPTH) {
+            throw error("Nested too deeply");
+        }
+        expect(bracket);
+        hasElements[depth] = false;
+        isObject[depth] = object;
+        depth++;
+    }
+
+    private void close(char bracket, boolean object) throws JsonParseException {
+        skipWhitespace();
+        if (depth == 0 || isObject[depth - 1] != object) {
+            throw error("Unexpected '" + bracket + "'");
+        }
+        expect(bracket);
+        depth--;
+    }
+
+    private void expect(char c) throws JsonParseException {
+        if (pos >= length || in.charAt(pos) != c) {
+            throw error("Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private boolean skipLiteral(String literal) {
+        if (in.startsWith(literal, pos)) {
+            pos += literal.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (pos < length) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Read the string starting at the current quote. Strings without escapes are taken
+     * straight out of the input.
+     */
+    private String readString() throws JsonParseException {
+        int start = ++pos;
+        while (pos < length) {
+            char c = in.charAt(pos);
+            if (c == '"') {
+                return in.substring(start, pos++);
+            }
+            if (c == '\\') {
+                return readEscapedString(start);
+            }
+            if (c < 0x20) {
+                throw error("Unescaped control character in string");
+            }
+            pos++;
+        }
+        throw error("Unterminated string", start - 1);
+    }
+
+    private String readEscapedString(int start) throws JsonParseException {
+        StringBuilder sb = new StringBuilder(pos - start + 16);
+        sb.append(in, start, pos);
+        while (pos < length) {
+            char c = in.charAt(pos++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c < 0x20) {
+                throw error("Unescaped control character in string", pos - 1);
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= length) {
+                break;
+            }
+            char escape = in.charAt(pos++);
+            switch (escape) {
+                case '"': case '\\': case '/': sb.append(escape); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > length) {
+                        throw error("Invalid unicode escape", pos - 2);
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(in.charAt(pos++), 16);
+                        if (digit < 0) {
+                            throw error("Invalid unicode escape", pos - 1);
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    break;
+                default:
+                    throw error("Invalid escape '\\" + escape + "'", pos - 2);
+            }
+        }
+        throw error("Unterminated string", start - 1);
+    }
+
+    /**
+     * Read a number token, checking it against the JSON grammar
+     */
+    private String readNumber() throws JsonParseException {
+        skipWhitespace();
+        int start = pos;
+        if (pos < length && in.charAt(pos) == '-') {
+            pos++;
+        }
+        if (pos < length && in.charAt(pos) == '0') {
+            pos++;
+        } else if (!skipDigits()) {
+            throw error("Expected a number", start);
+        }
+        if (pos < length && in.charAt(pos) == '.') {
+            pos++;
+            if (!skipDigits()) {
+                throw error("Invalid number", start);
+            }
+        }
+        if (pos < length && (in.charAt(pos) == 'e' || in.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < length && (in.charAt(pos) == '+' || in.charAt(pos) == '-')) {
+                pos++;
+            }
+            if (!skipDigits()) {
+                throw error("Invalid number", start);
+            }
+        }
+        if (pos - start > MAX_NUMBER_LENGTH) {
+            throw error("Number too long", start);
+        }
+        return in.substring(start, pos);
+    }
+
+    private boolean skipDigits() {
+        int start = pos;
+        while (pos < length && in.charAt(pos) >= '0' && in.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private JsonParseException error(String message) {
+        return error(message, pos);
+    }
+
+    private JsonParseException error(String message, int at) {
+        return new JsonParseException(message, at);
+    }
+}
@@ -0,0 +1,292 @@
+package com.pahanaedu.utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer.
+ *
+ * Services write models straight to the response writer instead of assembling the whole
+ * document in StringBuilders first, so a large listing is never held in memory as a String.
+ * Commas and nesting are tracked here; callers only say what to write:
+ *
+ *   json.beginObject().field("id", product.getId()).field("title", product.getTitle()).endObject();
+ *
+ * The field(...) helpers keep the conventions our JSON has always had: text fields are
+ * never null (null becomes ""), missing decimals are null, and timestamps are strings.
+ */
+public class JsonWriter {
+
+    /** Writes one JSON document (or fragment) to the given writer */
+    public interface Body {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Escape sequence per ASCII character, or null when it can be written as is
+    private static final String[] ESCAPES = new String[128];
+
+    static {
+        for (int c = 0; c < 0x20; c++) {
+            ESCAPES[c] = "\\u00" + HEX[c >> 4] + HEX[c & 0xF];
+        }
+        ESCAPES['"'] = "\\\"";
+        ESCAPES['\\'] = "\\\\";
+        ESCAPES['\n'] = "\\n";
+        ESCAPES['\r'] = "\\r";
+        ESCAPES['\t'] = "\\t";
+        ESCAPES['\b'] = "\\b";
+        ESCAPES['\f'] = "\\f";
+    }
+
+    private final Writer out;
+
+    // One entry per open object/array: has anything been written inside it yet?
+    private boolean[] hasElements = new boolean[16];
+    private int depth = 0;
+    private boolean afterName = false;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Render a document to a String (for fragments embedded in hand-built JSON)
+     */
+    public static String toJson(Body body) {
+        StringWriter buffer = new StringWriter(256);
+        try {
+            body.write(new JsonWriter(buffer));
+        } catch (IOException e) {
+            // StringWriter never throws
+            throw new IllegalStateException(e);
+        }
+        return buffer.toString();
+    }
+
+    // ==============================================================================================
+    // STRUCTURE
+    // ==============================================================================================
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    // ==============================================================================================
+    // VALUES
+    // ==============================================================================================
+
+    /** String value; null is written as JSON null */
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    /** Decimal value; null is written as JSON null */
+    public JsonWriter value(BigDecimal value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        separator();
+        out.write(value.toString());
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        out.write("null");
+        return this;
+    }
+
+    /** Already-serialized JSON, written verbatim */
+    public JsonWriter rawValue(String json) throws IOException {
+        separator();
+        out.write(json);
+        return this;
+    }
+
+    // ==============================================================================================
+    // FIELDS (name + value with our usual null conventions)
+    // ==============================================================================================
+
+    /** Text field; null is written as "" */
+    public JsonWriter field(String name, String value) throws IOException {
+        return name(name).value(value != null ? value : "");
+    }
+
+    public JsonWriter field(String name, long value) throws IOException {
+        return name(name).value(value);
+    }
+
+    public JsonWriter field(String name, boolean value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /** Decimal field; null is written as null */
+    public JsonWriter field(String name, BigDecimal value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /** Any other value (timestamps, dates) written as its toString() */
+    public JsonWriter field(String name, Object value) throws IOException {
+        return name(name).value(String.valueOf(value));
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // ==============================================================================================
+    // ESCAPING
+    // ==============================================================================================
+
+    /**
+     * JSON-escape a string for hand-built JSON. Returns the same instance when nothing
+     * needs escaping (the common case), and "" for null.
+     */
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        int first = firstEscapeIndex(value);
+        if (first < 0) {
+            return value;
+        }
+        StringBuilder sb = new StringBuilder(value.length() + 16);
+        sb.append(value, 0, first);
+        for (int i = first; i < value.length(); i++) {
+            char c = value.charAt(i);
+            String escape = escapeFor(c);
+            if (escape != null) {
+                sb.append(escape);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        // Write unescaped runs in one call instead of char by char
+        int runStart = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            String escape = escapeFor(value.charAt(i));
+            if (escape != null) {
+                if (i > runStart) {
+                    out.write(value, runStart, i - runStart);
+                }
+                out.write(escape);
+                runStart = i + 1;
+            }
+        }
+        if (length > runStart) {
+            out.write(value, runStart, length - runStart);
+        }
+        out.write('"');
+    }
+
+    private static int firstEscapeIndex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (escapeFor(value.charAt(i)) != null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String escapeFor(char c) {
+        if (c < 128) {
+            return ESCAPES[c];
+        }
+        // Line/paragraph separators are valid JSON but break JavaScript string literals
+        if (c == '\u2028') {
+            return "\\u2028";
+        }
+        if (c == '\u2029') {
+            return "\\u2029";
+        }
+        return null;
+    }
+
+    // ==============================================================================================
+    // STATE
+    // ==============================================================================================
+
+    private JsonWriter open(char bracket) throws IOException {
+        separator();
+        out.write(bracket);
+        if (depth == hasElements.length) {
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+        hasElements[depth++] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("Nothing to close");
+        }
+        depth--;
+        out.write(bracket);
+        return this;
+    }
+
+    /**
+     * Comma before every element except the first in its container, and none after a name
+     */
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (depth > 0) {
+            if (hasElements[depth - 1]) {
+                out.write(',');
+            } else {
+                hasElements[depth - 1] = true;
+            }
+        }
+    }
+}
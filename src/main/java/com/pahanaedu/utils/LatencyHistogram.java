@@ -0,0 +1,109 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with fixed bucket bounds.
+ * Recording is a couple of atomic increments, so it is safe on hot paths.
+ */
+public class LatencyHistogram {
+
+    /** Upper bucket bounds in microseconds; the last bucket is unbounded */
+    private static final long[] BOUNDS_MICROS = {
+        100, 250, 500,
+        1_000, 2_500, 5_000,
+        10_000, 25_000, 50_000,
+        100_000, 250_000, 500_000,
+        1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MICROS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Record one observation measured with System.nanoTime()
+     */
+    public void recordNanos(long nanos) {
+        long micros = Math.max(0, nanos / 1_000);
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.incrementAndGet();
+        sumMicros.addAndGet(micros);
+
+        long currentMax;
+        while (micros > (currentMax = maxMicros.get())) {
+            if (maxMicros.compareAndSet(currentMax, micros)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSumMicros() {
+        return sumMicros.get();
+    }
+
+    public long getMaxMicros() {
+        return maxMicros.get();
+    }
+
+    public double getMeanMillis() {
+        long n = count.get();
+        return n == 0 ? 0.0 : (sumMicros.get() / (double) n) / 1_000.0;
+    }
+
+    /**
+     * Estimate a percentile (0-100) in milliseconds using the bucket upper bounds
+     */
+    public double getPercentileMillis(double percentile) {
+        long[] snapshot = getBucketCounts();
+        long total = 0;
+        for (long c : snapshot) {
+            total += c;
+        }
+        if (total == 0) {
+            return 0.0;
+        }
+
+        long rank = (long) Math.ceil(total * (percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                long bound = i < BOUNDS_MICROS.length ? BOUNDS_MICROS[i] : maxMicros.get();
+                return Math.min(bound, maxMicros.get()) / 1_000.0;
+            }
+        }
+        return maxMicros.get() / 1_000.0;
+    }
+
+    /**
+     * Per-bucket (non-cumulative) counts; index i matches getBucketBoundsMicros()[i],
+     * the extra last element is the overflow bucket
+     */
+    public long[] getBucketCounts() {
+        long[] snapshot = new long[buckets.length()];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    public static long[] getBucketBoundsMicros() {
+        return BOUNDS_MICROS.clone();
+    }
+
+    private static int bucketIndex(long micros) {
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            if (micros <= BOUNDS_MICROS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS_MICROS.length;
+    }
+}
@@ -0,0 +1,188 @@
+package com.pahanaedu.utils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Product images in a directory on the local filesystem.
+ *
+ * An upload is streamed once into a temp file next to the store while its SHA-256 is
+ * computed, then moved into place under its hash with an atomic rename. Readers therefore
+ * never see a half-written image, and if the image is already stored the temp file is
+ * simply dropped.
+ *
+ * Re-using an existing file (which refreshes its modification time) and removing one take
+ * the same per-name lock, so a removal either happens first and the upload writes the file
+ * again, or sees the fresh timestamp and leaves the file alone.
+ */
+public class LocalImageStorage implements ImageStorage {
+
+    private static final String TEMP_DIR = ".incoming";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int LOCK_STRIPES = 64;
+
+    private final Path root;
+    private final Path tempDir;
+    private final String pathPrefix;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    /**
+     * @param root       directory holding the images
+     * @param pathPrefix prefix of the paths handed out, e.g. "uploads/products/"
+     */
+    public LocalImageStorage(Path root, String pathPrefix) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        this.tempDir = this.root.resolve(TEMP_DIR);
+        this.pathPrefix = pathPrefix;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        Files.createDirectories(tempDir);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public String store(InputStream content, String extension, long maxBytes) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = Files.createTempFile(tempDir, "upload-", ".tmp");
+
+        try {
+            long size = 0;
+            try (InputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxBytes) {
+                        throw new IOException("File size exceeds maximum limit of " + (maxBytes / (1024 * 1024)) + "MB");
+                    }
+                    out.write(buffer, 0, read);
+                }
+            }
+            if (size == 0) {
+                throw new IOException("Empty file");
+            }
+
+            String fileName = toHex(digest.digest()) + extension;
+            Path target = root.resolve(fileName);
+
+            synchronized (lockFor(fileName)) {
+                if (Files.exists(target)) {
+                    // Restart the sweeper's grace period: a product is about to refer to it again
+                    Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                    return pathPrefix + fileName;
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    // Same image stored concurrently; identical bytes, nothing to do
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return pathPrefix + fileName;
+
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String imagePath) throws IOException {
+        Path file = resolve(imagePath);
+        if (file == null || !Files.isRegularFile(file)) {
+            throw new FileNotFoundException(imagePath);
+        }
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public boolean deleteIfOlderThan(String imagePath, long cutoffMillis) throws IOException {
+        return removeIfOlderThan(imagePath, cutoffMillis, null);
+    }
+
+    /**
+     * As deleteIfOlderThan, but move the file into quarantineDir instead when that is not null
+     */
+    public boolean removeIfOlderThan(String imagePath, long cutoffMillis, Path quarantineDir) throws IOException {
+        Path file = resolve(imagePath);
+        if (file == null) {
+            return false;
+        }
+        synchronized (lockFor(file.getFileName().toString())) {
+            if (!Files.isRegularFile(file) || Files.getLastModifiedTime(file).toMillis() >= cutoffMillis) {
+                return false;
+            }
+            if (quarantineDir == null) {
+                return Files.deleteIfExists(file);
+            }
+            Files.createDirectories(quarantineDir);
+            Path moved = quarantineDir.resolve(file.getFileName());
+            try {
+                Files.move(file, moved, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(file, moved, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        }
+    }
+
+    @Override
+    public boolean exists(String imagePath) {
+        Path file = resolve(imagePath);
+        return file != null && Files.isRegularFile(file);
+    }
+
+    /**
+     * File behind an image path, or null if the path does not point into this store
+     */
+    public Path resolve(String imagePath) {
+        if (imagePath == null) {
+            return null;
+        }
+        String fileName = imagePath.substring(imagePath.lastIndexOf('/') + 1);
+        if (fileName.isEmpty() || fileName.startsWith(".") || fileName.indexOf('\\') >= 0) {
+            return null;
+        }
+        Path file = root.resolve(fileName).normalize();
+        return file.getParent().equals(root) ? file : null;
+    }
+
+    private Object lockFor(String fileName) {
+        int h = fileName.hashCode();
+        h ^= (h >>> 16);
+        return locks[h & (LOCK_STRIPES - 1)];
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every JRE ships SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
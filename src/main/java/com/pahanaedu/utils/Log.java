@@ -0,0 +1,159 @@
+package com.pahanaedu.utils;
+
+/**
+ * Application logging.
+ *
+ * One per class: private static final Log LOG = Log.get(ProductDAO.class);
+ *
+ * Messages take {} placeholders filled from the arguments, e.g.
+ * LOG.info("Order {} placed by {}", orderId, email). Nothing is formatted on the calling
+ * thread: the call only checks the level and hands the message and arguments to the
+ * background writer (AsyncLogAppender), so a disabled level costs a comparison and an
+ * enabled one a slot in a ring buffer. Because formatting happens later, pass values
+ * rather than objects that are about to change. A Throwable passed as the last argument,
+ * with no placeholder left for it, is printed with its stack trace.
+ *
+ * The level is log.level, or log.level.&lt;SimpleClassName&gt; for one class.
+ */
+public final class Log {
+
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR;
+
+        static Level parse(String name, Level defaultLevel) {
+            if (name == null) {
+                return defaultLevel;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return defaultLevel;
+            }
+        }
+    }
+
+    private static final Level ROOT_LEVEL = Level.parse(AppConfig.getString("log.level", null), Level.INFO);
+
+    private final String name;
+    private final int threshold;
+
+    private Log(String name, Level level) {
+        this.name = name;
+        this.threshold = level.ordinal();
+    }
+
+    public static Log get(Class<?> type) {
+        String name = type.getSimpleName();
+        return new Log(name, Level.parse(AppConfig.getString("log.level." + name, null), ROOT_LEVEL));
+    }
+
+    /**
+     * Write everything still queued and stop the writer thread; later messages are
+     * written directly. Called when the application stops.
+     */
+    public static void shutdown() {
+        AsyncLogAppender.getInstance().shutdown();
+    }
+
+    /**
+     * Messages discarded because the buffer was full (log.overflow=drop)
+     */
+    public static long getDroppedCount() {
+        return AsyncLogAppender.getInstance().getDroppedCount();
+    }
+
+    public boolean isDebugEnabled() {
+        return threshold <= Level.DEBUG.ordinal();
+    }
+
+    public boolean isInfoEnabled() {
+        return threshold <= Level.INFO.ordinal();
+    }
+
+    // ==============================================================================================
+    // DEBUG
+    // ==============================================================================================
+
+    public void debug(String message) {
+        log(Level.DEBUG, message, 0, null, null, null);
+    }
+
+    public void debug(String message, Object arg) {
+        log(Level.DEBUG, message, 1, arg, null, null);
+    }
+
+    public void debug(String message, Object arg0, Object arg1) {
+        log(Level.DEBUG, message, 2, arg0, arg1, null);
+    }
+
+    public void debug(String message, Object... args) {
+        log(Level.DEBUG, message, args.length, null, null, args);
+    }
+
+    // ==============================================================================================
+    // INFO
+    // ==============================================================================================
+
+    public void info(String message) {
+        log(Level.INFO, message, 0, null, null, null);
+    }
+
+    public void info(String message, Object arg) {
+        log(Level.INFO, message, 1, arg, null, null);
+    }
+
+    public void info(String message, Object arg0, Object arg1) {
+        log(Level.INFO, message, 2, arg0, arg1, null);
+    }
+
+    public void info(String message, Object... args) {
+        log(Level.INFO, message, args.length, null, null, args);
+    }
+
+    // ==============================================================================================
+    // WARN
+    // ==============================================================================================
+
+    public void warn(String message) {
+        log(Level.WARN, message, 0, null, null, null);
+    }
+
+    public void warn(String message, Object arg) {
+        log(Level.WARN, message, 1, arg, null, null);
+    }
+
+    public void warn(String message, Object arg0, Object arg1) {
+        log(Level.WARN, message, 2, arg0, arg1, null);
+    }
+
+    public void warn(String message, Object... args) {
+        log(Level.WARN, message, args.length, null, null, args);
+    }
+
+    // ==============================================================================================
+    // ERROR
+    // ==============================================================================================
+
+    public void error(String message) {
+        log(Level.ERROR, message, 0, null, null, null);
+    }
+
+    public void error(String message, Object arg) {
+        log(Level.ERROR, message, 1, arg, null, null);
+    }
+
+    public void error(String message, Object arg0, Object arg1) {
+        log(Level.ERROR, message, 2, arg0, arg1, null);
+    }
+
+    public void error(String message, Object... args) {
+        log(Level.ERROR, message, args.length, null, null, args);
+    }
+
+    private void log(Level level, String message, int argCount, Object arg0, Object arg1, Object[] args) {
+        if (level.ordinal() < threshold) {
+            return;
+        }
+        AsyncLogAppender.getInstance().append(level, name, message, argCount, arg0, arg1, args);
+    }
+}
@@ -0,0 +1,178 @@
+package com.pahanaedu.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Throttles repeated failed logins per email and per client IP.
+ *
+ * Each key counts failures in a window opened by its first failure (auth.throttle.windowMs).
+ * Once a key reaches its limit it is locked for auth.throttle.lockoutMs and further attempts
+ * are refused before any password check runs, so a guessing run can't keep the BCrypt pool busy.
+ * The per-IP limit is higher than the per-email one because several customers can share
+ * an address (shop Wi-Fi, NAT).
+ *
+ * Counters live in a fixed number of stripes, each a small map behind its own lock, so
+ * concurrent logins for different keys rarely contend. Expired entries are swept out of
+ * a stripe whenever it grows past a threshold; a sweep that frees nothing pushes the next
+ * one further out. Each stripe is also capped, dropping its least recently used key, so
+ * failures from an unbounded number of addresses can't grow memory without limit.
+ */
+public class LoginThrottle {
+    private static final Log LOG = Log.get(LoginThrottle.class);
+
+    private static LoginThrottle instance = null;
+
+    private static final int STRIPES = 64;
+    // A stripe is swept once it holds this many keys
+    private static final int SWEEP_THRESHOLD = 256;
+    // Hard cap per stripe (64k keys overall); the least recently used key goes first
+    private static final int MAX_KEYS_PER_STRIPE = 1024;
+
+    private final int maxFailuresPerEmail;
+    private final int maxFailuresPerIp;
+    private final long windowMs;
+    private final long lockoutMs;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    private LoginThrottle() {
+        this.maxFailuresPerEmail = AppConfig.getInt("auth.throttle.maxFailuresPerEmail", 5);
+        this.maxFailuresPerIp = AppConfig.getInt("auth.throttle.maxFailuresPerIp", 50);
+        this.windowMs = AppConfig.getLong("auth.throttle.windowMs", 900_000L);
+        this.lockoutMs = AppConfig.getLong("auth.throttle.lockoutMs", 900_000L);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public static synchronized LoginThrottle getInstance() {
+        if (instance == null) {
+            instance = new LoginThrottle();
+        }
+        return instance;
+    }
+
+    /**
+     * How long the caller must wait before trying again, or 0 if the attempt may go ahead
+     */
+    public long retryAfterMillis(String email, String ip) {
+        long now = System.currentTimeMillis();
+        return Math.max(lockedFor(emailKey(email), now), lockedFor(ipKey(ip), now));
+    }
+
+    public void recordFailure(String email, String ip) {
+        long now = System.currentTimeMillis();
+        fail(emailKey(email), maxFailuresPerEmail, now);
+        fail(ipKey(ip), maxFailuresPerIp, now);
+    }
+
+    /**
+     * A successful login clears the email's failures (the IP's count is left to expire)
+     */
+    public void recordSuccess(String email) {
+        String key = emailKey(email);
+        if (key != null) {
+            Stripe stripe = stripeFor(key);
+            synchronized (stripe) {
+                stripe.counters.remove(key);
+            }
+        }
+    }
+
+    // ==============================================================================================
+    // INTERNALS
+    // ==============================================================================================
+
+    private long lockedFor(String key, long now) {
+        if (key == null) {
+            return 0L;
+        }
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Counter counter = stripe.counters.get(key);
+            return counter != null && counter.lockedUntil > now ? counter.lockedUntil - now : 0L;
+        }
+    }
+
+    private void fail(String key, int limit, long now) {
+        if (key == null || limit <= 0) {
+            return;
+        }
+        Stripe stripe = stripeFor(key);
+        synchronized (stripe) {
+            Counter counter = stripe.counters.get(key);
+            if (counter == null || counter.isExpired(now, windowMs)) {
+                if (stripe.counters.size() >= stripe.sweepAt) {
+                    sweep(stripe, now);
+                }
+                counter = new Counter(now);
+                stripe.counters.put(key, counter);
+            }
+            counter.failures++;
+            if (counter.failures >= limit) {
+                counter.lockedUntil = now + lockoutMs;
+                counter.failures = 0;
+                counter.windowStart = now;
+                LOG.info("Locked {} for {}ms", key, lockoutMs);
+            }
+        }
+    }
+
+    private void sweep(Stripe stripe, long now) {
+        int before = stripe.counters.size();
+        Iterator<Counter> it = stripe.counters.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().isExpired(now, windowMs)) {
+                it.remove();
+            }
+        }
+        // Nothing expired yet: don't rescan on every new key, wait until the stripe grows again
+        stripe.sweepAt = stripe.counters.size() < before
+                ? SWEEP_THRESHOLD
+                : stripe.counters.size() + SWEEP_THRESHOLD;
+    }
+
+    private Stripe stripeFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (STRIPES - 1)];
+    }
+
+    private static String emailKey(String email) {
+        return email != null && !email.isEmpty() ? "email:" + email.toLowerCase(Locale.ROOT) : null;
+    }
+
+    private static String ipKey(String ip) {
+        return ip != null && !ip.isEmpty() ? "ip:" + ip : null;
+    }
+
+    private static final class Stripe {
+        // Access order, so the eldest entry is the least recently used
+        final Map<String, Counter> counters = new LinkedHashMap<String, Counter>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Counter> eldest) {
+                return size() > MAX_KEYS_PER_STRIPE;
+            }
+        };
+        int sweepAt = SWEEP_THRESHOLD;
+    }
+
+    private static final class Counter {
+        long windowStart;
+        long lockedUntil;
+        int failures;
+
+        Counter(long now) {
+            this.windowStart = now;
+        }
+
+        boolean isExpired(long now, long windowMs) {
+            return lockedUntil <= now && now - windowStart > windowMs;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.pahanaedu.utils;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates order numbers that are unique across threads and across application nodes,
+ * without locking and without a database round trip.
+ *
+ * Each number is built from (timestamp in ms, node id, per-millisecond sequence), e.g.
+ * ORD20250726142557123 007 0001 (without the spaces). The timestamp and sequence live in
+ * one AtomicLong updated by compare-and-set, so two threads can never get the same pair.
+ * The node id (app.node.id, 0-999) keeps nodes apart; it must be distinct per Tomcat node.
+ *
+ * If more than 4096 numbers are requested in one millisecond, or the wall clock steps
+ * backwards, the generator simply runs ahead of the clock until the clock catches up,
+ * so numbers stay unique and increasing. At startup the generator is advanced past the
+ * newest number this node has stored (advancePast), so a clock that is behind after a
+ * restart can't reissue numbers from before it either.
+ */
+public final class OrderNumberGenerator {
+    private static final Log LOG = Log.get(OrderNumberGenerator.class);
+
+    private static OrderNumberGenerator instance = null;
+
+    private static final String PREFIX = "ORD";
+    private static final int SEQUENCE_BITS = 12;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int MAX_NODE_ID = 999;
+
+    // UTC so that daylight saving never maps two instants onto the same digits
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+
+    private final int nodeId;
+
+    // (millis << SEQUENCE_BITS) | sequence of the last number handed out
+    private final AtomicLong lastState = new AtomicLong();
+
+    OrderNumberGenerator(int nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public static synchronized OrderNumberGenerator getInstance() {
+        if (instance == null) {
+            instance = new OrderNumberGenerator(resolveNodeId());
+        }
+        return instance;
+    }
+
+    /**
+     * Next order number, e.g. "ORD202507261425571230070001"
+     */
+    public String nextOrderNumber() {
+        long state = nextState();
+        long millis = state >>> SEQUENCE_BITS;
+        int sequence = (int) (state & SEQUENCE_MASK);
+
+        StringBuilder number = new StringBuilder(PREFIX.length() + 17 + 3 + 4);
+        number.append(PREFIX);
+        TIMESTAMP_FORMAT.formatTo(Instant.ofEpochMilli(millis), number);
+        appendPadded(number, nodeId, 3);
+        appendPadded(number, sequence, 4);
+        return number.toString();
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * SQL LIKE pattern matching the numbers this node generates
+     */
+    public String getNumberPattern() {
+        StringBuilder pattern = new StringBuilder(PREFIX);
+        for (int i = 0; i < 17; i++) {
+            pattern.append('_');
+        }
+        appendPadded(pattern, nodeId, 3);
+        return pattern.append("____").toString();
+    }
+
+    /**
+     * Make sure every number handed out from now on sorts after the given one, which this
+     * node issued earlier (e.g. before a restart). Numbers not in this generator's format
+     * are ignored.
+     */
+    public void advancePast(String orderNumber) {
+        long issued = parseState(orderNumber);
+        if (issued < 0) {
+            return;
+        }
+        long previous;
+        do {
+            previous = lastState.get();
+            if (previous >= issued) {
+                return;
+            }
+        } while (!lastState.compareAndSet(previous, issued));
+        if ((issued >>> SEQUENCE_BITS) > System.currentTimeMillis()) {
+            LOG.warn("Order number {} is ahead of the clock; numbers will run ahead until it catches up", orderNumber);
+        }
+    }
+
+    /**
+     * (millis << SEQUENCE_BITS) | sequence for a number in this format, or -1
+     */
+    static long parseState(String orderNumber) {
+        if (orderNumber == null || orderNumber.length() != PREFIX.length() + 17 + 3 + 4
+                || !orderNumber.startsWith(PREFIX)) {
+            return -1;
+        }
+        for (int i = PREFIX.length(); i < orderNumber.length(); i++) {
+            char c = orderNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+        }
+        int at = PREFIX.length();
+        try {
+            // Parsed by hand: Java 8's DateTimeFormatter can't read adjacent "ssSSS" back
+            LocalDateTime timestamp = LocalDateTime.of(
+                    Integer.parseInt(orderNumber.substring(at, at + 4)),
+                    Integer.parseInt(orderNumber.substring(at + 4, at + 6)),
+                    Integer.parseInt(orderNumber.substring(at + 6, at + 8)),
+                    Integer.parseInt(orderNumber.substring(at + 8, at + 10)),
+                    Integer.parseInt(orderNumber.substring(at + 10, at + 12)),
+                    Integer.parseInt(orderNumber.substring(at + 12, at + 14)),
+                    Integer.parseInt(orderNumber.substring(at + 14, at + 17)) * 1_000_000);
+            long millis = timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+            int sequence = Integer.parseInt(orderNumber.substring(at + 20, at + 24));
+            if (sequence > SEQUENCE_MASK) {
+                return -1;
+            }
+            return (millis << SEQUENCE_BITS) | sequence;
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    private long nextState() {
+        while (true) {
+            long previous = lastState.get();
+            long previousMillis = previous >>> SEQUENCE_BITS;
+            long now = System.currentTimeMillis();
+
+            long next;
+            if (now > previousMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond (or clock behind us): bump the sequence
+                next = previous + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond
+                next = (previousMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if (lastState.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    private static void appendPadded(StringBuilder sb, int value, int width) {
+        String digits = Integer.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(digits);
+    }
+
+    /**
+     * app.node.id from configuration; without it, derive one from host name and process id.
+     * A derived id can collide with another node's, so multi-node deployments must set it.
+     */
+    private static int resolveNodeId() {
+        int configured = AppConfig.getInt("app.node.id", -1);
+        if (configured >= 0 && configured <= MAX_NODE_ID) {
+            return configured;
+        }
+        if (configured != -1) {
+            LOG.warn("app.node.id must be between 0 and {}, got {}", MAX_NODE_ID, configured);
+        }
+
+        String identity;
+        try {
+            identity = InetAddress.getLocalHost().getHostName() + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        } catch (Exception e) {
+            identity = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        int derived = (identity.hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+        LOG.warn("app.node.id not set, using derived node id {}; set a distinct app.node.id on every node "
+                + "when running more than one", derived);
+        return derived;
+    }
+}
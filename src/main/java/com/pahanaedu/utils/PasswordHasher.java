@@ -0,0 +1,245 @@
+package com.pahanaedu.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+/**
+ * BCrypt hashing and verification on a dedicated, bounded thread pool.
+ *
+ * BCrypt is deliberately slow, so running it on Tomcat's request threads lets a burst of
+ * logins (or a credential-stuffing run) occupy every worker and stall checkout and POS.
+ * Here at most auth.pool.threads hashes run at once and at most auth.pool.queueSize wait;
+ * anything beyond that is rejected immediately with AuthenticationBusyException instead
+ * of piling up behind the pool.
+ *
+ * The work factor is calibrated once at startup so one hash takes about
+ * auth.bcrypt.targetMs on this hardware (between auth.bcrypt.minCost and maxCost), unless
+ * auth.bcrypt.cost pins it. Stored hashes with a lower cost are upgraded on the next
+ * successful login (see needsRehash); hashes are never downgraded, so nodes that calibrate
+ * differently don't keep rewriting each other's hashes.
+ */
+public class PasswordHasher {
+    private static final Log LOG = Log.get(PasswordHasher.class);
+
+    private static PasswordHasher instance = null;
+
+    // Cost used until calibration finishes (and the historical default)
+    private static final int DEFAULT_COST = 12;
+
+    private final int configuredCost;
+    private final int minCost;
+    private final int maxCost;
+    private final long targetMs;
+    private final long timeoutMs;
+
+    private final ThreadPoolExecutor executor;
+    private volatile int cost;
+
+    // Checked against when the email is unknown, so a miss costs as much as a wrong password
+    private volatile String dummyHash;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong rehashed = new AtomicLong();
+
+    private PasswordHasher() {
+        this.configuredCost = AppConfig.getInt("auth.bcrypt.cost", 0);
+        this.minCost = AppConfig.getInt("auth.bcrypt.minCost", 10);
+        this.maxCost = Math.max(minCost, AppConfig.getInt("auth.bcrypt.maxCost", 14));
+        this.targetMs = AppConfig.getLong("auth.bcrypt.targetMs", 250L);
+        this.timeoutMs = AppConfig.getLong("auth.pool.timeoutMs", 5_000L);
+        this.cost = configuredCost > 0 ? configuredCost : DEFAULT_COST;
+
+        int threads = AppConfig.getInt("auth.pool.threads", Runtime.getRuntime().availableProcessors());
+        int queueSize = AppConfig.getInt("auth.pool.queueSize", 64);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)),
+            runnable -> {
+                Thread thread = new Thread(runnable, "auth-worker-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public static synchronized PasswordHasher getInstance() {
+        if (instance == null) {
+            instance = new PasswordHasher();
+        }
+        return instance;
+    }
+
+    // ==============================================================================================
+    // HASHING
+    // ==============================================================================================
+
+    /**
+     * Hash a password with the current work factor
+     * @throws AuthenticationBusyException if the pool is saturated
+     */
+    public String hash(String plainTextPassword) {
+        final int workFactor = cost;
+        return run(() -> BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(workFactor)));
+    }
+
+    /**
+     * Check a password against a stored hash. A null or malformed hash never matches,
+     * but still costs a full check so the caller's timing doesn't give it away.
+     * @throws AuthenticationBusyException if the pool is saturated
+     */
+    public boolean verify(String plainTextPassword, String hashedPassword) {
+        return run(() -> {
+            boolean realHash = isBcryptHash(hashedPassword);
+            String target = realHash ? hashedPassword : dummyHash();
+            try {
+                return BCrypt.checkpw(plainTextPassword, target) && realHash;
+            } catch (RuntimeException e) {
+                LOG.error("Error verifying password - {}", e.getMessage());
+                return false;
+            }
+        });
+    }
+
+    /**
+     * True if the hash was made with a lower work factor than the current one
+     */
+    public boolean needsRehash(String hashedPassword) {
+        int hashCost = costOf(hashedPassword);
+        return hashCost > 0 && hashCost < cost;
+    }
+
+    public void recordRehash() {
+        rehashed.incrementAndGet();
+    }
+
+    private <T> T run(Callable<T> work) {
+        Future<T> future;
+        try {
+            future = executor.submit(work);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new AuthenticationBusyException("Authentication queue is full", e);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.incrementAndGet();
+            throw new AuthenticationBusyException("Authentication timed out after " + timeoutMs + "ms", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AuthenticationBusyException("Interrupted while authenticating", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    // ==============================================================================================
+    // CALIBRATION
+    // ==============================================================================================
+
+    /**
+     * Pick the work factor that takes about auth.bcrypt.targetMs per hash on this machine.
+     * Each extra cost step doubles the time, so one timed hash at minCost is enough.
+     * Runs on the calling thread; the listener calls it off the startup thread.
+     */
+    public void calibrate() {
+        if (configuredCost > 0) {
+            LOG.info("Using configured BCrypt cost {}", configuredCost);
+            return;
+        }
+
+        // First call warms up the JIT so it doesn't inflate the measurement
+        BCrypt.hashpw("calibration", BCrypt.gensalt(minCost));
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration", BCrypt.gensalt(minCost));
+        long elapsedMs = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        int calibrated = minCost;
+        long estimateMs = elapsedMs;
+        while (calibrated < maxCost && estimateMs * 2 <= targetMs) {
+            calibrated++;
+            estimateMs *= 2;
+        }
+        cost = calibrated;
+
+        LOG.info("BCrypt cost {} (~{}ms per hash, cost {} took {}ms)", calibrated, estimateMs, minCost, elapsedMs);
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    // ==============================================================================================
+    // METRICS / LIFECYCLE
+    // ==============================================================================================
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getRehashCount() {
+        return rehashed.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ==============================================================================================
+    // HELPERS
+    // ==============================================================================================
+
+    private String dummyHash() {
+        String hash = dummyHash;
+        if (hash == null || costOf(hash) != cost) {
+            hash = BCrypt.hashpw("not-a-password", BCrypt.gensalt(cost));
+            dummyHash = hash;
+        }
+        return hash;
+    }
+
+    private static boolean isBcryptHash(String hash) {
+        return costOf(hash) > 0;
+    }
+
+    /**
+     * Work factor of a "$2a$NN$..." hash, or -1 if it isn't one
+     */
+    private static int costOf(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$') {
+            return -1;
+        }
+        char tens = hash.charAt(4);
+        char ones = hash.charAt(5);
+        if (tens < '0' || tens > '9' || ones < '0' || ones > '9' || hash.charAt(6) != '$') {
+            return -1;
+        }
+        return (tens - '0') * 10 + (ones - '0');
+    }
+}
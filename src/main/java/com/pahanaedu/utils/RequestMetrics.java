@@ -0,0 +1,141 @@
+package com.pahanaedu.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint request counts, latencies and errors, keyed by controller, path, action
+ * parameter and HTTP method. Fed by RequestMetricsFilter and published on /metrics.
+ */
+public class RequestMetrics {
+    private static RequestMetrics instance = null;
+
+    // The action parameter comes from the client, so the number of keys is capped
+    private static final int MAX_TRACKED_ENDPOINTS = 300;
+    private static final int MAX_ACTION_LENGTH = 40;
+    private static final String OTHER = "(other)";
+
+    private final ConcurrentHashMap<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private RequestMetrics() {}
+
+    public static synchronized RequestMetrics getInstance() {
+        if (instance == null) {
+            instance = new RequestMetrics();
+        }
+        return instance;
+    }
+
+    public void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    /**
+     * Record one finished request
+     * @param status HTTP status sent, or 500 if the request ended in an exception
+     */
+    public void requestFinished(String controller, String path, String action, String method,
+                                long elapsedNanos, int status) {
+        inFlight.decrementAndGet();
+
+        action = sanitize(action);
+        String key = controller + '/' + path + '?' + action + ' ' + method;
+        EndpointStats entry = stats.get(key);
+        if (entry == null) {
+            if (stats.size() >= MAX_TRACKED_ENDPOINTS) {
+                key = OTHER;
+                entry = stats.computeIfAbsent(key, k -> new EndpointStats(OTHER, OTHER, OTHER, OTHER));
+            } else {
+                String safeAction = action;
+                entry = stats.computeIfAbsent(key, k -> new EndpointStats(controller, path, safeAction, method));
+            }
+        }
+
+        entry.latency.recordNanos(elapsedNanos);
+        if (status >= 500) {
+            entry.serverErrors.incrementAndGet();
+        } else if (status >= 400) {
+            entry.clientErrors.incrementAndGet();
+        }
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public List<EndpointStats> getAll() {
+        return new ArrayList<>(stats.values());
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    private static String sanitize(String action) {
+        if (action == null || action.isEmpty()) {
+            return "";
+        }
+        if (action.length() > MAX_ACTION_LENGTH) {
+            return OTHER;
+        }
+        for (int i = 0; i < action.length(); i++) {
+            char c = action.charAt(i);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '-' || c == '_')) {
+                return OTHER;
+            }
+        }
+        return action;
+    }
+
+    /**
+     * Counters for one endpoint
+     */
+    public static class EndpointStats {
+        private final String controller;
+        private final String path;
+        private final String action;
+        private final String method;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong serverErrors = new AtomicLong();
+
+        EndpointStats(String controller, String path, String action, String method) {
+            this.controller = controller;
+            this.path = path;
+            this.action = action;
+            this.method = method;
+        }
+
+        public String getController() {
+            return controller;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getAction() {
+            return action;
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getClientErrorCount() {
+            return clientErrors.get();
+        }
+
+        public long getServerErrorCount() {
+            return serverErrors.get();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.pahanaedu.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ *
+ * The DAOs prepare the same constant SQL on every call; with the pool keeping
+ * connections open, the prepared statement (and its server-side handle when
+ * useServerPrepStmts is on) can be reused instead of re-parsed every time.
+ * A statement is lent to one caller at a time; a second concurrent request for
+ * the same SQL on the same connection just gets an uncached statement.
+ */
+final class StatementCache {
+    private static final Log LOG = Log.get(StatementCache.class);
+
+    private final Connection physical;
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements;
+    private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Set<PreparedStatement> evictedInUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Borrow a cached statement, preparing it on a miss. Returns null when the
+     * cached statement is already lent out, so the caller should prepare its own.
+     */
+    synchronized PreparedStatement borrow(String sql, int autoGeneratedKeys) throws SQLException {
+        if (maxSize <= 0) {
+            return null;
+        }
+
+        String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K|" + sql : "N|" + sql;
+        PreparedStatement statement = statements.get(key);
+
+        if (statement != null && statement.isClosed()) {
+            statements.remove(key);
+            statement = null;
+        }
+
+        if (statement == null) {
+            statement = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS
+                    ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : physical.prepareStatement(sql);
+            statements.put(key, statement);
+            evictOverflow();
+        } else if (inUse.contains(statement)) {
+            return null;
+        }
+
+        inUse.add(statement);
+        return statement;
+    }
+
+    /**
+     * Give a statement back after the caller closed it
+     */
+    synchronized void release(PreparedStatement statement) {
+        inUse.remove(statement);
+        if (evictedInUse.remove(statement)) {
+            closeQuietly(statement);
+            return;
+        }
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+        } catch (SQLException e) {
+            // A statement we can't reset is not worth keeping
+            statements.values().remove(statement);
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Close every cached statement (the physical connection is going away)
+     */
+    synchronized void closeAll() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+        inUse.clear();
+        evictedInUse.clear();
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, PreparedStatement>> it = statements.entrySet().iterator();
+        while (statements.size() > maxSize && it.hasNext()) {
+            PreparedStatement eldest = it.next().getValue();
+            it.remove();
+            if (inUse.contains(eldest)) {
+                evictedInUse.add(eldest);
+            } else {
+                closeQuietly(eldest);
+            }
+        }
+    }
+
+    private static void closeQuietly(Statement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOG.error("Error closing statement - {}", e.getMessage());
+        }
+    }
+}
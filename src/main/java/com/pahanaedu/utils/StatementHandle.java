@@ -0,0 +1,150 @@
+package com.pahanaedu.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application-facing wrapper around a (possibly cached) JDBC statement.
+ *
+ * - close() closes any ResultSets still open on the statement, then either
+ *   returns the statement to the connection's cache or closes it
+ * - execute calls are timed and reported to StatementMetrics
+ * - getConnection() returns the pooled connection, never the physical one
+ */
+final class StatementHandle implements InvocationHandler {
+    private static final Log LOG = Log.get(StatementHandle.class);
+
+    /** Callbacks into the owning connection handle */
+    interface Owner {
+        Connection proxy();
+
+        void statementClosed(StatementHandle handle);
+
+        void connectionError(SQLException e);
+    }
+
+    private final Statement target;
+    // Metrics key for prepared statements, whose SQL is fixed; null for plain statements
+    private final String metricsKey;
+    private final StatementCache cache;
+    private final Owner owner;
+    private final List<ResultSet> openResultSets = new ArrayList<>(2);
+    private Object proxy;
+    private boolean closed = false;
+
+    private StatementHandle(Statement target, String sql, StatementCache cache, Owner owner) {
+        this.target = target;
+        this.metricsKey = sql != null ? StatementMetrics.keyFor(sql) : null;
+        this.cache = cache;
+        this.owner = owner;
+    }
+
+    /**
+     * Wrap a statement. Pass the cache only when the statement was borrowed from it.
+     */
+    static StatementHandle wrap(Statement target, String sql, StatementCache cache, Owner owner) {
+        StatementHandle handle = new StatementHandle(target, sql, cache, owner);
+        Class<?> type = target instanceof CallableStatement ? CallableStatement.class
+                : target instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        handle.proxy = Proxy.newProxyInstance(StatementHandle.class.getClassLoader(), new Class<?>[] { type }, handle);
+        return handle;
+    }
+
+    Object proxy() {
+        return proxy;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        switch (name) {
+            case "close":
+                close();
+                return null;
+            case "isClosed":
+                return closed;
+            case "getConnection":
+                return owner.proxy();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "PooledStatement[" + target + (closed ? ", closed" : "") + "]";
+            default:
+                break;
+        }
+
+        if (closed) {
+            throw new SQLException("Statement is closed", "HY010");
+        }
+
+        boolean isExecute = name.startsWith("execute");
+        long start = isExecute ? System.nanoTime() : 0L;
+        boolean failed = false;
+
+        try {
+            Object result = method.invoke(target, args);
+            if (result instanceof ResultSet) {
+                openResultSets.add((ResultSet) result);
+            }
+            return result;
+        } catch (InvocationTargetException e) {
+            failed = true;
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                owner.connectionError((SQLException) cause);
+            }
+            throw cause;
+        } finally {
+            if (isExecute) {
+                String key = metricsKey != null ? metricsKey
+                        : StatementMetrics.keyFor(args != null && args.length > 0 && args[0] instanceof String
+                                ? (String) args[0] : name);
+                StatementMetrics.getInstance().record(key, System.nanoTime() - start, failed);
+            }
+        }
+    }
+
+    /**
+     * Close result sets and release or close the underlying statement. Safe to call twice.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (ResultSet rs : openResultSets) {
+            try {
+                rs.close();
+            } catch (SQLException e) {
+                LOG.error("Error closing result set - {}", e.getMessage());
+            }
+        }
+        openResultSets.clear();
+
+        if (cache != null) {
+            cache.release((PreparedStatement) target);
+        } else {
+            try {
+                target.close();
+            } catch (SQLException e) {
+                LOG.error("Error closing statement - {}", e.getMessage());
+            }
+        }
+        owner.statementClosed(this);
+    }
+}
@@ -0,0 +1,136 @@
+package com.pahanaedu.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-statement execution counts and latencies, keyed by SQL text.
+ * Fed by the pooled connections, so every DAO query is measured without touching the DAOs.
+ */
+public class StatementMetrics {
+    private static StatementMetrics instance = null;
+
+    // Guard against unbounded growth if some caller ever builds SQL with literals in it
+    private static final int MAX_TRACKED_STATEMENTS = 500;
+    private static final int MAX_KEY_LENGTH = 300;
+    private static final String OVERFLOW_KEY = "(other statements)";
+
+    private final ConcurrentHashMap<String, StatementStats> stats = new ConcurrentHashMap<>();
+
+    private StatementMetrics() {}
+
+    public static synchronized StatementMetrics getInstance() {
+        if (instance == null) {
+            instance = new StatementMetrics();
+        }
+        return instance;
+    }
+
+    /**
+     * Record one execution under a key from keyFor(). Callers that run the same SQL
+     * repeatedly compute the key once rather than per execution.
+     */
+    public void record(String key, long elapsedNanos, boolean failed) {
+        StatementStats entry = stats.get(key);
+        if (entry == null) {
+            if (stats.size() >= MAX_TRACKED_STATEMENTS) {
+                key = OVERFLOW_KEY;
+            }
+            entry = stats.computeIfAbsent(key, StatementStats::new);
+        }
+        entry.latency.recordNanos(elapsedNanos);
+        if (failed) {
+            entry.errors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Statements ordered by total time spent, most expensive first
+     */
+    public List<StatementStats> getTopByTotalTime(int limit) {
+        List<StatementStats> all = new ArrayList<>(stats.values());
+        Collections.sort(all, (a, b) -> Long.compare(b.latency.getSumMicros(), a.latency.getSumMicros()));
+        return all.size() > limit ? new ArrayList<>(all.subList(0, limit)) : all;
+    }
+
+    public List<StatementStats> getAll() {
+        return new ArrayList<>(stats.values());
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Human-readable summary of the heaviest statements
+     */
+    public String summary(int limit) {
+        StringBuilder sb = new StringBuilder("Top statements by total time:\n");
+        for (StatementStats entry : getTopByTotalTime(limit)) {
+            sb.append(String.format("  count=%d total=%.1fms mean=%.2fms p95=%.2fms max=%.2fms errors=%d  %s%n",
+                    entry.getCount(), entry.latency.getSumMicros() / 1000.0, entry.latency.getMeanMillis(),
+                    entry.latency.getPercentileMillis(95), entry.latency.getMaxMicros() / 1000.0,
+                    entry.getErrorCount(), entry.getSql()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Metrics key for a SQL string: whitespace runs collapsed to one space, long text cut off
+     */
+    public static String keyFor(String sql) {
+        if (sql == null) {
+            return "(unknown)";
+        }
+        StringBuilder key = new StringBuilder(Math.min(sql.length(), MAX_KEY_LENGTH + 3));
+        boolean pendingSpace = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = key.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                key.append(' ');
+                pendingSpace = false;
+            }
+            if (key.length() >= MAX_KEY_LENGTH) {
+                return key.append("...").toString();
+            }
+            key.append(c);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Counters for a single SQL statement
+     */
+    public static class StatementStats {
+        private final String sql;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong errors = new AtomicLong();
+
+        StatementStats(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return latency.getCount();
+        }
+
+        public long getErrorCount() {
+            return errors.get();
+        }
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+    }
+}
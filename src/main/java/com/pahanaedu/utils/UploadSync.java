@@ -0,0 +1,385 @@
+package com.pahanaedu.utils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.pahanaedu.dao.ProductDAO;
+
+/**
+ * Copies product images from the project's source upload directory into the image store
+ * at startup, so images committed with the project are available after a redeploy.
+ *
+ * Only files that changed since the last run are copied. The store keeps a manifest
+ * (.sync-manifest) of every file this sync placed there with the source size and
+ * modification time it was copied from; a source file whose size or mtime no longer
+ * matches, or whose copy has gone missing, is copied again on a small worker pool.
+ * Files in the manifest that have disappeared from the source are removed from the store
+ * unless a product still uses them. Images uploaded through the application are never in
+ * the manifest, so they are never touched.
+ */
+public class UploadSync {
+    private static final Log LOG = Log.get(UploadSync.class);
+
+    // The source directory used before upload.sync.sourceDir existed
+    private static final String LEGACY_SOURCE_DIR = "C:" + File.separator + "Users" + File.separator +
+            "Chama Computers" + File.separator + "eclipse-workspace" + File.separator +
+            "assigment-pahanaedu" + File.separator + "src" + File.separator + "main" + File.separator +
+            "webapp" + File.separator + "uploads" + File.separator + "products";
+
+    private static final String MANIFEST = ".sync-manifest";
+    private static final String TEMP_PREFIX = ".sync-";
+
+    private static UploadSync instance;
+
+    private final Path source;
+    private final Path target;
+    private final String uploadPrefix;
+    private final int threads;
+    private final long progressIntervalMs;
+
+    private volatile ExecutorService workers;
+    private volatile Thread runner;
+
+    private UploadSync(Path source, Path target, String uploadPrefix) {
+        this.source = source.toAbsolutePath().normalize();
+        this.target = target;
+        this.uploadPrefix = uploadPrefix;
+        this.threads = Math.max(1, AppConfig.getInt("upload.sync.threads", 4));
+        this.progressIntervalMs = AppConfig.getLong("upload.sync.progressIntervalMs", 5_000L);
+    }
+
+    /**
+     * Get singleton instance; null when syncing is switched off or the image store is
+     * not a local directory
+     */
+    public static synchronized UploadSync getInstance() {
+        if (instance == null) {
+            if (!AppConfig.getBoolean("upload.sync.enabled", true)) {
+                return null;
+            }
+            ImageStorage storage = FileUploadHandler.getStorage();
+            if (!(storage instanceof LocalImageStorage)) {
+                LOG.info("Image store is not a local directory, nothing to sync");
+                return null;
+            }
+            String sourceDir = AppConfig.getString("upload.sync.sourceDir", "");
+            instance = new UploadSync(Paths.get(sourceDir.isEmpty() ? LEGACY_SOURCE_DIR : sourceDir),
+                    ((LocalImageStorage) storage).getRoot(), FileUploadHandler.getUploadDirectory());
+        }
+        return instance;
+    }
+
+    /**
+     * Run the sync on a background thread
+     */
+    public synchronized void start() {
+        if (runner != null) {
+            return;
+        }
+        runner = new Thread(this::sync, "upload-sync");
+        runner.setDaemon(true);
+        runner.start();
+    }
+
+    public synchronized void shutdown() {
+        if (runner != null) {
+            runner.interrupt();
+        }
+        ExecutorService pool = workers;
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Bring the store up to date with the source directory
+     */
+    public void sync() {
+        if (!Files.isDirectory(source)) {
+            LOG.info("Source directory doesn't exist: {}", source);
+            return;
+        }
+        if (source.equals(target)) {
+            return;
+        }
+
+        long started = System.currentTimeMillis();
+        Map<String, FileStamp> sourceFiles;
+        try {
+            sourceFiles = scan(source);
+        } catch (IOException e) {
+            LOG.error("Error reading {} - {}", source, e.getMessage());
+            return;
+        }
+        Map<String, FileStamp> previous = readManifest();
+        Map<String, FileStamp> manifest = new ConcurrentHashMap<>();
+
+        Map<String, FileStamp> changed = new HashMap<>();
+        for (Map.Entry<String, FileStamp> entry : sourceFiles.entrySet()) {
+            String name = entry.getKey();
+            FileStamp stamp = entry.getValue();
+            if (stamp.equals(previous.get(name)) && isCopied(name, stamp)) {
+                manifest.put(name, stamp);
+            } else {
+                changed.put(name, stamp);
+            }
+        }
+        long scanned = System.currentTimeMillis();
+
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong copiedBytes = new AtomicLong();
+        int copied = copyAll(changed, manifest, failed, copiedBytes);
+        long copiedAt = System.currentTimeMillis();
+
+        // Files not copied this time keep their old entry, so they are retried and still tracked
+        for (String name : changed.keySet()) {
+            FileStamp old = previous.get(name);
+            if (old != null) {
+                manifest.putIfAbsent(name, old);
+            }
+        }
+
+        int orphans = 0;
+        for (String name : previous.keySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (!sourceFiles.containsKey(name) && removeOrphan(name)) {
+                orphans++;
+            }
+        }
+
+        writeManifest(manifest);
+
+        LOG.info("{} files checked, {} copied ({} KB), {} removed, {} failed in {} ms (scan {} ms, copy {} ms)",
+                sourceFiles.size(), copied, copiedBytes.get() / 1024, orphans, failed.get(),
+                System.currentTimeMillis() - started, scanned - started, copiedAt - scanned);
+    }
+
+    /**
+     * Names of the store files that came from the source directory
+     */
+    public Set<String> getSyncedNames() {
+        return readManifest().keySet();
+    }
+
+    private int copyAll(Map<String, FileStamp> changed, Map<String, FileStamp> manifest,
+                        AtomicInteger failed, AtomicLong copiedBytes) {
+        if (changed.isEmpty()) {
+            return 0;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(threads, changed.size()), runnable -> {
+            Thread thread = new Thread(runnable, "upload-sync-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        workers = pool;
+        CompletionService<String> completion = new ExecutorCompletionService<>(pool);
+
+        for (Map.Entry<String, FileStamp> entry : changed.entrySet()) {
+            String name = entry.getKey();
+            FileStamp stamp = entry.getValue();
+            completion.submit(() -> {
+                copy(name);
+                manifest.put(name, stamp);
+                copiedBytes.addAndGet(stamp.size);
+                return name;
+            });
+        }
+
+        int done = 0;
+        int copied = 0;
+        long lastReport = System.currentTimeMillis();
+        try {
+            while (done < changed.size()) {
+                Future<String> result = completion.poll(progressIntervalMs, TimeUnit.MILLISECONDS);
+                if (result != null) {
+                    done++;
+                    try {
+                        result.get();
+                        copied++;
+                    } catch (ExecutionException e) {
+                        failed.incrementAndGet();
+                        LOG.error("Copy failed - {}", e.getCause().getMessage());
+                    }
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastReport >= progressIntervalMs) {
+                    lastReport = now;
+                    LOG.info("{}/{} files copied ({} KB)", done, changed.size(), copiedBytes.get() / 1024);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOG.info("Interrupted after {}/{} files", done, changed.size());
+        } finally {
+            pool.shutdownNow();
+            workers = null;
+        }
+        return copied;
+    }
+
+    /**
+     * Copy through a hidden temp file so the image appears in the store all at once
+     */
+    private void copy(String name) throws IOException {
+        Path temp = target.resolve(TEMP_PREFIX + name + ".tmp");
+        boolean replacing = Files.exists(target.resolve(name));
+        try {
+            Files.copy(source.resolve(name), temp, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.COPY_ATTRIBUTES);
+            try {
+                Files.move(temp, target.resolve(name), StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (replacing) {
+            // Resized copies of the old version are stale
+            ImageDerivatives.getInstance().remove(uploadPrefix + name);
+        }
+    }
+
+    private boolean isCopied(String name, FileStamp stamp) {
+        try {
+            return Files.size(target.resolve(name)) == stamp.size;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean removeOrphan(String name) {
+        String imagePath = uploadPrefix + name;
+        if (ProductDAO.getInstance().isImageInUse(imagePath)) {
+            return false;
+        }
+        try {
+            ImageDerivatives.getInstance().remove(imagePath);
+            return Files.deleteIfExists(target.resolve(name));
+        } catch (IOException e) {
+            LOG.error("Error removing {} - {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    private static Map<String, FileStamp> scan(Path dir) throws IOException {
+        Map<String, FileStamp> files = new HashMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".")) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                    if (attributes.isRegularFile()) {
+                        files.put(name, new FileStamp(attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    }
+                } catch (NoSuchFileException e) {
+                    // Deleted while scanning
+                }
+            }
+        }
+        return files;
+    }
+
+    // ==============================================================================================
+    // MANIFEST (one "name<TAB>size<TAB>mtime" line per file)
+    // ==============================================================================================
+
+    private Map<String, FileStamp> readManifest() {
+        Map<String, FileStamp> manifest = new HashMap<>();
+        Path file = target.resolve(MANIFEST);
+        if (!Files.isRegularFile(file)) {
+            return manifest;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (fields.length == 3) {
+                    try {
+                        manifest.put(fields[0], new FileStamp(Long.parseLong(fields[1]), Long.parseLong(fields[2])));
+                    } catch (NumberFormatException e) {
+                        // Skip the line; the file is simply copied again
+                    }
+                }
+            }
+        } catch (IOException e) {
+            LOG.error("Cannot read manifest, copying everything - {}", e.getMessage());
+        }
+        return manifest;
+    }
+
+    private void writeManifest(Map<String, FileStamp> manifest) {
+        Path file = target.resolve(MANIFEST);
+        Path temp = target.resolve(MANIFEST + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, FileStamp> entry : manifest.entrySet()) {
+                    writer.write(entry.getKey() + "\t" + entry.getValue().size + "\t" + entry.getValue().modified);
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOG.error("Cannot write manifest - {}", e.getMessage());
+        }
+    }
+
+    private static final class FileStamp {
+        final long size;
+        final long modified;
+
+        FileStamp(long size, long modified) {
+            this.size = size;
+            this.modified = modified;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FileStamp)) {
+                return false;
+            }
+            FileStamp stamp = (FileStamp) other;
+            return size == stamp.size && modified == stamp.modified;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(size) * 31 + Long.hashCode(modified);
+        }
+    }
+}
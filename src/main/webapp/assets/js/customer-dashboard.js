@@ -16,6 +16,7 @@ let categories = [];
 let cart = [];
 let isLoading = false;
 let currentView = 'grid';
+let filterCursor = null; // keyset cursor for the next page of filter results
 
 // API endpoints - Updated to match CustomerController URLs
 const API_ENDPOINTS = {
@@ -474,7 +475,7 @@ function createProductCard(product) {
     return `
         <div class="product-card fade-in" data-product-id="${product.id}">
             <div class="product-image">
-                <img src="${product.imagePath || 'https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=400&q=80'}" 
+                <img src="${product.gridPath || product.imagePath || 'https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=400&q=80'}" 
                      alt="${escapeHtml(product.title)}" 
                      loading="lazy"
                      onerror="this.src='https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=400&q=80'">
@@ -582,9 +583,15 @@ function handleSort() {
     applyFilters();
 }
 
-async function applyFilters() {
+async function applyFilters(append = false) {
+    // Debounced input listeners pass an Event here, so only a literal true means "next page"
+    append = append === true;
+    
     try {
-        showLoadingState('productsGrid');
+        if (!append) {
+            filterCursor = null;
+            showLoadingState('productsGrid');
+        }
         
         const categoryId = document.getElementById('categoryFilter')?.value || '';
         const sortBy = document.getElementById('sortFilter')?.value || '';
@@ -593,10 +600,12 @@ async function applyFilters() {
         
         const params = new URLSearchParams();
         params.append('action', 'filter');
+        params.append('limit', productsPerPage);
         if (categoryId) params.append('categoryId', categoryId);
         if (sortBy) params.append('sortBy', sortBy);
         if (minPrice) params.append('minPrice', minPrice);
         if (maxPrice) params.append('maxPrice', maxPrice);
+        if (append && filterCursor) params.append('cursor', filterCursor);
         
         const response = await fetch(API_ENDPOINTS.products, {
             method: 'POST',
@@ -612,10 +621,12 @@ async function applyFilters() {
         
         const data = await response.json();
         
-        if (data && Array.isArray(data)) {
-            filteredProducts = data;
+        if (data && Array.isArray(data.products)) {
+            filteredProducts = append ? [...filteredProducts, ...data.products] : data.products;
+            filterCursor = data.hasMore ? data.nextCursor : null;
             renderProducts();
             updateProductsCount();
+            updateLoadMoreVisibility();
         } else if (data && data.error) {
             throw new Error(data.message || 'Filter failed');
         }
@@ -624,7 +635,16 @@ async function applyFilters() {
         console.error('Filter failed:', error);
         showNotification(`Filter failed: ${error.message}`, 'error');
     } finally {
-        hideLoadingState('productsGrid');
+        if (!append) {
+            hideLoadingState('productsGrid');
+        }
+    }
+}
+
+function updateLoadMoreVisibility() {
+    const loadMoreSection = document.getElementById('loadMoreSection');
+    if (loadMoreSection) {
+        loadMoreSection.style.display = filterCursor ? 'block' : 'none';
     }
 }
 
@@ -642,8 +662,10 @@ function clearFilters() {
     if (maxPrice) maxPrice.value = '';
     
     filteredProducts = [...allProducts];
+    filterCursor = null;
     renderProducts();
     updateProductsCount();
+    updateLoadMoreVisibility();
 }
 
 // =============================================================================
@@ -959,7 +981,7 @@ async function showProductDetails(productId) {
                     <div class="modal-content">
                         <div class="product-details-grid">
                             <div class="product-image-section">
-                                <img src="${product.imagePath || 'https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=600&q=80'}" 
+                                <img src="${product.detailPath || product.imagePath || 'https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=600&q=80'}" 
                                      alt="${escapeHtml(product.title)}"
                                      onerror="this.src='https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=600&q=80'">
                             </div>
@@ -1012,7 +1034,7 @@ async function showProductDetails(productId) {
                                 <div class="related-grid">
                                     ${relatedProducts.map(related => `
                                         <div class="related-item" onclick="showProductDetails(${related.id})">
-                                            <img src="${related.imagePath || 'https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=300&q=80'}" 
+                                            <img src="${related.thumbPath || related.imagePath || 'https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=300&q=80'}" 
                                                  alt="${escapeHtml(related.title)}"
                                                  onerror="this.src='https://images.unsplash.com/photo-1481627834876-b7833e8f5570?ixlib=rb-4.0.3&auto=format&fit=crop&w=300&q=80'">
                                             <h4>${escapeHtml(related.title)}</h4>
@@ -1399,6 +1421,11 @@ function formatDate(dateString) {
 // =============================================================================
 
 function loadMoreProducts() {
+    // Filtered results are paged by the server; continue from the last cursor
+    if (filterCursor) {
+        applyFilters(true);
+        return;
+    }
     currentPage++;
     loadProducts(true);
 }
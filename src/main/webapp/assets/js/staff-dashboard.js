@@ -282,7 +282,7 @@ function displayPOSProducts(products) {
                             <tr style="cursor: pointer;" onclick="addToCart(${product.id})">
                                 <td>
                                     ${product.imagePath ? 
-                                        `<img src="${escapeHtml(product.imagePath)}" alt="Product" style="width: 50px; height: 60px; object-fit: cover; border-radius: 5px;">` :
+                                        `<img src="${escapeHtml(product.thumbPath || product.imagePath)}" alt="Product" style="width: 50px; height: 60px; object-fit: cover; border-radius: 5px;">` :
                                         '<div style="width: 50px; height: 60px; background: #f8f9fa; border-radius: 5px; display: flex; align-items: center; justify-content: center;"><i class="fas fa-book text-muted"></i></div>'
                                     }
                                 </td>
@@ -786,7 +786,7 @@ function displayProducts(products) {
                 <td>${product.id}</td>
                 <td>
                     ${product.imagePath ? 
-                        `<img src="${escapeHtml(product.imagePath)}" alt="Product" style="width: 50px; height: 60px; object-fit: cover; border-radius: 5px;">` :
+                        `<img src="${escapeHtml(product.thumbPath || product.imagePath)}" alt="Product" style="width: 50px; height: 60px; object-fit: cover; border-radius: 5px;">` :
                         '<div style="width: 50px; height: 60px; background: #f8f9fa; border-radius: 5px; display: flex; align-items: center; justify-content: center;"><i class="fas fa-image text-muted"></i></div>'
                     }
                 </td>
@@ -879,7 +879,7 @@ function showProductModal(productId = null) {
                                         <div class="text-center mb-2">
                                             <div id="imagePreview" class="border rounded p-3" style="min-height: 150px; display: flex; align-items: center; justify-content: center; background: #f8f9fa;">
                                                 ${isEdit && product.imagePath ? 
-                                                    `<img src="${escapeHtml(product.imagePath)}" alt="Current Image" style="max-width: 100%; max-height: 150px; object-fit: cover;">` :
+                                                    `<img src="${escapeHtml(product.gridPath || product.imagePath)}" alt="Current Image" style="max-width: 100%; max-height: 150px; object-fit: cover;">` :
                                                     '<i class="fas fa-image fa-3x text-muted"></i>'
                                                 }
                                             </div>
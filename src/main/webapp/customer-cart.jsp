@@ -107,7 +107,7 @@
 
                 <div class="checkout-actions">
                     <c:choose>
-                        <c:when test="${sessionScope.isLoggedIn}">
+                        <c:when test="${not empty principal}">
                             <button class="btn-checkout" onclick="proceedToCheckout()">
                                 <i class="fas fa-credit-card"></i>
                                 Proceed to Checkout
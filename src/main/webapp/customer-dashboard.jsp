@@ -44,7 +44,7 @@
                         <i class="fas fa-search"></i>
                         Browse Books
                     </a>
-                    <c:if test="${not sessionScope.isLoggedIn}">
+                    <c:if test="${empty principal}">
                         <a href="#products" class="btn-secondary">
                             <i class="fas fa-user"></i>
                             Join Now
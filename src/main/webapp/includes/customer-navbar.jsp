@@ -6,7 +6,7 @@
     <nav class="nav-container">
         <!-- Logo Section -->
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard" class="logo">
                     <i class="fas fa-graduation-cap"></i>
                     <span>Pahana Edu</span>
@@ -24,7 +24,7 @@
 <ul class="nav-menu" id="navMenu">
     <li>
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard">Home</a>
             </c:when>
             <c:otherwise>
@@ -34,7 +34,7 @@
     </li>
     <li>
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard#products">Books</a>
             </c:when>
             <c:otherwise>
@@ -44,7 +44,7 @@
     </li>
     <li>
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard#categories">Categories</a>
             </c:when>
 			<c:otherwise>
@@ -58,12 +58,12 @@
         <!-- User Actions -->
         <div class="nav-actions">
             <c:choose>
-                <c:when test="${sessionScope.isLoggedIn}">
+                <c:when test="${not empty principal}">
                     <!-- Logged In User Menu -->
                     <div class="user-menu">
                         <button class="user-menu-toggle" onclick="toggleUserMenu()">
                             <i class="fas fa-user-circle"></i>
-                            <span class="user-name">${sessionScope.userName}</span>
+                            <span class="user-name">${principal.displayName}</span>
                             <i class="fas fa-chevron-down"></i>
                         </button>
                         
@@ -74,8 +74,8 @@
                                         <i class="fas fa-user"></i>
                                     </div>
                                     <div class="user-details">
-                                        <span class="user-display-name">${sessionScope.userName}</span>
-                                        <span class="user-email">${sessionScope.userEmail}</span>
+                                        <span class="user-display-name">${principal.displayName}</span>
+                                        <span class="user-email">${principal.email}</span>
                                     </div>
                                 </div>
                             </div>
@@ -136,14 +136,14 @@
     <div class="mobile-nav" id="mobileNav">
         <div class="mobile-nav-content">
             <!-- Mobile User Info -->
-            <c:if test="${sessionScope.isLoggedIn}">
+            <c:if test="${not empty principal}">
                 <div class="mobile-user-info">
                     <div class="mobile-user-avatar">
                         <i class="fas fa-user"></i>
                     </div>
                     <div class="mobile-user-details">
-                        <span class="mobile-user-name">${sessionScope.userName}</span>
-                        <span class="mobile-user-email">${sessionScope.userEmail}</span>
+                        <span class="mobile-user-name">${principal.displayName}</span>
+                        <span class="mobile-user-email">${principal.email}</span>
                     </div>
                 </div>
             </c:if>
@@ -152,7 +152,7 @@
 <ul class="mobile-menu-items">
     <li>
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard" onclick="closeMobileMenu()">Home</a>
             </c:when>
             <c:otherwise>
@@ -162,7 +162,7 @@
     </li>
     <li>
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard#products" onclick="closeMobileMenu()">Books</a>
             </c:when>
             <c:otherwise>
@@ -172,7 +172,7 @@
     </li>
     <li>
         <c:choose>
-            <c:when test="${sessionScope.isLoggedIn}">
+            <c:when test="${not empty principal}">
                 <a href="customer/dashboard#categories" onclick="closeMobileMenu()">Categories</a>
             </c:when>
  		<c:otherwise>
@@ -183,7 +183,7 @@
     <li><a href="index.jsp#about" onclick="closeMobileMenu()">About</a></li>
     <li><a href="index.jsp#contact" onclick="closeMobileMenu()">Contact</a></li>
     
-    <c:if test="${sessionScope.isLoggedIn}">
+    <c:if test="${not empty principal}">
         <li class="menu-divider"></li>
         <li><a href="customer/dashboard" onclick="closeMobileMenu()">Dashboard</a></li>
         <li><a href="customer/orders" onclick="closeMobileMenu()">My Orders</a></li>
@@ -195,7 +195,7 @@
             <!-- Mobile Action Buttons -->
             <div class="mobile-actions">
                 <c:choose>
-                    <c:when test="${sessionScope.isLoggedIn}">
+                    <c:when test="${not empty principal}">
                         <button class="mobile-cart-btn" onclick="toggleCart(); closeMobileMenu();">
                             <i class="fas fa-shopping-cart"></i>
                             <span>Cart (<span id="mobileCartBadge">0</span>)</span>
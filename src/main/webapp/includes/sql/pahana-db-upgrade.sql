@@ -0,0 +1,99 @@
+-- Pahana Edu schema upgrades
+--
+-- pahana-db.sql always holds the full current schema for new installs.
+-- Existing databases: run the sections below that are newer than your copy, in order.
+
+-- --------------------------------------------------------
+
+--
+-- Product listing: effective price column and indexes for filtered, keyset-paged queries
+--
+
+ALTER TABLE `products`
+  ADD COLUMN `effective_price` decimal(10,2) GENERATED ALWAYS AS (case when `offer_price` is not null and `offer_price` > 0 then `offer_price` else `price` end) STORED;
+
+ALTER TABLE `products`
+  ADD KEY `idx_products_status_created` (`status`,`created_at`,`id`),
+  ADD KEY `idx_products_status_price` (`status`,`effective_price`,`id`),
+  ADD KEY `idx_products_status_title` (`status`,`title`,`id`),
+  ADD KEY `idx_products_category_status_price` (`category_id`,`status`,`effective_price`,`id`);
+
+-- --------------------------------------------------------
+
+--
+-- Dashboard statistics: revenue-by-status range queries
+--
+
+ALTER TABLE `orders`
+  ADD KEY `idx_orders_status_created` (`status`,`created_at`);
+
+-- --------------------------------------------------------
+
+--
+-- Persistent shopping carts (see CartStore)
+--
+
+CREATE TABLE `carts` (
+  `customer_id` int(11) NOT NULL,
+  `product_id` int(11) NOT NULL,
+  `position` int(11) NOT NULL DEFAULT 0,
+  `quantity` int(11) NOT NULL,
+  `unit_price` decimal(10,2) NOT NULL,
+  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp(),
+  PRIMARY KEY (`customer_id`,`product_id`),
+  KEY `product_id` (`product_id`),
+  CONSTRAINT `carts_ibfk_1` FOREIGN KEY (`customer_id`) REFERENCES `users` (`id`) ON DELETE CASCADE,
+  CONSTRAINT `carts_ibfk_2` FOREIGN KEY (`product_id`) REFERENCES `products` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- Bumped on every cart write, so a node holding an older copy of a cart cannot overwrite it
+CREATE TABLE `cart_versions` (
+  `customer_id` int(11) NOT NULL,
+  `version` bigint(20) NOT NULL,
+  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp(),
+  PRIMARY KEY (`customer_id`),
+  CONSTRAINT `cart_versions_ibfk_1` FOREIGN KEY (`customer_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Signed-in sessions shared between nodes (see JdbcSessionStore, session.store=jdbc).
+-- No foreign key on user_id: the built-in admin account signs in as user -1
+--
+
+CREATE TABLE `user_sessions` (
+  `id` char(64) NOT NULL,
+  `user_id` int(11) NOT NULL,
+  `role` varchar(20) NOT NULL,
+  `display_name` varchar(255) DEFAULT NULL,
+  `email` varchar(255) DEFAULT NULL,
+  `version` int(11) NOT NULL DEFAULT 1,
+  `max_inactive_seconds` int(11) NOT NULL,
+  `expires_at` datetime NOT NULL,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`id`),
+  KEY `idx_user_sessions_expires` (`expires_at`),
+  KEY `idx_user_sessions_user` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- "Remember me" tokens (see RememberMeTokenDAO): the cookie carries selector.validator,
+-- the table only the SHA-256 of the validator
+--
+
+CREATE TABLE `remember_me_tokens` (
+  `selector` char(16) NOT NULL,
+  `validator_hash` char(64) NOT NULL,
+  `previous_validator_hash` char(64) DEFAULT NULL,
+  `user_id` int(11) NOT NULL,
+  `expires_at` datetime NOT NULL,
+  `rotated_at` timestamp NULL DEFAULT NULL,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
+  PRIMARY KEY (`selector`),
+  KEY `idx_remember_me_tokens_expires` (`expires_at`),
+  KEY `idx_remember_me_tokens_user` (`user_id`),
+  CONSTRAINT `remember_me_tokens_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
@@ -23,6 +23,33 @@ SET time_zone = "+00:00";
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `carts`
+--
+
+CREATE TABLE `carts` (
+  `customer_id` int(11) NOT NULL,
+  `product_id` int(11) NOT NULL,
+  `position` int(11) NOT NULL DEFAULT 0,
+  `quantity` int(11) NOT NULL,
+  `unit_price` decimal(10,2) NOT NULL,
+  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `cart_versions`
+--
+
+CREATE TABLE `cart_versions` (
+  `customer_id` int(11) NOT NULL,
+  `version` bigint(20) NOT NULL,
+  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `categories`
 --
@@ -123,7 +150,8 @@ CREATE TABLE `products` (
   `image_path` varchar(500) DEFAULT NULL,
   `status` enum('active','inactive') NOT NULL DEFAULT 'active',
   `created_at` timestamp NOT NULL DEFAULT current_timestamp(),
-  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp()
+  `updated_at` timestamp NOT NULL DEFAULT current_timestamp() ON UPDATE current_timestamp(),
+  `effective_price` decimal(10,2) GENERATED ALWAYS AS (case when `offer_price` is not null and `offer_price` > 0 then `offer_price` else `price` end) STORED
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
 
 --
@@ -170,6 +198,40 @@ INSERT INTO `promo_codes` (`id`, `code`, `description`, `discount_type`, `discou
 
 -- --------------------------------------------------------
 
+--
+-- Table structure for table `remember_me_tokens`
+--
+
+CREATE TABLE `remember_me_tokens` (
+  `selector` char(16) NOT NULL,
+  `validator_hash` char(64) NOT NULL,
+  `previous_validator_hash` char(64) DEFAULT NULL,
+  `user_id` int(11) NOT NULL,
+  `expires_at` datetime NOT NULL,
+  `rotated_at` timestamp NULL DEFAULT NULL,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
+--
+-- Table structure for table `user_sessions`
+--
+
+CREATE TABLE `user_sessions` (
+  `id` char(64) NOT NULL,
+  `user_id` int(11) NOT NULL,
+  `role` varchar(20) NOT NULL,
+  `display_name` varchar(255) DEFAULT NULL,
+  `email` varchar(255) DEFAULT NULL,
+  `version` int(11) NOT NULL DEFAULT 1,
+  `max_inactive_seconds` int(11) NOT NULL,
+  `expires_at` datetime NOT NULL,
+  `created_at` timestamp NOT NULL DEFAULT current_timestamp()
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_general_ci;
+
+-- --------------------------------------------------------
+
 --
 -- Table structure for table `users`
 --
@@ -203,6 +265,19 @@ INSERT INTO `users` (`id`, `first_name`, `last_name`, `email`, `password`, `phon
 -- Indexes for dumped tables
 --
 
+--
+-- Indexes for table `carts`
+--
+ALTER TABLE `carts`
+  ADD PRIMARY KEY (`customer_id`,`product_id`),
+  ADD KEY `product_id` (`product_id`);
+
+--
+-- Indexes for table `cart_versions`
+--
+ALTER TABLE `cart_versions`
+  ADD PRIMARY KEY (`customer_id`);
+
 --
 -- Indexes for table `categories`
 --
@@ -219,7 +294,8 @@ ALTER TABLE `orders`
   ADD KEY `user_id` (`user_id`),
   ADD KEY `promo_code_id` (`promo_code_id`),
   ADD KEY `idx_orders_status` (`status`),
-  ADD KEY `idx_orders_date` (`created_at`);
+  ADD KEY `idx_orders_date` (`created_at`),
+  ADD KEY `idx_orders_status_created` (`status`,`created_at`);
 
 --
 -- Indexes for table `order_items`
@@ -236,7 +312,11 @@ ALTER TABLE `products`
   ADD PRIMARY KEY (`id`),
   ADD KEY `category_id` (`category_id`),
   ADD KEY `idx_products_title` (`title`),
-  ADD KEY `idx_products_author` (`author`);
+  ADD KEY `idx_products_author` (`author`),
+  ADD KEY `idx_products_status_created` (`status`,`created_at`,`id`),
+  ADD KEY `idx_products_status_price` (`status`,`effective_price`,`id`),
+  ADD KEY `idx_products_status_title` (`status`,`title`,`id`),
+  ADD KEY `idx_products_category_status_price` (`category_id`,`status`,`effective_price`,`id`);
 
 --
 -- Indexes for table `promo_codes`
@@ -245,6 +325,22 @@ ALTER TABLE `promo_codes`
   ADD PRIMARY KEY (`id`),
   ADD UNIQUE KEY `code` (`code`);
 
+--
+-- Indexes for table `remember_me_tokens`
+--
+ALTER TABLE `remember_me_tokens`
+  ADD PRIMARY KEY (`selector`),
+  ADD KEY `idx_remember_me_tokens_expires` (`expires_at`),
+  ADD KEY `idx_remember_me_tokens_user` (`user_id`);
+
+--
+-- Indexes for table `user_sessions`
+--
+ALTER TABLE `user_sessions`
+  ADD PRIMARY KEY (`id`),
+  ADD KEY `idx_user_sessions_expires` (`expires_at`),
+  ADD KEY `idx_user_sessions_user` (`user_id`);
+
 --
 -- Indexes for table `users`
 --
@@ -299,6 +395,19 @@ ALTER TABLE `users`
 -- Constraints for dumped tables
 --
 
+--
+-- Constraints for table `carts`
+--
+ALTER TABLE `carts`
+  ADD CONSTRAINT `carts_ibfk_1` FOREIGN KEY (`customer_id`) REFERENCES `users` (`id`) ON DELETE CASCADE,
+  ADD CONSTRAINT `carts_ibfk_2` FOREIGN KEY (`product_id`) REFERENCES `products` (`id`) ON DELETE CASCADE;
+
+--
+-- Constraints for table `cart_versions`
+--
+ALTER TABLE `cart_versions`
+  ADD CONSTRAINT `cart_versions_ibfk_1` FOREIGN KEY (`customer_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
+
 --
 -- Constraints for table `orders`
 --
@@ -318,6 +427,12 @@ ALTER TABLE `order_items`
 --
 ALTER TABLE `products`
   ADD CONSTRAINT `products_ibfk_1` FOREIGN KEY (`category_id`) REFERENCES `categories` (`id`) ON DELETE SET NULL;
+
+--
+-- Constraints for table `remember_me_tokens`
+--
+ALTER TABLE `remember_me_tokens`
+  ADD CONSTRAINT `remember_me_tokens_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE;
 COMMIT;
 
 /*!40101 SET CHARACTER_SET_CLIENT=@OLD_CHARACTER_SET_CLIENT */;
@@ -1,11 +1,11 @@
 <%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
-<%@ page import="javax.servlet.http.HttpSession" %>
+<%@ page import="com.pahanaedu.models.SessionPrincipal, com.pahanaedu.services.SessionService" %>
 <%
     // Check if user is already logged in for password change
-    HttpSession userSession = request.getSession(false);
-    boolean isLoggedIn = (userSession != null && Boolean.TRUE.equals(userSession.getAttribute("isLoggedIn")));
-    String loggedInEmail = isLoggedIn ? (String) userSession.getAttribute("userEmail") : "";
-    String userRole = isLoggedIn ? (String) userSession.getAttribute("userRole") : "";
+    SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
+    boolean isLoggedIn = principal != null;
+    String loggedInEmail = isLoggedIn ? principal.getEmail() : "";
+    String userRole = isLoggedIn ? principal.getRole() : "";
 %>
 <!DOCTYPE html>
 <html lang="si">
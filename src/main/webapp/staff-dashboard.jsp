@@ -1,11 +1,11 @@
 <%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
 <%@ taglib uri="http://java.sun.com/jsp/jstl/core" prefix="c"%>
+<%@ page import="com.pahanaedu.models.SessionPrincipal, com.pahanaedu.services.SessionService" %>
 
 <%
     // Check staff authentication
-    if (session == null || !Boolean.TRUE.equals(session.getAttribute("isLoggedIn")) || 
-        (!("STAFF".equals(session.getAttribute("userRole"))) && 
-         !("ADMIN".equals(session.getAttribute("userRole"))))) {
+    SessionPrincipal principal = SessionService.getInstance().getPrincipal(request);
+    if (principal == null || !(principal.isStaff() || principal.isAdmin())) {
         response.sendRedirect("login-signup.jsp");
         return;
     }
@@ -296,7 +296,7 @@
                 <div class="d-flex align-items-center">
                     <div class="me-3">
                         <small class="text-muted">Welcome, </small>
-                        <strong class="text-success">${sessionScope.userName}</strong>
+                        <strong class="text-success">${principal.displayName}</strong>
                     </div>
                     <img src="https://via.placeholder.com/40" class="rounded-circle" alt="Staff">
                 </div>
@@ -0,0 +1,115 @@
+package com.pahanaedu;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+
+/**
+ * Embedded MariaDB shared by the integration tests.
+ *
+ * Started once per test JVM and loaded from src/main/webapp/includes/sql/pahana-db.sql, the
+ * same script a new install uses. start() also points db.url/db.username/db.password at it,
+ * so DatabaseConnection and the DAOs run against it unchanged; call it before anything
+ * touches DatabaseConnection.
+ */
+public final class TestDatabase {
+
+    public static final String NAME = "pahana-db";
+
+    private static DB db;
+    private static int port;
+
+    private TestDatabase() {}
+
+    public static synchronized void start() throws Exception {
+        if (db != null) {
+            return;
+        }
+        DBConfigurationBuilder config = DBConfigurationBuilder.newBuilder();
+        config.setPort(0);
+        // mysqld refuses to run as root unless told to
+        config.addArg("--user=" + System.getProperty("user.name"));
+        db = DB.newEmbeddedDB(config.build());
+        db.start();
+        port = config.getPort();
+
+        // Created over JDBC: DB.createDB() needs the mysql command line client
+        try (Connection connection = DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/", "root", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE `" + NAME + "` CHARACTER SET utf8mb4");
+        }
+        loadSchema();
+
+        System.setProperty("db.url", "jdbc:mysql://localhost:" + port + "/" + NAME + "?useServerPrepStmts=true");
+        System.setProperty("db.username", "root");
+        System.setProperty("db.password", "");
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                db.stop();
+            } catch (Exception e) {
+                // Exiting anyway
+            }
+        }));
+    }
+
+    /**
+     * Drop every table and load the schema and sample data again
+     */
+    public static synchronized void reset() throws Exception {
+        start();
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            List<String> tables = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery(
+                    "SELECT table_name FROM information_schema.tables WHERE table_schema = '" + NAME + "'")) {
+                while (rs.next()) {
+                    tables.add(rs.getString(1));
+                }
+            }
+            statement.execute("SET FOREIGN_KEY_CHECKS = 0");
+            for (String table : tables) {
+                statement.execute("DROP TABLE `" + table + "`");
+            }
+            statement.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+        loadSchema();
+    }
+
+    /**
+     * A plain connection outside the application's pool, for setting up and checking data
+     */
+    public static Connection connect() throws SQLException {
+        return DriverManager.getConnection("jdbc:mysql://localhost:" + port + "/" + NAME + "?allowMultiQueries=true",
+                "root", "");
+    }
+
+    /**
+     * Run a script of ;-separated statements; the first failing statement throws
+     */
+    public static void runScript(Path script) throws SQLException, IOException {
+        String sql = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            boolean isResultSet = statement.execute(sql);
+            // Step through every statement's result so an error further down is raised too
+            while (isResultSet || statement.getUpdateCount() != -1) {
+                isResultSet = statement.getMoreResults();
+            }
+        }
+    }
+
+    private static void loadSchema() throws SQLException, IOException {
+        runScript(Paths.get(System.getProperty("basedir", "."), "src", "main", "webapp", "includes", "sql", "pahana-db.sql"));
+    }
+}
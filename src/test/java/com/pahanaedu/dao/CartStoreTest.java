@@ -0,0 +1,131 @@
+package com.pahanaedu.dao;
+
+import java.lang.reflect.Constructor;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.pahanaedu.TestDatabase;
+import com.pahanaedu.models.Cart;
+import com.pahanaedu.models.CartItem;
+
+import junit.framework.TestCase;
+
+/**
+ * CartStore against the embedded database. Each store is a private instance, standing in
+ * for one application node.
+ */
+public class CartStoreTest extends TestCase {
+
+    private static final int CUSTOMER = 2;
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.reset();
+    }
+
+    @Override
+    protected void tearDown() {
+        System.clearProperty("cart.idleEvictMs");
+    }
+
+    private static CartStore newNode() throws Exception {
+        Constructor<CartStore> constructor = CartStore.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        return constructor.newInstance();
+    }
+
+    private static CartItem item(int productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setUnitPrice(new BigDecimal("10.00"));
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static int storedQuantity(int productId) throws Exception {
+        try (Connection connection = TestDatabase.connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT quantity FROM carts WHERE customer_id = ? AND product_id = ?")) {
+            statement.setInt(1, CUSTOMER);
+            statement.setInt(2, productId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    public void testStaleCopyCannotOverwriteNewerCart() throws Exception {
+        CartStore nodeA = newNode();
+        CartStore nodeB = newNode();
+
+        nodeA.getCart(CUSTOMER).add(item(1, 1), 100);
+        nodeA.flush(CUSTOMER);
+        Cart onB = nodeB.getCart(CUSTOMER);
+        assertEquals(1, onB.getItem(1).getQuantity());
+
+        nodeA.getCart(CUSTOMER).add(item(2, 3), 100);
+        nodeA.flush(CUSTOMER);
+
+        // B still holds the cart as it was before A's second write
+        onB.add(item(1, 5), 100);
+        nodeB.flush(CUSTOMER);
+        assertEquals(1, storedQuantity(1));
+        assertEquals(3, storedQuantity(2));
+
+        // B dropped its copy and picks up A's cart
+        Cart reloaded = nodeB.getCart(CUSTOMER);
+        assertNotSame(onB, reloaded);
+        assertEquals(1, reloaded.getItem(1).getQuantity());
+        assertEquals(3, reloaded.getItem(2).getQuantity());
+
+        // and can write again from there
+        reloaded.add(item(1, 1), 100);
+        nodeB.flush(CUSTOMER);
+        assertEquals(2, storedQuantity(1));
+    }
+
+    public void testNoChangeIsLostToIdleEviction() throws Exception {
+        System.setProperty("cart.idleEvictMs", "20");
+        CartStore node = newNode();
+        int adds = 60;
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread flusher = new Thread(() -> {
+            try {
+                while (!done.get()) {
+                    node.flushAll();
+                    Thread.sleep(2);
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        flusher.start();
+
+        // Pauses either side of the idle limit, so the cart keeps being evicted and reloaded
+        Random random = new Random(7);
+        int evictions = 0;
+        for (int i = 0; i < adds; i++) {
+            if (node.getCachedCount() == 0) {
+                evictions++;
+            }
+            assertTrue(node.getCart(CUSTOMER).add(item(1, 1), 1000) > 0);
+            Thread.sleep(random.nextInt(50));
+        }
+        done.set(true);
+        flusher.join();
+        node.flushAll();
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertTrue("evictions " + evictions, evictions > 0);
+        assertEquals(adds, storedQuantity(1));
+    }
+}
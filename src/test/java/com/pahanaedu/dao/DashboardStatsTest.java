@@ -0,0 +1,207 @@
+package com.pahanaedu.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.pahanaedu.TestDatabase;
+import com.pahanaedu.models.Order;
+
+import junit.framework.TestCase;
+
+/**
+ * Dashboard counters against the embedded database, including writes reported while a
+ * rebuild is reading
+ */
+public class DashboardStatsTest extends TestCase {
+
+    // Ids for reported writes that were never made; far above any real order
+    private static final AtomicInteger UNWRITTEN_ORDER_ID = new AtomicInteger(1_000_000);
+
+    private final DashboardStats stats = DashboardStats.getInstance();
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.reset();
+    }
+
+    public void testRebuildMatchesDatabase() throws Exception {
+        stats.reconcile();
+        DashboardStats.Snapshot snapshot = stats.getSnapshot();
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders"), snapshot.getTotalOrders());
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders WHERE status = 'confirmed'"),
+                snapshot.getOrderCount(Order.STATUS_CONFIRMED));
+        assertEquals(queryLong("SELECT COUNT(*) FROM products"), snapshot.getTotalProducts());
+    }
+
+    public void testWriteDuringRebuildIsKept() throws Exception {
+        stats.reconcile();
+        long ordersBefore = stats.getSnapshot().getTotalOrders();
+        long pendingBefore = stats.getSnapshot().getOrderCount(Order.STATUS_PENDING);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread rebuild;
+        try (Connection holder = TestDatabase.connect(); Statement statement = holder.createStatement()) {
+            // Hold the rebuild inside its first query
+            statement.execute("LOCK TABLES orders WRITE");
+            rebuild = startReconcile(failure);
+            waitForLockWait();
+
+            // A write the rebuild's queries won't see, reported while it is reading
+            stats.onOrderCreated(UNWRITTEN_ORDER_ID.incrementAndGet(), Order.STATUS_PENDING,
+                    new BigDecimal("250.00"), new Timestamp(System.currentTimeMillis()));
+
+            statement.execute("UNLOCK TABLES");
+        }
+        join(rebuild, failure);
+
+        DashboardStats.Snapshot snapshot = stats.getSnapshot();
+        assertEquals(ordersBefore + 1, snapshot.getTotalOrders());
+        assertEquals(pendingBefore + 1, snapshot.getOrderCount(Order.STATUS_PENDING));
+    }
+
+    public void testWriteInSnapshotIsNotCountedAgain() throws Exception {
+        stats.reconcile();
+        // Committed before the rebuild, but reported late, while the rebuild is reading
+        int orderId = insertOrder(Order.STATUS_PENDING);
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread rebuild;
+        try (Connection holder = TestDatabase.connect(); Statement statement = holder.createStatement()) {
+            statement.execute("LOCK TABLES orders WRITE");
+            rebuild = startReconcile(failure);
+            waitForLockWait();
+            stats.onOrderCreated(orderId, Order.STATUS_PENDING, new BigDecimal("250.00"), new Timestamp(System.currentTimeMillis()));
+            statement.execute("UNLOCK TABLES");
+        }
+        join(rebuild, failure);
+
+        assertMatchesDatabase(stats.getSnapshot());
+    }
+
+    public void testWritesAfterSnapshotAreCountedOnce() throws Exception {
+        stats.reconcile();
+        int existing = insertOrder(Order.STATUS_PENDING);
+        stats.onOrderCreated(existing, Order.STATUS_PENDING, new BigDecimal("250.00"), new Timestamp(System.currentTimeMillis()));
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread rebuild;
+        try (Connection holder = TestDatabase.connect(); Statement statement = holder.createStatement()) {
+            statement.execute("LOCK TABLES orders WRITE, users READ");
+            rebuild = startReconcile(failure);
+            waitForLockWait();
+
+            // Committed after the rebuild's snapshot was taken, while its first query waits
+            int created = insertOrder(holder, Order.STATUS_PENDING);
+            stats.onOrderCreated(created, Order.STATUS_PENDING, new BigDecimal("250.00"), new Timestamp(System.currentTimeMillis()));
+            statement.executeUpdate("UPDATE orders SET status = 'confirmed' WHERE id = " + existing);
+            stats.onOrderStatusChanged(existing, Order.STATUS_PENDING, Order.STATUS_CONFIRMED,
+                    new BigDecimal("250.00"), new Timestamp(System.currentTimeMillis()));
+
+            statement.execute("UNLOCK TABLES");
+        }
+        join(rebuild, failure);
+
+        assertMatchesDatabase(stats.getSnapshot());
+    }
+
+    public void testConcurrentRebuildsRunOneAtATime() throws Exception {
+        Thread[] threads = new Thread[8];
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 5; j++) {
+                        stats.reconcile();
+                        stats.onOrderCreated(UNWRITTEN_ORDER_ID.incrementAndGet(), Order.STATUS_PENDING, BigDecimal.ONE,
+                                new Timestamp(System.currentTimeMillis()));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        // No order was really written: a final rebuild brings the counters back to the table
+        stats.reconcile();
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders"), stats.getSnapshot().getTotalOrders());
+    }
+
+    private Thread startReconcile(AtomicReference<Throwable> failure) {
+        Thread rebuild = new Thread(() -> {
+            try {
+                stats.reconcile();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        rebuild.start();
+        return rebuild;
+    }
+
+    private static void join(Thread rebuild, AtomicReference<Throwable> failure) throws InterruptedException {
+        rebuild.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private static void assertMatchesDatabase(DashboardStats.Snapshot snapshot) throws SQLException {
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders"), snapshot.getTotalOrders());
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders WHERE status = 'pending'"),
+                snapshot.getOrderCount(Order.STATUS_PENDING));
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders WHERE status = 'confirmed'"),
+                snapshot.getOrderCount(Order.STATUS_CONFIRMED));
+        assertEquals(queryLong("SELECT COUNT(*) FROM orders WHERE created_at >= CURDATE()"),
+                snapshot.getTodayOrders());
+    }
+
+    private static int insertOrder(String status) throws SQLException {
+        try (Connection connection = TestDatabase.connect()) {
+            return insertOrder(connection, status);
+        }
+    }
+
+    private static int insertOrder(Connection connection, String status) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("INSERT INTO orders (user_id, order_number, total_amount, final_amount, status, "
+                    + "customer_name, customer_email) SELECT MIN(id), CONCAT('TEST-', UUID_SHORT()), 250.00, 250.00, '"
+                    + status + "', 'Test Customer', 'test@example.com' FROM users", Statement.RETURN_GENERATED_KEYS);
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    private static void waitForLockWait() throws Exception {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            if (queryLong("SELECT COUNT(*) FROM information_schema.processlist WHERE state LIKE 'Waiting for table%'") > 0) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        fail("The rebuild never reached its query");
+    }
+
+    private static long queryLong(String sql) throws SQLException {
+        try (Connection connection = TestDatabase.connect();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
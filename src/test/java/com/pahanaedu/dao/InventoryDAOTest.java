@@ -0,0 +1,143 @@
+package com.pahanaedu.dao;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.pahanaedu.TestDatabase;
+import com.pahanaedu.models.Order;
+import com.pahanaedu.models.OrderItem;
+import com.pahanaedu.utils.DatabaseConnection;
+
+import junit.framework.TestCase;
+
+/**
+ * Stock reservation under contention, against the embedded database
+ */
+public class InventoryDAOTest extends TestCase {
+
+    private static final AtomicInteger ORDER_SEQUENCE = new AtomicInteger();
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.reset();
+        ProductDAO.getInstance().getCatalogCache().invalidate();
+    }
+
+    public void testConcurrentOrdersNeverOversell() throws Exception {
+        execute("UPDATE products SET stock_quantity = 25 WHERE id = 1");
+        execute("UPDATE products SET stock_quantity = 40 WHERE id = 2");
+        // Warm the cache so the test also checks what it shows afterwards
+        assertEquals(25, ProductDAO.getInstance().getProductById(1).getStockQuantity());
+
+        int threads = 50;
+        int ordersPerThread = 40;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final boolean reversed = t % 2 == 0;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ordersPerThread; i++) {
+                        // Lines listed in both orders: reserve() must still lock in id order
+                        Order order = reversed ? newOrder(line(2, 1), line(1, 1)) : newOrder(line(1, 1), line(2, 1));
+                        try {
+                            if (OrderDAO.getInstance().createOrderWithItems(order)) {
+                                placed.incrementAndGet();
+                            } else {
+                                failure.compareAndSet(null, new AssertionError("Order failed without a stock error"));
+                            }
+                        } catch (InsufficientStockException e) {
+                            refused.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(25, placed.get());
+        assertEquals(threads * ordersPerThread - 25, refused.get());
+        assertEquals(0, queryInt("SELECT stock_quantity FROM products WHERE id = 1"));
+        assertEquals(15, queryInt("SELECT stock_quantity FROM products WHERE id = 2"));
+        assertEquals(25, queryInt("SELECT COALESCE(SUM(oi.quantity), 0) FROM order_items oi "
+                + "JOIN orders o ON o.id = oi.order_id WHERE oi.product_id = 1 AND o.order_number LIKE 'TEST%'"));
+        assertEquals(0, ProductDAO.getInstance().getProductById(1).getStockQuantity());
+        assertEquals(15, ProductDAO.getInstance().getProductById(2).getStockQuantity());
+    }
+
+    public void testCachedStockIsRefreshedInOneRoundTrip() throws Exception {
+        List<Integer> ids = Arrays.asList(1, 2, 3, 4, 5);
+        ProductDAO.getInstance().getAllProducts();
+        execute("UPDATE products SET stock_quantity = 7 WHERE id IN (1, 2, 3, 4, 5)");
+
+        long borrowsBefore = DatabaseConnection.getPool().getBorrowCount();
+        InventoryDAO.getInstance().refreshCachedStock(ids);
+        assertEquals(1, DatabaseConnection.getPool().getBorrowCount() - borrowsBefore);
+
+        for (Integer id : ids) {
+            assertEquals(7, ProductDAO.getInstance().getProductById(id).getStockQuantity());
+        }
+    }
+
+    private static Order newOrder(OrderItem... items) {
+        Order order = new Order();
+        order.setUserId(2);
+        order.setOrderNumber("TEST" + ORDER_SEQUENCE.incrementAndGet());
+        order.setTotalAmount(new BigDecimal("2.00"));
+        order.setDiscountAmount(BigDecimal.ZERO);
+        order.setFinalAmount(new BigDecimal("2.00"));
+        order.setStatus(Order.STATUS_PENDING);
+        order.setCustomerName("Load Test");
+        order.setCustomerEmail("load@example.com");
+        order.setOrderItems(Arrays.asList(items));
+        return order;
+    }
+
+    private static OrderItem line(int productId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setUnitPrice(BigDecimal.ONE);
+        item.setTotalPrice(BigDecimal.valueOf(quantity));
+        return item;
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = TestDatabase.connect(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static int queryInt(String sql) throws SQLException {
+        try (Connection connection = TestDatabase.connect();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
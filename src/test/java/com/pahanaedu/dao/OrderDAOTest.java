@@ -0,0 +1,116 @@
+package com.pahanaedu.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.pahanaedu.TestDatabase;
+import com.pahanaedu.models.Order;
+import com.pahanaedu.utils.OrderNumberGenerator;
+import com.pahanaedu.utils.StatementMetrics;
+
+import junit.framework.TestCase;
+
+/**
+ * OrderDAO queries against the embedded database
+ */
+public class OrderDAOTest extends TestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.reset();
+    }
+
+    public void testLatestOrderNumberIsPerNode() throws Exception {
+        String pattern = OrderNumberGenerator.getInstance().getNumberPattern();
+        assertNull(OrderDAO.getInstance().getLatestOrderNumber(pattern));
+
+        String node = pattern.substring(20, 23);
+        String other = node.equals("999") ? "998" : "999";
+        insertOrder("ORD20300101000000000" + node + "0002");
+        insertOrder("ORD20300101000000000" + node + "0001");
+        insertOrder("ORD20200101000000000" + node + "0005");
+        insertOrder("ORD20990101000000000" + other + "0001");
+
+        assertEquals("ORD20300101000000000" + node + "0002", OrderDAO.getInstance().getLatestOrderNumber(pattern));
+    }
+
+    public void testItemsForAPageCostOneQueryPerChunk() throws Exception {
+        addOrders(InClause.CHUNK_SIZE + 100, 3);
+        List<Order> all = OrderDAO.getInstance().getAllOrders();
+        assertTrue(all.size() > InClause.CHUNK_SIZE);
+
+        for (int pageSize : new int[] {1, 20, 200, all.size()}) {
+            List<Order> page = new ArrayList<>(all.subList(0, pageSize));
+            int chunks = (pageSize + InClause.CHUNK_SIZE - 1) / InClause.CHUNK_SIZE;
+
+            long before = statementCount();
+            OrderDAO.getInstance().loadOrderItems(page);
+            assertEquals("items for " + pageSize + " orders", chunks, statementCount() - before);
+            for (Order order : page) {
+                if (order.getOrderNumber().startsWith("TEST")) {
+                    assertEquals(3, order.getOrderItems().size());
+                }
+            }
+
+            List<Integer> ids = new ArrayList<>();
+            for (Order order : page) {
+                ids.add(order.getId());
+            }
+            before = statementCount();
+            Map<Integer, Integer> counts = OrderDAO.getInstance().getItemCountsForOrders(ids);
+            assertEquals("counts for " + pageSize + " orders", chunks, statementCount() - before);
+            assertEquals(pageSize, counts.size());
+        }
+    }
+
+    /**
+     * Statements run through the pool so far, whatever their SQL
+     */
+    private static long statementCount() {
+        long total = 0;
+        for (StatementMetrics.StatementStats stats : StatementMetrics.getInstance().getAll()) {
+            total += stats.getCount();
+        }
+        return total;
+    }
+
+    private static void addOrders(int orders, int itemsPerOrder) throws SQLException {
+        try (Connection connection = TestDatabase.connect()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement order = connection.prepareStatement(
+                    "INSERT INTO orders (user_id, order_number, total_amount, final_amount, customer_name, "
+                    + "customer_email) VALUES (2, ?, 10, 10, 'Test', 'test@example.com')", Statement.RETURN_GENERATED_KEYS);
+                 PreparedStatement item = connection.prepareStatement(
+                    "INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price) "
+                    + "VALUES (?, ?, 1, 5, 5)")) {
+                for (int i = 0; i < orders; i++) {
+                    order.setString(1, String.format("TEST%06d", i));
+                    order.executeUpdate();
+                    try (ResultSet keys = order.getGeneratedKeys()) {
+                        keys.next();
+                        for (int j = 0; j < itemsPerOrder; j++) {
+                            item.setInt(1, keys.getInt(1));
+                            item.setInt(2, j % 2 + 1);
+                            item.addBatch();
+                        }
+                    }
+                }
+                item.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private static void insertOrder(String orderNumber) throws SQLException {
+        try (Connection connection = TestDatabase.connect(); Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO orders (user_id, order_number, total_amount, final_amount, customer_name, "
+                    + "customer_email) VALUES (2, '" + orderNumber + "', 1, 1, 'Test', 'test@example.com')");
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.pahanaedu.dao;
+
+import java.lang.reflect.Constructor;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import com.pahanaedu.models.Product;
+
+import junit.framework.TestCase;
+
+/**
+ * Snapshot patching: after any sequence of single and batch writes the cached orderings
+ * must match a catalog sorted from scratch.
+ */
+public class ProductCatalogCacheTest extends TestCase {
+
+    private final Map<Integer, Product> table = new TreeMap<>();
+    private final Random random = new Random(42);
+    private ProductCatalogCache cache;
+    private int loadAllCalls;
+
+    @Override
+    protected void setUp() throws Exception {
+        // A private instance, so the shared one keeps ProductDAO's loader for the other tests
+        Constructor<ProductCatalogCache> constructor = ProductCatalogCache.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        cache = constructor.newInstance();
+        cache.setLoader(new ProductCatalogCache.Loader() {
+            @Override
+            public List<Product> loadAll() {
+                loadAllCalls++;
+                return copies(new ArrayList<>(table.values()));
+            }
+
+            @Override
+            public Product loadById(int id) {
+                Product product = table.get(id);
+                return product != null ? new Product(product) : null;
+            }
+
+            @Override
+            public List<Product> loadByIds(List<Integer> ids) {
+                List<Product> found = new ArrayList<>();
+                for (Integer id : ids) {
+                    if (table.containsKey(id)) {
+                        found.add(new Product(table.get(id)));
+                    }
+                }
+                return found;
+            }
+        });
+        cache.invalidate();
+        for (int id = 1; id <= 200; id++) {
+            table.put(id, randomProduct(id));
+        }
+    }
+
+    public void testSingleWritesKeepOrderings() {
+        cache.getAll();
+        int nextId = 201;
+        for (int i = 0; i < 2000; i++) {
+            int action = random.nextInt(10);
+            if (action < 6 && !table.isEmpty()) {
+                int id = randomExistingId();
+                table.put(id, randomProduct(id));
+                cache.refresh(id);
+            } else if (action < 8) {
+                int id = nextId++;
+                table.put(id, randomProduct(id));
+                cache.refresh(id);
+            } else if (!table.isEmpty()) {
+                int id = randomExistingId();
+                table.remove(id);
+                cache.remove(id);
+            }
+        }
+        assertMatchesTable();
+        assertEquals(1, loadAllCalls);
+    }
+
+    public void testBatchWritesKeepOrderings() {
+        cache.getAll();
+        for (int size : new int[] { 1, 5, 16, 17, 150 }) {
+            List<Product> batch = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                int id = random.nextInt(3) == 0 ? 1000 + random.nextInt(500) : randomExistingId();
+                Product product = randomProduct(id);
+                table.put(id, product);
+                batch.add(new Product(product));
+            }
+            cache.apply(batch);
+            assertMatchesTable();
+        }
+        assertEquals(1, loadAllCalls);
+    }
+
+    public void testProductsHandedOutAreCopies() {
+        Product product = cache.get(1);
+        product.setTitle("changed");
+        assertFalse("changed".equals(cache.get(1).getTitle()));
+    }
+
+    private void assertMatchesTable() {
+        List<Product> expectedAll = new ArrayList<>(table.values());
+        Collections.sort(expectedAll, Comparator.comparing((Product p) -> p.getCreatedAt().getTime()).reversed()
+                .thenComparing(Comparator.comparingInt(Product::getId).reversed()));
+        List<Product> expectedActive = new ArrayList<>();
+        for (Product product : table.values()) {
+            if (product.isActive()) {
+                expectedActive.add(product);
+            }
+        }
+        Collections.sort(expectedActive, (a, b) -> {
+            int cmp = a.getTitle().compareToIgnoreCase(b.getTitle());
+            return cmp != 0 ? cmp : Integer.compare(a.getId(), b.getId());
+        });
+
+        assertEquals(ids(expectedAll), ids(cache.getAll()));
+        assertEquals(ids(expectedActive), ids(cache.getActive()));
+        for (Product product : table.values()) {
+            Product cached = cache.get(product.getId());
+            assertEquals(product.getTitle(), cached.getTitle());
+            assertEquals(product.getStockQuantity(), cached.getStockQuantity());
+        }
+        assertEquals(table.size(), cache.getSize());
+    }
+
+    private int randomExistingId() {
+        List<Integer> ids = new ArrayList<>(table.keySet());
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private Product randomProduct(int id) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle("Title " + (char) ('a' + random.nextInt(26)) + random.nextInt(50));
+        product.setStatus(random.nextInt(4) == 0 ? "inactive" : "active");
+        product.setStockQuantity(random.nextInt(100));
+        // Few distinct timestamps, so ties on created_at are common
+        product.setCreatedAt(new Timestamp(1_600_000_000_000L + random.nextInt(20) * 1000L));
+        return product;
+    }
+
+    private static List<Integer> ids(List<Product> products) {
+        List<Integer> ids = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ids.add(product.getId());
+        }
+        return ids;
+    }
+
+    private static List<Product> copies(List<Product> products) {
+        List<Product> copies = new ArrayList<>(products.size());
+        for (Product product : products) {
+            copies.add(new Product(product));
+        }
+        return copies;
+    }
+}
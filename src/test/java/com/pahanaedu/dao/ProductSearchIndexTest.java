@@ -0,0 +1,64 @@
+package com.pahanaedu.dao;
+
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.pahanaedu.models.Product;
+
+import junit.framework.TestCase;
+
+/**
+ * Typo matching and in-place updates of the search index
+ */
+public class ProductSearchIndexTest extends TestCase {
+
+    private ProductSearchIndex index;
+
+    @Override
+    protected void setUp() throws Exception {
+        Constructor<ProductSearchIndex> constructor = ProductSearchIndex.class.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        index = constructor.newInstance();
+        index.rebuild(Arrays.asList(
+                product(1, "Harry Potter", "Rowling"),
+                product(2, "Madol Doova", "Wickramasinghe"),
+                product(3, "Gamperaliya", "Wickramasinghe")));
+    }
+
+    private static Product product(int id, String title, String author) {
+        Product product = new Product();
+        product.setId(id);
+        product.setTitle(title);
+        product.setAuthor(author);
+        product.setCategoryName("Novels");
+        return product;
+    }
+
+    public void testBoundedEditDistance() {
+        assertEquals(0, ProductSearchIndex.boundedEditDistance("harry", "harry", 1));
+        assertEquals(1, ProductSearchIndex.boundedEditDistance("hary", "harry", 1));
+        assertEquals(2, ProductSearchIndex.boundedEditDistance("wickramsinge", "wickramasinghe", 2));
+        assertEquals(2, ProductSearchIndex.boundedEditDistance("potter", "plotters", 1));
+    }
+
+    public void testMisspellingsWithinReachMatch() {
+        assertEquals(Collections.singletonList(1), index.search("pottr", 10));
+        assertEquals(Arrays.asList(2, 3), index.search("wickramsinge", 10));
+        assertTrue(index.search("madal dava", 10).contains(2));
+        // Two edits away from a five-letter word is too far
+        assertTrue(index.search("mxdxl", 10).isEmpty());
+    }
+
+    public void testUpsertReplacesTermsInPlace() {
+        index.onUpsert(product(1, "Harry Potter and the Goblet", "Rowling"));
+        assertEquals(Collections.singletonList(1), index.search("goblet", 10));
+        assertEquals(Collections.singletonList(1), index.search("harry", 10));
+
+        index.onUpsert(product(1, "The Hobbit", "Tolkien"));
+        assertTrue(index.search("harry", 10).isEmpty());
+        assertTrue(index.search("pottr", 10).isEmpty());
+        assertEquals(Collections.singletonList(1), index.search("hobit", 10));
+        assertEquals(3, index.getDocumentCount());
+    }
+}
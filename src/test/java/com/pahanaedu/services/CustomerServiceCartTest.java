@@ -0,0 +1,91 @@
+package com.pahanaedu.services;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pahanaedu.TestDatabase;
+import com.pahanaedu.dao.ProductDAO;
+import com.pahanaedu.models.Cart;
+import com.pahanaedu.models.CartItem;
+import com.pahanaedu.utils.StatementMetrics;
+
+import junit.framework.TestCase;
+
+/**
+ * Cart revalidation: one product lookup for the whole cart, whatever its size
+ */
+public class CustomerServiceCartTest extends TestCase {
+
+    // Ids no other test uses, so the shared catalog cache has never seen them
+    private static final int FIRST_ID = 900_000;
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.reset();
+        // Load the catalog snapshot up front so the measured calls only see per-id misses
+        ProductDAO.getInstance().getAllProducts();
+    }
+
+    public void testOneRoundTripWhateverTheCartSize() throws Exception {
+        CustomerService service = CustomerService.getInstance();
+        int nextId = FIRST_ID;
+        for (int lines : new int[] {1, 10, 200}) {
+            Cart cart = new Cart();
+            List<Integer> ids = addProducts(nextId, lines);
+            nextId += lines;
+            for (Integer id : ids) {
+                cart.add(item(id, 2), 100);
+            }
+
+            // Not cached yet: one multi-get against the database
+            long before = statementCount();
+            List<String> issues = new ArrayList<>();
+            List<CartItem> valid = service.revalidateCart(cart, issues);
+            assertEquals(lines + " lines", 1, statementCount() - before);
+            assertEquals(lines, valid.size());
+            assertTrue(issues.isEmpty());
+            assertEquals(new BigDecimal("7.50"), valid.get(0).getUnitPrice());
+
+            // Now cached: no database work at all
+            before = statementCount();
+            service.revalidateCart(cart, issues);
+            assertEquals(lines + " lines, cached", 0, statementCount() - before);
+        }
+    }
+
+    private static CartItem item(int productId, int quantity) {
+        CartItem item = new CartItem();
+        item.setProductId(productId);
+        item.setUnitPrice(new BigDecimal("1.00"));
+        item.setQuantity(quantity);
+        return item;
+    }
+
+    private static List<Integer> addProducts(int firstId, int count) throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection connection = TestDatabase.connect();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO products (id, title, price, offer_price, stock_quantity, status) "
+                     + "VALUES (?, ?, 10, 7.50, 20, 'active')")) {
+            for (int i = 0; i < count; i++) {
+                statement.setInt(1, firstId + i);
+                statement.setString(2, "Cart test " + (firstId + i));
+                statement.addBatch();
+                ids.add(firstId + i);
+            }
+            statement.executeBatch();
+        }
+        return ids;
+    }
+
+    private static long statementCount() {
+        long total = 0;
+        for (StatementMetrics.StatementStats stats : StatementMetrics.getInstance().getAll()) {
+            total += stats.getCount();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,60 @@
+package com.pahanaedu.services;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import com.pahanaedu.TestDatabase;
+import com.pahanaedu.models.Order;
+import com.pahanaedu.models.OrderItem;
+
+import junit.framework.TestCase;
+
+/**
+ * POS bill markup: order and item text is HTML-escaped
+ */
+public class StaffServiceBillTest extends TestCase {
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.start();
+    }
+
+    private static Order order(String title, String customer, String shippingAddress) {
+        OrderItem item = new OrderItem();
+        item.setProductTitle(title);
+        item.setQuantity(2);
+        item.setUnitPrice(new BigDecimal("450.00"));
+        item.setTotalPrice(new BigDecimal("900.00"));
+
+        Order order = new Order();
+        order.setOrderNumber("ORD1001");
+        order.setCustomerName(customer);
+        order.setShippingAddress(shippingAddress);
+        order.setCreatedAt(Timestamp.valueOf("2026-03-01 10:15:00"));
+        order.setTotalAmount(new BigDecimal("900.00"));
+        order.setFinalAmount(new BigDecimal("900.00"));
+        order.setOrderItems(Arrays.asList(item));
+        return order;
+    }
+
+    public void testTextIsHtmlEscaped() {
+        String html = StaffService.getInstance().generateBillHTML(
+                order("<img src=x onerror=alert(1)>", "O'Neil & Sons", "Payment: <b>Card</b> | Notes: none"));
+
+        assertFalse(html.contains("<img"));
+        assertTrue(html.contains("&lt;img src=x onerror=alert(1)&gt;"));
+        assertTrue(html.contains("O&#39;Neil &amp; Sons"));
+        assertTrue(html.contains("<strong>Payment:</strong> &lt;b&gt;Card&lt;/b&gt;"));
+    }
+
+    public void testBillContent() {
+        String html = StaffService.getInstance().generateBillHTML(order("Madol Doova", "Nimal", null));
+
+        assertTrue(html.startsWith("<!DOCTYPE html><html><head><title>Bill - ORD1001</title>"));
+        assertTrue(html.contains("<strong>Date:</strong> 2026-03-01 10:15"));
+        assertTrue(html.contains("<strong>Payment:</strong> Cash"));
+        assertTrue(html.contains("<tr><td>Madol Doova</td><td>2</td><td>Rs. 450.00</td><td>Rs. 900.00</td></tr>"));
+        assertTrue(html.endsWith("</body></html>"));
+    }
+}
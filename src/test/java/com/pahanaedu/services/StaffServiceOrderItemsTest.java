@@ -0,0 +1,62 @@
+package com.pahanaedu.services;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import com.pahanaedu.models.OrderItem;
+import com.pahanaedu.utils.JsonParseException;
+
+import junit.framework.TestCase;
+
+/**
+ * The POS basket parser: accepted shapes, limits, and prices that must be refused before
+ * any arithmetic is done on them.
+ */
+public class StaffServiceOrderItemsTest extends TestCase {
+
+    public void testBasketIsRead() throws Exception {
+        List<OrderItem> items = StaffService.parseOrderItemsFromJson(
+                "[{\"productId\":1,\"productTitle\":\"Grade 5 \\\"Maths\\\"\",\"quantity\":2,\"unitPrice\":450,\"totalPrice\":900},"
+                + " {\"productId\":7,\"productTitle\":null,\"quantity\":1,\"unitPrice\":99.5}]");
+        assertEquals(2, items.size());
+        assertEquals("Grade 5 \"Maths\"", items.get(0).getProductTitle());
+        assertEquals(new BigDecimal("450.00"), items.get(0).getUnitPrice());
+        assertEquals(new BigDecimal("900.00"), items.get(0).getTotalPrice());
+        assertNull(items.get(1).getProductTitle());
+        assertEquals(new BigDecimal("99.50"), items.get(1).getUnitPrice());
+    }
+
+    public void testExponentPricesAreRefused() {
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":1e-99999999}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":1e-999999999}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":1E+2}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":4.5e2}]");
+    }
+
+    public void testPricesBeyondTheColumnAreRefused() {
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":450.001}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":0.000000000000000000000000000001}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":123456789.00}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":-1}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1}]");
+    }
+
+    public void testLinesAreValidated() {
+        assertRefused("[{\"productId\":0,\"quantity\":1,\"unitPrice\":1}]");
+        assertRefused("[{\"productId\":1,\"quantity\":0,\"unitPrice\":1}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1.5,\"unitPrice\":1}]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":1},]");
+        assertRefused("[{\"productId\":1,\"quantity\":1,\"unitPrice\":1}] x");
+        assertRefused("");
+    }
+
+    private static void assertRefused(String json) {
+        long started = System.nanoTime();
+        try {
+            StaffService.parseOrderItemsFromJson(json);
+            fail("Expected " + json + " to be refused");
+        } catch (JsonParseException e) {
+            assertTrue("took too long to refuse " + json, System.nanoTime() - started < 1_000_000_000L);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.pahanaedu.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.pahanaedu.TestDatabase;
+
+import junit.framework.TestCase;
+
+/**
+ * ConnectionPool against the embedded database: bounding, timeouts, reuse, validation,
+ * leak detection and cleanup of what borrowers leave open.
+ */
+public class ConnectionPoolTest extends TestCase {
+
+    private static final String[] SETTINGS = {
+        "db.pool.maxSize", "db.pool.minIdle", "db.pool.connectionTimeoutMs", "db.pool.validationIntervalMs",
+        "db.pool.leakDetectionThresholdMs", "db.pool.housekeepingPeriodMs", "db.pool.maxLifetimeMs"
+    };
+
+    private ConnectionPool pool;
+
+    @Override
+    protected void setUp() throws Exception {
+        TestDatabase.start();
+        System.setProperty("db.pool.maxSize", "4");
+        System.setProperty("db.pool.minIdle", "0");
+        System.setProperty("db.pool.connectionTimeoutMs", "300");
+    }
+
+    @Override
+    protected void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        for (String setting : SETTINGS) {
+            System.clearProperty(setting);
+        }
+    }
+
+    private ConnectionPool newPool() {
+        pool = new ConnectionPool(System.getProperty("db.url"), "root", "");
+        return pool;
+    }
+
+    public void testReturnedConnectionIsReused() throws Exception {
+        newPool();
+        for (int i = 0; i < 50; i++) {
+            try (Connection connection = pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT 1")) {
+                assertTrue(rs.next());
+            }
+        }
+        assertEquals(1, pool.getCreatedCount());
+        assertEquals(50, pool.getBorrowCount());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+    }
+
+    public void testBorrowTimesOutWithTypedException() throws Exception {
+        newPool();
+        List<Connection> held = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            held.add(pool.getConnection());
+        }
+        assertEquals(4, pool.getActiveCount());
+
+        long started = System.currentTimeMillis();
+        try {
+            pool.getConnection();
+            fail("Expected a timeout with every connection borrowed");
+        } catch (ConnectionPoolTimeoutException e) {
+            assertTrue(System.currentTimeMillis() - started >= 250);
+            assertTrue(e.getWaitedMillis() >= 250);
+        }
+        assertEquals(1, pool.getTimeoutCount());
+
+        for (Connection connection : held) {
+            connection.close();
+        }
+        pool.getConnection().close();
+        assertEquals(4, pool.getTotalCount());
+    }
+
+    public void testConcurrentBorrowersNeverExceedMaxSize() throws Exception {
+        System.setProperty("db.pool.connectionTimeoutMs", "10000");
+        newPool();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 200; i++) {
+                        try (Connection connection = pool.getConnection();
+                             PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+                            maxActive.accumulateAndGet(pool.getActiveCount(), Math::max);
+                            statement.setInt(1, i);
+                            try (ResultSet rs = statement.executeQuery()) {
+                                rs.next();
+                                assertEquals(i, rs.getInt(1));
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertTrue("active " + maxActive.get(), maxActive.get() <= 4);
+        assertTrue(pool.getCreatedCount() <= 4);
+        assertEquals(threads * 200, pool.getBorrowCount());
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(threads * 200, pool.getBorrowLatency().getCount());
+    }
+
+    public void testStatementsLeftOpenAreClosedOnReturn() throws Exception {
+        newPool();
+        Connection connection = pool.getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet rs = statement.executeQuery("SELECT 1");
+        connection.close();
+
+        assertTrue(statement.isClosed());
+        assertTrue(rs.isClosed());
+        try {
+            connection.createStatement();
+            fail("A returned connection must not be usable");
+        } catch (SQLException e) {
+            assertEquals("08003", e.getSQLState());
+        }
+    }
+
+    public void testUncommittedWorkIsRolledBackOnReturn() throws Exception {
+        newPool();
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMPORARY TABLE pool_test (id INT) ENGINE=InnoDB");
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO pool_test VALUES (1)");
+        }
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM pool_test")) {
+            assertTrue(connection.getAutoCommit());
+            rs.next();
+            assertEquals(0, rs.getInt(1));
+        }
+        assertEquals(1, pool.getCreatedCount());
+    }
+
+    public void testDeadConnectionIsReplacedOnBorrow() throws Exception {
+        System.setProperty("db.pool.validationIntervalMs", "0");
+        newPool();
+        long connectionId;
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT CONNECTION_ID()")) {
+            rs.next();
+            connectionId = rs.getLong(1);
+        }
+        try (Connection admin = TestDatabase.connect(); Statement statement = admin.createStatement()) {
+            statement.execute("KILL CONNECTION " + connectionId);
+        }
+
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT CONNECTION_ID()")) {
+            rs.next();
+            assertTrue(rs.getLong(1) != connectionId);
+        }
+        assertEquals(1, pool.getValidationFailureCount());
+        assertEquals(2, pool.getCreatedCount());
+    }
+
+    public void testExpiredConnectionIsRetired() throws Exception {
+        System.setProperty("db.pool.maxLifetimeMs", "50");
+        newPool();
+        pool.getConnection().close();
+        Thread.sleep(100);
+        pool.getConnection().close();
+        assertEquals(2, pool.getCreatedCount());
+        assertTrue(pool.getClosedCount() >= 1);
+    }
+
+    public void testLeakIsReported() throws Exception {
+        System.setProperty("db.pool.leakDetectionThresholdMs", "50");
+        System.setProperty("db.pool.housekeepingPeriodMs", "1000");
+        newPool();
+        try (Connection connection = pool.getConnection()) {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pool.getLeakCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(1, pool.getLeakCount());
+        }
+    }
+
+    public void testShutdownRefusesBorrowers() throws Exception {
+        newPool();
+        pool.getConnection().close();
+        pool.shutdown();
+        assertEquals(0, pool.getIdleCount());
+        try {
+            pool.getConnection();
+            fail("Expected the pool to refuse after shutdown");
+        } catch (SQLException e) {
+            assertEquals("08003", e.getSQLState());
+        }
+    }
+}
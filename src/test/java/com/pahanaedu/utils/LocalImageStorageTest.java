@@ -0,0 +1,79 @@
+package com.pahanaedu.utils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import junit.framework.TestCase;
+
+/**
+ * Removal of stored images against uploads that re-use them
+ */
+public class LocalImageStorageTest extends TestCase {
+
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+
+    private Path root;
+    private LocalImageStorage storage;
+
+    @Override
+    protected void setUp() throws Exception {
+        root = Files.createTempDirectory("images");
+        storage = new LocalImageStorage(root, "uploads/products/");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private String store(String content) throws Exception {
+        return storage.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), ".png", 1024);
+    }
+
+    private void age(String imagePath, long millis) throws Exception {
+        Files.setLastModifiedTime(storage.resolve(imagePath), FileTime.fromMillis(System.currentTimeMillis() - millis));
+    }
+
+    public void testOldImageIsRemoved() throws Exception {
+        String imagePath = store("picture");
+        age(imagePath, 2 * DAY);
+
+        assertTrue(storage.deleteIfOlderThan(imagePath, System.currentTimeMillis() - DAY));
+        assertFalse(storage.exists(imagePath));
+    }
+
+    public void testRecentImageIsKept() throws Exception {
+        String imagePath = store("picture");
+
+        assertFalse(storage.deleteIfOlderThan(imagePath, System.currentTimeMillis() - DAY));
+        assertTrue(storage.exists(imagePath));
+    }
+
+    public void testUploadOfSameImageRestartsGracePeriod() throws Exception {
+        String imagePath = store("picture");
+        age(imagePath, 2 * DAY);
+        long cutoff = System.currentTimeMillis() - DAY;
+
+        // Re-uploaded after the sweep picked its candidates but before it removed them
+        assertEquals(imagePath, store("picture"));
+        assertFalse(storage.deleteIfOlderThan(imagePath, cutoff));
+        assertTrue(storage.exists(imagePath));
+    }
+
+    public void testQuarantineMovesTheFile() throws Exception {
+        String imagePath = store("picture");
+        age(imagePath, 2 * DAY);
+        Path quarantine = root.resolve("quarantine");
+
+        assertTrue(storage.removeIfOlderThan(imagePath, System.currentTimeMillis() - DAY, quarantine));
+        assertFalse(storage.exists(imagePath));
+        assertTrue(Files.exists(quarantine.resolve(storage.resolve(imagePath).getFileName())));
+    }
+}
@@ -0,0 +1,114 @@
+package com.pahanaedu.utils;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.TestCase;
+
+/**
+ * Order numbers: unique and increasing under contention, and never reissued after a restart
+ */
+public class OrderNumberGeneratorTest extends TestCase {
+
+    public void testUniqueAcrossThreads() throws Exception {
+        final OrderNumberGenerator generator = new OrderNumberGenerator(7);
+        final int threads = 8;
+        final int perThread = 250_000;
+        final long[][] states = new long[threads][perThread];
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            final long[] mine = states[t];
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    String previous = "";
+                    for (int i = 0; i < perThread; i++) {
+                        String number = generator.nextOrderNumber();
+                        if (number.compareTo(previous) <= 0) {
+                            throw new AssertionError(number + " does not sort after " + previous);
+                        }
+                        mine[i] = OrderNumberGenerator.parseState(number);
+                        previous = number;
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+
+        long[] all = new long[threads * perThread];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(states[t], 0, all, t * perThread, perThread);
+        }
+        Arrays.sort(all);
+        assertTrue(all[0] > 0);
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                fail("Duplicate order number state " + all[i]);
+            }
+        }
+    }
+
+    public void testFormatRoundTrips() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(42);
+        String number = generator.nextOrderNumber();
+        assertEquals(27, number.length());
+        assertTrue(number.startsWith("ORD"));
+        assertEquals("042", number.substring(20, 23));
+        long state = OrderNumberGenerator.parseState(number);
+        assertTrue(Math.abs((state >>> 12) - System.currentTimeMillis()) < 5_000);
+        assertTrue(number.matches(generator.getNumberPattern().replace('_', '.')));
+    }
+
+    public void testAdvancePastNumberFromTheFuture() {
+        OrderNumberGenerator before = new OrderNumberGenerator(3);
+        // As if the clock was 10 minutes ahead before the restart
+        long ahead = System.currentTimeMillis() + 600_000L;
+        String issued = null;
+        for (int i = 0; i < 3; i++) {
+            issued = numberAt(before, ahead);
+        }
+
+        OrderNumberGenerator after = new OrderNumberGenerator(3);
+        after.advancePast(issued);
+        String next = after.nextOrderNumber();
+        assertTrue(next + " should sort after " + issued, next.compareTo(issued) > 0);
+    }
+
+    public void testForeignNumbersAreIgnored() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1);
+        generator.advancePast("ORD1001");
+        generator.advancePast(null);
+        generator.advancePast("ORD2025X7261425571230010001");
+        assertEquals(-1, OrderNumberGenerator.parseState("ORD20251332142557123001" + "0001"));
+        assertTrue(OrderNumberGenerator.parseState(generator.nextOrderNumber()) > 0);
+    }
+
+    /**
+     * Number as the generator would have produced it with the clock at the given time
+     */
+    private static String numberAt(OrderNumberGenerator generator, long millis) {
+        String now = generator.nextOrderNumber();
+        String timestamp = DateTimeFormatter.ofPattern("yyyyMMddHHmmssSSS").withZone(ZoneOffset.UTC)
+                .format(Instant.ofEpochMilli(millis));
+        return "ORD" + timestamp + now.substring(20);
+    }
+}
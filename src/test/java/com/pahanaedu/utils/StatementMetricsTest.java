@@ -0,0 +1,42 @@
+package com.pahanaedu.utils;
+
+import junit.framework.TestCase;
+
+/**
+ * Metrics keys: whitespace folding and truncation without a regex per execution
+ */
+public class StatementMetricsTest extends TestCase {
+
+    public void testWhitespaceIsCollapsed() {
+        assertEquals("SELECT * FROM products WHERE id = ?",
+                StatementMetrics.keyFor("  SELECT *\n\tFROM products\r\n   WHERE id = ?  \n"));
+    }
+
+    public void testLongStatementIsTruncated() {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        for (int i = 0; i < 100; i++) {
+            sql.append("column_").append(i).append(", ");
+        }
+        String key = StatementMetrics.keyFor(sql.append("1 FROM t").toString());
+        assertEquals(303, key.length());
+        assertTrue(key.endsWith("..."));
+    }
+
+    public void testNullSql() {
+        assertEquals("(unknown)", StatementMetrics.keyFor(null));
+    }
+
+    public void testRecordUsesKeyAsIs() {
+        StatementMetrics metrics = StatementMetrics.getInstance();
+        metrics.reset();
+        String key = StatementMetrics.keyFor("SELECT 1");
+        metrics.record(key, 1_000_000L, false);
+        metrics.record(key, 3_000_000L, true);
+        assertEquals(1, metrics.getAll().size());
+        StatementMetrics.StatementStats stats = metrics.getAll().get(0);
+        assertEquals("SELECT 1", stats.getSql());
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getErrorCount());
+        metrics.reset();
+    }
+}